@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.integrationtests;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jayway.restassured.builder.RequestSpecBuilder;
+import com.jayway.restassured.builder.ResponseSpecBuilder;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.jayway.restassured.specification.ResponseSpecification;
+import com.ls.integrationtests.common.ClientHelper;
+import com.ls.integrationtests.common.StatementCounter;
+import com.ls.integrationtests.common.Utils;
+import com.ls.integrationtests.common.charges.ChargesHelper;
+import com.ls.integrationtests.common.loans.LoanApplicationTestBuilder;
+import com.ls.integrationtests.common.loans.LoanProductTestBuilder;
+import com.ls.integrationtests.common.loans.LoanTransactionHelper;
+import com.ls.portfolio.loanaccount.domain.LoanFetchPlan;
+
+/**
+ * Counts the statements the server runs for the loan commands which load the
+ * loan with a {@link LoanFetchPlan}, and keeps each of them within a fixed
+ * number of statements.
+ * 
+ * The counts include authenticating the request and writing the journal
+ * entries, so the limits are not tight; they catch a command going back to
+ * loading the collections of the loan, or its installments, one by one.
+ */
+public class LoanFetchPlanQueryCountIntegrationTest {
+
+    private static final long MAX_DISBURSEMENT_STATEMENTS = 200;
+    private static final long MAX_REPAYMENT_STATEMENTS = 150;
+    private static final long MAX_ADD_CHARGE_STATEMENTS = 120;
+
+    private ResponseSpecification responseSpec;
+    private RequestSpecification requestSpec;
+    private LoanTransactionHelper loanTransactionHelper;
+    private StatementCounter statementCounter;
+
+    @Before
+    public void setup() {
+        Utils.initializeRESTAssured();
+        this.requestSpec = new RequestSpecBuilder().setContentType(ContentType.JSON).build();
+        this.requestSpec.header("Authorization", "Basic " + Utils.loginIntoServerAndGetBase64EncodedAuthenticationKey());
+        this.responseSpec = new ResponseSpecBuilder().expectStatusCode(200).build();
+        this.loanTransactionHelper = new LoanTransactionHelper(this.requestSpec, this.responseSpec);
+        this.statementCounter = new StatementCounter();
+    }
+
+    @After
+    public void tearDown() {
+        this.statementCounter.close();
+    }
+
+    @Test
+    public void disbursementStaysWithinItsStatements() {
+        final Integer loanID = createApprovedLoan();
+
+        final long statements = this.statementCounter.count(new Runnable() {
+
+            @Override
+            public void run() {
+                LoanFetchPlanQueryCountIntegrationTest.this.loanTransactionHelper.disburseLoan("04 April 2012", loanID);
+            }
+        });
+
+        assertWithin("disbursement", MAX_DISBURSEMENT_STATEMENTS, statements);
+    }
+
+    @Test
+    public void repaymentStaysWithinItsStatements() {
+        final Integer loanID = createApprovedLoan();
+        this.loanTransactionHelper.disburseLoan("04 April 2012", loanID);
+        this.loanTransactionHelper.makeRepayment("04 May 2012", Float.valueOf(1100), loanID);
+
+        final long statements = this.statementCounter.count(new Runnable() {
+
+            @Override
+            public void run() {
+                LoanFetchPlanQueryCountIntegrationTest.this.loanTransactionHelper.makeRepayment("04 June 2012", Float.valueOf(1100),
+                        loanID);
+            }
+        });
+
+        assertWithin("repayment", MAX_REPAYMENT_STATEMENTS, statements);
+    }
+
+    @Test
+    public void addingAChargeStaysWithinItsStatements() {
+        final Integer loanID = createApprovedLoan();
+        this.loanTransactionHelper.disburseLoan("04 April 2012", loanID);
+        final Integer chargeID = ChargesHelper.createCharges(this.requestSpec, this.responseSpec,
+                ChargesHelper.getLoanSpecifiedDueDateJSON());
+
+        final long statements = this.statementCounter.count(new Runnable() {
+
+            @Override
+            public void run() {
+                LoanFetchPlanQueryCountIntegrationTest.this.loanTransactionHelper.addChargesForLoan(loanID,
+                        LoanTransactionHelper.getSpecifiedDueDateChargesForLoanAsJSON(chargeID.toString(), "20 June 2012", "100"));
+            }
+        });
+
+        assertWithin("adding a charge", MAX_ADD_CHARGE_STATEMENTS, statements);
+    }
+
+    private static void assertWithin(final String command, final long maxStatements, final long statements) {
+        assertTrue(command + " ran " + statements + " statements, at most " + maxStatements + " expected", statements <= maxStatements);
+    }
+
+    private Integer createApprovedLoan() {
+        final Integer clientID = ClientHelper.createClient(this.requestSpec, this.responseSpec, "01 January 2012");
+        final Integer loanProductID = this.loanTransactionHelper.getLoanProductId(new LoanProductTestBuilder().build(null));
+        final String loanApplication = new LoanApplicationTestBuilder().withPrincipal("5000").withLoanTermFrequency("5")
+                .withLoanTermFrequencyAsMonths().withNumberOfRepayments("5").withRepaymentEveryAfter("1")
+                .withRepaymentFrequencyTypeAsMonths().withInterestRatePerPeriod("2").withExpectedDisbursementDate("04 April 2012")
+                .withSubmittedOnDate("02 April 2012").build(clientID.toString(), loanProductID.toString(), null);
+        final Integer loanID = this.loanTransactionHelper.getLoanId(loanApplication);
+        this.loanTransactionHelper.approveLoan("02 April 2012", loanID);
+        return loanID;
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.jayway.restassured.builder.RequestSpecBuilder;
+import com.jayway.restassured.builder.ResponseSpecBuilder;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.jayway.restassured.specification.ResponseSpecification;
+import com.ls.integrationtests.common.ClientHelper;
+import com.ls.integrationtests.common.OfficeHelper;
+import com.ls.integrationtests.common.Utils;
+import com.ls.integrationtests.common.loans.LoanApplicationTestBuilder;
+import com.ls.integrationtests.common.loans.LoanProductTestBuilder;
+import com.ls.integrationtests.common.loans.LoanTransactionHelper;
+
+/**
+ * Follows a loan in the loan list served from <code>m_loan_listing</code>
+ * through the loan lifecycle and a client transfer, and checks that the list
+ * matches the list served by the full loan query, which a
+ * <code>sqlSearch</code> falls back to.
+ */
+@SuppressWarnings("rawtypes")
+public class LoanListingProjectionIntegrationTest {
+
+    private static final String LOANS_URL = "/fineract-provider/api/v1/loans";
+    private static final String CLIENTS_URL = "/fineract-provider/api/v1/clients";
+    private static final String LEGACY_QUERY = "sqlSearch=l.id is not null";
+
+    private ResponseSpecification responseSpec;
+    private RequestSpecification requestSpec;
+    private LoanTransactionHelper loanTransactionHelper;
+
+    @Before
+    public void setup() {
+        Utils.initializeRESTAssured();
+        this.requestSpec = new RequestSpecBuilder().setContentType(ContentType.JSON).build();
+        this.requestSpec.header("Authorization", "Basic " + Utils.loginIntoServerAndGetBase64EncodedAuthenticationKey());
+        this.responseSpec = new ResponseSpecBuilder().expectStatusCode(200).build();
+        this.loanTransactionHelper = new LoanTransactionHelper(this.requestSpec, this.responseSpec);
+    }
+
+    @Test
+    public void theLoanIsListedThroughItsLifecycle() {
+        final Integer clientID = ClientHelper.createClient(this.requestSpec, this.responseSpec, "01 January 2012");
+        final Integer loanID = applyForLoanApplication(clientID);
+        assertListed(loanID);
+
+        this.loanTransactionHelper.approveLoan("02 April 2012", loanID);
+        assertListed(loanID);
+
+        this.loanTransactionHelper.disburseLoan("04 April 2012", loanID);
+        assertListed(loanID);
+    }
+
+    @Test
+    public void theLoanIsListedForTheOfficeOfATransferredClient() {
+        final Integer officeID = new OfficeHelper(this.requestSpec, this.responseSpec).createOffice("01 January 2012");
+        final Integer clientID = ClientHelper.createClient(this.requestSpec, this.responseSpec, "01 January 2012");
+        final Integer loanID = applyForLoanApplication(clientID);
+        assertListed(loanID);
+
+        final Map<String, Object> transfer = new HashMap<>();
+        transfer.put("destinationOfficeId", officeID);
+        Utils.performServerPost(this.requestSpec, this.responseSpec, CLIENTS_URL + "/" + clientID + "?command=proposeAndAcceptTransfer&"
+                + Utils.TENANT_IDENTIFIER, new Gson().toJson(transfer), "clientId");
+
+        assertListed(loanID);
+        final List clientOfficeIds = Utils.performServerGet(this.requestSpec, this.responseSpec, LOANS_URL + "?accountNo="
+                + accountNoOf(loanID) + "&" + Utils.TENANT_IDENTIFIER, "pageItems.clientOfficeId");
+        assertEquals(Arrays.asList(officeID), clientOfficeIds);
+    }
+
+    @Test
+    public void theListMatchesTheFullLoanQuery() {
+        final Integer productID = this.loanTransactionHelper.getLoanProductId(new LoanProductTestBuilder().build(null));
+        Integer loanID = null;
+        for (int i = 0; i < 3; i++) {
+            final Integer clientID = ClientHelper.createClient(this.requestSpec, this.responseSpec, "01 January 2012");
+            loanID = applyForLoanApplication(clientID, productID);
+        }
+
+        assertSameList("orderBy=l.id&sortOrder=desc&limit=5");
+        assertSameList("orderBy=l.id&sortOrder=desc&limit=5&offset=2");
+        assertSameList("orderBy=l.account_no&sortOrder=asc&limit=10");
+        assertSameList("orderBy=l.account_no&sortOrder=desc&limit=3&offset=1");
+        assertSameList("accountNo=" + accountNoOf(loanID));
+    }
+
+    private void assertSameList(final String query) {
+        final String url = LOANS_URL + "?" + query + "&" + Utils.TENANT_IDENTIFIER;
+        final List projectedIds = Utils.performServerGet(this.requestSpec, this.responseSpec, url, "pageItems.id");
+        final Integer projectedTotal = Utils.performServerGet(this.requestSpec, this.responseSpec, url, "totalFilteredRecords");
+        final String legacyUrl = url + "&" + LEGACY_QUERY;
+        final List legacyIds = Utils.performServerGet(this.requestSpec, this.responseSpec, legacyUrl, "pageItems.id");
+        final Integer legacyTotal = Utils.performServerGet(this.requestSpec, this.responseSpec, legacyUrl, "totalFilteredRecords");
+
+        assertFalse(query, projectedIds.isEmpty());
+        assertEquals(query, legacyIds, projectedIds);
+        assertEquals(query, legacyTotal, projectedTotal);
+    }
+
+    /**
+     * The loan is the only one found by its account number, in the same list
+     * the full loan query returns.
+     */
+    private void assertListed(final Integer loanID) {
+        final String query = "accountNo=" + accountNoOf(loanID);
+        final List projectedIds = Utils.performServerGet(this.requestSpec, this.responseSpec, LOANS_URL + "?" + query + "&"
+                + Utils.TENANT_IDENTIFIER, "pageItems.id");
+        assertEquals(Arrays.asList(loanID), projectedIds);
+        assertSameList(query);
+    }
+
+    private String accountNoOf(final Integer loanID) {
+        return Utils.performServerGet(this.requestSpec, this.responseSpec, LOANS_URL + "/" + loanID + "?" + Utils.TENANT_IDENTIFIER,
+                "accountNo");
+    }
+
+    private Integer applyForLoanApplication(final Integer clientID) {
+        return applyForLoanApplication(clientID, this.loanTransactionHelper.getLoanProductId(new LoanProductTestBuilder().build(null)));
+    }
+
+    private Integer applyForLoanApplication(final Integer clientID, final Integer loanProductID) {
+        final String loanApplication = new LoanApplicationTestBuilder().withPrincipal("5000").withLoanTermFrequency("5")
+                .withLoanTermFrequencyAsMonths().withNumberOfRepayments("5").withRepaymentEveryAfter("1")
+                .withRepaymentFrequencyTypeAsMonths().withInterestRatePerPeriod("2").withExpectedDisbursementDate("04 April 2012")
+                .withSubmittedOnDate("02 April 2012").build(clientID.toString(), loanProductID.toString(), null);
+        return this.loanTransactionHelper.getLoanId(loanApplication);
+    }
+}
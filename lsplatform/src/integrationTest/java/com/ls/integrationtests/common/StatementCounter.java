@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.integrationtests.common;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Counts the statements the server runs against the database of the default
+ * tenant while a command is executed, from the statement digests of the MySQL
+ * performance schema.
+ * 
+ * The database is the one the integrationTest task passes on in the
+ * <code>integrationTest.tenantDbUrl</code>,
+ * <code>integrationTest.mysqlUser</code> and
+ * <code>integrationTest.mysqlPassword</code> system properties. The
+ * statements of reading the counter itself are left out of the counts.
+ */
+public class StatementCounter {
+
+    private static final String EXECUTED_STATEMENTS_SQL = "select ifnull(sum(COUNT_STAR), 0) "
+            + "from performance_schema.events_statements_summary_by_digest where SCHEMA_NAME = database()";
+
+    private final SingleConnectionDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final long statementsPerReading;
+
+    public StatementCounter() {
+        this.dataSource = new SingleConnectionDataSource(requiredProperty("integrationTest.tenantDbUrl"),
+                requiredProperty("integrationTest.mysqlUser"), requiredProperty("integrationTest.mysqlPassword"), true);
+        this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        final long firstReading = executedStatements();
+        this.statementsPerReading = executedStatements() - firstReading;
+    }
+
+    /**
+     * Executes the command and returns the number of statements the server
+     * ran against the tenant database meanwhile.
+     */
+    public long count(final Runnable command) {
+        final long before = executedStatements();
+        command.run();
+        return executedStatements() - before - this.statementsPerReading;
+    }
+
+    public void close() {
+        this.dataSource.destroy();
+    }
+
+    private long executedStatements() {
+        return this.jdbcTemplate.queryForObject(EXECUTED_STATEMENTS_SQL, Long.class);
+    }
+
+    private static String requiredProperty(final String name) {
+        final String value = System.getProperty(name);
+        if (value == null) { throw new IllegalStateException("System property " + name + " is not set, run the integrationTest task"); }
+        return value;
+    }
+}
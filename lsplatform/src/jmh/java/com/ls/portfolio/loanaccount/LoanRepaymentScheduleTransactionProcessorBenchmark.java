@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.ls.organisation.monetary.domain.MonetaryCurrency;
+import com.ls.portfolio.loanaccount.domain.ChangedTransactionDetail;
+import com.ls.portfolio.loanaccount.domain.LoanCharge;
+import com.ls.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import com.ls.portfolio.loanaccount.domain.LoanTransaction;
+import com.ls.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import com.ls.portfolio.loanaccount.domain.transactionprocessor.impl.FineractStyleLoanRepaymentScheduleTransactionProcessor;
+import com.ls.portfolio.loanaccount.domain.transactionprocessor.impl.PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import com.ls.portfolio.loanaccount.loanschedule.domain.DefaultLoanScheduleGeneratorFactory;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import com.ls.portfolio.loanproduct.domain.InterestMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time taken to replay the repayments of a batch of {@link #BATCH_SIZE} loans
+ * over their schedules, which is what every backdated transaction and every
+ * interest recalculation of an existing loan comes down to. The schedule is
+ * generated once per trial. The processors pay off the installments and
+ * repayments they are given, so only those are copied from it, before each
+ * iteration and once per loan of the batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, batchSize = LoanRepaymentScheduleTransactionProcessorBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = LoanRepaymentScheduleTransactionProcessorBenchmark.BATCH_SIZE)
+public class LoanRepaymentScheduleTransactionProcessorBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    @Param({ "60", "360" })
+    private int numberOfInstallments;
+
+    @Param({ "50", "500" })
+    private int numberOfTransactions;
+
+    @Param({ "mifos-standard-strategy", "principal-interest-penalties-fees-order-strategy" })
+    private String transactionProcessingStrategy;
+
+    private final MonetaryCurrency currency = LoanScheduleBenchmarkFixtures.currency();
+
+    private LoanRepaymentScheduleTransactionProcessor processor;
+    private LoanScheduleModel schedule;
+
+    private final List<List<LoanRepaymentScheduleInstallment>> installments = new ArrayList<>(BATCH_SIZE);
+    private final List<List<LoanTransaction>> repayments = new ArrayList<>(BATCH_SIZE);
+    private int nextLoan;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        LoanScheduleBenchmarkFixtures.configureRoundingMode();
+        if ("mifos-standard-strategy".equals(this.transactionProcessingStrategy)) {
+            this.processor = new FineractStyleLoanRepaymentScheduleTransactionProcessor();
+        } else {
+            this.processor = new PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor();
+        }
+        this.schedule = new DefaultLoanScheduleGeneratorFactory().create(InterestMethod.DECLINING_BALANCE).generate(
+                LoanScheduleBenchmarkFixtures.mathContext(),
+                LoanScheduleBenchmarkFixtures.monthlyLoan(LoanScheduleBenchmarkFixtures.applicationCurrency(),
+                        LoanScheduleBenchmarkFixtures.holidayDetails(), InterestMethod.DECLINING_BALANCE, this.numberOfInstallments),
+                new HashSet<LoanCharge>(), LoanScheduleBenchmarkFixtures.holidayDetails());
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        this.installments.clear();
+        this.repayments.clear();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final List<LoanRepaymentScheduleInstallment> loanInstallments = LoanScheduleBenchmarkFixtures.installmentsOf(this.schedule);
+            this.installments.add(loanInstallments);
+            this.repayments.add(LoanScheduleBenchmarkFixtures.repayments(this.currency, loanInstallments, this.numberOfTransactions));
+        }
+        this.nextLoan = 0;
+    }
+
+    @Benchmark
+    public ChangedTransactionDetail replayRepayments() {
+        final int loan = this.nextLoan++;
+        return this.processor.handleTransaction(LoanScheduleBenchmarkFixtures.DISBURSEMENT_DATE, this.repayments.get(loan),
+                this.currency, this.installments.get(loan), new HashSet<LoanCharge>());
+    }
+}
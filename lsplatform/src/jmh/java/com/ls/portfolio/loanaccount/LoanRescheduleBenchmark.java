@@ -0,0 +1,158 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.ls.organisation.monetary.domain.ApplicationCurrency;
+import com.ls.organisation.monetary.domain.MonetaryCurrency;
+import com.ls.portfolio.loanaccount.data.HolidayDetailDTO;
+import com.ls.portfolio.loanaccount.domain.Loan;
+import com.ls.portfolio.loanaccount.domain.LoanCharge;
+import com.ls.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import com.ls.portfolio.loanaccount.domain.LoanSummary;
+import com.ls.portfolio.loanaccount.domain.LoanTransaction;
+import com.ls.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import com.ls.portfolio.loanaccount.domain.transactionprocessor.impl.FineractStyleLoanRepaymentScheduleTransactionProcessor;
+import com.ls.portfolio.loanaccount.loanschedule.data.LoanScheduleDTO;
+import com.ls.portfolio.loanaccount.loanschedule.domain.DefaultLoanScheduleGeneratorFactory;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleGenerator;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import com.ls.portfolio.loanproduct.domain.InterestMethod;
+import org.joda.time.LocalDate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time taken to reschedule the installments of a batch of {@link #BATCH_SIZE}
+ * loans from half way through their term, which is what a loan reschedule
+ * request and every regeneration of a schedule with interest recalculation
+ * come down to. The installments before that date are kept, and the loans
+ * have been repaid once per kept installment.
+ * 
+ * The schedules are generated once per trial. Rescheduling updates the loan
+ * terms and the kept installments, so those are built again before each
+ * iteration, once per loan of the batch, together with a mock of the loan
+ * which hands them out.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, batchSize = LoanRescheduleBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = LoanRescheduleBenchmark.BATCH_SIZE)
+public class LoanRescheduleBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    @Param({ "60", "360" })
+    private int numberOfInstallments;
+
+    private final MathContext mc = LoanScheduleBenchmarkFixtures.mathContext();
+    private final MonetaryCurrency currency = LoanScheduleBenchmarkFixtures.currency();
+    private final LoanScheduleGenerator generator = new DefaultLoanScheduleGeneratorFactory().create(InterestMethod.DECLINING_BALANCE);
+    private final LoanRepaymentScheduleTransactionProcessor processor = new FineractStyleLoanRepaymentScheduleTransactionProcessor();
+
+    private ApplicationCurrency applicationCurrency;
+    private HolidayDetailDTO holidayDetails;
+    private LocalDate rescheduleFrom;
+    private LoanScheduleModel monthlySchedule;
+    private LoanScheduleModel dailyRecalculationSchedule;
+
+    private final LoanApplicationTerms[] monthlyLoanTerms = new LoanApplicationTerms[BATCH_SIZE];
+    private final Loan[] monthlyLoans = new Loan[BATCH_SIZE];
+    private final LoanApplicationTerms[] dailyRecalculationLoanTerms = new LoanApplicationTerms[BATCH_SIZE];
+    private final Loan[] dailyRecalculationLoans = new Loan[BATCH_SIZE];
+    private int nextLoan;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        LoanScheduleBenchmarkFixtures.configureRoundingMode();
+        this.applicationCurrency = LoanScheduleBenchmarkFixtures.applicationCurrency();
+        this.holidayDetails = LoanScheduleBenchmarkFixtures.holidayDetails();
+        this.rescheduleFrom = LoanScheduleBenchmarkFixtures.DISBURSEMENT_DATE.plusMonths(this.numberOfInstallments / 2);
+        this.monthlySchedule = this.generator.generate(this.mc, LoanScheduleBenchmarkFixtures.monthlyLoan(this.applicationCurrency,
+                this.holidayDetails, InterestMethod.DECLINING_BALANCE, this.numberOfInstallments), new HashSet<LoanCharge>(),
+                this.holidayDetails);
+        this.dailyRecalculationSchedule = this.generator.generate(this.mc, LoanScheduleBenchmarkFixtures.dailyRecalculationLoan(
+                this.applicationCurrency, this.holidayDetails, this.numberOfInstallments), new HashSet<LoanCharge>(), this.holidayDetails);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            this.monthlyLoanTerms[i] = LoanScheduleBenchmarkFixtures.monthlyLoan(this.applicationCurrency, this.holidayDetails,
+                    InterestMethod.DECLINING_BALANCE, this.numberOfInstallments);
+            this.monthlyLoans[i] = loanRepaidUntilRescheduled(this.monthlySchedule);
+            this.dailyRecalculationLoanTerms[i] = LoanScheduleBenchmarkFixtures.dailyRecalculationLoan(this.applicationCurrency,
+                    this.holidayDetails, this.numberOfInstallments);
+            this.dailyRecalculationLoans[i] = loanRepaidUntilRescheduled(this.dailyRecalculationSchedule);
+        }
+        this.nextLoan = 0;
+    }
+
+    @Benchmark
+    public LoanScheduleDTO monthlyLoan() {
+        final int loan = this.nextLoan++;
+        return reschedule(this.monthlyLoanTerms[loan], this.monthlyLoans[loan]);
+    }
+
+    @Benchmark
+    public LoanScheduleDTO dailyRecalculationLoan() {
+        final int loan = this.nextLoan++;
+        return reschedule(this.dailyRecalculationLoanTerms[loan], this.dailyRecalculationLoans[loan]);
+    }
+
+    private LoanScheduleDTO reschedule(final LoanApplicationTerms loanApplicationTerms, final Loan loan) {
+        return this.generator.rescheduleNextInstallments(this.mc, loanApplicationTerms, loan, this.holidayDetails, this.processor,
+                this.rescheduleFrom);
+    }
+
+    private Loan loanRepaidUntilRescheduled(final LoanScheduleModel schedule) {
+        final List<LoanRepaymentScheduleInstallment> installments = LoanScheduleBenchmarkFixtures.installmentsOf(schedule);
+        final int keptInstallments = this.numberOfInstallments / 2;
+        final List<LoanTransaction> repayments = LoanScheduleBenchmarkFixtures.repayments(this.currency,
+                installments.subList(0, keptInstallments), keptInstallments);
+
+        final Loan loan = mock(Loan.class);
+        when(loan.getRepaymentScheduleInstallments()).thenReturn(installments);
+        when(loan.getLoanTransactions()).thenReturn(repayments);
+        when(loan.charges()).thenReturn(new HashSet<LoanCharge>());
+        when(loan.getLoanSummary()).thenReturn(LoanSummary.create(BigDecimal.ZERO));
+        return loan;
+    }
+}
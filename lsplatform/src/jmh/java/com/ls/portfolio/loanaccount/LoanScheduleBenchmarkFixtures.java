@@ -0,0 +1,220 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import com.ls.organisation.holiday.domain.Holiday;
+import com.ls.organisation.monetary.domain.ApplicationCurrency;
+import com.ls.organisation.monetary.domain.MonetaryCurrency;
+import com.ls.organisation.monetary.domain.Money;
+import com.ls.organisation.monetary.domain.MoneyHelper;
+import com.ls.organisation.workingdays.domain.RepaymentRescheduleType;
+import com.ls.organisation.workingdays.domain.WorkingDays;
+import com.ls.portfolio.calendar.domain.Calendar;
+import com.ls.portfolio.calendar.domain.CalendarEntityType;
+import com.ls.portfolio.calendar.domain.CalendarFrequencyType;
+import com.ls.portfolio.calendar.domain.CalendarInstance;
+import com.ls.portfolio.calendar.domain.CalendarType;
+import com.ls.portfolio.common.domain.DayOfWeekType;
+import com.ls.portfolio.common.domain.DaysInMonthType;
+import com.ls.portfolio.common.domain.DaysInYearType;
+import com.ls.portfolio.common.domain.PeriodFrequencyType;
+import com.ls.portfolio.loanaccount.data.DisbursementData;
+import com.ls.portfolio.loanaccount.data.HolidayDetailDTO;
+import com.ls.portfolio.loanaccount.data.LoanTermVariationsData;
+import com.ls.portfolio.loanaccount.domain.LoanInterestRecalcualtionAdditionalDetails;
+import com.ls.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import com.ls.portfolio.loanaccount.domain.LoanTransaction;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModelPeriod;
+import com.ls.portfolio.loanproduct.domain.AmortizationMethod;
+import com.ls.portfolio.loanproduct.domain.InterestCalculationPeriodMethod;
+import com.ls.portfolio.loanproduct.domain.InterestMethod;
+import com.ls.portfolio.loanproduct.domain.InterestRecalculationCompoundingMethod;
+import com.ls.portfolio.loanproduct.domain.LoanPreClosureInterestCalculationStrategy;
+import com.ls.portfolio.loanproduct.domain.RecalculationFrequencyType;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+
+/**
+ * Builds the loans the schedule engine benchmarks run against, without a
+ * database: monthly loans of 100,000 USD at 24% a year, optionally disbursed
+ * in tranches or recalculating interest daily, and repayments made against
+ * their schedules.
+ */
+public final class LoanScheduleBenchmarkFixtures {
+
+    public static final LocalDate DISBURSEMENT_DATE = new LocalDate(2016, 1, 4);
+    public static final BigDecimal PRINCIPAL = BigDecimal.valueOf(100000);
+    public static final int NUMBER_OF_TRANCHES = 4;
+
+    private static final BigDecimal MONTHLY_INTEREST_RATE = BigDecimal.valueOf(2);
+    private static final BigDecimal ANNUAL_INTEREST_RATE = BigDecimal.valueOf(24);
+
+    private LoanScheduleBenchmarkFixtures() {
+
+    }
+
+    /**
+     * Sets the rounding mode which MoneyHelper otherwise reads from the
+     * configuration of the tenant.
+     */
+    public static void configureRoundingMode() throws Exception {
+        final Field field = MoneyHelper.class.getDeclaredField("roundingMode");
+        field.setAccessible(true);
+        field.set(null, RoundingMode.HALF_EVEN);
+    }
+
+    public static MathContext mathContext() {
+        return new MathContext(8, RoundingMode.HALF_EVEN);
+    }
+
+    public static MonetaryCurrency currency() {
+        return new MonetaryCurrency("USD", 2, null);
+    }
+
+    public static ApplicationCurrency applicationCurrency() throws Exception {
+        final Constructor<ApplicationCurrency> constructor = ApplicationCurrency.class.getDeclaredConstructor(String.class,
+                String.class, int.class, Integer.class, String.class, String.class);
+        constructor.setAccessible(true);
+        return constructor.newInstance("USD", "US Dollar", 2, null, "currency.USD", "$");
+    }
+
+    /**
+     * Every day is a working day and there are no holidays.
+     */
+    public static HolidayDetailDTO holidayDetails() throws Exception {
+        final Constructor<WorkingDays> constructor = WorkingDays.class.getDeclaredConstructor(String.class, Integer.class,
+                Boolean.class, Boolean.class);
+        constructor.setAccessible(true);
+        final WorkingDays workingDays = constructor.newInstance("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR,SA,SU",
+                RepaymentRescheduleType.SAME_DAY.getValue(), Boolean.FALSE, Boolean.FALSE);
+        return new HolidayDetailDTO(false, new ArrayList<Holiday>(), workingDays);
+    }
+
+    public static LoanApplicationTerms monthlyLoan(final ApplicationCurrency applicationCurrency, final HolidayDetailDTO holidayDetails,
+            final InterestMethod interestMethod, final int numberOfRepayments) {
+        return loanApplicationTerms(applicationCurrency, holidayDetails, interestMethod, numberOfRepayments, false,
+                new ArrayList<DisbursementData>(), false, null);
+    }
+
+    /**
+     * A loan whose principal is disbursed in equal tranches, one every three
+     * months.
+     */
+    public static LoanApplicationTerms trancheLoan(final ApplicationCurrency applicationCurrency, final HolidayDetailDTO holidayDetails,
+            final int numberOfRepayments) {
+        final List<DisbursementData> disbursements = new ArrayList<>(NUMBER_OF_TRANCHES);
+        final BigDecimal trancheAmount = PRINCIPAL.divide(BigDecimal.valueOf(NUMBER_OF_TRANCHES));
+        for (int i = 0; i < NUMBER_OF_TRANCHES; i++) {
+            disbursements.add(new DisbursementData(null, DISBURSEMENT_DATE.plusMonths(3 * i), null, trancheAmount, null, null));
+        }
+        return loanApplicationTerms(applicationCurrency, holidayDetails, InterestMethod.DECLINING_BALANCE, numberOfRepayments, true,
+                disbursements, false, null);
+    }
+
+    /**
+     * A declining balance loan which recalculates interest on the outstanding
+     * balance of every day.
+     */
+    public static LoanApplicationTerms dailyRecalculationLoan(final ApplicationCurrency applicationCurrency,
+            final HolidayDetailDTO holidayDetails, final int numberOfRepayments) {
+        final Calendar restCalendar = Calendar.createRepeatingCalendar("interest_recalculation_rest", DISBURSEMENT_DATE,
+                CalendarType.COLLECTION.getValue(), CalendarFrequencyType.DAILY, 1, null, null);
+        final CalendarInstance restCalendarInstance = new CalendarInstance(restCalendar, null,
+                CalendarEntityType.LOAN_RECALCULATION_REST_DETAIL.getValue());
+        return loanApplicationTerms(applicationCurrency, holidayDetails, InterestMethod.DECLINING_BALANCE, numberOfRepayments, false,
+                new ArrayList<DisbursementData>(), true, restCalendarInstance);
+    }
+
+    private static LoanApplicationTerms loanApplicationTerms(final ApplicationCurrency applicationCurrency,
+            final HolidayDetailDTO holidayDetails, final InterestMethod interestMethod, final int numberOfRepayments,
+            final boolean multiDisburseLoan, final List<DisbursementData> disbursements, final boolean isInterestRecalculationEnabled,
+            final CalendarInstance restCalendarInstance) {
+        final MonetaryCurrency currency = new MonetaryCurrency(applicationCurrency.getCode(), applicationCurrency.getDecimalPlaces(),
+                applicationCurrency.getCurrencyInMultiplesOf());
+        final Money principal = Money.of(currency, PRINCIPAL);
+        final Integer zero = Integer.valueOf(0);
+        final RecalculationFrequencyType recalculationFrequencyType = isInterestRecalculationEnabled ? RecalculationFrequencyType.DAILY
+                : null;
+        final InterestRecalculationCompoundingMethod compoundingMethod = isInterestRecalculationEnabled
+                ? InterestRecalculationCompoundingMethod.NONE : null;
+        final LoanPreClosureInterestCalculationStrategy preClosureStrategy = isInterestRecalculationEnabled
+                ? LoanPreClosureInterestCalculationStrategy.TILL_PRE_CLOSURE_DATE : LoanPreClosureInterestCalculationStrategy.NONE;
+
+        return LoanApplicationTerms.assembleFrom(applicationCurrency, numberOfRepayments, PeriodFrequencyType.MONTHS,
+                numberOfRepayments, 1, PeriodFrequencyType.MONTHS, null, DayOfWeekType.INVALID, AmortizationMethod.EQUAL_INSTALLMENTS,
+                interestMethod, MONTHLY_INTEREST_RATE, PeriodFrequencyType.MONTHS, ANNUAL_INTEREST_RATE,
+                InterestCalculationPeriodMethod.DAILY, false, principal, DISBURSEMENT_DATE, null, DISBURSEMENT_DATE.plusMonths(1), zero,
+                zero, zero, zero, null, Money.zero(currency), multiDisburseLoan, null, disbursements,
+                multiDisburseLoan ? PRINCIPAL : null, zero, DaysInMonthType.ACTUAL, DaysInYearType.ACTUAL, isInterestRecalculationEnabled,
+                recalculationFrequencyType, restCalendarInstance, compoundingMethod, null, null, null, null, preClosureStrategy, null,
+                PRINCIPAL, new ArrayList<LoanTermVariationsData>(), false, zero, false, holidayDetails, false);
+    }
+
+    /**
+     * Turns the repayment periods of a generated schedule into installments
+     * the repayment processors can work on.
+     */
+    public static List<LoanRepaymentScheduleInstallment> installmentsOf(final LoanScheduleModel schedule) {
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>();
+        for (final LoanScheduleModelPeriod period : schedule.getPeriods()) {
+            if (period.isRepaymentPeriod()) {
+                installments.add(new LoanRepaymentScheduleInstallment(null, period.periodNumber(), period.periodFromDate(),
+                        period.periodDueDate(), period.principalDue(), period.interestDue(), period.feeChargesDue(),
+                        period.penaltyChargesDue(), period.isRecalculatedInterestComponent(),
+                        new HashSet<LoanInterestRecalcualtionAdditionalDetails>()));
+            }
+        }
+        return installments;
+    }
+
+    /**
+     * Spreads the given number of equal repayments over the term of the
+     * installments, which pay off the loan when added up.
+     */
+    public static List<LoanTransaction> repayments(final MonetaryCurrency currency,
+            final List<LoanRepaymentScheduleInstallment> installments, final int numberOfRepayments) {
+        Money totalDue = Money.zero(currency);
+        for (final LoanRepaymentScheduleInstallment installment : installments) {
+            totalDue = totalDue.plus(installment.getDue(currency));
+        }
+        final Money repaymentAmount = totalDue.dividedBy(numberOfRepayments, RoundingMode.HALF_EVEN);
+        final LocalDate lastDueDate = installments.get(installments.size() - 1).getDueDate();
+        final int daysBetweenRepayments = Math.max(1,
+                Days.daysBetween(DISBURSEMENT_DATE, lastDueDate).getDays() / numberOfRepayments);
+        final LocalDateTime createdDate = new LocalDateTime();
+        final List<LoanTransaction> repayments = new ArrayList<>(numberOfRepayments);
+        for (int i = 1; i <= numberOfRepayments; i++) {
+            repayments.add(LoanTransaction.repayment(null, repaymentAmount, null, DISBURSEMENT_DATE.plusDays(i * daysBetweenRepayments),
+                    null, createdDate, null));
+        }
+        return repayments;
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount;
+
+import java.math.MathContext;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import com.ls.organisation.monetary.domain.ApplicationCurrency;
+import com.ls.portfolio.loanaccount.data.HolidayDetailDTO;
+import com.ls.portfolio.loanaccount.domain.LoanCharge;
+import com.ls.portfolio.loanaccount.loanschedule.domain.DefaultLoanScheduleGeneratorFactory;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleGenerator;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import com.ls.portfolio.loanproduct.domain.InterestMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time taken to generate the repayment schedules of a batch of
+ * {@link #BATCH_SIZE} loans of 12, 60 and 360 monthly installments.
+ * Generating a schedule updates the loan terms, so every iteration is given
+ * a fresh set of terms built before the iteration starts, one per loan of the
+ * batch, and no setup is done between the loans of the batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, batchSize = LoanScheduleGeneratorBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = LoanScheduleGeneratorBenchmark.BATCH_SIZE)
+public class LoanScheduleGeneratorBenchmark {
+
+    static final int BATCH_SIZE = 200;
+
+    @Param({ "12", "60", "360" })
+    private int numberOfRepayments;
+
+    @Param({ "DECLINING_BALANCE", "FLAT" })
+    private InterestMethod interestMethod;
+
+    private final MathContext mc = LoanScheduleBenchmarkFixtures.mathContext();
+    private final DefaultLoanScheduleGeneratorFactory generatorFactory = new DefaultLoanScheduleGeneratorFactory();
+
+    private ApplicationCurrency applicationCurrency;
+    private HolidayDetailDTO holidayDetails;
+
+    private final LoanApplicationTerms[] monthlyLoans = new LoanApplicationTerms[BATCH_SIZE];
+    private final LoanApplicationTerms[] trancheLoans = new LoanApplicationTerms[BATCH_SIZE];
+    private final LoanApplicationTerms[] dailyRecalculationLoans = new LoanApplicationTerms[BATCH_SIZE];
+    private int nextLoan;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws Exception {
+        LoanScheduleBenchmarkFixtures.configureRoundingMode();
+        this.applicationCurrency = LoanScheduleBenchmarkFixtures.applicationCurrency();
+        this.holidayDetails = LoanScheduleBenchmarkFixtures.holidayDetails();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            this.monthlyLoans[i] = LoanScheduleBenchmarkFixtures.monthlyLoan(this.applicationCurrency, this.holidayDetails,
+                    this.interestMethod, this.numberOfRepayments);
+            this.trancheLoans[i] = LoanScheduleBenchmarkFixtures.trancheLoan(this.applicationCurrency, this.holidayDetails,
+                    this.numberOfRepayments);
+            this.dailyRecalculationLoans[i] = LoanScheduleBenchmarkFixtures.dailyRecalculationLoan(this.applicationCurrency,
+                    this.holidayDetails, this.numberOfRepayments);
+        }
+        this.nextLoan = 0;
+    }
+
+    @Benchmark
+    public LoanScheduleModel monthlyLoan() {
+        return generate(this.interestMethod, this.monthlyLoans[this.nextLoan++]);
+    }
+
+    /**
+     * Only declining balance loans can be disbursed in tranches or
+     * recalculate interest, so the flat runs of these two measure the same
+     * thing as the declining balance ones.
+     */
+    @Benchmark
+    public LoanScheduleModel trancheLoan() {
+        return generate(InterestMethod.DECLINING_BALANCE, this.trancheLoans[this.nextLoan++]);
+    }
+
+    @Benchmark
+    public LoanScheduleModel dailyRecalculationLoan() {
+        return generate(InterestMethod.DECLINING_BALANCE, this.dailyRecalculationLoans[this.nextLoan++]);
+    }
+
+    private LoanScheduleModel generate(final InterestMethod interestMethod, final LoanApplicationTerms loanApplicationTerms) {
+        final LoanScheduleGenerator generator = this.generatorFactory.create(interestMethod);
+        return generator.generate(this.mc, loanApplicationTerms, new HashSet<LoanCharge>(), this.holidayDetails);
+    }
+}
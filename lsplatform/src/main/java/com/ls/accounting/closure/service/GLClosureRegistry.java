@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.closure.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.ls.infrastructure.cache.service.TenantCacheVersions;
+import com.ls.infrastructure.cache.service.TenantVersionedCache;
+import com.ls.infrastructure.cache.service.TenantVersionedCache.Loader;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps the latest accounting closure date of every office in memory, so that
+ * posting journal entries checks them without querying
+ * <code>acc_gl_closure</code>.
+ *
+ * The dates are loaded once per tenant and kept for as long as their version
+ * in {@link TenantCacheVersions} does not change, the same way as the product
+ * to GL account mappings. Changes to the closures of an office are serialised
+ * with {@link #lockOffice(Long)}, which locks the row of the office until the
+ * transaction completes.
+ */
+@Component
+public class GLClosureRegistry {
+
+    public static final String CACHE_NAME = "glClosures";
+
+    private final JdbcTemplate jdbcTemplate;
+    /**
+     * The latest closing date by office id.
+     */
+    private final TenantVersionedCache<Map<Long, Date>> closingDates;
+
+    @Autowired
+    public GLClosureRegistry(final RoutingDataSource dataSource, final TenantCacheVersions cacheVersions) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.closingDates = new TenantVersionedCache<>(CACHE_NAME, cacheVersions, new Loader<Map<Long, Date>>() {
+
+            @Override
+            public Map<Long, Date> load(@SuppressWarnings("unused") final long version) {
+                return loadClosingDates();
+            }
+        });
+    }
+
+    /**
+     * Returns the closing date of the latest accounting closure of the office,
+     * or <code>null</code> if the office has not been closed.
+     */
+    public Date getLatestClosingDate(final Long officeId) {
+        return this.closingDates.get().get(officeId);
+    }
+
+    /**
+     * Blocks until no other transaction, on any node, is changing the
+     * closures of the office, and holds the office until the current
+     * transaction completes.
+     */
+    public void lockOffice(final Long officeId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) { throw new IllegalStateException(
+                "Closures of an office can only be locked within a transaction"); }
+        this.jdbcTemplate.queryForList("select id from m_office where id = ? for update", Long.class, officeId);
+    }
+
+    /**
+     * Moves the closing dates of the current tenant on to a new version, as
+     * part of the transaction changing them.
+     */
+    public void invalidate() {
+        this.closingDates.invalidate();
+    }
+
+    private Map<Long, Date> loadClosingDates() {
+        final Map<Long, Date> latestClosingDateByOffice = new HashMap<>();
+        this.jdbcTemplate.query("select closure.office_id, max(closure.closing_date) as closing_date from acc_gl_closure closure "
+                + "group by closure.office_id", new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                latestClosingDateByOffice.put(rs.getLong("office_id"), new Date(rs.getDate("closing_date").getTime()));
+            }
+        });
+        return latestClosingDateByOffice;
+    }
+}
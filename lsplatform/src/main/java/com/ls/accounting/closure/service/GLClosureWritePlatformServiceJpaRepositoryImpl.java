@@ -53,13 +53,16 @@ public class GLClosureWritePlatformServiceJpaRepositoryImpl implements GLClosure
     private final GLClosureRepository glClosureRepository;
     private final OfficeRepositoryWrapper officeRepositoryWrapper;
     private final GLClosureCommandFromApiJsonDeserializer fromApiJsonDeserializer;
+    private final GLClosureRegistry glClosureRegistry;
 
     @Autowired
     public GLClosureWritePlatformServiceJpaRepositoryImpl(final GLClosureRepository glClosureRepository,
-            final OfficeRepositoryWrapper officeRepositoryWrapper, final GLClosureCommandFromApiJsonDeserializer fromApiJsonDeserializer) {
+            final OfficeRepositoryWrapper officeRepositoryWrapper, final GLClosureCommandFromApiJsonDeserializer fromApiJsonDeserializer,
+            final GLClosureRegistry glClosureRegistry) {
         this.glClosureRepository = glClosureRepository;
         this.officeRepositoryWrapper = officeRepositoryWrapper;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
+        this.glClosureRegistry = glClosureRegistry;
     }
 
     @Transactional
@@ -77,6 +80,8 @@ public class GLClosureWritePlatformServiceJpaRepositoryImpl implements GLClosure
             final Date todaysDate = new Date();
             final Date closureDate = command.DateValueOfParameterNamed(GLClosureJsonInputParams.CLOSING_DATE.getValue());
             if (closureDate.after(todaysDate)) { throw new GLClosureInvalidException(GL_CLOSURE_INVALID_REASON.FUTURE_DATE, closureDate); }
+            // closures of other offices are created in parallel
+            this.glClosureRegistry.lockOffice(officeId);
             // shouldn't be before an existing accounting closure
             final GLClosure latestGLClosure = this.glClosureRepository.getLatestGLClosureByBranch(officeId);
             if (latestGLClosure != null) {
@@ -86,6 +91,7 @@ public class GLClosureWritePlatformServiceJpaRepositoryImpl implements GLClosure
             final GLClosure glClosure = GLClosure.fromJson(office, command);
 
             this.glClosureRepository.saveAndFlush(glClosure);
+            this.glClosureRegistry.invalidate();
 
             return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withOfficeId(officeId)
                     .withEntityId(glClosure.getId()).build();
@@ -121,6 +127,7 @@ public class GLClosureWritePlatformServiceJpaRepositoryImpl implements GLClosure
         final GLClosure glClosure = this.glClosureRepository.findOne(glClosureId);
 
         if (glClosure == null) { throw new GLClosureNotFoundException(glClosureId); }
+        this.glClosureRegistry.lockOffice(glClosure.getOffice().getId());
 
         /**
          * check if any closures are present for this branch at a later date
@@ -132,6 +139,7 @@ public class GLClosureWritePlatformServiceJpaRepositoryImpl implements GLClosure
                 .getId(), latestGLClosure.getOffice().getName(), latestGLClosure.getClosingDate()); }
 
         this.glClosureRepository.delete(glClosure);
+        this.glClosureRegistry.invalidate();
 
         return new CommandProcessingResultBuilder().withOfficeId(glClosure.getOffice().getId()).withEntityId(glClosure.getId()).build();
     }
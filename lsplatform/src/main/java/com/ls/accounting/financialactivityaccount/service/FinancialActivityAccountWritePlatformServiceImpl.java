@@ -33,6 +33,7 @@ import com.ls.accounting.financialactivityaccount.exception.FinancialActivityAcc
 import com.ls.accounting.financialactivityaccount.serialization.FinancialActivityAccountDataValidator;
 import com.ls.accounting.glaccount.domain.GLAccount;
 import com.ls.accounting.glaccount.domain.GLAccountRepositoryWrapper;
+import com.ls.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
 import com.ls.infrastructure.core.api.JsonCommand;
 import com.ls.infrastructure.core.data.CommandProcessingResult;
 import com.ls.infrastructure.core.data.CommandProcessingResultBuilder;
@@ -49,15 +50,18 @@ public class FinancialActivityAccountWritePlatformServiceImpl implements Financi
     private final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepository;
     private final FinancialActivityAccountDataValidator fromApiJsonDeserializer;
     private final GLAccountRepositoryWrapper glAccountRepositoryWrapper;
+    private final ProductToGLAccountMappingResolver accountMappingResolver;
     private final static Logger logger = LoggerFactory.getLogger(FinancialActivityAccountWritePlatformServiceImpl.class);
 
     @Autowired
     public FinancialActivityAccountWritePlatformServiceImpl(
             final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepository,
-            final FinancialActivityAccountDataValidator fromApiJsonDeserializer, final GLAccountRepositoryWrapper glAccountRepositoryWrapper) {
+            final FinancialActivityAccountDataValidator fromApiJsonDeserializer, final GLAccountRepositoryWrapper glAccountRepositoryWrapper,
+            final ProductToGLAccountMappingResolver accountMappingResolver) {
         this.financialActivityAccountRepository = financialActivityAccountRepository;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
         this.glAccountRepositoryWrapper = glAccountRepositoryWrapper;
+        this.accountMappingResolver = accountMappingResolver;
     }
 
     @Override
@@ -74,6 +78,7 @@ public class FinancialActivityAccountWritePlatformServiceImpl implements Financi
 
             validateFinancialActivityAndAccountMapping(financialActivityAccount);
             this.financialActivityAccountRepository.save(financialActivityAccount);
+            this.accountMappingResolver.invalidate();
             return new CommandProcessingResultBuilder() //
                     .withCommandId(command.commandId()) //
                     .withEntityId(financialActivityAccount.getId()) //
@@ -122,6 +127,7 @@ public class FinancialActivityAccountWritePlatformServiceImpl implements Financi
             if (!changes.isEmpty()) {
                 validateFinancialActivityAndAccountMapping(financialActivityAccount);
                 this.financialActivityAccountRepository.save(financialActivityAccount);
+                this.accountMappingResolver.invalidate();
             }
             return new CommandProcessingResultBuilder() //
                     .withCommandId(command.commandId()) //
@@ -143,6 +149,7 @@ public class FinancialActivityAccountWritePlatformServiceImpl implements Financi
         final FinancialActivityAccount financialActivityAccount = this.financialActivityAccountRepository
                 .findOneWithNotFoundDetection(financialActivityAccountId);
         this.financialActivityAccountRepository.delete(financialActivityAccount);
+        this.accountMappingResolver.invalidate();
         return new CommandProcessingResultBuilder() //
                 .withCommandId(command.commandId()) //
                 .withEntityId(financialActivityAccountId) //
@@ -43,4 +43,12 @@ public class GLAccountRepositoryWrapper {
         return account;
     }
 
+    /**
+     * Returns the account without loading it, for ids known to exist such as
+     * those of the product to GL account mappings.
+     */
+    public GLAccount findReference(final Long id) {
+        return this.repository.getOne(id);
+    }
+
 }
\ No newline at end of file
@@ -73,11 +73,20 @@ public class GLAccountReadPlatformServiceImpl implements GLAccountReadPlatformSe
                     .append(nameDecoratedBaseOnHierarchy).append(" as nameDecorated, ")
                     .append("cv.id as codeId, cv.code_value as codeValue ");
             if (this.associationParametersData.isRunningBalanceRequired()) {
-                sb.append(",gl_j.organization_running_balance as organizationRunningBalance ");
+                sb.append(",case when gl.classification_enum in (").append(GLAccountType.ASSET.getValue()).append(", ")
+                        .append(GLAccountType.EXPENSE.getValue())
+                        .append(") then gl_b.balance else -gl_b.balance end as organizationRunningBalance ");
             }
             sb.append("from acc_gl_account gl left join m_code_value cv on tag_id=cv.id ");
             if (this.associationParametersData.isRunningBalanceRequired()) {
-                sb.append("left outer Join acc_gl_journal_entry gl_j on gl_j.account_id = gl.id");
+                // the running balance of the organization is the sum of the
+                // last daily balance of every office and currency
+                sb.append("left outer join (select s.account_id, sum(s.closing_balance) as balance from acc_gl_daily_balance s ")
+                        .append("inner join (select account_id, office_id, currency_code, max(balance_date) as balance_date ")
+                        .append("from acc_gl_daily_balance group by account_id, office_id, currency_code) latest ")
+                        .append("on latest.account_id = s.account_id and latest.office_id = s.office_id ")
+                        .append("and latest.currency_code = s.currency_code and latest.balance_date = s.balance_date ")
+                        .append("group by s.account_id) gl_b on gl_b.account_id = gl.id ");
             }
             return sb.toString();
         }
@@ -122,13 +131,6 @@ public class GLAccountReadPlatformServiceImpl implements GLAccountReadPlatformSe
 
         final GLAccountMapper rm = new GLAccountMapper(associationParametersData);
         String sql = "select " + rm.schema();
-        // append SQL statement for fetching account totals
-        if (associationParametersData.isRunningBalanceRequired()) {
-            sql = sql + " and gl_j.id in (select t1.id from (select t2.account_id, max(t2.id) as id from "
-                    + "(select id, max(entry_date) as entry_date, account_id from acc_gl_journal_entry where is_running_balance_calculated = 1 "
-                    + "group by account_id desc) t3 inner join acc_gl_journal_entry t2 on t2.account_id = t3.account_id and t2.entry_date = t3.entry_date "
-                    + "group by t2.account_id desc) t1)";
-        }
         final Object[] paramaterArray = new Object[3];
         int arrayPos = 0;
         boolean filtersPresent = false;
@@ -205,13 +207,7 @@ public class GLAccountReadPlatformServiceImpl implements GLAccountReadPlatformSe
             final GLAccountMapper rm = new GLAccountMapper(associationParametersData);
             final StringBuilder sql = new StringBuilder();
             sql.append("select ").append(rm.schema());
-            if (associationParametersData.isRunningBalanceRequired()) {
-                sql.append(" and gl_j.is_running_balance_calculated = 1 ");
-            }
             sql.append("where gl.id = ?");
-            if (associationParametersData.isRunningBalanceRequired()) {
-                sql.append("  ORDER BY gl_j.entry_date DESC,gl_j.id DESC LIMIT 1");
-            }
             final GLAccountData glAccountData = this.jdbcTemplate.queryForObject(sql.toString(), rm, new Object[] { glAccountId });
 
             return glAccountData;
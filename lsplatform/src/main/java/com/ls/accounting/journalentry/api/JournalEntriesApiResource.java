@@ -18,6 +18,8 @@
  */
 package com.ls.accounting.journalentry.api;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
@@ -96,7 +98,8 @@ public class JournalEntriesApiResource {
             @QueryParam("orderBy") final String orderBy, @QueryParam("sortOrder") final String sortOrder,
             @QueryParam("locale") final String locale, @QueryParam("dateFormat") final String dateFormat,
             @QueryParam("loanId") final Long loanId, @QueryParam("savingsId") final Long savingsId,
-            @QueryParam("runningBalance") final boolean runningBalance, @QueryParam("transactionDetails") final boolean transactionDetails) {
+            @QueryParam("runningBalance") final boolean runningBalance, @QueryParam("transactionDetails") final boolean transactionDetails,
+            @QueryParam("after") final String after, @QueryParam("approximateCount") final boolean approximateCount) {
 
         this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermission);
 
@@ -114,8 +117,30 @@ public class JournalEntriesApiResource {
         JournalEntryAssociationParametersData associationParametersData = new JournalEntryAssociationParametersData(transactionDetails,
                 runningBalance);
 
-        final Page<JournalEntryData> glJournalEntries = this.journalEntryReadPlatformService.retrieveAll(searchParameters, glAccountId,
-                onlyManualEntries, fromDate, toDate, transactionId, entityType, associationParametersData);
+        final Page<JournalEntryData> glJournalEntries;
+        if (after == null) {
+            glJournalEntries = this.journalEntryReadPlatformService.retrieveAll(searchParameters, glAccountId, onlyManualEntries, fromDate,
+                    toDate, transactionId, entityType, associationParametersData);
+        } else {
+            // keyset paging: after is empty for the first page and
+            // "yyyy-MM-dd,id" of the last entry read for the pages after it
+            Date afterEntryDate = null;
+            Long afterEntryId = null;
+            if (StringUtils.isNotBlank(after)) {
+                final String[] position = after.split(",");
+                try {
+                    if (position.length != 2) { throw new ParseException(after, 0); }
+                    final SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd");
+                    df.setLenient(false);
+                    afterEntryDate = df.parse(position[0].trim());
+                    afterEntryId = Long.valueOf(position[1].trim());
+                } catch (final ParseException | NumberFormatException e) {
+                    throw new UnrecognizedQueryParamException("after", after);
+                }
+            }
+            glJournalEntries = this.journalEntryReadPlatformService.retrieveAllAfter(searchParameters, glAccountId, onlyManualEntries,
+                    fromDate, toDate, transactionId, entityType, afterEntryDate, afterEntryId, approximateCount, associationParametersData);
+        }
         final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
         return this.apiJsonSerializerService.serialize(settings, glJournalEntries, RESPONSE_DATA_PARAMETERS);
     }
@@ -26,15 +26,13 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
-import com.ls.accounting.closure.domain.GLClosure;
-import com.ls.accounting.closure.domain.GLClosureRepository;
+import com.ls.accounting.closure.service.GLClosureRegistry;
 import com.ls.accounting.common.AccountingConstants.ACCRUAL_ACCOUNTS_FOR_LOAN;
 import com.ls.accounting.common.AccountingConstants.CASH_ACCOUNTS_FOR_LOAN;
 import com.ls.accounting.common.AccountingConstants.CASH_ACCOUNTS_FOR_SAVINGS;
 import com.ls.accounting.common.AccountingConstants.CASH_ACCOUNTS_FOR_SHARES;
 import com.ls.accounting.common.AccountingConstants.FINANCIAL_ACTIVITY;
-import com.ls.accounting.financialactivityaccount.domain.FinancialActivityAccount;
-import com.ls.accounting.financialactivityaccount.domain.FinancialActivityAccountRepositoryWrapper;
+import com.ls.accounting.financialactivityaccount.exception.FinancialActivityAccountNotFoundException;
 import com.ls.accounting.glaccount.domain.GLAccount;
 import com.ls.accounting.glaccount.domain.GLAccountRepositoryWrapper;
 import com.ls.accounting.journalentry.data.ChargePaymentDTO;
@@ -47,15 +45,13 @@ import com.ls.accounting.journalentry.data.SavingsTransactionDTO;
 import com.ls.accounting.journalentry.data.SharesDTO;
 import com.ls.accounting.journalentry.data.SharesTransactionDTO;
 import com.ls.accounting.journalentry.data.TaxPaymentDTO;
-import com.ls.accounting.journalentry.domain.JournalEntry;
-import com.ls.accounting.journalentry.domain.JournalEntryRepository;
 import com.ls.accounting.journalentry.domain.JournalEntryType;
 import com.ls.accounting.journalentry.exception.JournalEntryInvalidException;
 import com.ls.accounting.journalentry.exception.JournalEntryInvalidException.GL_JOURNAL_ENTRY_INVALID_REASON;
 import com.ls.accounting.producttoaccountmapping.domain.PortfolioProductType;
-import com.ls.accounting.producttoaccountmapping.domain.ProductToGLAccountMapping;
-import com.ls.accounting.producttoaccountmapping.domain.ProductToGLAccountMappingRepository;
 import com.ls.accounting.producttoaccountmapping.exception.ProductToGLAccountMappingNotFoundException;
+import com.ls.accounting.producttoaccountmapping.service.ProductToGLAccountMappingLookup;
+import com.ls.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
 import com.ls.infrastructure.core.data.EnumOptionData;
 import com.ls.infrastructure.core.exception.PlatformDataIntegrityException;
 import com.ls.organisation.monetary.data.CurrencyData;
@@ -63,12 +59,9 @@ import com.ls.organisation.office.domain.Office;
 import com.ls.organisation.office.domain.OfficeRepositoryWrapper;
 import com.ls.portfolio.account.PortfolioAccountType;
 import com.ls.portfolio.account.service.AccountTransfersReadPlatformService;
-import com.ls.portfolio.client.domain.ClientTransaction;
-import com.ls.portfolio.client.domain.ClientTransactionRepositoryWrapper;
 import com.ls.portfolio.loanaccount.data.LoanTransactionEnumData;
 import com.ls.portfolio.loanaccount.domain.LoanTransaction;
 import com.ls.portfolio.loanaccount.domain.LoanTransactionRepository;
-import com.ls.portfolio.paymentdetail.domain.PaymentDetail;
 import com.ls.portfolio.savings.data.SavingsAccountTransactionEnumData;
 import com.ls.portfolio.savings.domain.SavingsAccountTransaction;
 import com.ls.portfolio.savings.domain.SavingsAccountTransactionRepository;
@@ -85,36 +78,30 @@ public class AccountingProcessorHelper {
     public static final String CLIENT_TRANSACTION_IDENTIFIER = "C";
     public static final String PROVISIONING_TRANSACTION_IDENTIFIER = "P";
     public static final String SHARE_TRANSACTION_IDENTIFIER = "SH";
-    private final JournalEntryRepository glJournalEntryRepository;
-    private final ProductToGLAccountMappingRepository accountMappingRepository;
-    private final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepository;
-    private final GLClosureRepository closureRepository;
+    private final JournalEntryBatchWriter journalEntryWriter;
+    private final ProductToGLAccountMappingResolver accountMappingResolver;
+    private final GLClosureRegistry closureRegistry;
     private final GLAccountRepositoryWrapper accountRepositoryWrapper;
     private final OfficeRepositoryWrapper officeRepositoryWrapper;
     private final LoanTransactionRepository loanTransactionRepository;
-    private final ClientTransactionRepositoryWrapper clientTransactionRepository;
     private final SavingsAccountTransactionRepository savingsAccountTransactionRepository;
     private final AccountTransfersReadPlatformService accountTransfersReadPlatformService;
 
     @Autowired
-    public AccountingProcessorHelper(final JournalEntryRepository glJournalEntryRepository,
-            final ProductToGLAccountMappingRepository accountMappingRepository, final GLClosureRepository closureRepository,
+    public AccountingProcessorHelper(final JournalEntryBatchWriter journalEntryWriter,
+            final ProductToGLAccountMappingResolver accountMappingResolver, final GLClosureRegistry closureRegistry,
             final OfficeRepositoryWrapper officeRepositoryWrapper, final LoanTransactionRepository loanTransactionRepository,
             final SavingsAccountTransactionRepository savingsAccountTransactionRepository,
-            final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepository,
             final AccountTransfersReadPlatformService accountTransfersReadPlatformService,
-            final GLAccountRepositoryWrapper accountRepositoryWrapper,
-            final ClientTransactionRepositoryWrapper clientTransactionRepositoryWrapper) {
-        this.glJournalEntryRepository = glJournalEntryRepository;
-        this.accountMappingRepository = accountMappingRepository;
-        this.closureRepository = closureRepository;
+            final GLAccountRepositoryWrapper accountRepositoryWrapper) {
+        this.journalEntryWriter = journalEntryWriter;
+        this.accountMappingResolver = accountMappingResolver;
+        this.closureRegistry = closureRegistry;
         this.officeRepositoryWrapper = officeRepositoryWrapper;
         this.loanTransactionRepository = loanTransactionRepository;
         this.savingsAccountTransactionRepository = savingsAccountTransactionRepository;
-        this.financialActivityAccountRepository = financialActivityAccountRepository;
         this.accountTransfersReadPlatformService = accountTransfersReadPlatformService;
         this.accountRepositoryWrapper = accountRepositoryWrapper;
-        this.clientTransactionRepository = clientTransactionRepositoryWrapper;
     }
 
     public LoanDTO populateLoanDtoFromMap(final Map<String, Object> accountingBridgeData, final boolean cashBasedAccountingEnabled,
@@ -163,7 +150,8 @@ public class AccountingProcessorHelper {
                 }
             }
 
-            if (!isAccountTransfer) {
+            // accruals are never part of an account transfer
+            if (!isAccountTransfer && !transactionType.isAccrual()) {
                 isAccountTransfer = this.accountTransfersReadPlatformService.isAccountTransfer(Long.parseLong(transactionId),
                         PortfolioAccountType.LOAN);
             }
@@ -433,6 +421,71 @@ public class AccountingProcessorHelper {
                 totalCreditedAmount, totalAmount); }
     }
 
+    /**
+     * Same as
+     * {@link #createAccrualBasedJournalEntriesAndReversalsForLoan(Office, String, Integer, Integer, Long, Long, Long, String, Date, BigDecimal, Boolean)}
+     * for a new (not reversed) transaction, except that the entries are added
+     * to <code>entries</code> for the {@link JournalEntryBatchWriter} instead
+     * of being saved.
+     */
+    public void addAccrualBasedJournalEntriesForLoan(final List<JournalEntryBatchWriter.Entry> entries, final Long officeId,
+            final String currencyCode, final int accountTypeToDebitId, final int accountTypeToCreditId, final Long loanProductId,
+            final Long paymentTypeId, final Long loanId, final Long loanTransactionId, final Date transactionDate, final BigDecimal amount) {
+        final GLAccount debitAccount = getLinkedGLAccountForLoanProduct(loanProductId, accountTypeToDebitId, paymentTypeId);
+        final GLAccount creditAccount = getLinkedGLAccountForLoanProduct(loanProductId, accountTypeToCreditId, paymentTypeId);
+        entries.add(newLoanJournalEntry(officeId, currencyCode, debitAccount, loanId, loanTransactionId, transactionDate,
+                JournalEntryType.DEBIT, amount));
+        entries.add(newLoanJournalEntry(officeId, currencyCode, creditAccount, loanId, loanTransactionId, transactionDate,
+                JournalEntryType.CREDIT, amount));
+    }
+
+    /**
+     * Same as
+     * {@link #createAccrualBasedJournalEntriesAndReversalsForLoanCharges(Office, String, Integer, Integer, Long, Long, String, Date, BigDecimal, Boolean, List)}
+     * for a new (not reversed) transaction, except that the entries are added
+     * to <code>entries</code> for the {@link JournalEntryBatchWriter} instead
+     * of being saved.
+     */
+    public void addAccrualBasedJournalEntriesForLoanCharges(final List<JournalEntryBatchWriter.Entry> entries, final Long officeId,
+            final String currencyCode, final Integer accountTypeToBeDebited, final Integer accountTypeToBeCredited,
+            final Long loanProductId, final Long loanId, final Long loanTransactionId, final Date transactionDate,
+            final BigDecimal totalAmount, final List<ChargePaymentDTO> chargePaymentDTOs) {
+
+        final GLAccount receivableAccount = getLinkedGLAccountForLoanCharges(loanProductId, accountTypeToBeDebited, null);
+        final Map<GLAccount, BigDecimal> creditDetailsMap = new LinkedHashMap<>();
+        for (final ChargePaymentDTO chargePaymentDTO : chargePaymentDTOs) {
+            final GLAccount chargeSpecificAccount = getLinkedGLAccountForLoanCharges(loanProductId, accountTypeToBeCredited,
+                    chargePaymentDTO.getChargeId());
+            BigDecimal chargeSpecificAmount = chargePaymentDTO.getAmount();
+            if (creditDetailsMap.containsKey(chargeSpecificAccount)) {
+                chargeSpecificAmount = chargeSpecificAmount.add(creditDetailsMap.get(chargeSpecificAccount));
+            }
+            creditDetailsMap.put(chargeSpecificAccount, chargeSpecificAmount);
+        }
+
+        BigDecimal totalCreditedAmount = BigDecimal.ZERO;
+        for (final Map.Entry<GLAccount, BigDecimal> entry : creditDetailsMap.entrySet()) {
+            final BigDecimal amount = entry.getValue();
+            totalCreditedAmount = totalCreditedAmount.add(amount);
+            entries.add(newLoanJournalEntry(officeId, currencyCode, receivableAccount, loanId, loanTransactionId, transactionDate,
+                    JournalEntryType.DEBIT, amount));
+            entries.add(newLoanJournalEntry(officeId, currencyCode, entry.getKey(), loanId, loanTransactionId, transactionDate,
+                    JournalEntryType.CREDIT, amount));
+        }
+
+        if (totalAmount.compareTo(totalCreditedAmount) != 0) { throw new PlatformDataIntegrityException(
+                "Meltdown in advanced accounting...sum of all charges is not equal to the fee charge for a transaction",
+                "Meltdown in advanced accounting...sum of all charges is not equal to the fee charge for a transaction",
+                totalCreditedAmount, totalAmount); }
+    }
+
+    private JournalEntryBatchWriter.Entry newLoanJournalEntry(final Long officeId, final String currencyCode, final GLAccount account,
+            final Long loanId, final Long loanTransactionId, final Date transactionDate, final JournalEntryType type,
+            final BigDecimal amount) {
+        return new JournalEntryBatchWriter.Entry(officeId, account.getId(), currencyCode, LOAN_TRANSACTION_IDENTIFIER
+                + loanTransactionId, loanTransactionId, transactionDate, type, amount, PortfolioProductType.LOAN.getValue(), loanId);
+    }
+
     /**
      * Convenience method that creates a pair of related Debits and Credits for
      * Cash Based accounting.
@@ -520,22 +573,22 @@ public class AccountingProcessorHelper {
     }
 
     /**
-     * @param latestGLClosure
+     * @param latestClosingDate
      * @param transactionDate
      */
-    public void checkForBranchClosures(final GLClosure latestGLClosure, final Date transactionDate) {
+    public void checkForBranchClosures(final Date latestClosingDate, final Date transactionDate) {
         /**
          * check if an accounting closure has happened for this branch after the
          * transaction Date
          **/
-        if (latestGLClosure != null) {
-            if (latestGLClosure.getClosingDate().after(transactionDate) || latestGLClosure.getClosingDate().equals(transactionDate)) { throw new JournalEntryInvalidException(
-                    GL_JOURNAL_ENTRY_INVALID_REASON.ACCOUNTING_CLOSED, latestGLClosure.getClosingDate(), null, null); }
+        if (latestClosingDate != null) {
+            if (latestClosingDate.after(transactionDate) || latestClosingDate.equals(transactionDate)) { throw new JournalEntryInvalidException(
+                    GL_JOURNAL_ENTRY_INVALID_REASON.ACCOUNTING_CLOSED, latestClosingDate, null, null); }
         }
     }
 
-    public GLClosure getLatestClosureByBranch(final long officeId) {
-        return this.closureRepository.getLatestGLClosureByBranch(officeId);
+    public Date getLatestClosingDateByBranch(final long officeId) {
+        return this.closureRegistry.getLatestClosingDate(officeId);
     }
 
     public Office getOfficeById(final long officeId) {
@@ -801,150 +854,88 @@ public class AccountingProcessorHelper {
 
     private void createCreditJournalEntryForClientPayments(final Office office, final String currencyCode, final GLAccount account,
             final Long clientId, final Long transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        ClientTransaction clientTransaction = null;
-        final PaymentDetail paymentDetail = null;
-        final Long shareTransactionId = null;
-
-        clientTransaction = this.clientTransactionRepository.findOneWithNotFoundDetection(clientId, transactionId);
-
-        String modifiedTransactionId = transactionId.toString();
-        modifiedTransactionId = CLIENT_TRANSACTION_IDENTIFIER + transactionId;
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.CLIENT.getValue(), clientId,
-                null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        addJournalEntry(office, account, currencyCode, CLIENT_TRANSACTION_IDENTIFIER + transactionId, null, null, transactionId, null,
+                transactionDate, JournalEntryType.CREDIT, amount, PortfolioProductType.CLIENT, clientId);
     }
 
     private void createCreditJournalEntryForSavings(final Office office, final String currencyCode, final GLAccount account,
             final Long savingsId, final String transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        ClientTransaction clientTransaction = null;
-        final Long shareTransactionId = null;
-        final PaymentDetail paymentDetail = null;
+        Long savingsTransactionId = null;
         String modifiedTransactionId = transactionId;
         if (StringUtils.isNumeric(transactionId)) {
-            long id = Long.parseLong(transactionId);
-            savingsAccountTransaction = this.savingsAccountTransactionRepository.findOne(id);
+            savingsTransactionId = Long.parseLong(transactionId);
             modifiedTransactionId = SAVINGS_TRANSACTION_IDENTIFIER + transactionId;
         }
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.SAVING.getValue(), savingsId,
-                null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        addJournalEntry(office, account, currencyCode, modifiedTransactionId, null, savingsTransactionId, null, null, transactionDate,
+                JournalEntryType.CREDIT, amount, PortfolioProductType.SAVING, savingsId);
     }
 
     private void createCreditJournalEntryForLoan(final Office office, final String currencyCode, final GLAccount account,
             final Long loanId, final String transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        ClientTransaction clientTransaction = null;
-        final PaymentDetail paymentDetail = null;
-        final Long shareTransactionId = null;
+        Long loanTransactionId = null;
         String modifiedTransactionId = transactionId;
         if (StringUtils.isNumeric(transactionId)) {
-            long id = Long.parseLong(transactionId);
-            loanTransaction = this.loanTransactionRepository.findOne(id);
+            loanTransactionId = Long.parseLong(transactionId);
             modifiedTransactionId = LOAN_TRANSACTION_IDENTIFIER + transactionId;
         }
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.LOAN.getValue(), loanId, null,
-                loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        addJournalEntry(office, account, currencyCode, modifiedTransactionId, loanTransactionId, null, null, null, transactionDate,
+                JournalEntryType.CREDIT, amount, PortfolioProductType.LOAN, loanId);
     }
 
     public void createProvisioningDebitJournalEntry(Date transactionDate, Long provisioningentryId, Office office, String currencyCode,
             GLAccount account, BigDecimal amount) {
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        ClientTransaction clientTransaction = null;
-        PaymentDetail paymentDetail = null;
-        final Long shareTransactionId = null;
-        final boolean manualEntry = false;
-        String modifiedTransactionId = PROVISIONING_TRANSACTION_IDENTIFIER + provisioningentryId;
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.PROVISIONING.getValue(),
-                provisioningentryId, null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        addJournalEntry(office, account, currencyCode, PROVISIONING_TRANSACTION_IDENTIFIER + provisioningentryId, null, null, null, null,
+                transactionDate, JournalEntryType.DEBIT, amount, PortfolioProductType.PROVISIONING, provisioningentryId);
     }
 
     public void createProvisioningCreditJournalEntry(Date transactionDate, Long provisioningentryId, Office office, String currencyCode,
             GLAccount account, BigDecimal amount) {
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        ClientTransaction clientTransaction = null;
-        PaymentDetail paymentDetail = null;
-        final Long shareTransactionId = null;
-        final boolean manualEntry = false;
-        String modifiedTransactionId = PROVISIONING_TRANSACTION_IDENTIFIER + provisioningentryId;
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.PROVISIONING.getValue(),
-                provisioningentryId, null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        addJournalEntry(office, account, currencyCode, PROVISIONING_TRANSACTION_IDENTIFIER + provisioningentryId, null, null, null, null,
+                transactionDate, JournalEntryType.CREDIT, amount, PortfolioProductType.PROVISIONING, provisioningentryId);
     }
 
-    private void createDebitJournalEntryForLoan(final Office office, final String currencyCode, final GLAccount account, final Long loanId,
-            final String transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        ClientTransaction clientTransaction = null;
-        final PaymentDetail paymentDetail = null;
-        final Long shareTransactionId = null;
+    /**
+     * Journal legs are collected by the {@link JournalEntryBatchWriter} and
+     * written together, balanced per transaction, at the end of the posting
+     * call.
+     */
+    private void addJournalEntry(final Office office, final GLAccount account, final String currencyCode, final String transactionId,
+            final Long loanTransactionId, final Long savingsTransactionId, final Long clientTransactionId, final Long shareTransactionId,
+            final Date transactionDate, final JournalEntryType type, final BigDecimal amount, final PortfolioProductType entityType,
+            final Long entityId) {
+        this.journalEntryWriter.add(new JournalEntryBatchWriter.Entry(office.getId(), account.getId(), currencyCode, transactionId,
+                loanTransactionId, savingsTransactionId, clientTransactionId, shareTransactionId, transactionDate, type, amount,
+                entityType.getValue(), entityId));
+    }
+
+    private void createDebitJournalEntryForLoan(final Office office, final String currencyCode, final GLAccount account,
+            final Long loanId, final String transactionId, final Date transactionDate, final BigDecimal amount) {
+        Long loanTransactionId = null;
         String modifiedTransactionId = transactionId;
         if (StringUtils.isNumeric(transactionId)) {
-            long id = Long.parseLong(transactionId);
-            loanTransaction = this.loanTransactionRepository.findOne(id);
+            loanTransactionId = Long.parseLong(transactionId);
             modifiedTransactionId = LOAN_TRANSACTION_IDENTIFIER + transactionId;
         }
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.LOAN.getValue(), loanId, null,
-                loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        addJournalEntry(office, account, currencyCode, modifiedTransactionId, loanTransactionId, null, null, null, transactionDate,
+                JournalEntryType.DEBIT, amount, PortfolioProductType.LOAN, loanId);
     }
 
     private void createDebitJournalEntryForSavings(final Office office, final String currencyCode, final GLAccount account,
             final Long savingsId, final String transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        ClientTransaction clientTransaction = null;
-        final PaymentDetail paymentDetail = null;
-        final Long shareTransactionId = null;
+        Long savingsTransactionId = null;
         String modifiedTransactionId = transactionId;
         if (StringUtils.isNumeric(transactionId)) {
-            long id = Long.parseLong(transactionId);
-            savingsAccountTransaction = this.savingsAccountTransactionRepository.findOne(id);
+            savingsTransactionId = Long.parseLong(transactionId);
             modifiedTransactionId = SAVINGS_TRANSACTION_IDENTIFIER + transactionId;
         }
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.SAVING.getValue(), savingsId,
-                null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        addJournalEntry(office, account, currencyCode, modifiedTransactionId, null, savingsTransactionId, null, null, transactionDate,
+                JournalEntryType.DEBIT, amount, PortfolioProductType.SAVING, savingsId);
     }
 
     private void createDebitJournalEntryForClientPayments(final Office office, final String currencyCode, final GLAccount account,
             final Long clientId, final Long transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        ClientTransaction clientTransaction = null;
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        final PaymentDetail paymentDetail = null;
-        final Long shareTransactionId = null;
-
-        clientTransaction = this.clientTransactionRepository.findOneWithNotFoundDetection(clientId, transactionId);
-        String modifiedTransactionId = transactionId.toString();
-        modifiedTransactionId = CLIENT_TRANSACTION_IDENTIFIER + transactionId;
-
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.CLIENT.getValue(), clientId, null,
-                loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.saveAndFlush(journalEntry);
+        addJournalEntry(office, account, currencyCode, CLIENT_TRANSACTION_IDENTIFIER + transactionId, null, null, transactionId, null,
+                transactionDate, JournalEntryType.DEBIT, amount, PortfolioProductType.CLIENT, clientId);
     }
 
     public void createJournalEntriesForShares(final Office office, final String currencyCode, final int accountTypeToDebitId,
@@ -1045,51 +1036,35 @@ public class AccountingProcessorHelper {
     
     private void createDebitJournalEntryForShares(final Office office, final String currencyCode, final GLAccount account,
             final Long shareAccountId, final String transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        ClientTransaction clientTransaction = null;
-        final PaymentDetail paymentDetail = null;
         Long shareTransactionId = null;
         String modifiedTransactionId = transactionId;
         if (StringUtils.isNumeric(transactionId)) {
             shareTransactionId = Long.parseLong(transactionId);
             modifiedTransactionId = SHARE_TRANSACTION_IDENTIFIER + transactionId;
         }
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.DEBIT, amount, null, PortfolioProductType.SHARES.getValue(), shareAccountId,
-                null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.save(journalEntry);
+        addJournalEntry(office, account, currencyCode, modifiedTransactionId, null, null, null, shareTransactionId, transactionDate,
+                JournalEntryType.DEBIT, amount, PortfolioProductType.SHARES, shareAccountId);
     }
 
     private void createCreditJournalEntryForShares(final Office office, final String currencyCode, final GLAccount account,
             final Long shareAccountId, final String transactionId, final Date transactionDate, final BigDecimal amount) {
-        final boolean manualEntry = false;
-        LoanTransaction loanTransaction = null;
-        SavingsAccountTransaction savingsAccountTransaction = null;
-        ClientTransaction clientTransaction = null;
         Long shareTransactionId = null;
-        final PaymentDetail paymentDetail = null;
         String modifiedTransactionId = transactionId;
         if (StringUtils.isNumeric(transactionId)) {
             shareTransactionId = Long.parseLong(transactionId);
             modifiedTransactionId = SHARE_TRANSACTION_IDENTIFIER + transactionId;
         }
-        final JournalEntry journalEntry = JournalEntry.createNew(office, paymentDetail, account, currencyCode, modifiedTransactionId,
-                manualEntry, transactionDate, JournalEntryType.CREDIT, amount, null, PortfolioProductType.SHARES.getValue(),
-                shareAccountId, null, loanTransaction, savingsAccountTransaction, clientTransaction, shareTransactionId);
-        this.glJournalEntryRepository.save(journalEntry);
+        addJournalEntry(office, account, currencyCode, modifiedTransactionId, null, null, null, shareTransactionId, transactionDate,
+                JournalEntryType.CREDIT, amount, PortfolioProductType.SHARES, shareAccountId);
     }
 
     public GLAccount getLinkedGLAccountForLoanProduct(final Long loanProductId, final int accountMappingTypeId, final Long paymentTypeId) {
         GLAccount glAccount = null;
         if (isOrganizationAccount(accountMappingTypeId)) {
-            FinancialActivityAccount financialActivityAccount = this.financialActivityAccountRepository
-                    .findByFinancialActivityTypeWithNotFoundDetection(accountMappingTypeId);
-            glAccount = financialActivityAccount.getGlAccount();
+            glAccount = getFinancialActivityGLAccount(accountMappingTypeId);
         } else {
-            ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(loanProductId,
-                    PortfolioProductType.LOAN.getValue(), accountMappingTypeId);
+            final ProductToGLAccountMappingLookup mappings = this.accountMappingResolver.retrieveMappings();
+            Long glAccountId = mappings.productGLAccountId(PortfolioProductType.LOAN, loanProductId, accountMappingTypeId);
 
             /****
              * Get more specific mapping for FUND source accounts (based on
@@ -1097,24 +1072,23 @@ public class AccountingProcessorHelper {
              * same for both cash and accrual accounts
              ***/
             if (accountMappingTypeId == CASH_ACCOUNTS_FOR_LOAN.FUND_SOURCE.getValue()) {
-                final ProductToGLAccountMapping paymentChannelSpecificAccountMapping = this.accountMappingRepository
-                        .findByProductIdAndProductTypeAndFinancialAccountTypeAndPaymentTypeId(loanProductId,
-                                PortfolioProductType.LOAN.getValue(), accountMappingTypeId, paymentTypeId);
-                if (paymentChannelSpecificAccountMapping != null) {
-                    accountMapping = paymentChannelSpecificAccountMapping;
+                final Long paymentChannelSpecificGLAccountId = mappings.paymentTypeGLAccountId(PortfolioProductType.LOAN, loanProductId,
+                        accountMappingTypeId, paymentTypeId);
+                if (paymentChannelSpecificGLAccountId != null) {
+                    glAccountId = paymentChannelSpecificGLAccountId;
                 }
             }
 
-            if (accountMapping == null) { throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, loanProductId,
+            if (glAccountId == null) { throw new ProductToGLAccountMappingNotFoundException(PortfolioProductType.LOAN, loanProductId,
                     ACCRUAL_ACCOUNTS_FOR_LOAN.OVERPAYMENT.toString()); }
-            glAccount = accountMapping.getGlAccount();
+            glAccount = getMappedGLAccount(glAccountId);
         }
         return glAccount;
     }
 
     private GLAccount getLinkedGLAccountForLoanCharges(final Long loanProductId, final int accountMappingTypeId, final Long chargeId) {
-        ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(loanProductId,
-                PortfolioProductType.LOAN.getValue(), accountMappingTypeId);
+        final ProductToGLAccountMappingLookup mappings = this.accountMappingResolver.retrieveMappings();
+        Long glAccountId = mappings.productGLAccountId(PortfolioProductType.LOAN, loanProductId, accountMappingTypeId);
         /*****
          * Get more specific mappings for Charges and penalties (based on the
          * actual charge /penalty coupled with the loan product). Note the
@@ -1125,19 +1099,18 @@ public class AccountingProcessorHelper {
         // Vishwas TODO: remove this condition as it should always be true
         if (accountMappingTypeId == CASH_ACCOUNTS_FOR_LOAN.INCOME_FROM_FEES.getValue()
                 || accountMappingTypeId == CASH_ACCOUNTS_FOR_LOAN.INCOME_FROM_PENALTIES.getValue()) {
-            final ProductToGLAccountMapping chargeSpecificIncomeAccountMapping = this.accountMappingRepository
-                    .findByProductIdAndProductTypeAndFinancialAccountTypeAndChargeId(loanProductId, PortfolioProductType.LOAN.getValue(),
-                            accountMappingTypeId, chargeId);
-            if (chargeSpecificIncomeAccountMapping != null) {
-                accountMapping = chargeSpecificIncomeAccountMapping;
+            final Long chargeSpecificIncomeGLAccountId = mappings.chargeGLAccountId(PortfolioProductType.LOAN, loanProductId,
+                    accountMappingTypeId, chargeId);
+            if (chargeSpecificIncomeGLAccountId != null) {
+                glAccountId = chargeSpecificIncomeGLAccountId;
             }
         }
-        return accountMapping.getGlAccount();
+        return getMappedGLAccount(glAccountId);
     }
 
     private GLAccount getLinkedGLAccountForSavingsCharges(final Long savingsProductId, final int accountMappingTypeId, final Long chargeId) {
-        ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(savingsProductId,
-                PortfolioProductType.SAVING.getValue(), accountMappingTypeId);
+        final ProductToGLAccountMappingLookup mappings = this.accountMappingResolver.retrieveMappings();
+        Long glAccountId = mappings.productGLAccountId(PortfolioProductType.SAVING, savingsProductId, accountMappingTypeId);
         /*****
          * Get more specific mappings for Charges and penalties (based on the
          * actual charge /penalty coupled with the loan product). Note the
@@ -1148,40 +1121,36 @@ public class AccountingProcessorHelper {
         // Vishwas TODO: remove this condition as it should always be true
         if (accountMappingTypeId == CASH_ACCOUNTS_FOR_SAVINGS.INCOME_FROM_FEES.getValue()
                 || accountMappingTypeId == CASH_ACCOUNTS_FOR_LOAN.INCOME_FROM_PENALTIES.getValue()) {
-            final ProductToGLAccountMapping chargeSpecificIncomeAccountMapping = this.accountMappingRepository
-                    .findByProductIdAndProductTypeAndFinancialAccountTypeAndChargeId(savingsProductId,
-                            PortfolioProductType.SAVING.getValue(), accountMappingTypeId, chargeId);
-            if (chargeSpecificIncomeAccountMapping != null) {
-                accountMapping = chargeSpecificIncomeAccountMapping;
+            final Long chargeSpecificIncomeGLAccountId = mappings.chargeGLAccountId(PortfolioProductType.SAVING, savingsProductId,
+                    accountMappingTypeId, chargeId);
+            if (chargeSpecificIncomeGLAccountId != null) {
+                glAccountId = chargeSpecificIncomeGLAccountId;
             }
         }
-        return accountMapping.getGlAccount();
+        return getMappedGLAccount(glAccountId);
     }
 
     private GLAccount getLinkedGLAccountForSavingsProduct(final Long savingsProductId, final int accountMappingTypeId,
             final Long paymentTypeId) {
         GLAccount glAccount = null;
         if (isOrganizationAccount(accountMappingTypeId)) {
-            FinancialActivityAccount financialActivityAccount = this.financialActivityAccountRepository
-                    .findByFinancialActivityTypeWithNotFoundDetection(accountMappingTypeId);
-            glAccount = financialActivityAccount.getGlAccount();
+            glAccount = getFinancialActivityGLAccount(accountMappingTypeId);
         } else {
-            ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(savingsProductId,
-                    PortfolioProductType.SAVING.getValue(), accountMappingTypeId);
+            final ProductToGLAccountMappingLookup mappings = this.accountMappingResolver.retrieveMappings();
+            Long glAccountId = mappings.productGLAccountId(PortfolioProductType.SAVING, savingsProductId, accountMappingTypeId);
             /****
              * Get more specific mapping for FUND source accounts (based on
              * payment channels). Note that fund source placeholder ID would be
              * same for both cash and accrual accounts
              ***/
             if (accountMappingTypeId == CASH_ACCOUNTS_FOR_SAVINGS.SAVINGS_REFERENCE.getValue()) {
-                final ProductToGLAccountMapping paymentChannelSpecificAccountMapping = this.accountMappingRepository
-                        .findByProductIdAndProductTypeAndFinancialAccountTypeAndPaymentTypeId(savingsProductId,
-                                PortfolioProductType.SAVING.getValue(), accountMappingTypeId, paymentTypeId);
-                if (paymentChannelSpecificAccountMapping != null) {
-                    accountMapping = paymentChannelSpecificAccountMapping;
+                final Long paymentChannelSpecificGLAccountId = mappings.paymentTypeGLAccountId(PortfolioProductType.SAVING,
+                        savingsProductId, accountMappingTypeId, paymentTypeId);
+                if (paymentChannelSpecificGLAccountId != null) {
+                    glAccountId = paymentChannelSpecificGLAccountId;
                 }
             }
-            glAccount = accountMapping.getGlAccount();
+            glAccount = getMappedGLAccount(glAccountId);
         }
         return glAccount;
     }
@@ -1189,29 +1158,26 @@ public class AccountingProcessorHelper {
     private GLAccount getLinkedGLAccountForShareProduct(final Long shareProductId, final int accountMappingTypeId, final Long paymentTypeId) {
         GLAccount glAccount = null;
         if (isOrganizationAccount(accountMappingTypeId)) {
-            FinancialActivityAccount financialActivityAccount = this.financialActivityAccountRepository
-                    .findByFinancialActivityTypeWithNotFoundDetection(accountMappingTypeId);
-            glAccount = financialActivityAccount.getGlAccount();
+            glAccount = getFinancialActivityGLAccount(accountMappingTypeId);
         } else {
-            ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(shareProductId,
-                    PortfolioProductType.SHARES.getValue(), accountMappingTypeId);
+            final ProductToGLAccountMappingLookup mappings = this.accountMappingResolver.retrieveMappings();
+            Long glAccountId = mappings.productGLAccountId(PortfolioProductType.SHARES, shareProductId, accountMappingTypeId);
 
             if (accountMappingTypeId == CASH_ACCOUNTS_FOR_SHARES.SHARES_REFERENCE.getValue()) {
-                final ProductToGLAccountMapping paymentChannelSpecificAccountMapping = this.accountMappingRepository
-                        .findByProductIdAndProductTypeAndFinancialAccountTypeAndPaymentTypeId(shareProductId,
-                                PortfolioProductType.SHARES.getValue(), accountMappingTypeId, paymentTypeId);
-                if (paymentChannelSpecificAccountMapping != null) {
-                    accountMapping = paymentChannelSpecificAccountMapping;
+                final Long paymentChannelSpecificGLAccountId = mappings.paymentTypeGLAccountId(PortfolioProductType.SHARES,
+                        shareProductId, accountMappingTypeId, paymentTypeId);
+                if (paymentChannelSpecificGLAccountId != null) {
+                    glAccountId = paymentChannelSpecificGLAccountId;
                 }
             }
-            glAccount = accountMapping.getGlAccount();
+            glAccount = getMappedGLAccount(glAccountId);
         }
         return glAccount;
     }
 
     private GLAccount getLinkedGLAccountForShareCharges(final Long shareProductId, final int accountMappingTypeId, final Long chargeId) {
-        ProductToGLAccountMapping accountMapping = this.accountMappingRepository.findCoreProductToFinAccountMapping(shareProductId,
-                PortfolioProductType.SHARES.getValue(), accountMappingTypeId);
+        final ProductToGLAccountMappingLookup mappings = this.accountMappingResolver.retrieveMappings();
+        Long glAccountId = mappings.productGLAccountId(PortfolioProductType.SHARES, shareProductId, accountMappingTypeId);
         /*****
          * Get more specific mappings for Charges and penalties (based on the
          * actual charge /penalty coupled with the loan product). Note the
@@ -1219,13 +1185,27 @@ public class AccountingProcessorHelper {
          * the same for both cash and accrual based accounts
          *****/
 
-        final ProductToGLAccountMapping chargeSpecificIncomeAccountMapping = this.accountMappingRepository
-                .findByProductIdAndProductTypeAndFinancialAccountTypeAndChargeId(shareProductId, PortfolioProductType.SHARES.getValue(),
-                        accountMappingTypeId, chargeId);
-        if (chargeSpecificIncomeAccountMapping != null) {
-            accountMapping = chargeSpecificIncomeAccountMapping;
+        final Long chargeSpecificIncomeGLAccountId = mappings.chargeGLAccountId(PortfolioProductType.SHARES, shareProductId,
+                accountMappingTypeId, chargeId);
+        if (chargeSpecificIncomeGLAccountId != null) {
+            glAccountId = chargeSpecificIncomeGLAccountId;
         }
-        return accountMapping.getGlAccount();
+        return getMappedGLAccount(glAccountId);
+    }
+
+    private GLAccount getFinancialActivityGLAccount(final int financialActivityType) {
+        final Long glAccountId = this.accountMappingResolver.retrieveMappings().financialActivityGLAccountId(financialActivityType);
+        if (glAccountId == null) { throw new FinancialActivityAccountNotFoundException(financialActivityType); }
+        return getMappedGLAccount(glAccountId);
+    }
+
+    /**
+     * Mapped accounts are referenced by id without loading them, the journal
+     * entries only need their id.
+     */
+    private GLAccount getMappedGLAccount(final Long glAccountId) {
+        if (glAccountId == null) { return null; }
+        return this.accountRepositoryWrapper.findReference(glAccountId);
     }
 
     private boolean isOrganizationAccount(final int accountMappingTypeId) {
@@ -1275,8 +1255,7 @@ public class AccountingProcessorHelper {
 
     public void createDebitJournalEntryOrReversalForClientChargePayments(final Office office, final String currencyCode,
             final Long clientId, final Long transactionId, final Date transactionDate, final BigDecimal amount, final Boolean isReversal) {
-        final GLAccount account = financialActivityAccountRepository.findByFinancialActivityTypeWithNotFoundDetection(
-                FINANCIAL_ACTIVITY.ASSET_FUND_SOURCE.getValue()).getGlAccount();
+        final GLAccount account = getFinancialActivityGLAccount(FINANCIAL_ACTIVITY.ASSET_FUND_SOURCE.getValue());
         if (isReversal) {
             createCreditJournalEntryForClientPayments(office, currencyCode, account, clientId, transactionId, transactionDate, amount);
         } else {
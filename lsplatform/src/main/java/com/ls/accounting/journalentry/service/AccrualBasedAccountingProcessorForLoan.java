@@ -26,7 +26,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import com.ls.accounting.closure.domain.GLClosure;
 import com.ls.accounting.common.AccountingConstants.ACCRUAL_ACCOUNTS_FOR_LOAN;
 import com.ls.accounting.common.AccountingConstants.CASH_ACCOUNTS_FOR_LOAN;
 import com.ls.accounting.common.AccountingConstants.FINANCIAL_ACTIVITY;
@@ -50,11 +49,11 @@ public class AccrualBasedAccountingProcessorForLoan implements AccountingProcess
 
     @Override
     public void createJournalEntriesForLoan(final LoanDTO loanDTO) {
-        final GLClosure latestGLClosure = this.helper.getLatestClosureByBranch(loanDTO.getOfficeId());
+        final Date latestClosingDate = this.helper.getLatestClosingDateByBranch(loanDTO.getOfficeId());
         final Office office = this.helper.getOfficeById(loanDTO.getOfficeId());
         for (final LoanTransactionDTO loanTransactionDTO : loanDTO.getNewLoanTransactions()) {
             final Date transactionDate = loanTransactionDTO.getTransactionDate();
-            this.helper.checkForBranchClosures(latestGLClosure, transactionDate);
+            this.helper.checkForBranchClosures(latestClosingDate, transactionDate);
 
             /** Handle Disbursements **/
             if (loanTransactionDTO.getTransactionType().isDisbursement()) {
@@ -344,6 +343,46 @@ public class AccrualBasedAccountingProcessorForLoan implements AccountingProcess
 
     }
 
+    /**
+     * Builds the journal entries {@link #createJournalEntriesForLoan(LoanDTO)}
+     * posts for the new accrual transactions of a loan and adds them to
+     * <code>entries</code>, so that they can be written in bulk by the
+     * {@link JournalEntryBatchWriter}.
+     */
+    public void addJournalEntriesForAccruals(final LoanDTO loanDTO, final Date latestClosingDate,
+            final List<JournalEntryBatchWriter.Entry> entries) {
+        final Long loanProductId = loanDTO.getLoanProductId();
+        final Long loanId = loanDTO.getLoanId();
+        final String currencyCode = loanDTO.getCurrencyCode();
+        for (final LoanTransactionDTO loanTransactionDTO : loanDTO.getNewLoanTransactions()) {
+            if (!loanTransactionDTO.getTransactionType().isAccrual() || loanTransactionDTO.isReversed()) { throw new IllegalArgumentException(
+                    "Only new accrual transactions can be added: " + loanTransactionDTO.getTransactionId()); }
+            final Date transactionDate = loanTransactionDTO.getTransactionDate();
+            this.helper.checkForBranchClosures(latestClosingDate, transactionDate);
+            final Long transactionId = Long.valueOf(loanTransactionDTO.getTransactionId());
+            final BigDecimal interestAmount = loanTransactionDTO.getInterest();
+            final BigDecimal feesAmount = loanTransactionDTO.getFees();
+            final BigDecimal penaltiesAmount = loanTransactionDTO.getPenalties();
+
+            if (interestAmount != null && !(interestAmount.compareTo(BigDecimal.ZERO) == 0)) {
+                this.helper.addAccrualBasedJournalEntriesForLoan(entries, loanDTO.getOfficeId(), currencyCode,
+                        ACCRUAL_ACCOUNTS_FOR_LOAN.INTEREST_RECEIVABLE.getValue(), ACCRUAL_ACCOUNTS_FOR_LOAN.INTEREST_ON_LOANS.getValue(),
+                        loanProductId, loanTransactionDTO.getPaymentTypeId(), loanId, transactionId, transactionDate, interestAmount);
+            }
+            if (feesAmount != null && !(feesAmount.compareTo(BigDecimal.ZERO) == 0)) {
+                this.helper.addAccrualBasedJournalEntriesForLoanCharges(entries, loanDTO.getOfficeId(), currencyCode,
+                        ACCRUAL_ACCOUNTS_FOR_LOAN.FEES_RECEIVABLE.getValue(), ACCRUAL_ACCOUNTS_FOR_LOAN.INCOME_FROM_FEES.getValue(),
+                        loanProductId, loanId, transactionId, transactionDate, feesAmount, loanTransactionDTO.getFeePayments());
+            }
+            if (penaltiesAmount != null && !(penaltiesAmount.compareTo(BigDecimal.ZERO) == 0)) {
+                this.helper.addAccrualBasedJournalEntriesForLoanCharges(entries, loanDTO.getOfficeId(), currencyCode,
+                        ACCRUAL_ACCOUNTS_FOR_LOAN.PENALTIES_RECEIVABLE.getValue(),
+                        ACCRUAL_ACCOUNTS_FOR_LOAN.INCOME_FROM_PENALTIES.getValue(), loanProductId, loanId, transactionId,
+                        transactionDate, penaltiesAmount, loanTransactionDTO.getPenaltyPayments());
+            }
+        }
+    }
+
     /**
      * Recognize the receivable interest <br/>
      * Debit "Interest Receivable" and Credit "Income from Interest"
@@ -21,7 +21,6 @@ package com.ls.accounting.journalentry.service;
 import java.math.BigDecimal;
 import java.util.Date;
 
-import com.ls.accounting.closure.domain.GLClosure;
 import com.ls.accounting.journalentry.data.ClientTransactionDTO;
 import com.ls.organisation.office.domain.Office;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,10 +39,10 @@ public class CashBasedAccountingProcessorForClientTransactions implements Accoun
     @Override
     public void createJournalEntriesForClientTransaction(ClientTransactionDTO clientTransactionDTO) {
         if (clientTransactionDTO.getAccountingEnabled()) {
-            final GLClosure latestGLClosure = this.helper.getLatestClosureByBranch(clientTransactionDTO.getOfficeId());
+            final Date latestClosingDate = this.helper.getLatestClosingDateByBranch(clientTransactionDTO.getOfficeId());
             final Date transactionDate = clientTransactionDTO.getTransactionDate();
             final Office office = this.helper.getOfficeById(clientTransactionDTO.getOfficeId());
-            this.helper.checkForBranchClosures(latestGLClosure, transactionDate);
+            this.helper.checkForBranchClosures(latestClosingDate, transactionDate);
 
             /** Handle client payments **/
             if (clientTransactionDTO.isChargePayment()) {
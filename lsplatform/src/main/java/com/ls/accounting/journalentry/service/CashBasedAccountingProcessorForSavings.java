@@ -22,7 +22,6 @@ import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 
-import com.ls.accounting.closure.domain.GLClosure;
 import com.ls.accounting.common.AccountingConstants.CASH_ACCOUNTS_FOR_SAVINGS;
 import com.ls.accounting.common.AccountingConstants.FINANCIAL_ACTIVITY;
 import com.ls.accounting.journalentry.data.ChargePaymentDTO;
@@ -44,7 +43,7 @@ public class CashBasedAccountingProcessorForSavings implements AccountingProcess
 
     @Override
     public void createJournalEntriesForSavings(final SavingsDTO savingsDTO) {
-        final GLClosure latestGLClosure = this.helper.getLatestClosureByBranch(savingsDTO.getOfficeId());
+        final Date latestClosingDate = this.helper.getLatestClosingDateByBranch(savingsDTO.getOfficeId());
         final Long savingsProductId = savingsDTO.getSavingsProductId();
         final Long savingsId = savingsDTO.getSavingsId();
         final String currencyCode = savingsDTO.getCurrencyCode();
@@ -59,7 +58,7 @@ public class CashBasedAccountingProcessorForSavings implements AccountingProcess
             final List<ChargePaymentDTO> feePayments = savingsTransactionDTO.getFeePayments();
             final List<ChargePaymentDTO> penaltyPayments = savingsTransactionDTO.getPenaltyPayments();
 
-            this.helper.checkForBranchClosures(latestGLClosure, transactionDate);
+            this.helper.checkForBranchClosures(latestClosingDate, transactionDate);
 
             if (savingsTransactionDTO.getTransactionType().isWithdrawal() && savingsTransactionDTO.isOverdraftTransaction()) {
                 if (savingsTransactionDTO.isAccountTransfer()) {
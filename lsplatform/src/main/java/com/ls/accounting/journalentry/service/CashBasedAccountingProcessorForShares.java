@@ -22,7 +22,6 @@ import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 
-import com.ls.accounting.closure.domain.GLClosure;
 import com.ls.accounting.common.AccountingConstants.CASH_ACCOUNTS_FOR_SHARES;
 import com.ls.accounting.journalentry.data.ChargePaymentDTO;
 import com.ls.accounting.journalentry.data.SharesDTO;
@@ -43,7 +42,7 @@ public class CashBasedAccountingProcessorForShares implements AccountingProcesso
 
     @Override
     public void createJournalEntriesForShares(SharesDTO sharesDTO) {
-        final GLClosure latestGLClosure = this.helper.getLatestClosureByBranch(sharesDTO.getOfficeId());
+        final Date latestClosingDate = this.helper.getLatestClosingDateByBranch(sharesDTO.getOfficeId());
         final Long shareAccountId = sharesDTO.getShareAccountId();
         final Long shareProductId = sharesDTO.getShareProductId();
         final String currencyCode = sharesDTO.getCurrencyCode();
@@ -56,7 +55,7 @@ public class CashBasedAccountingProcessorForShares implements AccountingProcesso
             final BigDecimal chargeAmount = transactionDTO.getChargeAmount();
             final List<ChargePaymentDTO> feePayments = transactionDTO.getFeePayments();
 
-            this.helper.checkForBranchClosures(latestGLClosure, transactionDate);
+            this.helper.checkForBranchClosures(latestClosingDate, transactionDate);
 
             if (transactionDTO.getTransactionType().isPurchased()) {
                 createJournalEntriesForPurchase(shareAccountId, shareProductId, currencyCode, transactionDTO, transactionDate,
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Balances of GL accounts answered from the daily balance snapshot maintained
+ * by the running balance job, plus the entries posted since it last ran.
+ * 
+ * Balances are debits minus credits. An office id or currency code of
+ * <code>null</code> includes all offices or currencies.
+ */
+public interface GLBalanceReadPlatformService {
+
+    /**
+     * Returns the balance of every GL account with entries up to and including
+     * <code>asOfDate</code>, by GL account id.
+     */
+    Map<Long, BigDecimal> retrieveAccountBalances(Long officeId, String currencyCode, Date asOfDate);
+
+    /**
+     * Returns the sum of the entries of every GL account dated after
+     * <code>fromDate</code> up to and including <code>toDate</code>, by GL
+     * account id.
+     */
+    Map<Long, BigDecimal> retrieveAccountMovements(Long officeId, String currencyCode, Date fromDate, Date toDate);
+}
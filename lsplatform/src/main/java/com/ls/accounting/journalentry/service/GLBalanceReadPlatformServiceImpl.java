@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ls.accounting.journalentry.domain.JournalEntryType;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class GLBalanceReadPlatformServiceImpl implements GLBalanceReadPlatformService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public GLBalanceReadPlatformServiceImpl(final RoutingDataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> retrieveAccountBalances(final Long officeId, final String currencyCode, final Date asOfDate) {
+        final List<Object> parameters = new ArrayList<>();
+        final StringBuilder sql = new StringBuilder("select b.accountId as accountId, sum(b.balance) as balance from (");
+
+        // the last closing balance of every office and currency of an account
+        sql.append("select s.account_id as accountId, sum(s.closing_balance) as balance from acc_gl_daily_balance s ")
+                .append("inner join (select account_id, office_id, currency_code, max(balance_date) as balance_date ")
+                .append("from acc_gl_daily_balance where balance_date <= ?");
+        parameters.add(asOfDate);
+        appendFilters(sql, parameters, "", officeId, currencyCode);
+        sql.append(" group by account_id, office_id, currency_code) latest on latest.account_id = s.account_id ")
+                .append("and latest.office_id = s.office_id and latest.currency_code = s.currency_code ")
+                .append("and latest.balance_date = s.balance_date group by s.account_id");
+
+        // entries not in the snapshot yet, read in the same statement so that
+        // entries the running balance job moves into the snapshot meanwhile
+        // are neither missed nor counted twice
+        sql.append(" union all ").append(pendingEntriesSchema()).append(" and je.entry_date <= ?");
+        parameters.add(asOfDate);
+        appendFilters(sql, parameters, "je.", officeId, currencyCode);
+        sql.append(" group by je.account_id) b group by b.accountId");
+
+        final Map<Long, BigDecimal> balances = new HashMap<>();
+        this.jdbcTemplate.query(sql.toString(), parameters.toArray(), new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                balances.put(rs.getLong("accountId"), rs.getBigDecimal("balance"));
+            }
+        });
+        return balances;
+    }
+
+    /**
+     * Both balances are read within one read only transaction, so that they
+     * see the snapshot and the journal as of the same moment.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, BigDecimal> retrieveAccountMovements(final Long officeId, final String currencyCode, final Date fromDate,
+            final Date toDate) {
+        final Map<Long, BigDecimal> movements = retrieveAccountBalances(officeId, currencyCode, toDate);
+        for (final Map.Entry<Long, BigDecimal> openingBalance : retrieveAccountBalances(officeId, currencyCode, fromDate).entrySet()) {
+            final BigDecimal closingBalance = movements.get(openingBalance.getKey());
+            movements.put(openingBalance.getKey(),
+                    (closingBalance == null ? BigDecimal.ZERO : closingBalance).subtract(openingBalance.getValue()));
+        }
+        return movements;
+    }
+
+    private static String pendingEntriesSchema() {
+        return "select je.account_id as accountId, sum(case when je.type_enum = " + JournalEntryType.DEBIT.getValue()
+                + " then je.amount else -je.amount end) as balance from acc_gl_journal_entry je where je.is_running_balance_calculated = 0";
+    }
+
+    private static void appendFilters(final StringBuilder sql, final List<Object> parameters, final String alias, final Long officeId,
+            final String currencyCode) {
+        if (officeId != null) {
+            sql.append(" and ").append(alias).append("office_id = ?");
+            parameters.add(officeId);
+        }
+        if (currencyCode != null) {
+            sql.append(" and ").append(alias).append("currency_code = ?");
+            parameters.add(currencyCode);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ls.accounting.journalentry.domain.JournalEntryRepository;
+import com.ls.accounting.journalentry.domain.JournalEntryType;
+import com.ls.infrastructure.core.domain.AuditorAwareImpl;
+import com.ls.infrastructure.core.exception.PlatformDataIntegrityException;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Writes system generated journal entries with JDBC batch inserts instead of
+ * saving them one by one through the JournalEntryRepository.
+ *
+ * Entries can either be written straight away with {@link #write(List)} or be
+ * collected with {@link #add(Entry)} within the current transaction. Collected
+ * entries are checked and written together by {@link #flushPendingEntries()},
+ * which every posting call ends with, so that they can be read back within
+ * the transaction and an unbalanced posting fails the call that made it.
+ * Entries still pending when the transaction commits are written just before
+ * it does, and are discarded if it rolls back.
+ */
+@Component
+public class JournalEntryBatchWriter {
+
+    private final static Logger logger = LoggerFactory.getLogger(JournalEntryBatchWriter.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "insert into acc_gl_journal_entry (account_id, office_id, currency_code, transaction_id, "
+            + "loan_transaction_id, savings_transaction_id, client_transaction_id, share_transaction_id, reversed, manual_entry, "
+            + "entry_date, type_enum, amount, entity_type_enum, entity_id, createdby_id, lastmodifiedby_id, created_date, "
+            + "lastmodified_date) values (?, ?, ?, ?, ?, ?, ?, ?, 0, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * A journal entry waiting to be written.
+     */
+    public static final class Entry {
+
+        private final Long officeId;
+        private final Long glAccountId;
+        private final String currencyCode;
+        private final String transactionId;
+        private final Long loanTransactionId;
+        private final Long savingsTransactionId;
+        private final Long clientTransactionId;
+        private final Long shareTransactionId;
+        private final Date transactionDate;
+        private final JournalEntryType type;
+        private final BigDecimal amount;
+        private final Integer entityType;
+        private final Long entityId;
+
+        public Entry(final Long officeId, final Long glAccountId, final String currencyCode, final String transactionId,
+                final Long loanTransactionId, final Date transactionDate, final JournalEntryType type, final BigDecimal amount,
+                final Integer entityType, final Long entityId) {
+            this(officeId, glAccountId, currencyCode, transactionId, loanTransactionId, null, null, null, transactionDate, type, amount,
+                    entityType, entityId);
+        }
+
+        public Entry(final Long officeId, final Long glAccountId, final String currencyCode, final String transactionId,
+                final Long loanTransactionId, final Long savingsTransactionId, final Long clientTransactionId,
+                final Long shareTransactionId, final Date transactionDate, final JournalEntryType type, final BigDecimal amount,
+                final Integer entityType, final Long entityId) {
+            this.officeId = officeId;
+            this.glAccountId = glAccountId;
+            this.currencyCode = currencyCode;
+            this.transactionId = transactionId;
+            this.loanTransactionId = loanTransactionId;
+            this.savingsTransactionId = savingsTransactionId;
+            this.clientTransactionId = clientTransactionId;
+            this.shareTransactionId = shareTransactionId;
+            this.transactionDate = transactionDate;
+            this.type = type;
+            this.amount = amount;
+            this.entityType = entityType;
+            this.entityId = entityId;
+        }
+
+        public Long getOfficeId() {
+            return this.officeId;
+        }
+
+        public Long getGlAccountId() {
+            return this.glAccountId;
+        }
+
+        public String getCurrencyCode() {
+            return this.currencyCode;
+        }
+
+        public String getTransactionId() {
+            return this.transactionId;
+        }
+
+        public Long getLoanTransactionId() {
+            return this.loanTransactionId;
+        }
+
+        public Date getTransactionDate() {
+            return this.transactionDate;
+        }
+
+        public JournalEntryType getType() {
+            return this.type;
+        }
+
+        public BigDecimal getAmount() {
+            return this.amount;
+        }
+
+        public Long getEntityId() {
+            return this.entityId;
+        }
+    }
+
+    /**
+     * The entries added during a transaction, bound to it as a resource of
+     * this writer.
+     */
+    private final class PendingEntries extends TransactionSynchronizationAdapter {
+
+        private final List<Entry> entries = new ArrayList<>();
+
+        void flush() {
+            if (this.entries.isEmpty()) { return; }
+            final List<Entry> entriesToWrite = new ArrayList<>(this.entries);
+            this.entries.clear();
+            // the entries refer to transactions which may only have been
+            // saved through JPA so far
+            JournalEntryBatchWriter.this.journalEntryRepository.flush();
+            write(entriesToWrite);
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(JournalEntryBatchWriter.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(JournalEntryBatchWriter.this, this);
+        }
+
+        @Override
+        public void beforeCommit(final boolean readOnly) {
+            flush();
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(JournalEntryBatchWriter.this);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAwareImpl auditorAware;
+    private final JournalEntryRepository journalEntryRepository;
+
+    @Autowired
+    public JournalEntryBatchWriter(final RoutingDataSource dataSource, final AuditorAwareImpl auditorAware,
+            final JournalEntryRepository journalEntryRepository) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.auditorAware = auditorAware;
+        this.journalEntryRepository = journalEntryRepository;
+    }
+
+    /**
+     * Adds an entry to those written by the next
+     * {@link #flushPendingEntries()} of the current transaction. The entries
+     * of a posting are only checked for balance together, so entries cannot
+     * be added outside of a transaction.
+     */
+    public void add(final Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { throw new IllegalStateException(
+                "Journal entries can only be added within a transaction"); }
+        PendingEntries pendingEntries = (PendingEntries) TransactionSynchronizationManager.getResource(this);
+        if (pendingEntries == null) {
+            pendingEntries = new PendingEntries();
+            TransactionSynchronizationManager.bindResource(this, pendingEntries);
+            TransactionSynchronizationManager.registerSynchronization(pendingEntries);
+        }
+        pendingEntries.entries.add(entry);
+    }
+
+    /**
+     * Writes the entries added so far in the current transaction, after
+     * checking that they balance.
+     */
+    public void flushPendingEntries() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { return; }
+        final PendingEntries pendingEntries = (PendingEntries) TransactionSynchronizationManager.getResource(this);
+        if (pendingEntries != null) {
+            pendingEntries.flush();
+        }
+    }
+
+    /**
+     * Writes the entries after checking that debits and credits balance for
+     * every transaction among them. Nothing is written if they do not.
+     */
+    public void write(final List<Entry> entries) {
+        if (entries.isEmpty()) { return; }
+        validateDebitsEqualCredits(entries);
+        insert(entries);
+    }
+
+    private void insert(final List<Entry> entries) {
+        try {
+            insertBatches(entries);
+        } catch (final DataIntegrityViolationException dve) {
+            final Throwable realCause = dve.getMostSpecificCause();
+            logger.error(dve.getMessage(), dve);
+            throw new PlatformDataIntegrityException("error.msg.glJournalEntry.unknown.data.integrity.issue",
+                    "Unknown data integrity issue with resource Journal Entry: " + realCause.getMessage());
+        }
+    }
+
+    private void insertBatches(final List<Entry> entries) {
+        final Long userId = this.auditorAware.getCurrentAuditor().getId();
+        final Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int fromIndex = 0; fromIndex < entries.size(); fromIndex += BATCH_SIZE) {
+            final List<Entry> batch = entries.subList(fromIndex, Math.min(fromIndex + BATCH_SIZE, entries.size()));
+            this.jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+
+                @Override
+                public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                    final Entry entry = batch.get(i);
+                    ps.setLong(1, entry.glAccountId);
+                    ps.setLong(2, entry.officeId);
+                    ps.setString(3, entry.currencyCode);
+                    ps.setString(4, entry.transactionId);
+                    setNullableLong(ps, 5, entry.loanTransactionId);
+                    setNullableLong(ps, 6, entry.savingsTransactionId);
+                    setNullableLong(ps, 7, entry.clientTransactionId);
+                    setNullableLong(ps, 8, entry.shareTransactionId);
+                    ps.setDate(9, new java.sql.Date(entry.transactionDate.getTime()));
+                    ps.setInt(10, entry.type.getValue());
+                    ps.setBigDecimal(11, entry.amount);
+                    ps.setInt(12, entry.entityType);
+                    ps.setLong(13, entry.entityId);
+                    ps.setLong(14, userId);
+                    ps.setLong(15, userId);
+                    ps.setTimestamp(16, now);
+                    ps.setTimestamp(17, now);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+        }
+    }
+
+    private static void setNullableLong(final PreparedStatement ps, final int parameterIndex, final Long value) throws SQLException {
+        if (value == null) {
+            ps.setNull(parameterIndex, Types.BIGINT);
+        } else {
+            ps.setLong(parameterIndex, value);
+        }
+    }
+
+    private void validateDebitsEqualCredits(final List<Entry> entries) {
+        final Map<String, BigDecimal> balanceByTransaction = new LinkedHashMap<>();
+        for (final Entry entry : entries) {
+            BigDecimal balance = balanceByTransaction.get(entry.transactionId);
+            if (balance == null) {
+                balance = BigDecimal.ZERO;
+            }
+            if (JournalEntryType.DEBIT.equals(entry.type)) {
+                balance = balance.add(entry.amount);
+            } else {
+                balance = balance.subtract(entry.amount);
+            }
+            balanceByTransaction.put(entry.transactionId, balance);
+        }
+        for (final Map.Entry<String, BigDecimal> balance : balanceByTransaction.entrySet()) {
+            if (balance.getValue().compareTo(BigDecimal.ZERO) != 0) { throw new PlatformDataIntegrityException(
+                    "error.msg.journalentry.debits.credits.not.equal", "Sum of debits and credits is not equal for transaction "
+                            + balance.getKey(), balance.getValue(), balance.getKey()); }
+        }
+    }
+}
@@ -33,6 +33,17 @@ public interface JournalEntryReadPlatformService {
     Page<JournalEntryData> retrieveAll(SearchParameters searchParameters, Long glAccountId, Boolean onlyManualEntries, Date fromDate,
             Date toDate, String transactionId, Integer entityType, JournalEntryAssociationParametersData associationParametersData);
 
+    /**
+     * Returns the page of entries following the entry at
+     * <code>afterEntryDate</code> and <code>afterEntryId</code> in (entry
+     * date, id) order, or the first page if they are <code>null</code>. The
+     * total is only counted if <code>approximateCount</code> is set, up to a
+     * cap, and is -1 otherwise.
+     */
+    Page<JournalEntryData> retrieveAllAfter(SearchParameters searchParameters, Long glAccountId, Boolean onlyManualEntries, Date fromDate,
+            Date toDate, String transactionId, Integer entityType, Date afterEntryDate, Long afterEntryId, boolean approximateCount,
+            JournalEntryAssociationParametersData associationParametersData);
+
     OfficeOpeningBalancesData retrieveOfficeOpeningBalances(Long officeId, String currencyCode);
 
     Page<JournalEntryData> retrieveJournalEntriesByEntityId(String transactionId, Long entityId, Integer entityType) ;
@@ -24,7 +24,6 @@ import java.sql.SQLException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -76,6 +75,10 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
     private final OfficeReadPlatformService officeReadPlatformService;
     private final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepositoryWrapper;
 
+    private static final int DEFAULT_KEYSET_PAGE_SIZE = 200;
+
+    private static final int APPROXIMATE_COUNT_LIMIT = 10000;
+
     private final PaginationHelper<JournalEntryData> paginationHelper = new PaginationHelper<>();
 
     @Autowired
@@ -251,14 +254,80 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
         sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
         sqlBuilder.append(rm.schema());
 
-        final Object[] objectArray = new Object[15];
-        int arrayPos = 0;
-        String whereClose = " where ";
+        final List<Object> parameters = new ArrayList<>();
+        appendSearchCriteria(sqlBuilder, parameters, searchParameters, glAccountId, onlyManualEntries, fromDate, toDate, transactionId,
+                entityType);
+
+        if (searchParameters.isOrderByRequested()) {
+            sqlBuilder.append(" order by ").append(searchParameters.getOrderBy());
+
+            if (searchParameters.isSortOrderProvided()) {
+                sqlBuilder.append(' ').append(searchParameters.getSortOrder());
+            }
+        } else {
+            sqlBuilder.append(" order by journalEntry.entry_date, journalEntry.id");
+        }
+
+        if (searchParameters.isLimited()) {
+            sqlBuilder.append(" limit ").append(searchParameters.getLimit());
+            if (searchParameters.isOffset()) {
+                sqlBuilder.append(" offset ").append(searchParameters.getOffset());
+            }
+        }
+
+        final String sqlCountRows = "SELECT FOUND_ROWS()";
+        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), parameters.toArray(), rm);
+    }
+
+    @Override
+    public Page<JournalEntryData> retrieveAllAfter(final SearchParameters searchParameters, final Long glAccountId,
+            final Boolean onlyManualEntries, final Date fromDate, final Date toDate, final String transactionId, final Integer entityType,
+            final Date afterEntryDate, final Long afterEntryId, final boolean approximateCount,
+            final JournalEntryAssociationParametersData associationParametersData) {
+
+        final GLJournalEntryMapper rm = new GLJournalEntryMapper(associationParametersData);
+        final StringBuilder criteriaBuilder = new StringBuilder(200);
+        final List<Object> parameters = new ArrayList<>();
+        final String whereClose = appendSearchCriteria(criteriaBuilder, parameters, searchParameters, glAccountId, onlyManualEntries,
+                fromDate, toDate, transactionId, entityType);
+
+        int totalFilteredRecords = -1;
+        if (approximateCount) {
+            // stops counting at the cap instead of visiting every matching
+            // entry
+            totalFilteredRecords = this.jdbcTemplate.queryForObject("select count(*) from (select journalEntry.id from acc_gl_journal_entry "
+                    + "as journalEntry " + criteriaBuilder + " limit " + APPROXIMATE_COUNT_LIMIT + ") matching", Integer.class,
+                    parameters.toArray());
+        }
+
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select ").append(rm.schema()).append(criteriaBuilder);
+        if (afterEntryDate != null && afterEntryId != null) {
+            sqlBuilder.append(whereClose).append(
+                    " (journalEntry.entry_date > ? or (journalEntry.entry_date = ? and journalEntry.id > ?))");
+            final String afterEntryDateString = new SimpleDateFormat("yyyy-MM-dd").format(afterEntryDate);
+            parameters.add(afterEntryDateString);
+            parameters.add(afterEntryDateString);
+            parameters.add(afterEntryId);
+        }
+        sqlBuilder.append(" order by journalEntry.entry_date, journalEntry.id limit ").append(
+                searchParameters.isLimited() ? searchParameters.getLimit() : DEFAULT_KEYSET_PAGE_SIZE);
+
+        final List<JournalEntryData> entries = this.jdbcTemplate.query(sqlBuilder.toString(), rm, parameters.toArray());
+        return new Page<>(entries, totalFilteredRecords);
+    }
 
+    /**
+     * Appends the where clause of a journal entry search and returns the
+     * keyword to continue it with.
+     */
+    private static String appendSearchCriteria(final StringBuilder sqlBuilder, final List<Object> parameters,
+            final SearchParameters searchParameters, final Long glAccountId, final Boolean onlyManualEntries, final Date fromDate,
+            final Date toDate, final String transactionId, final Integer entityType) {
+        String whereClose = " where ";
         if (StringUtils.isNotBlank(transactionId)) {
             sqlBuilder.append(whereClose + " journalEntry.transaction_id = ?");
-            objectArray[arrayPos] = transactionId;
-            arrayPos = arrayPos + 1;
+            parameters.add(transactionId);
 
             whereClose = " and ";
         }
@@ -267,32 +336,28 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
 
             sqlBuilder.append(whereClose + " journalEntry.entity_type_enum = ?");
 
-            objectArray[arrayPos] = entityType;
-            arrayPos = arrayPos + 1;
+            parameters.add(entityType);
 
             whereClose = " and ";
         }
 
         if (searchParameters.isOfficeIdPassed()) {
             sqlBuilder.append(whereClose + " journalEntry.office_id = ?");
-            objectArray[arrayPos] = searchParameters.getOfficeId();
-            arrayPos = arrayPos + 1;
+            parameters.add(searchParameters.getOfficeId());
 
             whereClose = " and ";
         }
 
         if (searchParameters.isCurrencyCodePassed()) {
             sqlBuilder.append(whereClose + " journalEntry.currency_code = ?");
-            objectArray[arrayPos] = searchParameters.getCurrencyCode();
-            arrayPos = arrayPos + 1;
+            parameters.add(searchParameters.getCurrencyCode());
 
             whereClose = " and ";
         }
 
         if (glAccountId != null && glAccountId != 0) {
             sqlBuilder.append(whereClose + " journalEntry.account_id = ?");
-            objectArray[arrayPos] = glAccountId;
-            arrayPos = arrayPos + 1;
+            parameters.add(glAccountId);
 
             whereClose = " and ";
         }
@@ -308,22 +373,18 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
 
                 fromDateString = df.format(fromDate);
                 toDateString = df.format(toDate);
-                objectArray[arrayPos] = fromDateString;
-                arrayPos = arrayPos + 1;
-                objectArray[arrayPos] = toDateString;
-                arrayPos = arrayPos + 1;
+                parameters.add(fromDateString);
+                parameters.add(toDateString);
             } else if (fromDate != null) {
                 sqlBuilder.append(whereClose + " journalEntry.entry_date >= ? ");
                 fromDateString = df.format(fromDate);
-                objectArray[arrayPos] = fromDateString;
-                arrayPos = arrayPos + 1;
+                parameters.add(fromDateString);
                 whereClose = " and ";
 
             } else if (toDate != null) {
                 sqlBuilder.append(whereClose + " journalEntry.entry_date <= ? ");
                 toDateString = df.format(toDate);
-                objectArray[arrayPos] = toDateString;
-                arrayPos = arrayPos + 1;
+                parameters.add(toDateString);
 
                 whereClose = " and ";
             }
@@ -339,8 +400,7 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
 
         if (searchParameters.isLoanIdPassed()) {
             sqlBuilder.append(whereClose + " journalEntry.loan_transaction_id  in (select id from m_loan_transaction where loan_id = ?)");
-            objectArray[arrayPos] = searchParameters.getLoanId();
-            arrayPos = arrayPos + 1;
+            parameters.add(searchParameters.getLoanId());
 
             whereClose = " and ";
         }
@@ -348,32 +408,12 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
             sqlBuilder
                     .append(whereClose
                             + " journalEntry.savings_transaction_id in (select id from m_savings_account_transaction where savings_account_id = ?)");
-            objectArray[arrayPos] = searchParameters.getSavingsId();
-            arrayPos = arrayPos + 1;
+            parameters.add(searchParameters.getSavingsId());
 
             whereClose = " and ";
         }
 
-        if (searchParameters.isOrderByRequested()) {
-            sqlBuilder.append(" order by ").append(searchParameters.getOrderBy());
-
-            if (searchParameters.isSortOrderProvided()) {
-                sqlBuilder.append(' ').append(searchParameters.getSortOrder());
-            }
-        } else {
-            sqlBuilder.append(" order by journalEntry.entry_date, journalEntry.id");
-        }
-
-        if (searchParameters.isLimited()) {
-            sqlBuilder.append(" limit ").append(searchParameters.getLimit());
-            if (searchParameters.isOffset()) {
-                sqlBuilder.append(" offset ").append(searchParameters.getOffset());
-            }
-        }
-
-        final Object[] finalObjectArray = Arrays.copyOf(objectArray, arrayPos);
-        final String sqlCountRows = "SELECT FOUND_ROWS()";
-        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), finalObjectArray, rm);
+        return whereClose;
     }
 
     @Override
@@ -20,10 +20,11 @@ package com.ls.accounting.journalentry.service;
 
 import com.ls.infrastructure.core.api.JsonCommand;
 import com.ls.infrastructure.core.data.CommandProcessingResult;
+import com.ls.infrastructure.jobs.exception.JobExecutionException;
 
 public interface JournalEntryRunningBalanceUpdateService {
 
-    void updateRunningBalance();
+    void updateRunningBalance() throws JobExecutionException;
 
     CommandProcessingResult updateOfficeRunningBalance(JsonCommand command);
 
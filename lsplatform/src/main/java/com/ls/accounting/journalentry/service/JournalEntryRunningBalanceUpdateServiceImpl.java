@@ -19,6 +19,7 @@
 package com.ls.accounting.journalentry.service;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -27,35 +28,92 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.ls.accounting.common.AccountingEnumerations;
 import com.ls.accounting.glaccount.domain.GLAccountType;
 import com.ls.accounting.journalentry.api.JournalEntryJsonInputParams;
-import com.ls.accounting.journalentry.data.JournalEntryData;
 import com.ls.accounting.journalentry.data.JournalEntryDataValidator;
 import com.ls.accounting.journalentry.domain.JournalEntryType;
 import com.ls.infrastructure.core.api.JsonCommand;
 import com.ls.infrastructure.core.data.CommandProcessingResult;
 import com.ls.infrastructure.core.data.CommandProcessingResultBuilder;
-import com.ls.infrastructure.core.data.EnumOptionData;
-import com.ls.infrastructure.core.domain.JdbcSupport;
+import com.ls.infrastructure.core.exception.PlatformDataIntegrityException;
 import com.ls.infrastructure.core.serialization.FromJsonHelper;
 import com.ls.infrastructure.core.service.RoutingDataSource;
 import com.ls.infrastructure.jobs.annotation.CronTarget;
+import com.ls.infrastructure.jobs.exception.JobExecutionException;
 import com.ls.infrastructure.jobs.service.JobName;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.ItemProcessor;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.PartitionSource;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.PartitionedRunResult;
+import com.ls.infrastructure.jobs.service.KeysetPageReader;
+import com.ls.infrastructure.jobs.service.KeysetPageReader.Key;
+import com.ls.infrastructure.jobs.service.SchedulerJobRunnerReadService;
+import com.ls.infrastructure.jobs.service.SchedulerServiceConstants;
 import com.ls.organisation.office.domain.OfficeRepositoryWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
+/**
+ * Calculates the organization and office running balances of journal entries.
+ * 
+ * Running balances are kept per GL account, so every account with entries
+ * still to be calculated is processed on its own, in its own transaction, and
+ * accounts are processed in parallel by the job workers. The entries of an
+ * account are read in (entry date, id) order one page at a time and their
+ * balances are written back in JDBC batches, so memory use does not grow with
+ * the number of entries.
+ * 
+ * After an account is processed, the balance of every office is stored as a
+ * checkpoint together with the position of the last entry calculated. The
+ * next run continues from the checkpoint when all the new entries come after
+ * it, and only starts from the balances before the day of the earliest new
+ * entry when a backdated entry was posted.
+ * 
+ * The same pass maintains the daily balance snapshot
+ * (<code>acc_gl_daily_balance</code>): the debits, credits and closing
+ * balance of every office, GL account and currency for every day with
+ * entries, which {@link GLBalanceReadPlatformService} answers balance queries
+ * from. The snapshot holds exactly the entries whose running balance has been
+ * calculated.
+ */
 @Service
 public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntryRunningBalanceUpdateService {
 
     private final static Logger logger = LoggerFactory.getLogger(JournalEntryRunningBalanceUpdateServiceImpl.class);
 
+    private static final int READ_PAGE_SIZE = SchedulerServiceConstants.DEFAULT_JOB_READ_PAGE_SIZE;
+
+    private static final int UPDATE_BATCH_SIZE = 500;
+
+    private final String accountsToUpdateSql = "select distinct je.account_id from acc_gl_journal_entry je "
+            + "where je.is_running_balance_calculated = 0 and je.account_id > ? order by je.account_id limit ?";
+
+    private final String officeAccountsToUpdateSql = "select distinct je.account_id from acc_gl_journal_entry je "
+            + "where je.is_running_balance_calculated = 0 and je.office_id = ? and je.account_id > ? order by je.account_id limit ?";
+
+    private final String firstEntryToUpdateSql = "select je.entry_date as entryDate, je.id as id from acc_gl_journal_entry je "
+            + "where je.is_running_balance_calculated = 0 and je.account_id = ? order by je.entry_date, je.id limit 1";
+
+    private final String officeBalanceBeforeSql = "select je.office_running_balance from acc_gl_journal_entry je "
+            + "where je.account_id = ? and je.office_id = ? and (je.entry_date < ? or (je.entry_date = ? and je.id < ?)) "
+            + "order by je.entry_date desc, je.id desc limit 1";
+
+    private final String updateSql = "update acc_gl_journal_entry set is_running_balance_calculated = 1, "
+            + "organization_running_balance = ?, office_running_balance = ? where id = ?";
+
+    private final String upsertDailyBalanceSql = "insert into acc_gl_daily_balance "
+            + "(account_id, office_id, currency_code, balance_date, debit_amount, credit_amount, closing_balance) "
+            + "values (?, ?, ?, ?, ?, ?, ?) on duplicate key update debit_amount = debit_amount + values(debit_amount), "
+            + "credit_amount = credit_amount + values(credit_amount), closing_balance = values(closing_balance)";
+
+    private final String insertCheckpointSql = "insert into acc_gl_running_balance_checkpoint "
+            + "(account_id, office_id, office_running_balance, entry_date, journal_entry_id) values (?, ?, ?, ?, ?)";
+
     private final JdbcTemplate jdbcTemplate;
 
     private final OfficeRepositoryWrapper officeRepositoryWrapper;
@@ -64,47 +122,29 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
 
     private final FromJsonHelper fromApiJsonHelper;
 
-    private final GLJournalEntryMapper entryMapper = new GLJournalEntryMapper();
-    
-    // if a limit is not added to the running balance select statements below and the resultset is more than 400,000, 
-    // the script will eat up all of the server memory
-    private final String selectRunningBalanceSqlLimit = "limit 0, 10000";
-    
-    private final String officeRunningBalanceSql = "select je.office_running_balance as runningBalance,je.account_id as accountId from acc_gl_journal_entry je "
-            + "inner join (select max(id) as id from acc_gl_journal_entry where office_id=?  and entry_date < ? group by account_id,entry_date) je2 "
-            + "inner join (select max(entry_date) as date from acc_gl_journal_entry where office_id=? and entry_date < ? group by account_id) je3 "
-            + "where je2.id = je.id and je.entry_date = je3.date group by je.id order by je.entry_date DESC " + selectRunningBalanceSqlLimit;
-
-    private final String organizationRunningBalanceSql = "select je.organization_running_balance as runningBalance,je.account_id as accountId from acc_gl_journal_entry je "
-            + "inner join (select max(id) as id from acc_gl_journal_entry where entry_date < ? group by account_id,entry_date) je2 "
-            + "inner join (select max(entry_date) as date from acc_gl_journal_entry where entry_date < ? group by account_id) je3 "
-            + "where je2.id = je.id and je.entry_date = je3.date group by je.id order by je.entry_date DESC " + selectRunningBalanceSqlLimit;
-
-    private final String officesRunningBalanceSql = "select je.office_running_balance as runningBalance,je.account_id as accountId,je.office_id as officeId "
-            + "from acc_gl_journal_entry je "
-            + "inner join (select max(id) as id from acc_gl_journal_entry where entry_date < ? group by office_id,account_id,entry_date) je2 "
-            + "inner join (select max(entry_date) as date from acc_gl_journal_entry where entry_date < ? group by office_id,account_id) je3 "
-            + "where je2.id = je.id and je.entry_date = je3.date group by je.id order by je.entry_date DESC " + selectRunningBalanceSqlLimit;
+    private final JobPartitionExecutor jobPartitionExecutor;
+
+    private final SchedulerJobRunnerReadService schedulerJobRunnerReadService;
 
     @Autowired
     public JournalEntryRunningBalanceUpdateServiceImpl(final RoutingDataSource dataSource, final OfficeRepositoryWrapper officeRepositoryWrapper,
-            final JournalEntryDataValidator dataValidator, final FromJsonHelper fromApiJsonHelper) {
+            final JournalEntryDataValidator dataValidator, final FromJsonHelper fromApiJsonHelper,
+            final JobPartitionExecutor jobPartitionExecutor, final SchedulerJobRunnerReadService schedulerJobRunnerReadService) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.officeRepositoryWrapper = officeRepositoryWrapper;
         this.dataValidator = dataValidator;
         this.fromApiJsonHelper = fromApiJsonHelper;
+        this.jobPartitionExecutor = jobPartitionExecutor;
+        this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
     }
 
     @Override
     @CronTarget(jobName = JobName.ACCOUNTING_RUNNING_BALANCE_UPDATE)
-    public void updateRunningBalance() {
-        String dateFinder = "select MIN(je.entry_date) as entityDate from acc_gl_journal_entry  je "
-                + "where je.is_running_balance_calculated=0 ";
-        try {
-            Date entityDate = this.jdbcTemplate.queryForObject(dateFinder, Date.class);
-            updateOrganizationRunningBalance(entityDate);
-        } catch (EmptyResultDataAccessException e) {
-            logger.debug("No results found for updation of running balance ");
+    public void updateRunningBalance() throws JobExecutionException {
+        final PartitionedRunResult result = updateAccountRunningBalances(null);
+        if (result.hasFailures()) {
+            throw new JobExecutionException(JobPartitionExecutor.buildErrorMessage("update running balance for GL account",
+                    result));
         }
     }
 
@@ -115,185 +155,389 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
                 command.parsedJson());
         CommandProcessingResultBuilder commandProcessingResultBuilder = new CommandProcessingResultBuilder().withCommandId(command
                 .commandId());
-        if (officeId == null) {
-            updateRunningBalance();
-        } else {
+        if (officeId != null) {
             this.officeRepositoryWrapper.findOneWithNotFoundDetection(officeId);
-            String dateFinder = "select MIN(je.entry_date) as entityDate " + "from acc_gl_journal_entry  je "
-                    + "where je.is_running_balance_calculated=0  and je.office_id=?";
-            try {
-                Date entityDate = this.jdbcTemplate.queryForObject(dateFinder, Date.class, officeId);
-                updateRunningBalance(officeId, entityDate);
-            } catch (EmptyResultDataAccessException e) {
-                logger.debug("No results found for updation of office running balance with office id:" + officeId);
-            }
             commandProcessingResultBuilder.withOfficeId(officeId);
         }
+        // the balances of an office are calculated together with those of
+        // the other offices for every account it has new entries in
+        final PartitionedRunResult result = updateAccountRunningBalances(officeId);
+        if (result.hasFailures()) {
+            final String message = JobPartitionExecutor.buildErrorMessage("update running balance for GL account", result);
+            throw new PlatformDataIntegrityException("error.msg.running.balance.update.failed", message, officeId);
+        }
         return commandProcessingResultBuilder.build();
     }
 
-    private void updateOrganizationRunningBalance(Date entityDate) {
-        Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
-        Map<Long, Map<Long, BigDecimal>> officesRunningBalance = new HashMap<>();
+    private PartitionedRunResult updateAccountRunningBalances(final Long officeId) {
+        final int workerCount = this.schedulerJobRunnerReadService.retrieveIntegerJobParameter(JobName.ACCOUNTING_RUNNING_BALANCE_UPDATE,
+                SchedulerServiceConstants.JOB_PARAMETER_WORKER_COUNT, SchedulerServiceConstants.DEFAULT_JOB_WORKER_COUNT);
+        final PartitionSource accountsToUpdate = new PartitionSource() {
+
+            @Override
+            public List<Long> nextPartition(final Long lastId, final int partitionSize) {
+                if (officeId == null) { return JournalEntryRunningBalanceUpdateServiceImpl.this.jdbcTemplate.queryForList(
+                        JournalEntryRunningBalanceUpdateServiceImpl.this.accountsToUpdateSql, Long.class, lastId, partitionSize); }
+                return JournalEntryRunningBalanceUpdateServiceImpl.this.jdbcTemplate.queryForList(
+                        JournalEntryRunningBalanceUpdateServiceImpl.this.officeAccountsToUpdateSql, Long.class, officeId, lastId,
+                        partitionSize);
+            }
+        };
+        final ItemProcessor accountUpdate = new ItemProcessor() {
 
-        List<Map<String, Object>> list = jdbcTemplate.queryForList(organizationRunningBalanceSql, entityDate, entityDate);
-        for (Map<String, Object> entries : list) {
-        	Long accountId = Long.parseLong(entries.get("accountId").toString()); //Drizzle is returning Big Integer where as MySQL returns Long.
-            if (!runningBalanceMap.containsKey(accountId)) {
-                runningBalanceMap.put(accountId, (BigDecimal) entries.get("runningBalance"));
+            @Override
+            public void process(final Long accountId) {
+                updateRunningBalance(accountId);
             }
+        };
+        // one account per partition, as a single account may have a lot of
+        // entries to calculate
+        return this.jobPartitionExecutor.execute(JobName.ACCOUNTING_RUNNING_BALANCE_UPDATE, accountsToUpdate, accountUpdate, workerCount,
+                1);
+    }
+
+    private void updateRunningBalance(final Long accountId) {
+        final List<EntryPosition> firstEntries = this.jdbcTemplate.query(this.firstEntryToUpdateSql, new EntryPositionMapper(), accountId);
+        if (firstEntries.isEmpty()) {
+            logger.debug("No results found for updation of running balance for GL account with id:" + accountId);
+            return;
         }
+        final EntryPosition firstEntry = firstEntries.get(0);
+        final GLAccountType accountType = GLAccountType.fromInt(this.jdbcTemplate.queryForObject(
+                "select classification_enum from acc_gl_account where id = ?", Integer.class, accountId));
 
-        List<Map<String, Object>> officesRunningBalanceList = jdbcTemplate.queryForList(officesRunningBalanceSql, entityDate, entityDate);
-        for (Map<String, Object> entries : officesRunningBalanceList) {
-            Long accountId = Long.parseLong(entries.get("accountId").toString());
-            Long officeId = Long.parseLong(entries.get("officeId").toString());
-            Map<Long, BigDecimal> runningBalance = null;
-            if (officesRunningBalance.containsKey(officeId)) {
-                runningBalance = officesRunningBalance.get(officeId);
-            } else {
-                runningBalance = new HashMap<>();
-                officesRunningBalance.put(officeId, runningBalance);
+        final Map<Long, BigDecimal> officeBalances = new HashMap<>();
+        final EntryPosition checkpoint = retrieveCheckpoint(accountId, officeBalances);
+        final String entriesSql;
+        final EntryPosition startPosition;
+        final DailyBalances dailyBalances;
+        if (checkpoint != null && checkpoint.isBefore(firstEntry)) {
+            // only new entries follow the checkpoint, so they are added to
+            // the snapshot of the day of the checkpoint and the days after it
+            entriesSql = BalanceEntryMapper.schema() + " and (je.entry_date > ? or (je.entry_date = ? and je.id > ?))";
+            startPosition = checkpoint;
+            dailyBalances = new DailyBalances(accountId, checkpoint.entryDate, true);
+        } else {
+            // starts over from the first entry of the day, so that the
+            // snapshot of the day can be written again from scratch
+            startPosition = new EntryPosition(firstEntry.entryDate, 0L);
+            officeBalances.clear();
+            retrieveOfficeBalancesBefore(accountId, startPosition, officeBalances);
+            entriesSql = BalanceEntryMapper.schema() + " and (je.entry_date > ? or (je.entry_date = ? and je.id >= ?))";
+            this.jdbcTemplate.update("delete from acc_gl_daily_balance where account_id = ? and balance_date >= ?", accountId,
+                    startPosition.entryDate);
+            dailyBalances = new DailyBalances(accountId, startPosition.entryDate, false);
+        }
+
+        BigDecimal organizationBalance = BigDecimal.ZERO;
+        for (final BigDecimal officeBalance : officeBalances.values()) {
+            organizationBalance = organizationBalance.add(officeBalance);
+        }
+
+        final KeysetPageReader<BalanceEntry> entries = new KeysetPageReader<>(this.jdbcTemplate.getDataSource(), entriesSql,
+                new Object[] { accountId, startPosition.entryDate, startPosition.entryDate, startPosition.id }, new BalanceEntryMapper(
+                        accountType), READ_PAGE_SIZE, Key.ascending("je.entry_date", "entryDate"), Key.ascending("je.id", "id"));
+        final List<BalanceEntry> pendingUpdates = new ArrayList<>(UPDATE_BATCH_SIZE);
+        BalanceEntry lastEntry = null;
+        for (final BalanceEntry entry : entries) {
+            BigDecimal officeBalance = officeBalances.get(entry.officeId);
+            if (officeBalance == null) {
+                officeBalance = BigDecimal.ZERO;
             }
-            if (!runningBalance.containsKey(accountId)) {
-                runningBalance.put(accountId, (BigDecimal) entries.get("runningBalance"));
+            entry.officeRunningBalance = officeBalance.add(entry.change);
+            officeBalances.put(entry.officeId, entry.officeRunningBalance);
+            organizationBalance = organizationBalance.add(entry.change);
+            entry.organizationRunningBalance = organizationBalance;
+            dailyBalances.add(entry);
+
+            pendingUpdates.add(entry);
+            if (pendingUpdates.size() == UPDATE_BATCH_SIZE) {
+                updateEntries(pendingUpdates);
+                pendingUpdates.clear();
             }
+            lastEntry = entry;
+        }
+        updateEntries(pendingUpdates);
+        dailyBalances.flush();
+
+        if (lastEntry != null) {
+            saveCheckpoint(accountId, officeBalances, lastEntry.entryDate, lastEntry.id);
         }
+    }
+
+    private EntryPosition retrieveCheckpoint(final Long accountId, final Map<Long, BigDecimal> officeBalances) {
+        final List<Map<String, Object>> checkpointRows = this.jdbcTemplate.queryForList(
+                "select office_id as officeId, office_running_balance as runningBalance, entry_date as entryDate, "
+                        + "journal_entry_id as journalEntryId from acc_gl_running_balance_checkpoint where account_id = ?", accountId);
+        EntryPosition checkpoint = null;
+        for (final Map<String, Object> checkpointRow : checkpointRows) {
+            officeBalances.put(((Number) checkpointRow.get("officeId")).longValue(), (BigDecimal) checkpointRow.get("runningBalance"));
+            if (checkpoint == null) {
+                checkpoint = new EntryPosition((Date) checkpointRow.get("entryDate"),
+                        ((Number) checkpointRow.get("journalEntryId")).longValue());
+            }
+        }
+        return checkpoint;
+    }
 
-        List<JournalEntryData> entryDatas = jdbcTemplate.query(entryMapper.organizationRunningBalanceSchema(), entryMapper,
-                new Object[] { entityDate });
-        if (entryDatas.size() > 0) {
-            // run a batch update of 1000 SQL statements at a time
-            final Integer batchUpdateSize = 1000;
-            ArrayList<String> updateSql = new ArrayList<>();
-            int batchIndex = 0;
-            for (int index = 0 ; index < entryDatas.size() ; index++) {
-            	JournalEntryData entryData = entryDatas.get(index) ;
-                Map<Long, BigDecimal> officeRunningBalanceMap = null;
-                if (officesRunningBalance.containsKey(entryData.getOfficeId())) {
-                    officeRunningBalanceMap = officesRunningBalance.get(entryData.getOfficeId());
-                } else {
-                    officeRunningBalanceMap = new HashMap<>();
-                    officesRunningBalance.put(entryData.getOfficeId(), officeRunningBalanceMap);
-                }
-                BigDecimal officeRunningBalance = calculateRunningBalance(entryData, officeRunningBalanceMap);
-                BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
-                String sql = "UPDATE acc_gl_journal_entry je SET je.is_running_balance_calculated=1, je.organization_running_balance="
-                        + runningBalance + ",je.office_running_balance=" + officeRunningBalance + " WHERE  je.id=" + entryData.getId();
-                updateSql.add(sql) ;
-                batchIndex++ ;
-                if (batchIndex == batchUpdateSize || index == entryDatas.size()-1) {
-                    // run a batch update of the 1000 update SQL statements
-                	String[] batch = new String[updateSql.size()] ;
-                	updateSql.toArray(batch) ;
-                    this.jdbcTemplate.batchUpdate(batch);
-                    // reset counter and string array
-                    batchIndex = 0;
-                    updateSql.clear();
-                }
+    private void retrieveOfficeBalancesBefore(final Long accountId, final EntryPosition position, final Map<Long, BigDecimal> officeBalances) {
+        final List<Long> officeIds = this.jdbcTemplate.queryForList(
+                "select distinct je.office_id from acc_gl_journal_entry je where je.account_id = ?", Long.class, accountId);
+        for (final Long officeId : officeIds) {
+            final List<BigDecimal> balances = this.jdbcTemplate.queryForList(this.officeBalanceBeforeSql, BigDecimal.class, accountId,
+                    officeId, position.entryDate, position.entryDate, position.id);
+            if (!balances.isEmpty()) {
+                officeBalances.put(officeId, balances.get(0));
             }
         }
+    }
+
+    private void updateEntries(final List<BalanceEntry> entries) {
+        if (entries.isEmpty()) { return; }
+        this.jdbcTemplate.batchUpdate(this.updateSql, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final BalanceEntry entry = entries.get(i);
+                ps.setBigDecimal(1, entry.organizationRunningBalance);
+                ps.setBigDecimal(2, entry.officeRunningBalance);
+                ps.setLong(3, entry.id);
+            }
 
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
     }
 
-    private void updateRunningBalance(Long officeId, Date entityDate) {
-        Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
+    private void saveCheckpoint(final Long accountId, final Map<Long, BigDecimal> officeBalances, final Date entryDate,
+            final long journalEntryId) {
+        this.jdbcTemplate.update("delete from acc_gl_running_balance_checkpoint where account_id = ?", accountId);
+        final List<Map.Entry<Long, BigDecimal>> balances = new ArrayList<>(officeBalances.entrySet());
+        this.jdbcTemplate.batchUpdate(this.insertCheckpointSql, new BatchPreparedStatementSetter() {
 
-        List<Map<String, Object>> list = jdbcTemplate.queryForList(officeRunningBalanceSql, officeId, entityDate, officeId, entityDate);
-        for (Map<String, Object> entries : list) {
-            Long accountId = (Long) entries.get("accountId");
-            if (!runningBalanceMap.containsKey(accountId)) {
-                runningBalanceMap.put(accountId, (BigDecimal) entries.get("runningBalance"));
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final Map.Entry<Long, BigDecimal> balance = balances.get(i);
+                ps.setLong(1, accountId);
+                ps.setLong(2, balance.getKey());
+                ps.setBigDecimal(3, balance.getValue());
+                ps.setDate(4, new java.sql.Date(entryDate.getTime()));
+                ps.setLong(5, journalEntryId);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return balances.size();
+            }
+        });
+    }
+
+    /**
+     * Collects the daily balance snapshot of an account while its entries are
+     * read in order, and writes the days it is done with in batches.
+     */
+    private final class DailyBalances {
+
+        private final Long accountId;
+        private final Map<String, BigDecimal> closingBalances = new HashMap<>();
+        private final Map<String, DailyBalance> currentDay = new HashMap<>();
+        private final List<DailyBalance> completedDays = new ArrayList<>(UPDATE_BATCH_SIZE);
+        private Date currentDate;
+
+        /**
+         * Starts from the last closing balances up to <code>date</code>,
+         * excluding the day itself unless <code>inclusive</code>.
+         */
+        DailyBalances(final Long accountId, final Date date, final boolean inclusive) {
+            this.accountId = accountId;
+            final String closingBalancesSql = "select s.office_id as officeId, s.currency_code as currencyCode, "
+                    + "s.closing_balance as closingBalance from acc_gl_daily_balance s "
+                    + "inner join (select office_id, currency_code, max(balance_date) as balance_date from acc_gl_daily_balance "
+                    + "where account_id = ? and balance_date " + (inclusive ? "<=" : "<") + " ? group by office_id, currency_code) latest "
+                    + "on latest.office_id = s.office_id and latest.currency_code = s.currency_code "
+                    + "and latest.balance_date = s.balance_date where s.account_id = ?";
+            final List<Map<String, Object>> closingBalanceRows = JournalEntryRunningBalanceUpdateServiceImpl.this.jdbcTemplate
+                    .queryForList(closingBalancesSql, accountId, date, accountId);
+            for (final Map<String, Object> closingBalanceRow : closingBalanceRows) {
+                this.closingBalances.put(
+                        snapshotKey(((Number) closingBalanceRow.get("officeId")).longValue(), (String) closingBalanceRow.get("currencyCode")),
+                        (BigDecimal) closingBalanceRow.get("closingBalance"));
+            }
+        }
+
+        void add(final BalanceEntry entry) {
+            if (this.currentDate != null && !this.currentDate.equals(entry.entryDate)) {
+                completeCurrentDay();
+            }
+            this.currentDate = entry.entryDate;
+            final String key = snapshotKey(entry.officeId, entry.currencyCode);
+            DailyBalance dailyBalance = this.currentDay.get(key);
+            if (dailyBalance == null) {
+                dailyBalance = new DailyBalance(entry.officeId, entry.currencyCode, entry.entryDate);
+                final BigDecimal closingBalance = this.closingBalances.get(key);
+                dailyBalance.closingBalance = closingBalance == null ? BigDecimal.ZERO : closingBalance;
+                this.currentDay.put(key, dailyBalance);
+            }
+            if (entry.debit) {
+                dailyBalance.debitAmount = dailyBalance.debitAmount.add(entry.entryAmount);
+                dailyBalance.closingBalance = dailyBalance.closingBalance.add(entry.entryAmount);
+            } else {
+                dailyBalance.creditAmount = dailyBalance.creditAmount.add(entry.entryAmount);
+                dailyBalance.closingBalance = dailyBalance.closingBalance.subtract(entry.entryAmount);
+            }
+        }
+
+        void flush() {
+            completeCurrentDay();
+            write();
+        }
+
+        private void completeCurrentDay() {
+            for (final Map.Entry<String, DailyBalance> dailyBalance : this.currentDay.entrySet()) {
+                this.closingBalances.put(dailyBalance.getKey(), dailyBalance.getValue().closingBalance);
+                this.completedDays.add(dailyBalance.getValue());
+            }
+            this.currentDay.clear();
+            if (this.completedDays.size() >= UPDATE_BATCH_SIZE) {
+                write();
             }
         }
-        List<JournalEntryData> entryDatas = jdbcTemplate.query(entryMapper.officeRunningBalanceSchema(), entryMapper, new Object[] {
-                officeId, entityDate });
-        String[] updateSql = new String[entryDatas.size()];
-        int i = 0;
-        for (JournalEntryData entryData : entryDatas) {
-            BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
-            String sql = "UPDATE acc_gl_journal_entry je SET je.office_running_balance=" + runningBalance + " WHERE  je.id="
-                    + entryData.getId();
-            updateSql[i++] = sql;
+
+        private void write() {
+            if (this.completedDays.isEmpty()) { return; }
+            final List<DailyBalance> dailyBalances = new ArrayList<>(this.completedDays);
+            this.completedDays.clear();
+            JournalEntryRunningBalanceUpdateServiceImpl.this.jdbcTemplate.batchUpdate(
+                    JournalEntryRunningBalanceUpdateServiceImpl.this.upsertDailyBalanceSql, new BatchPreparedStatementSetter() {
+
+                        @Override
+                        public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                            final DailyBalance dailyBalance = dailyBalances.get(i);
+                            ps.setLong(1, DailyBalances.this.accountId);
+                            ps.setLong(2, dailyBalance.officeId);
+                            ps.setString(3, dailyBalance.currencyCode);
+                            ps.setDate(4, new java.sql.Date(dailyBalance.balanceDate.getTime()));
+                            ps.setBigDecimal(5, dailyBalance.debitAmount);
+                            ps.setBigDecimal(6, dailyBalance.creditAmount);
+                            ps.setBigDecimal(7, dailyBalance.closingBalance);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return dailyBalances.size();
+                        }
+                    });
+        }
+
+        private String snapshotKey(final long officeId, final String currencyCode) {
+            return officeId + "_" + currencyCode;
         }
-        this.jdbcTemplate.batchUpdate(updateSql);
     }
 
-    private BigDecimal calculateRunningBalance(JournalEntryData entry, Map<Long, BigDecimal> runningBalanceMap) {
-        BigDecimal runningBalance = BigDecimal.ZERO;
-        if (runningBalanceMap.containsKey(entry.getGlAccountId())) {
-            runningBalance = runningBalanceMap.get(entry.getGlAccountId());
+    private static final class DailyBalance {
+
+        private final long officeId;
+        private final String currencyCode;
+        private final Date balanceDate;
+        private BigDecimal debitAmount = BigDecimal.ZERO;
+        private BigDecimal creditAmount = BigDecimal.ZERO;
+        private BigDecimal closingBalance;
+
+        DailyBalance(final long officeId, final String currencyCode, final Date balanceDate) {
+            this.officeId = officeId;
+            this.currencyCode = currencyCode;
+            this.balanceDate = balanceDate;
         }
-        GLAccountType accounttype = GLAccountType.fromInt(entry.getGlAccountType().getId().intValue());
-        JournalEntryType entryType = JournalEntryType.fromInt(entry.getEntryType().getId().intValue());
-        boolean isIncrease = false;
-        switch (accounttype) {
+    }
+
+    private static boolean isIncrease(final GLAccountType accountType, final JournalEntryType entryType) {
+        switch (accountType) {
             case ASSET:
-                if (entryType.isDebitType()) {
-                    isIncrease = true;
-                }
-            break;
-            case EQUITY:
-                if (entryType.isCreditType()) {
-                    isIncrease = true;
-                }
-            break;
             case EXPENSE:
-                if (entryType.isDebitType()) {
-                    isIncrease = true;
-                }
-            break;
+                return entryType.isDebitType();
+            case EQUITY:
             case INCOME:
-                if (entryType.isCreditType()) {
-                    isIncrease = true;
-                }
-            break;
             case LIABILITY:
-                if (entryType.isCreditType()) {
-                    isIncrease = true;
-                }
-            break;
-        }
-        if (isIncrease) {
-            runningBalance = runningBalance.add(entry.getAmount());
-        } else {
-            runningBalance = runningBalance.subtract(entry.getAmount());
+                return entryType.isCreditType();
         }
-        runningBalanceMap.put(entry.getGlAccountId(), runningBalance);
-        return runningBalance;
+        return false;
     }
 
-    private static final class GLJournalEntryMapper implements RowMapper<JournalEntryData> {
+    /**
+     * The position of a journal entry in the order running balances are
+     * calculated in.
+     */
+    private static final class EntryPosition {
+
+        private final Date entryDate;
+        private final long id;
 
-        public String officeRunningBalanceSchema() {
-            return "select je.id as id,je.account_id as glAccountId,je.type_enum as entryType,je.amount as amount, "
-                    + "glAccount.classification_enum as classification,je.office_id as officeId "
-                    + "from acc_gl_journal_entry je , acc_gl_account glAccount " + "where je.account_id = glAccount.id "
-                    + "and je.office_id=? and je.entry_date >= ? order by je.entry_date,je.id";
+        EntryPosition(final Date entryDate, final long id) {
+            this.entryDate = entryDate;
+            this.id = id;
         }
 
-        public String organizationRunningBalanceSchema() {
-            return "select je.id as id,je.account_id as glAccountId," + "je.type_enum as entryType,je.amount as amount, "
-                    + "glAccount.classification_enum as classification,je.office_id as officeId  "
-                    + "from acc_gl_journal_entry je , acc_gl_account glAccount " + "where je.account_id = glAccount.id "
-                    + "and je.entry_date >= ? order by je.entry_date,je.id";
+        boolean isBefore(final EntryPosition other) {
+            final int dateComparison = this.entryDate.compareTo(other.entryDate);
+            return dateComparison < 0 || (dateComparison == 0 && this.id < other.id);
         }
+    }
+
+    private static final class EntryPositionMapper implements RowMapper<EntryPosition> {
 
         @Override
-        public JournalEntryData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+        public EntryPosition mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            return new EntryPosition(rs.getDate("entryDate"), rs.getLong("id"));
+        }
+    }
 
-            final Long id = rs.getLong("id");
-            final Long glAccountId = rs.getLong("glAccountId");
-            final Long officeId = rs.getLong("officeId");
-            final int accountTypeId = JdbcSupport.getInteger(rs, "classification");
-            final EnumOptionData accountType = AccountingEnumerations.gLAccountType(accountTypeId);
-            final BigDecimal amount = rs.getBigDecimal("amount");
-            final int entryTypeId = JdbcSupport.getInteger(rs, "entryType");
-            final EnumOptionData entryType = AccountingEnumerations.journalEntryType(entryTypeId);
+    private static final class BalanceEntry {
+
+        private final long id;
+        private final long officeId;
+        private final Date entryDate;
+        private final String currencyCode;
+        private final boolean debit;
+        private final BigDecimal entryAmount;
+        private final BigDecimal change;
+        private BigDecimal officeRunningBalance;
+        private BigDecimal organizationRunningBalance;
 
-            return new JournalEntryData(id, officeId, null, null, glAccountId, null, accountType, null, entryType, amount, null, null,
-                    null, null, null, null, null, null, null, null, null, null, null, null, null);
+        BalanceEntry(final long id, final long officeId, final Date entryDate, final String currencyCode, final boolean debit,
+                final BigDecimal entryAmount, final BigDecimal change) {
+            this.id = id;
+            this.officeId = officeId;
+            this.entryDate = entryDate;
+            this.currencyCode = currencyCode;
+            this.debit = debit;
+            this.entryAmount = entryAmount;
+            this.change = change;
         }
     }
 
+    private static final class BalanceEntryMapper implements RowMapper<BalanceEntry> {
+
+        private final GLAccountType accountType;
+
+        BalanceEntryMapper(final GLAccountType accountType) {
+            this.accountType = accountType;
+        }
+
+        public static String schema() {
+            return "select je.id as id, je.office_id as officeId, je.entry_date as entryDate, je.type_enum as entryType, "
+                    + "je.currency_code as currencyCode, je.amount as amount from acc_gl_journal_entry je where je.account_id = ?";
+        }
+
+        @Override
+        public BalanceEntry mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final JournalEntryType entryType = JournalEntryType.fromInt(rs.getInt("entryType"));
+            final BigDecimal amount = rs.getBigDecimal("amount");
+            // the amount the balance of the account changes by
+            final BigDecimal change = isIncrease(this.accountType, entryType) ? amount : amount.negate();
+            return new BalanceEntry(rs.getLong("id"), rs.getLong("officeId"), rs.getDate("entryDate"), rs.getString("currencyCode"),
+                    entryType.isDebitType(), amount, change);
+        }
+    }
 }
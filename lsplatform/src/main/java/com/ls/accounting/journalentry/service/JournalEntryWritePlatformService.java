@@ -20,6 +20,7 @@ package com.ls.accounting.journalentry.service;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 import com.ls.accounting.provisioning.domain.ProvisioningEntry;
@@ -34,6 +35,13 @@ public interface JournalEntryWritePlatformService {
 
     void createJournalEntriesForLoan(Map<String, Object> accountingBridgeData);
 
+    /**
+     * Posts the journal entries for new periodic accrual transactions of many
+     * loans at once using JDBC batch inserts. The result is the same as
+     * calling {@link #createJournalEntriesForLoan(Map)} for each of them.
+     */
+    void createJournalEntriesForLoanAccruals(List<Map<String, Object>> accountingBridgeDatas);
+
     void createJournalEntriesForSavings(Map<String, Object> accountingBridgeData);
 
     void createJournalEntriesForClientTransactions(Map<String, Object> accountingBridgeData);
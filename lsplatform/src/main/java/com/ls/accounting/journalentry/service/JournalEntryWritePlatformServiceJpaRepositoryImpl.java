@@ -29,8 +29,6 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
-import com.ls.accounting.closure.domain.GLClosure;
-import com.ls.accounting.closure.domain.GLClosureRepository;
 import com.ls.accounting.financialactivityaccount.domain.FinancialActivityAccount;
 import com.ls.accounting.financialactivityaccount.domain.FinancialActivityAccountRepositoryWrapper;
 import com.ls.accounting.glaccount.data.GLAccountDataForLookup;
@@ -89,7 +87,6 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
 
     private final static Logger logger = LoggerFactory.getLogger(JournalEntryWritePlatformServiceJpaRepositoryImpl.class);
 
-    private final GLClosureRepository glClosureRepository;
     private final GLAccountRepository glAccountRepository;
     private final JournalEntryRepository glJournalEntryRepository;
     private final OfficeRepositoryWrapper officeRepositoryWrapper;
@@ -105,10 +102,11 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
     private final PaymentDetailWritePlatformService paymentDetailWritePlatformService;
     private final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepositoryWrapper;
     private final CashBasedAccountingProcessorForClientTransactions accountingProcessorForClientTransactions;
+    private final AccrualBasedAccountingProcessorForLoan accrualBasedAccountingProcessorForLoan;
+    private final JournalEntryBatchWriter journalEntryBatchWriter;
 
     @Autowired
-    public JournalEntryWritePlatformServiceJpaRepositoryImpl(final GLClosureRepository glClosureRepository,
-            final JournalEntryRepository glJournalEntryRepository, final OfficeRepositoryWrapper officeRepositoryWrapper,
+    public JournalEntryWritePlatformServiceJpaRepositoryImpl(final JournalEntryRepository glJournalEntryRepository, final OfficeRepositoryWrapper officeRepositoryWrapper,
             final GLAccountRepository glAccountRepository, final JournalEntryCommandFromApiJsonDeserializer fromApiJsonDeserializer,
             final AccountingProcessorHelper accountingProcessorHelper, final AccountingRuleRepository accountingRuleRepository,
             final AccountingProcessorForLoanFactory accountingProcessorForLoanFactory,
@@ -118,8 +116,9 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
             final OrganisationCurrencyRepositoryWrapper organisationCurrencyRepository, final PlatformSecurityContext context,
             final PaymentDetailWritePlatformService paymentDetailWritePlatformService,
             final FinancialActivityAccountRepositoryWrapper financialActivityAccountRepositoryWrapper,
-            final CashBasedAccountingProcessorForClientTransactions accountingProcessorForClientTransactions) {
-        this.glClosureRepository = glClosureRepository;
+            final CashBasedAccountingProcessorForClientTransactions accountingProcessorForClientTransactions,
+            final AccrualBasedAccountingProcessorForLoan accrualBasedAccountingProcessorForLoan,
+            final JournalEntryBatchWriter journalEntryBatchWriter) {
         this.officeRepositoryWrapper = officeRepositoryWrapper;
         this.glJournalEntryRepository = glJournalEntryRepository;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
@@ -135,6 +134,8 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
         this.paymentDetailWritePlatformService = paymentDetailWritePlatformService;
         this.financialActivityAccountRepositoryWrapper = financialActivityAccountRepositoryWrapper;
         this.accountingProcessorForClientTransactions = accountingProcessorForClientTransactions;
+        this.accrualBasedAccountingProcessorForLoan = accrualBasedAccountingProcessorForLoan;
+        this.journalEntryBatchWriter = journalEntryBatchWriter;
     }
 
     @Transactional
@@ -357,6 +358,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
 
     @Override
     public String revertProvisioningJournalEntries(final Date reversalTransactionDate, final Long entityId, final Integer entityType) {
+        this.journalEntryBatchWriter.flushPendingEntries();
         List<JournalEntry> journalEntries = this.glJournalEntryRepository.findProvisioningJournalEntriesByEntityId(entityId, entityType);
         final String reversalTransactionId = journalEntries.get(0).getTransactionId();
         for (final JournalEntry journalEntry : journalEntries) {
@@ -389,6 +391,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
 
     }
 
+    @Transactional
     @Override
     public String createProvisioningJournalEntries(ProvisioningEntry provisioningEntry) {
         Collection<LoanProductProvisioningEntry> provisioningEntries = provisioningEntry.getLoanProductProvisioningEntries();
@@ -436,6 +439,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
             createJournalEnry(provisioningEntry.getCreatedDate(), provisioningEntry.getId(), key.office, key.currency, liabilityMap,
                     expenseMap);
         }
+        this.journalEntryBatchWriter.flushPendingEntries();
         return "P" + provisioningEntry.getId();
     }
 
@@ -478,9 +482,26 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
             final AccountingProcessorForLoan accountingProcessorForLoan = this.accountingProcessorForLoanFactory
                     .determineProcessor(loanDTO);
             accountingProcessorForLoan.createJournalEntriesForLoan(loanDTO);
+            this.journalEntryBatchWriter.flushPendingEntries();
         }
     }
 
+    @Transactional
+    @Override
+    public void createJournalEntriesForLoanAccruals(final List<Map<String, Object>> accountingBridgeDatas) {
+        final Map<Long, Date> latestClosingDateByOffice = new HashMap<>();
+        final List<JournalEntryBatchWriter.Entry> entries = new ArrayList<>();
+        for (final Map<String, Object> accountingBridgeData : accountingBridgeDatas) {
+            final LoanDTO loanDTO = this.helper.populateLoanDtoFromMap(accountingBridgeData, false, false, true);
+            if (!latestClosingDateByOffice.containsKey(loanDTO.getOfficeId())) {
+                latestClosingDateByOffice.put(loanDTO.getOfficeId(), this.helper.getLatestClosingDateByBranch(loanDTO.getOfficeId()));
+            }
+            this.accrualBasedAccountingProcessorForLoan.addJournalEntriesForAccruals(loanDTO,
+                    latestClosingDateByOffice.get(loanDTO.getOfficeId()), entries);
+        }
+        this.journalEntryBatchWriter.write(entries);
+    }
+
     @Transactional
     @Override
     public void createJournalEntriesForSavings(final Map<String, Object> accountingBridgeData) {
@@ -494,6 +515,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
             final AccountingProcessorForSavings accountingProcessorForSavings = this.accountingProcessorForSavingsFactory
                     .determineProcessor(savingsDTO);
             accountingProcessorForSavings.createJournalEntriesForSavings(savingsDTO);
+            this.journalEntryBatchWriter.flushPendingEntries();
         }
 
     }
@@ -511,12 +533,14 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
             final AccountingProcessorForShares accountingProcessorForShares = this.accountingProcessorForSharesFactory
                     .determineProcessor(sharesDTO);
             accountingProcessorForShares.createJournalEntriesForShares(sharesDTO);
+            this.journalEntryBatchWriter.flushPendingEntries();
         }
 
     }
 
     @Override
     public void revertShareAccountJournalEntries(final ArrayList<Long> transactionIds, final Date transactionDate) {
+        this.journalEntryBatchWriter.flushPendingEntries();
         for (Long shareTransactionId : transactionIds) {
             String transactionId = AccountingProcessorHelper.SHARE_TRANSACTION_IDENTIFIER + shareTransactionId.longValue();
             List<JournalEntry> journalEntries = this.glJournalEntryRepository.findJournalEntries(transactionId,
@@ -562,11 +586,7 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
         if (transactionDate.after(todaysDate)) { throw new JournalEntryInvalidException(GL_JOURNAL_ENTRY_INVALID_REASON.FUTURE_DATE,
                 transactionDate, null, null); }
         // shouldn't be before an accounting closure
-        final GLClosure latestGLClosure = this.glClosureRepository.getLatestGLClosureByBranch(command.getOfficeId());
-        if (latestGLClosure != null) {
-            if (latestGLClosure.getClosingDate().after(transactionDate) || latestGLClosure.getClosingDate().equals(transactionDate)) { throw new JournalEntryInvalidException(
-                    GL_JOURNAL_ENTRY_INVALID_REASON.ACCOUNTING_CLOSED, latestGLClosure.getClosingDate(), null, null); }
-        }
+        this.helper.checkForBranchClosures(this.helper.getLatestClosingDateByBranch(command.getOfficeId()), transactionDate);
 
         /*** check if credits and debits are valid **/
         final SingleDebitOrCreditEntryCommand[] credits = command.getCredits();
@@ -737,10 +757,12 @@ public class JournalEntryWritePlatformServiceJpaRepositoryImpl implements Journa
                 "Defining Opening balances not allowed after journal entries posted", transactionIds); }
     }
 
+    @Transactional
     @Override
     public void createJournalEntriesForClientTransactions(Map<String, Object> accountingBridgeData) {
         final ClientTransactionDTO clientTransactionDTO = this.helper.populateClientTransactionDtoFromMap(accountingBridgeData);
         accountingProcessorForClientTransactions.createJournalEntriesForClientTransaction(clientTransactionDTO);
+        this.journalEntryBatchWriter.flushPendingEntries();
     }
 
     private class OfficeCurrencyKey {
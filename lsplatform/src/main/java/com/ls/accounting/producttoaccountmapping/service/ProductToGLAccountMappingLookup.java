@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.producttoaccountmapping.service;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.ls.accounting.producttoaccountmapping.domain.PortfolioProductType;
+
+/**
+ * Immutable snapshot of the product to GL account mappings and the financial
+ * activity mappings of a tenant, as loaded by
+ * {@link ProductToGLAccountMappingResolver}. All lookups return the id of the
+ * mapped GL account or <code>null</code> if there is no such mapping.
+ */
+public class ProductToGLAccountMappingLookup {
+
+    private final long version;
+    private final Map<String, Long> glAccountIdsByMapping;
+    private final Map<Integer, Long> glAccountIdsByFinancialActivity;
+
+    public ProductToGLAccountMappingLookup(final long version, final Map<String, Long> glAccountIdsByMapping,
+            final Map<Integer, Long> glAccountIdsByFinancialActivity) {
+        this.version = version;
+        this.glAccountIdsByMapping = Collections.unmodifiableMap(glAccountIdsByMapping);
+        this.glAccountIdsByFinancialActivity = Collections.unmodifiableMap(glAccountIdsByFinancialActivity);
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * The mapping of a product which is neither specific to a payment type nor
+     * to a charge.
+     */
+    public Long productGLAccountId(final PortfolioProductType productType, final Long productId, final int financialAccountType) {
+        return this.glAccountIdsByMapping.get(productMappingKey(productType.getValue(), productId, financialAccountType));
+    }
+
+    public Long paymentTypeGLAccountId(final PortfolioProductType productType, final Long productId, final int financialAccountType,
+            final Long paymentTypeId) {
+        if (paymentTypeId == null) { return null; }
+        return this.glAccountIdsByMapping.get(paymentTypeMappingKey(productType.getValue(), productId, financialAccountType, paymentTypeId));
+    }
+
+    public Long chargeGLAccountId(final PortfolioProductType productType, final Long productId, final int financialAccountType,
+            final Long chargeId) {
+        if (chargeId == null) { return null; }
+        return this.glAccountIdsByMapping.get(chargeMappingKey(productType.getValue(), productId, financialAccountType, chargeId));
+    }
+
+    public Long financialActivityGLAccountId(final int financialActivityType) {
+        return this.glAccountIdsByFinancialActivity.get(financialActivityType);
+    }
+
+    static String productMappingKey(final Integer productType, final Long productId, final int financialAccountType) {
+        return productType + "_" + productId + "_" + financialAccountType;
+    }
+
+    static String paymentTypeMappingKey(final Integer productType, final Long productId, final int financialAccountType,
+            final Long paymentTypeId) {
+        return productMappingKey(productType, productId, financialAccountType) + "_p" + paymentTypeId;
+    }
+
+    static String chargeMappingKey(final Integer productType, final Long productId, final int financialAccountType, final Long chargeId) {
+        return productMappingKey(productType, productId, financialAccountType) + "_c" + chargeId;
+    }
+}
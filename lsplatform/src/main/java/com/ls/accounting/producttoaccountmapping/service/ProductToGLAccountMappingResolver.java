@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.producttoaccountmapping.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.ls.infrastructure.cache.service.TenantCacheVersions;
+import com.ls.infrastructure.cache.service.TenantVersionedCache;
+import com.ls.infrastructure.cache.service.TenantVersionedCache.Loader;
+import com.ls.infrastructure.core.domain.JdbcSupport;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves GL accounts for journal entries from an in memory copy of
+ * <code>acc_product_mapping</code> and
+ * <code>acc_gl_financial_activity_account</code>, so that posting a
+ * transaction does not query the mappings leg by leg.
+ *
+ * The copy is loaded once per tenant and kept for as long as the version of
+ * the mappings in {@link TenantCacheVersions} does not change. Services that
+ * change the mappings call {@link #invalidate()}, which moves the version on
+ * for every node once their transaction commits.
+ */
+@Component
+public class ProductToGLAccountMappingResolver {
+
+    public static final String CACHE_NAME = "productToGLAccountMappings";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TenantVersionedCache<ProductToGLAccountMappingLookup> lookups;
+
+    @Autowired
+    public ProductToGLAccountMappingResolver(final RoutingDataSource dataSource, final TenantCacheVersions cacheVersions) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.lookups = new TenantVersionedCache<>(CACHE_NAME, cacheVersions, new Loader<ProductToGLAccountMappingLookup>() {
+
+            @Override
+            public ProductToGLAccountMappingLookup load(final long version) {
+                return ProductToGLAccountMappingResolver.this.load(version);
+            }
+        });
+    }
+
+    public ProductToGLAccountMappingLookup retrieveMappings() {
+        return this.lookups.get();
+    }
+
+    /**
+     * Moves the mappings of the current tenant on to a new version, as part
+     * of the transaction changing them.
+     */
+    public void invalidate() {
+        this.lookups.invalidate();
+    }
+
+    private ProductToGLAccountMappingLookup load(final long version) {
+        final Map<String, Long> glAccountIdsByMapping = new HashMap<>();
+        this.jdbcTemplate.query("select pm.product_type, pm.product_id, pm.financial_account_type, pm.payment_type, pm.charge_id, "
+                + "pm.gl_account_id from acc_product_mapping pm where pm.gl_account_id is not null", new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final Integer productType = JdbcSupport.getInteger(rs, "product_type");
+                final Long productId = JdbcSupport.getLong(rs, "product_id");
+                final int financialAccountType = rs.getInt("financial_account_type");
+                final Long paymentTypeId = JdbcSupport.getLong(rs, "payment_type");
+                final Long chargeId = JdbcSupport.getLong(rs, "charge_id");
+                final Long glAccountId = rs.getLong("gl_account_id");
+                if (paymentTypeId != null) {
+                    glAccountIdsByMapping.put(ProductToGLAccountMappingLookup.paymentTypeMappingKey(productType, productId,
+                            financialAccountType, paymentTypeId), glAccountId);
+                } else if (chargeId != null) {
+                    glAccountIdsByMapping.put(
+                            ProductToGLAccountMappingLookup.chargeMappingKey(productType, productId, financialAccountType, chargeId),
+                            glAccountId);
+                } else {
+                    glAccountIdsByMapping.put(ProductToGLAccountMappingLookup.productMappingKey(productType, productId, financialAccountType),
+                            glAccountId);
+                }
+            }
+        });
+
+        final Map<Integer, Long> glAccountIdsByFinancialActivity = new HashMap<>();
+        this.jdbcTemplate.query("select faa.financial_activity_type, faa.gl_account_id from acc_gl_financial_activity_account faa "
+                + "where faa.gl_account_id is not null", new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                glAccountIdsByFinancialActivity.put(rs.getInt("financial_activity_type"), rs.getLong("gl_account_id"));
+            }
+        });
+
+        return new ProductToGLAccountMappingLookup(version, glAccountIdsByMapping, glAccountIdsByFinancialActivity);
+    }
+}
@@ -116,6 +116,18 @@ public class LoanProductProvisioningEntry extends AbstractPersistableCustom<Long
         return this.expenseAccount ;
     }
     
+    public LoanProduct getLoanProduct() {
+        return this.loanProduct ;
+    }
+    
+    public ProvisioningCategory getProvisioningCategory() {
+        return this.provisioningCategory ;
+    }
+    
+    public Long getOverdueInDays() {
+        return this.overdueInDays ;
+    }
+    
     @Override
     public boolean equals(Object obj) {
         if (!obj.getClass().equals(getClass())) return false;
@@ -29,7 +29,24 @@ import com.ls.infrastructure.core.service.SearchParameters;
 
 public interface ProvisioningEntriesReadPlatformService {
 
+    /**
+     * Receives the provisioning data of the active loans one loan at a time.
+     */
+    public interface LoanProvisioningDataHandler {
+
+        void handle(LoanProductProvisioningEntryData loan);
+    }
+
     public Collection<LoanProductProvisioningEntryData> retrieveLoanProductsProvisioningData(Date date) ;
+
+    /**
+     * Hands the handler one row per active loan, in loan id order, with its
+     * outstanding balance, the days overdue of its earliest incomplete
+     * installment on the given date and the provisioning category (and the
+     * criteria and GL accounts that go with it) those days fall into. The rows
+     * are handed over as they are read rather than collected first.
+     */
+    public void retrieveActiveLoansProvisioningData(Date date, LoanProvisioningDataHandler handler) ;
     
     public ProvisioningEntryData retrieveProvisioningEntryData(Long entryId) ;
     
@@ -38,6 +38,7 @@ import com.ls.infrastructure.core.service.SearchParameters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Service;
 
@@ -109,6 +110,68 @@ public class ProvisioningEntriesReadPlatformServiceImpl implements ProvisioningE
         }
     }
 
+    @Override
+    public void retrieveActiveLoansProvisioningData(final Date date, final LoanProvisioningDataHandler handler) {
+        final LoanProvisioningDataMapper mapper = new LoanProvisioningDataMapper();
+        final String sql = mapper.schema();
+        this.jdbcTemplate.query(sql, new Object[] { date }, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                handler.handle(mapper.mapRow(rs, rs.getRow()));
+            }
+        });
+    }
+
+    private static final class LoanProvisioningDataMapper implements RowMapper<LoanProductProvisioningEntryData> {
+
+        private final StringBuilder sqlQuery;
+
+        protected LoanProvisioningDataMapper() {
+            // the days overdue of every active loan come from its earliest
+            // incomplete installment, worked out once per loan
+            sqlQuery = new StringBuilder()
+                    .append("select arrears.office_id, arrears.product_id, arrears.currency_code, pcd.criteria_id as criteriaid, ")
+                    .append("pcd.category_id, pcd.provision_percentage, pcd.liability_account, pcd.expense_account, ")
+                    .append("arrears.numberofdaysoverdue, arrears.outstandingbalance ")
+                    .append("from (select loan.id as loan_id, if(loan.loan_type_enum=1, mclient.office_id, mgroup.office_id) as office_id, loan.product_id, ")
+                    .append("loan.currency_code, loan.total_outstanding_derived as outstandingbalance, ")
+                    .append("GREATEST(datediff(?, MIN(sch.duedate)),0) as numberofdaysoverdue ")
+                    .append("from m_loan loan ")
+                    .append("JOIN m_loan_repayment_schedule sch on sch.loan_id = loan.id and sch.completed_derived = false ")
+                    .append("LEFT JOIN m_client mclient ON mclient.id = loan.client_id ")
+                    .append("LEFT JOIN m_group mgroup ON mgroup.id = loan.group_id ")
+                    .append("where loan.loan_status_id=300 group by loan.id) arrears ")
+                    .append("JOIN m_loanproduct_provisioning_mapping lpm on lpm.product_id = arrears.product_id ")
+                    .append("JOIN m_provisioning_criteria_definition pcd on pcd.criteria_id = lpm.criteria_id and ")
+                    .append("pcd.min_age <= arrears.numberofdaysoverdue and arrears.numberofdaysoverdue <= pcd.max_age ")
+                    .append("order by arrears.loan_id");
+        }
+
+        @Override
+        @SuppressWarnings("unused")
+        public LoanProductProvisioningEntryData mapRow(ResultSet rs, int rowNum) throws SQLException {
+            Long officeId = rs.getLong("office_id");
+            Long productId = rs.getLong("product_id");
+            String currentcyCode = rs.getString("currency_code");
+            Long overdueDays = rs.getLong("numberofdaysoverdue");
+            Long categoryId = rs.getLong("category_id");
+            BigDecimal percentage = rs.getBigDecimal("provision_percentage");
+            BigDecimal outstandingBalance = rs.getBigDecimal("outstandingbalance");
+            Long liabilityAccountCode = rs.getLong("liability_account");
+            Long expenseAccountCode = rs.getLong("expense_account");
+            Long criteriaId = rs.getLong("criteriaid");
+            Long historyId = null;
+
+            return new LoanProductProvisioningEntryData(historyId, officeId, currentcyCode, productId, categoryId, overdueDays, percentage,
+                    outstandingBalance, liabilityAccountCode, expenseAccountCode, criteriaId);
+        }
+
+        public String schema() {
+            return sqlQuery.toString();
+        }
+    }
+
     @Override
     public ProvisioningEntryData retrieveProvisioningEntryData(Long entryId) {
         ProvisioningEntryDataMapperWithSumReserved mapper1 = new ProvisioningEntryDataMapperWithSumReserved();
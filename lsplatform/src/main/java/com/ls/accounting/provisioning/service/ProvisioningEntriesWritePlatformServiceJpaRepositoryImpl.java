@@ -18,14 +18,24 @@
  */
 package com.ls.accounting.provisioning.service;
 
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import com.ls.accounting.glaccount.domain.GLAccount;
 import com.ls.accounting.glaccount.domain.GLAccountRepository;
+import com.ls.accounting.journalentry.domain.JournalEntryType;
+import com.ls.accounting.journalentry.service.AccountingProcessorHelper;
+import com.ls.accounting.journalentry.service.JournalEntryBatchWriter;
 import com.ls.accounting.journalentry.service.JournalEntryWritePlatformService;
 import com.ls.accounting.producttoaccountmapping.domain.PortfolioProductType;
 import com.ls.accounting.provisioning.data.LoanProductProvisioningEntryData;
@@ -38,13 +48,17 @@ import com.ls.accounting.provisioning.exception.ProvisioningEntryAlreadyCreatedE
 import com.ls.accounting.provisioning.exception.ProvisioningEntryNotfoundException;
 import com.ls.accounting.provisioning.exception.ProvisioningJournalEntriesCannotbeCreatedException;
 import com.ls.accounting.provisioning.serialization.ProvisioningEntriesDefinitionJsonDeserializer;
+import com.ls.accounting.provisioning.service.ProvisioningEntriesReadPlatformService.LoanProvisioningDataHandler;
 import com.ls.infrastructure.core.api.JsonCommand;
 import com.ls.infrastructure.core.data.CommandProcessingResult;
 import com.ls.infrastructure.core.data.CommandProcessingResultBuilder;
 import com.ls.infrastructure.core.serialization.FromJsonHelper;
 import com.ls.infrastructure.core.service.DateUtils;
+import com.ls.infrastructure.core.service.RoutingDataSource;
 import com.ls.infrastructure.jobs.annotation.CronTarget;
 import com.ls.infrastructure.jobs.service.JobName;
+import com.ls.infrastructure.jobs.service.SchedulerJobRunnerReadService;
+import com.ls.infrastructure.jobs.service.SchedulerServiceConstants;
 import com.ls.infrastructure.security.service.PlatformSecurityContext;
 import com.ls.organisation.monetary.domain.MonetaryCurrency;
 import com.ls.organisation.monetary.domain.Money;
@@ -61,13 +75,25 @@ import com.ls.useradministration.domain.AppUser;
 import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.gson.JsonObject;
 
 @Service
 public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements ProvisioningEntriesWritePlatformService {
 
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_LOAN_PRODUCT_PROVISIONING_ENTRY_SQL = "insert into m_loanproduct_provisioning_entry "
+            + "(history_id, criteria_id, currency_code, office_id, product_id, category_id, overdue_in_days, reseve_amount, "
+            + "liability_account, expense_account) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     private final ProvisioningEntriesReadPlatformService provisioningEntriesReadPlatformService;
     private final ProvisioningCriteriaReadPlatformService provisioningCriteriaReadPlatformService ;
     private final LoanProductRepository loanProductRepository;
@@ -79,6 +105,10 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
     private final JournalEntryWritePlatformService journalEntryWritePlatformService;
     private final ProvisioningEntriesDefinitionJsonDeserializer fromApiJsonDeserializer;
     private final FromJsonHelper fromApiJsonHelper;
+    private final JdbcTemplate jdbcTemplate;
+    private final JournalEntryBatchWriter journalEntryBatchWriter;
+    private final SchedulerJobRunnerReadService schedulerJobRunnerReadService;
+    private final PlatformTransactionManager transactionManager;
     
     @Autowired
     public ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl(
@@ -88,7 +118,9 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
             final OfficeRepositoryWrapper officeRepositoryWrapper, final ProvisioningCategoryRepository provisioningCategoryRepository,
             final PlatformSecurityContext platformSecurityContext, final ProvisioningEntryRepository provisioningEntryRepository,
             final JournalEntryWritePlatformService journalEntryWritePlatformService,
-            final ProvisioningEntriesDefinitionJsonDeserializer fromApiJsonDeserializer, final FromJsonHelper fromApiJsonHelper) {
+            final ProvisioningEntriesDefinitionJsonDeserializer fromApiJsonDeserializer, final FromJsonHelper fromApiJsonHelper,
+            final RoutingDataSource dataSource, final JournalEntryBatchWriter journalEntryBatchWriter,
+            final SchedulerJobRunnerReadService schedulerJobRunnerReadService, final PlatformTransactionManager transactionManager) {
         this.provisioningEntriesReadPlatformService = provisioningEntriesReadPlatformService;
         this.provisioningCriteriaReadPlatformService = provisioningCriteriaReadPlatformService ;
         this.loanProductRepository = loanProductRepository;
@@ -100,6 +132,10 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
         this.journalEntryWritePlatformService = journalEntryWritePlatformService;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
         this.fromApiJsonHelper = fromApiJsonHelper;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.journalEntryBatchWriter = journalEntryBatchWriter;
+        this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
+        this.transactionManager = transactionManager;
     }
 
     @Override
@@ -153,15 +189,27 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
     @Override
     @CronTarget(jobName = JobName.GENERATE_LOANLOSS_PROVISIONING)
     public void generateLoanLossProvisioningAmount() {
-        Date currentDate  = DateUtils.getLocalDateOfTenant().toDate() ;
-        boolean addJournalEntries = true;
+        final Date currentDate  = DateUtils.getLocalDateOfTenant().toDate() ;
+        final boolean addJournalEntries = true;
         try {
             Collection<ProvisioningCriteriaData> criteriaCollection = this.provisioningCriteriaReadPlatformService.retrieveAllProvisioningCriterias() ; 
             if(criteriaCollection == null || criteriaCollection.size() == 0){
                 return ;
                 //FIXME: Do we need to throw NoProvisioningCriteriaDefinitionFound()?
             }
-            createProvsioningEntry(currentDate, addJournalEntries);
+            final String provisioningMode = this.schedulerJobRunnerReadService.retrieveJobParameters(
+                    JobName.GENERATE_LOANLOSS_PROVISIONING).get(SchedulerServiceConstants.JOB_PARAMETER_PROVISIONING_MODE);
+            final boolean aggregated = SchedulerServiceConstants.PROVISIONING_MODE_AGGREGATED.equalsIgnoreCase(provisioningMode);
+            // the entry is written in a transaction of its own so that an entry
+            // which already exists rolls back only that work and is skipped here
+            new TransactionTemplate(this.transactionManager).execute(new TransactionCallback<ProvisioningEntry>() {
+
+                @Override
+                public ProvisioningEntry doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                    if (aggregated) { return createAggregatedProvisioningEntry(currentDate, addJournalEntries); }
+                    return createProvsioningEntry(currentDate, addJournalEntries);
+                }
+            });
         } catch (ProvisioningEntryAlreadyCreatedException peace) {} catch (DataIntegrityViolationException dive) {}
     }
 
@@ -203,6 +251,145 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
         return requestedEntry;
     }
 
+    /**
+     * Set based counterpart of {@link #createProvsioningEntry(Date, boolean)}.
+     * The provisioning data of all loans comes from a single query, the
+     * entries are inserted in JDBC batches and one journal leg is posted per
+     * office, currency and GL account instead of one per entry.
+     */
+    private ProvisioningEntry createAggregatedProvisioningEntry(Date date, boolean addJournalEntries) {
+        ProvisioningEntry existingEntry = this.provisioningEntryRepository.findByProvisioningEntryDate(date);
+        if (existingEntry != null) { throw new ProvisioningEntryAlreadyCreatedException(existingEntry.getId(),
+                existingEntry.getCreatedDate()); }
+        AppUser currentUser = this.platformSecurityContext.authenticatedUser();
+        ProvisioningEntry requestedEntry = new ProvisioningEntry(currentUser, date, null, null,
+                new HashSet<LoanProductProvisioningEntry>());
+        requestedEntry.setJournalEntryCreated(Boolean.FALSE);
+        requestedEntry = this.provisioningEntryRepository.saveAndFlush(requestedEntry);
+
+        final List<LoanProductProvisioningEntryData> entries = calculateAggregatedProvisioningAmounts(date);
+        insertLoanProductProvisioningEntries(requestedEntry.getId(), entries);
+
+        if (addJournalEntries) {
+            ProvisioningEntryData exisProvisioningEntryData = this.provisioningEntriesReadPlatformService
+                    .retrieveExistingProvisioningIdDateWithJournals();
+            if (exisProvisioningEntryData != null) {
+                validateForCreateJournalEntry(exisProvisioningEntryData, requestedEntry);
+                this.journalEntryWritePlatformService.revertProvisioningJournalEntries(requestedEntry.getCreatedDate(),
+                        exisProvisioningEntryData.getId(), PortfolioProductType.PROVISIONING.getValue());
+            }
+            requestedEntry.setJournalEntryCreated(entries.isEmpty() ? Boolean.FALSE : Boolean.TRUE);
+            this.provisioningEntryRepository.save(requestedEntry);
+            this.journalEntryBatchWriter.write(aggregateProvisioningJournalEntries(requestedEntry, entries));
+        }
+        return requestedEntry;
+    }
+
+    /**
+     * Works out the amount to reserve per office, product, currency and
+     * category. As in {@link #generateLoanProvisioningEntry(ProvisioningEntry, Date)}
+     * the percentage is applied to each loan in the currency settings of its
+     * product and the rounded amounts are summed up, the days overdue are the
+     * ones of the first loan of the entry.
+     */
+    List<LoanProductProvisioningEntryData> calculateAggregatedProvisioningAmounts(Date date) {
+        final Map<Long, MonetaryCurrency> currencyByProduct = new HashMap<>();
+        final Map<String, LoanProductProvisioningEntryData> firstLoanByEntry = new LinkedHashMap<>();
+        final Map<String, Money> amountByEntry = new HashMap<>();
+        // only the totals are kept, the loans are summed up as they are read
+        this.provisioningEntriesReadPlatformService.retrieveActiveLoansProvisioningData(date, new LoanProvisioningDataHandler() {
+
+            @Override
+            public void handle(final LoanProductProvisioningEntryData data) {
+                MonetaryCurrency currency = currencyByProduct.get(data.getProductId());
+                if (currency == null) {
+                    LoanProduct loanProduct = ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl.this.loanProductRepository
+                            .findOne(data.getProductId());
+                    currency = loanProduct.getPrincipalAmount().getCurrency();
+                    currencyByProduct.put(data.getProductId(), currency);
+                }
+                Money money = Money.of(currency, data.getOutstandingBalance());
+                Money amountToReserve = money.percentageOf(data.getPercentage(), MoneyHelper.getRoundingMode());
+                String key = data.getOfficeId() + "_" + data.getProductId() + "_" + data.getCurrencyCode() + "_" + data.getCategoryId();
+                Money total = amountByEntry.get(key);
+                if (total == null) {
+                    firstLoanByEntry.put(key, data);
+                    amountByEntry.put(key, amountToReserve);
+                } else {
+                    amountByEntry.put(key, total.plus(amountToReserve));
+                }
+            }
+        });
+        List<LoanProductProvisioningEntryData> entries = new ArrayList<>(firstLoanByEntry.size());
+        for (Map.Entry<String, LoanProductProvisioningEntryData> firstLoan : firstLoanByEntry.entrySet()) {
+            LoanProductProvisioningEntryData data = firstLoan.getValue();
+            entries.add(new LoanProductProvisioningEntryData(null, data.getOfficeId(), data.getCurrencyCode(), data.getProductId(),
+                    data.getCategoryId(), data.getOverdueInDays(), data.getPercentage(), amountByEntry.get(firstLoan.getKey()).getAmount(),
+                    data.getLiablityAccount(), data.getExpenseAccount(), data.getCriteriaId()));
+        }
+        return entries;
+    }
+
+    /**
+     * Inserts the entries under the given provisioning entry. The balance of
+     * each of them holds the amount to reserve.
+     */
+    private void insertLoanProductProvisioningEntries(final Long historyId, final List<LoanProductProvisioningEntryData> entries) {
+        for (int fromIndex = 0; fromIndex < entries.size(); fromIndex += BATCH_SIZE) {
+            final List<LoanProductProvisioningEntryData> batch = entries.subList(fromIndex,
+                    Math.min(fromIndex + BATCH_SIZE, entries.size()));
+            this.jdbcTemplate.batchUpdate(INSERT_LOAN_PRODUCT_PROVISIONING_ENTRY_SQL, new BatchPreparedStatementSetter() {
+
+                @Override
+                public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                    final LoanProductProvisioningEntryData entry = batch.get(i);
+                    ps.setLong(1, historyId);
+                    ps.setLong(2, entry.getCriteriaId());
+                    ps.setString(3, entry.getCurrencyCode());
+                    ps.setLong(4, entry.getOfficeId());
+                    ps.setLong(5, entry.getProductId());
+                    ps.setLong(6, entry.getCategoryId());
+                    ps.setLong(7, entry.getOverdueInDays());
+                    ps.setBigDecimal(8, entry.getOutstandingBalance());
+                    ps.setLong(9, entry.getLiablityAccount());
+                    ps.setLong(10, entry.getExpenseAccount());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+        }
+    }
+
+    /**
+     * Credits the liability and debits the expense account of every entry,
+     * summed up per office, currency and GL account.
+     */
+    private List<JournalEntryBatchWriter.Entry> aggregateProvisioningJournalEntries(final ProvisioningEntry provisioningEntry,
+            final List<LoanProductProvisioningEntryData> entries) {
+        final Map<String, JournalEntryBatchWriter.Entry> journalEntries = new LinkedHashMap<>();
+        final String transactionId = AccountingProcessorHelper.PROVISIONING_TRANSACTION_IDENTIFIER + provisioningEntry.getId();
+        for (final LoanProductProvisioningEntryData entry : entries) {
+            addProvisioningJournalEntry(journalEntries, provisioningEntry, transactionId, entry.getOfficeId(), entry.getCurrencyCode(),
+                    entry.getLiablityAccount(), JournalEntryType.CREDIT, entry.getOutstandingBalance());
+            addProvisioningJournalEntry(journalEntries, provisioningEntry, transactionId, entry.getOfficeId(), entry.getCurrencyCode(),
+                    entry.getExpenseAccount(), JournalEntryType.DEBIT, entry.getOutstandingBalance());
+        }
+        return new ArrayList<>(journalEntries.values());
+    }
+
+    private static void addProvisioningJournalEntry(final Map<String, JournalEntryBatchWriter.Entry> journalEntries,
+            final ProvisioningEntry provisioningEntry, final String transactionId, final Long officeId, final String currencyCode,
+            final Long glAccountId, final JournalEntryType type, final BigDecimal amount) {
+        final String key = officeId + "_" + currencyCode + "_" + glAccountId + "_" + type.getValue();
+        final JournalEntryBatchWriter.Entry existing = journalEntries.get(key);
+        final BigDecimal total = existing == null ? amount : existing.getAmount().add(amount);
+        journalEntries.put(key, new JournalEntryBatchWriter.Entry(officeId, glAccountId, currencyCode, transactionId, null,
+                provisioningEntry.getCreatedDate(), type, total, PortfolioProductType.PROVISIONING.getValue(), provisioningEntry.getId()));
+    }
+
     @Override
     public CommandProcessingResult reCreateProvisioningEntries(Long provisioningEntryId, JsonCommand command) {
         ProvisioningEntry requestedEntry = this.provisioningEntryRepository.findOne(provisioningEntryId);
@@ -215,7 +402,7 @@ public class ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl implements
         return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(requestedEntry.getId()).build();
     }
 
-    private Collection<LoanProductProvisioningEntry> generateLoanProvisioningEntry(ProvisioningEntry parent, Date date) {
+    Collection<LoanProductProvisioningEntry> generateLoanProvisioningEntry(ProvisioningEntry parent, Date date) {
         Collection<LoanProductProvisioningEntryData> entries = this.provisioningEntriesReadPlatformService
                 .retrieveLoanProductsProvisioningData(date);
         Map<LoanProductProvisioningEntry, LoanProductProvisioningEntry> provisioningEntries = new HashMap<>();
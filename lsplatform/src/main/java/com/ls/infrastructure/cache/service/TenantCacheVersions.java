@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.cache.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Versions of the data a tenant keeps in memory on every node, persisted in
+ * <code>m_cache_version</code> so that a change committed on one node is seen
+ * by the others.
+ *
+ * A cache reads the version of its data before using its in memory copy and
+ * reloads the copy when the version has moved on. Within a transaction the
+ * version is read once, and a change made by the transaction moves it on for
+ * the rest of the transaction straight away.
+ */
+@Component
+public class TenantCacheVersions {
+
+    /**
+     * The versions read and moved on during a transaction, bound to it as a
+     * resource of this component.
+     */
+    private final class TransactionVersions extends TransactionSynchronizationAdapter {
+
+        private final Map<String, Long> versions = new HashMap<>();
+        private final Set<String> changedCaches = new HashSet<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(TenantCacheVersions.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(TenantCacheVersions.this, this);
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TenantCacheVersions.this);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public TenantCacheVersions(final RoutingDataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Returns the current version of the cache for the current tenant, 0 if
+     * it has never changed.
+     */
+    public long currentVersion(final String cacheName) {
+        final TransactionVersions transactionVersions = transactionVersions();
+        if (transactionVersions == null) { return readVersion(cacheName); }
+        Long version = transactionVersions.versions.get(cacheName);
+        if (version == null) {
+            version = readVersion(cacheName);
+            transactionVersions.versions.put(cacheName, version);
+        }
+        return version;
+    }
+
+    /**
+     * Moves the cache of the current tenant on to a new version, as part of
+     * the current transaction if there is one.
+     */
+    public void moveToNextVersion(final String cacheName) {
+        this.jdbcTemplate.update("insert into m_cache_version (cache_name, version) values (?, 1) "
+                + "on duplicate key update version = version + 1", cacheName);
+        final TransactionVersions transactionVersions = transactionVersions();
+        if (transactionVersions != null) {
+            transactionVersions.versions.put(cacheName, readVersion(cacheName));
+            transactionVersions.changedCaches.add(cacheName);
+        }
+    }
+
+    /**
+     * Tells if the current transaction has changed the data of the cache. A
+     * copy of the data loaded by such a transaction includes changes which
+     * may yet be rolled back, and must not be shared.
+     */
+    public boolean isChangedInTransaction(final String cacheName) {
+        final TransactionVersions transactionVersions = transactionVersions();
+        return transactionVersions != null && transactionVersions.changedCaches.contains(cacheName);
+    }
+
+    private long readVersion(final String cacheName) {
+        final List<Long> versions = this.jdbcTemplate.queryForList("select version from m_cache_version where cache_name = ?",
+                Long.class, cacheName);
+        return versions.isEmpty() ? 0L : versions.get(0);
+    }
+
+    private TransactionVersions transactionVersions() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { return null; }
+        TransactionVersions transactionVersions = (TransactionVersions) TransactionSynchronizationManager.getResource(this);
+        if (transactionVersions == null) {
+            transactionVersions = new TransactionVersions();
+            TransactionSynchronizationManager.bindResource(this, transactionVersions);
+            TransactionSynchronizationManager.registerSynchronization(transactionVersions);
+        }
+        return transactionVersions;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.cache.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+
+/**
+ * An in memory copy of some data of every tenant, loaded once per tenant and
+ * kept for as long as the version of the data in {@link TenantCacheVersions}
+ * does not change.
+ * 
+ * A copy loaded by the transaction changing the data includes changes which
+ * may yet be rolled back, so it is used by that transaction only and the
+ * shared copy is loaded again afterwards.
+ */
+public final class TenantVersionedCache<T> {
+
+    /**
+     * Loads the data of the current tenant for the given version.
+     */
+    public interface Loader<T> {
+
+        T load(long version);
+    }
+
+    private static final class VersionedCopy<T> {
+
+        private final long version;
+        private final T data;
+
+        VersionedCopy(final long version, final T data) {
+            this.version = version;
+            this.data = data;
+        }
+    }
+
+    private final String cacheName;
+    private final TenantCacheVersions cacheVersions;
+    private final Loader<T> loader;
+    private final ConcurrentMap<String, VersionedCopy<T>> copiesByTenant = new ConcurrentHashMap<>();
+
+    public TenantVersionedCache(final String cacheName, final TenantCacheVersions cacheVersions, final Loader<T> loader) {
+        this.cacheName = cacheName;
+        this.cacheVersions = cacheVersions;
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the data of the current tenant, loading it again if its version
+     * has moved on.
+     */
+    public T get() {
+        final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+        final long currentVersion = this.cacheVersions.currentVersion(this.cacheName);
+        final VersionedCopy<T> copy = this.copiesByTenant.get(tenantIdentifier);
+        if (copy != null && copy.version == currentVersion) { return copy.data; }
+
+        final T data = this.loader.load(currentVersion);
+        if (!this.cacheVersions.isChangedInTransaction(this.cacheName)) {
+            this.copiesByTenant.put(tenantIdentifier, new VersionedCopy<>(currentVersion, data));
+        }
+        return data;
+    }
+
+    /**
+     * Moves the data of the current tenant on to a new version, as part of
+     * the transaction changing it.
+     */
+    public void invalidate() {
+        this.cacheVersions.moveToNextVersion(this.cacheName);
+    }
+}
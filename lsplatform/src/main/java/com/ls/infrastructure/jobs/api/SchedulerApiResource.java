@@ -34,8 +34,10 @@ import com.ls.infrastructure.core.api.ApiRequestParameterHelper;
 import com.ls.infrastructure.core.exception.UnrecognizedQueryParamException;
 import com.ls.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
 import com.ls.infrastructure.core.serialization.ToApiJsonSerializer;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
 import com.ls.infrastructure.jobs.data.SchedulerDetailData;
 import com.ls.infrastructure.jobs.service.JobRegisterService;
+import com.ls.infrastructure.jobs.service.TenantJobExecutionGate;
 import com.ls.infrastructure.security.exception.NoAuthorizationException;
 import com.ls.infrastructure.security.service.PlatformSecurityContext;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -49,14 +51,17 @@ public class SchedulerApiResource {
     private final JobRegisterService jobRegisterService;
     private final ToApiJsonSerializer<SchedulerDetailData> toApiJsonSerializer;
     private final ApiRequestParameterHelper apiRequestParameterHelper;
+    private final TenantJobExecutionGate jobExecutionGate;
 
     @Autowired
     public SchedulerApiResource(final PlatformSecurityContext context, final JobRegisterService jobRegisterService,
-            final ToApiJsonSerializer<SchedulerDetailData> toApiJsonSerializer, final ApiRequestParameterHelper apiRequestParameterHelper) {
+            final ToApiJsonSerializer<SchedulerDetailData> toApiJsonSerializer, final ApiRequestParameterHelper apiRequestParameterHelper,
+            final TenantJobExecutionGate jobExecutionGate) {
         this.context = context;
         this.jobRegisterService = jobRegisterService;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.apiRequestParameterHelper = apiRequestParameterHelper;
+        this.jobExecutionGate = jobExecutionGate;
     }
 
     @GET
@@ -66,7 +71,8 @@ public class SchedulerApiResource {
         this.context.authenticatedUser().validateHasReadPermission(SchedulerJobApiConstants.SCHEDULER_RESOURCE_NAME);
         final boolean isSchedulerRunning = this.jobRegisterService.isSchedulerRunning();
         final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
-        final SchedulerDetailData schedulerDetailData = new SchedulerDetailData(isSchedulerRunning);
+        final SchedulerDetailData schedulerDetailData = this.jobExecutionGate.retrieveSchedulerDetail(
+                ThreadLocalContextUtil.getTenant().getTenantIdentifier(), isSchedulerRunning);
         return this.toApiJsonSerializer.serialize(settings, schedulerDetailData,
                 SchedulerJobApiConstants.SCHEDULER_DETAIL_RESPONSE_DATA_PARAMETERS);
     }
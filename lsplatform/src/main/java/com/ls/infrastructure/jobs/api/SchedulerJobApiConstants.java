@@ -44,6 +44,11 @@ public class SchedulerJobApiConstants {
     public static final String jobRunErrorLogParamName = "jobRunErrorLog";
     public static final String cronExpressionParamName = "cronExpression";
     public static final String schedulerStatusParamName = "active";
+    public static final String jobParametersParamName = "jobParameters";
+    public static final String totalItemsParamName = "totalItems";
+    public static final String processedItemsParamName = "processedItems";
+    public static final String failedItemsParamName = "failedItems";
+    public static final String retriedItemsParamName = "retriedItems";
 
     public static final Set<String> JOB_DETAIL_RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList(jobIdentifierParamName,
             displayNameParamName, nextRunTimeParamName, initializingErrorParamName, cronExpressionParamName, jobActiveStatusParamName,
@@ -51,12 +56,22 @@ public class SchedulerJobApiConstants {
 
     public static final Set<String> JOB_HISTORY_RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList(versionParamName,
             jobRunStartTimeParamName, jobRunEndTimeParamName, statusParamName, jobRunErrorMessageParamName, triggerTypeParamName,
-            jobRunErrorLogParamName));
+            jobRunErrorLogParamName, totalItemsParamName, processedItemsParamName, failedItemsParamName,
+            retriedItemsParamName));
+
+    public static final Set<String> JOB_PROGRESS_RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList("running", "startTime",
+            totalItemsParamName, processedItemsParamName, failedItemsParamName, retriedItemsParamName, "itemsPerSecond",
+            "estimatedSecondsRemaining", "currentPartition"));
+
+    public static final Set<String> JOB_RUN_FAILURE_RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList("itemId", "exceptionType",
+            "errorMessage"));
 
     public static final Set<String> JOB_UPDATE_REQUEST_DATA_PARAMETERS = new HashSet<>(Arrays.asList(displayNameParamName,
-            jobActiveStatusParamName, cronExpressionParamName));
+            jobActiveStatusParamName, cronExpressionParamName, jobParametersParamName));
 
-    public static final Set<String> SCHEDULER_DETAIL_RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList(schedulerStatusParamName));
+    public static final Set<String> SCHEDULER_DETAIL_RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList(schedulerStatusParamName,
+            "queuedJobs", "tenantQueuedJobs", "runningJobs", "tenantRunningJobs", "maxConcurrentJobs", "maxConcurrentJobsPerTenant",
+            "averageWaitTimeMillis", "maxWaitTimeMillis", "longestCurrentWaitMillis"));
 
     public static final String COMMAND_EXECUTE_JOB = "executeJob";
     public static final String COMMAND_STOP_SCHEDULER = "stop";
@@ -64,5 +79,13 @@ public class SchedulerJobApiConstants {
     public static final String COMMAND = "command";
     public static final String JOB_ID = "jobId";
     public static final String JOB_RUN_HISTORY = "runhistory";
+    public static final String JOB_RUN_VERSION = "version";
+    public static final String JOB_RUN_FAILURES = "failures";
+    public static final String JOB_PROGRESS = "progress";
     public static final String SCHEDULER_STATUS_PATH = "scheduler";
+
+    // limits of TenantJobExecutionGate
+    public static final String MAX_CONCURRENT_JOBS_PROPERTY = "fineract.jobs.maxConcurrentJobs";
+    public static final String MAX_CONCURRENT_JOBS_PER_TENANT_PROPERTY = "fineract.jobs.maxConcurrentJobsPerTenant";
+    public static final String DEFERRED_RUN_DELAY_SECONDS_PROPERTY = "fineract.jobs.deferredRunDelaySeconds";
 }
@@ -46,6 +46,8 @@ import com.ls.infrastructure.core.service.Page;
 import com.ls.infrastructure.core.service.SearchParameters;
 import com.ls.infrastructure.jobs.data.JobDetailData;
 import com.ls.infrastructure.jobs.data.JobDetailHistoryData;
+import com.ls.infrastructure.jobs.data.JobProgressData;
+import com.ls.infrastructure.jobs.data.JobRunItemFailureData;
 import com.ls.infrastructure.jobs.service.JobRegisterService;
 import com.ls.infrastructure.jobs.service.SchedulerJobRunnerReadService;
 import com.ls.infrastructure.security.exception.NoAuthorizationException;
@@ -64,6 +66,8 @@ public class SchedulerJobApiResource {
     private final ApiRequestParameterHelper apiRequestParameterHelper;
     private final ToApiJsonSerializer<JobDetailData> toApiJsonSerializer;
     private final ToApiJsonSerializer<JobDetailHistoryData> jobHistoryToApiJsonSerializer;
+    private final ToApiJsonSerializer<JobProgressData> jobProgressToApiJsonSerializer;
+    private final ToApiJsonSerializer<JobRunItemFailureData> jobRunFailureToApiJsonSerializer;
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
     private final PlatformSecurityContext context;
 
@@ -72,12 +76,16 @@ public class SchedulerJobApiResource {
             final JobRegisterService jobRegisterService, final ToApiJsonSerializer<JobDetailData> toApiJsonSerializer,
             final ApiRequestParameterHelper apiRequestParameterHelper,
             final ToApiJsonSerializer<JobDetailHistoryData> jobHistoryToApiJsonSerializer,
+            final ToApiJsonSerializer<JobProgressData> jobProgressToApiJsonSerializer,
+            final ToApiJsonSerializer<JobRunItemFailureData> jobRunFailureToApiJsonSerializer,
             final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
             final PlatformSecurityContext context) {
         this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
         this.jobRegisterService = jobRegisterService;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.jobHistoryToApiJsonSerializer = jobHistoryToApiJsonSerializer;
+        this.jobProgressToApiJsonSerializer = jobProgressToApiJsonSerializer;
+        this.jobRunFailureToApiJsonSerializer = jobRunFailureToApiJsonSerializer;
         this.apiRequestParameterHelper = apiRequestParameterHelper;
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
         this.context = context;
@@ -114,6 +122,27 @@ public class SchedulerJobApiResource {
                 SchedulerJobApiConstants.JOB_HISTORY_RESPONSE_DATA_PARAMETERS);
     }
 
+    @GET
+    @Path("{" + SchedulerJobApiConstants.JOB_ID + "}/" + SchedulerJobApiConstants.JOB_RUN_HISTORY + "/{"
+            + SchedulerJobApiConstants.JOB_RUN_VERSION + "}/" + SchedulerJobApiConstants.JOB_RUN_FAILURES)
+    public String retrieveRunFailures(@Context final UriInfo uriInfo, @PathParam(SchedulerJobApiConstants.JOB_ID) final Long jobId,
+            @PathParam(SchedulerJobApiConstants.JOB_RUN_VERSION) final Long version) {
+        this.context.authenticatedUser().validateHasReadPermission(SchedulerJobApiConstants.SCHEDULER_RESOURCE_NAME);
+        final List<JobRunItemFailureData> failures = this.schedulerJobRunnerReadService.retrieveJobRunFailures(jobId, version);
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.jobRunFailureToApiJsonSerializer.serialize(settings, failures,
+                SchedulerJobApiConstants.JOB_RUN_FAILURE_RESPONSE_DATA_PARAMETERS);
+    }
+
+    @GET
+    @Path("{" + SchedulerJobApiConstants.JOB_ID + "}/" + SchedulerJobApiConstants.JOB_PROGRESS)
+    public String retrieveProgress(@Context final UriInfo uriInfo, @PathParam(SchedulerJobApiConstants.JOB_ID) final Long jobId) {
+        this.context.authenticatedUser().validateHasReadPermission(SchedulerJobApiConstants.SCHEDULER_RESOURCE_NAME);
+        final JobProgressData progress = this.schedulerJobRunnerReadService.retrieveJobProgress(jobId);
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.jobProgressToApiJsonSerializer.serialize(settings, progress, SchedulerJobApiConstants.JOB_PROGRESS_RESPONSE_DATA_PARAMETERS);
+    }
+
     @POST
     @Path("{" + SchedulerJobApiConstants.JOB_ID + "}")
     public Response executeJob(@PathParam(SchedulerJobApiConstants.JOB_ID) final Long jobId,
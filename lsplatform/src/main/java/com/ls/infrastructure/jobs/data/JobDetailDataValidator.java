@@ -78,6 +78,21 @@ public class JobDetailDataValidator {
                     .validateForBooleanValue();
         }
 
+        if (this.fromApiJsonHelper.parameterExists(SchedulerJobApiConstants.jobParametersParamName, element)) {
+            atLeastOneParameterPassedForUpdate = true;
+            final JsonElement parameters = element.getAsJsonObject().get(SchedulerJobApiConstants.jobParametersParamName);
+            if (parameters.isJsonObject()) {
+                for (final Map.Entry<String, JsonElement> parameter : parameters.getAsJsonObject().entrySet()) {
+                    final String value = parameter.getValue().isJsonPrimitive() ? parameter.getValue().getAsString() : null;
+                    baseDataValidator.reset().parameter(SchedulerJobApiConstants.jobParametersParamName + "." + parameter.getKey())
+                            .value(value).notBlank().notExceedingLengthOf(100);
+                }
+            } else {
+                baseDataValidator.reset().parameter(SchedulerJobApiConstants.jobParametersParamName).value(parameters.toString())
+                        .failWithCode("must.be.an.object");
+            }
+        }
+
         if (!atLeastOneParameterPassedForUpdate) {
             final Object forceError = null;
             baseDataValidator.reset().anyOfNotNull(forceError);
@@ -43,8 +43,24 @@ public class JobDetailHistoryData {
     @SuppressWarnings("unused")
     private final String jobRunErrorLog;
 
+    @SuppressWarnings("unused")
+    private final Long criticalPathMillis;
+
+    @SuppressWarnings("unused")
+    private final Long totalItems;
+
+    @SuppressWarnings("unused")
+    private final Long processedItems;
+
+    @SuppressWarnings("unused")
+    private final Long failedItems;
+
+    @SuppressWarnings("unused")
+    private final Long retriedItems;
+
     public JobDetailHistoryData(final Long version, final Date jobRunStartTime, final Date jobRunEndTime, final String status,
-            final String jobRunErrorMessage, final String triggerType, final String jobRunErrorLog) {
+            final String jobRunErrorMessage, final String triggerType, final String jobRunErrorLog, final Long criticalPathMillis,
+            final Long totalItems, final Long processedItems, final Long failedItems, final Long retriedItems) {
         this.version = version;
         this.jobRunStartTime = jobRunStartTime;
         this.jobRunEndTime = jobRunEndTime;
@@ -52,5 +68,10 @@ public class JobDetailHistoryData {
         this.jobRunErrorMessage = jobRunErrorMessage;
         this.triggerType = triggerType;
         this.jobRunErrorLog = jobRunErrorLog;
+        this.criticalPathMillis = criticalPathMillis;
+        this.totalItems = totalItems;
+        this.processedItems = processedItems;
+        this.failedItems = failedItems;
+        this.retriedItems = retriedItems;
     }
 }
\ No newline at end of file
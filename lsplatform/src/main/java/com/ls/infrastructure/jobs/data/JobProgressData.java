@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.data;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Progress of the current run of a job or, when the job is not running, the
+ * counts recorded for its last run.
+ */
+public class JobProgressData {
+
+    @SuppressWarnings("unused")
+    private final boolean running;
+
+    @SuppressWarnings("unused")
+    private final Date startTime;
+
+    @SuppressWarnings("unused")
+    private final Long totalItems;
+
+    @SuppressWarnings("unused")
+    private final Long processedItems;
+
+    @SuppressWarnings("unused")
+    private final Long failedItems;
+
+    @SuppressWarnings("unused")
+    private final Long retriedItems;
+
+    @SuppressWarnings("unused")
+    private final BigDecimal itemsPerSecond;
+
+    @SuppressWarnings("unused")
+    private final Long estimatedSecondsRemaining;
+
+    @SuppressWarnings("unused")
+    private final String currentPartition;
+
+    public JobProgressData(final boolean running, final Date startTime, final Long totalItems, final Long processedItems,
+            final Long failedItems, final Long retriedItems, final BigDecimal itemsPerSecond, final Long estimatedSecondsRemaining,
+            final String currentPartition) {
+        this.running = running;
+        this.startTime = startTime;
+        this.totalItems = totalItems;
+        this.processedItems = processedItems;
+        this.failedItems = failedItems;
+        this.retriedItems = retriedItems;
+        this.itemsPerSecond = itemsPerSecond;
+        this.estimatedSecondsRemaining = estimatedSecondsRemaining;
+        this.currentPartition = currentPartition;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.data;
+
+/**
+ * An item (loan, savings account, ...) a job run failed to process.
+ */
+public class JobRunItemFailureData {
+
+    private final Long itemId;
+
+    private final String exceptionType;
+
+    private final String errorMessage;
+
+    public JobRunItemFailureData(final Long itemId, final String exceptionType, final String errorMessage) {
+        this.itemId = itemId;
+        this.exceptionType = exceptionType;
+        this.errorMessage = errorMessage;
+    }
+
+    public Long getItemId() {
+        return this.itemId;
+    }
+
+    public String getExceptionType() {
+        return this.exceptionType;
+    }
+
+    public String getErrorMessage() {
+        return this.errorMessage;
+    }
+}
@@ -22,8 +22,41 @@ public class SchedulerDetailData {
 
     @SuppressWarnings("unused")
     private final boolean active;
+    @SuppressWarnings("unused")
+    private final Integer queuedJobs;
+    @SuppressWarnings("unused")
+    private final Integer tenantQueuedJobs;
+    @SuppressWarnings("unused")
+    private final Integer runningJobs;
+    @SuppressWarnings("unused")
+    private final Integer tenantRunningJobs;
+    @SuppressWarnings("unused")
+    private final Integer maxConcurrentJobs;
+    @SuppressWarnings("unused")
+    private final Integer maxConcurrentJobsPerTenant;
+    @SuppressWarnings("unused")
+    private final Long averageWaitTimeMillis;
+    @SuppressWarnings("unused")
+    private final Long maxWaitTimeMillis;
+    @SuppressWarnings("unused")
+    private final Long longestCurrentWaitMillis;
 
     public SchedulerDetailData(final boolean active) {
+        this(active, null, null, null, null, null, null, null, null, null);
+    }
+
+    public SchedulerDetailData(final boolean active, final Integer queuedJobs, final Integer tenantQueuedJobs, final Integer runningJobs,
+            final Integer tenantRunningJobs, final Integer maxConcurrentJobs, final Integer maxConcurrentJobsPerTenant,
+            final Long averageWaitTimeMillis, final Long maxWaitTimeMillis, final Long longestCurrentWaitMillis) {
         this.active = active;
+        this.queuedJobs = queuedJobs;
+        this.tenantQueuedJobs = tenantQueuedJobs;
+        this.runningJobs = runningJobs;
+        this.tenantRunningJobs = tenantRunningJobs;
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        this.maxConcurrentJobsPerTenant = maxConcurrentJobsPerTenant;
+        this.averageWaitTimeMillis = averageWaitTimeMillis;
+        this.maxWaitTimeMillis = maxWaitTimeMillis;
+        this.longestCurrentWaitMillis = longestCurrentWaitMillis;
     }
 }
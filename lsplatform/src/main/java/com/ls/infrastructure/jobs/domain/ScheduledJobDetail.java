@@ -19,11 +19,19 @@
 package com.ls.infrastructure.jobs.domain;
 
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
+import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.JoinColumn;
+import javax.persistence.JoinTable;
+import javax.persistence.ManyToMany;
+import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -33,6 +41,9 @@ import com.ls.infrastructure.core.api.JsonCommand;
 import com.ls.infrastructure.jobs.api.SchedulerJobApiConstants;
 import com.ls.infrastructure.core.domain.AbstractPersistableCustom;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
 @Entity
 @Table(name = "job")
 public class ScheduledJobDetail extends AbstractPersistableCustom<Long> {
@@ -85,6 +96,19 @@ public class ScheduledJobDetail extends AbstractPersistableCustom<Long> {
     @Column(name = "is_misfired")
     private boolean triggerMisfired;
 
+    @OneToMany(mappedBy = "scheduledJobDetail", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    private Set<ScheduledJobParameter> jobParameters = new HashSet<>();
+
+    /**
+     * Jobs after which this job is run. A job with prerequisites is started
+     * as soon as the last of its active prerequisites completes; its cron
+     * trigger only runs it when the prerequisites have completed and the
+     * pipeline has not started it that day.
+     */
+    @ManyToMany(fetch = FetchType.EAGER)
+    @JoinTable(name = "job_prerequisite", joinColumns = @JoinColumn(name = "job_id"), inverseJoinColumns = @JoinColumn(name = "prerequisite_job_id"))
+    private Set<ScheduledJobDetail> prerequisites = new HashSet<>();
+
     protected ScheduledJobDetail() {
 
     }
@@ -169,6 +193,23 @@ public class ScheduledJobDetail extends AbstractPersistableCustom<Long> {
             this.activeSchedular = newValue;
         }
 
+        if (command.parameterExists(SchedulerJobApiConstants.jobParametersParamName)) {
+            final JsonObject parameters = command.parsedJson().getAsJsonObject()
+                    .getAsJsonObject(SchedulerJobApiConstants.jobParametersParamName);
+            final Map<String, Object> parameterChanges = new LinkedHashMap<>(parameters.size());
+            for (final ScheduledJobParameter jobParameter : this.jobParameters) {
+                final JsonElement newValueElement = parameters.get(jobParameter.getParameterName());
+                if (newValueElement != null && !newValueElement.getAsString().trim().equals(jobParameter.getParameterValue())) {
+                    final String newValue = newValueElement.getAsString().trim();
+                    parameterChanges.put(jobParameter.getParameterName(), newValue);
+                    jobParameter.updateParameterValue(newValue);
+                }
+            }
+            if (!parameterChanges.isEmpty()) {
+                actualChanges.put(SchedulerJobApiConstants.jobParametersParamName, parameterChanges);
+            }
+        }
+
         return actualChanges;
     }
 
@@ -180,4 +221,12 @@ public class ScheduledJobDetail extends AbstractPersistableCustom<Long> {
         this.triggerMisfired = triggerMisfired;
     }
 
+    public Set<ScheduledJobParameter> getJobParameters() {
+        return this.jobParameters;
+    }
+
+    public Set<ScheduledJobDetail> getPrerequisites() {
+        return this.prerequisites;
+    }
+
 }
@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import com.ls.infrastructure.core.domain.AbstractPersistableCustom;
+
+@Entity
+@Table(name = "job_parameters")
+public class ScheduledJobParameter extends AbstractPersistableCustom<Long> {
+
+    @ManyToOne
+    @JoinColumn(name = "job_id", nullable = false)
+    private ScheduledJobDetail scheduledJobDetail;
+
+    @Column(name = "parameter_name", nullable = false)
+    private String parameterName;
+
+    @Column(name = "parameter_value", nullable = false)
+    private String parameterValue;
+
+    protected ScheduledJobParameter() {
+
+    }
+
+    public String getParameterName() {
+        return this.parameterName;
+    }
+
+    public String getParameterValue() {
+        return this.parameterValue;
+    }
+
+    public void updateParameterValue(final String parameterValue) {
+        this.parameterValue = parameterValue;
+    }
+
+}
@@ -61,12 +61,29 @@ public class ScheduledJobRunHistory extends AbstractPersistableCustom<Long> {
     @Column(name = "error_log")
     private String errorLog;
 
+    @Column(name = "critical_path_millis")
+    private Long criticalPathMillis;
+
+    @Column(name = "total_items")
+    private Long totalItems;
+
+    @Column(name = "processed_items")
+    private Long processedItems;
+
+    @Column(name = "failed_items")
+    private Long failedItems;
+
+    @Column(name = "retried_items")
+    private Long retriedItems;
+
     public ScheduledJobRunHistory() {
 
     }
 
     public ScheduledJobRunHistory(final ScheduledJobDetail scheduledJobDetail, final Long version, final Date startTime,
-            final Date endTime, final String status, final String errorMessage, final String triggerType, final String errorLog) {
+            final Date endTime, final String status, final String errorMessage, final String triggerType, final String errorLog,
+            final Long criticalPathMillis, final Long totalItems, final Long processedItems, final Long failedItems,
+            final Long retriedItems) {
         this.scheduledJobDetail = scheduledJobDetail;
         this.version = version;
         this.startTime = startTime;
@@ -75,6 +92,11 @@ public class ScheduledJobRunHistory extends AbstractPersistableCustom<Long> {
         this.errorMessage = errorMessage;
         this.triggerType = triggerType;
         this.errorLog = errorLog;
+        this.criticalPathMillis = criticalPathMillis;
+        this.totalItems = totalItems;
+        this.processedItems = processedItems;
+        this.failedItems = failedItems;
+        this.retriedItems = retriedItems;
     }
 
 }
@@ -0,0 +1,283 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs a batch job over a keyset-paged sequence of entity ids on a bounded
+ * pool of worker threads.
+ * 
+ * Each partition (chunk) of ids is processed in one short transaction. If the
+ * chunk fails, it is rolled back and its items are replayed one transaction
+ * per item, so a single bad account only fails itself. The tenant and security
+ * context of the calling (Quartz) thread are propagated to the workers.
+ */
+@Component
+public class JobPartitionExecutor {
+
+    private final static Logger logger = LoggerFactory.getLogger(JobPartitionExecutor.class);
+
+    /**
+     * Supplies the next page of ids strictly greater than
+     * <code>lastId</code>, in ascending order. An empty list ends the run.
+     */
+    public static interface PartitionSource {
+
+        List<Long> nextPartition(Long lastId, int partitionSize);
+    }
+
+    /**
+     * Processes a single item inside the transaction opened by the executor.
+     */
+    public static interface ItemProcessor {
+
+        void process(Long itemId);
+    }
+
+    public static class PartitionedRunResult {
+
+        private final long processedCount;
+        private final SortedMap<Long, Throwable> failures;
+        private final boolean interrupted;
+
+        PartitionedRunResult(final long processedCount, final SortedMap<Long, Throwable> failures) {
+            this(processedCount, failures, false);
+        }
+
+        PartitionedRunResult(final long processedCount, final SortedMap<Long, Throwable> failures, final boolean interrupted) {
+            this.processedCount = processedCount;
+            this.failures = failures;
+            this.interrupted = interrupted;
+        }
+
+        public long getProcessedCount() {
+            return this.processedCount;
+        }
+
+        public SortedMap<Long, Throwable> getFailures() {
+            return this.failures;
+        }
+
+        /**
+         * Whether the run was interrupted before all of its items were
+         * processed.
+         */
+        public boolean isInterrupted() {
+            return this.interrupted;
+        }
+
+        /**
+         * Whether the run failed, either on some of its items or as a whole
+         * because it was interrupted.
+         */
+        public boolean hasFailures() {
+            return this.interrupted || !this.failures.isEmpty();
+        }
+    }
+
+    private final PlatformTransactionManager transactionManager;
+    private final JobProgressTracker jobProgressTracker;
+
+    @Autowired
+    public JobPartitionExecutor(final PlatformTransactionManager transactionManager, final JobProgressTracker jobProgressTracker) {
+        this.transactionManager = transactionManager;
+        this.jobProgressTracker = jobProgressTracker;
+    }
+
+    public PartitionedRunResult execute(final JobName jobName, final PartitionSource source, final ItemProcessor processor,
+            final int workerCount, final int partitionSize) {
+        final int workers = Math.max(1, workerCount);
+        final int size = Math.max(1, partitionSize);
+        final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final SecurityContext securityContext = SecurityContextHolder.getContext();
+        final SortedMap<Long, Throwable> failures = Collections.synchronizedSortedMap(new TreeMap<Long, Throwable>());
+        final AtomicLong processedCount = new AtomicLong();
+        final JobProgress progress = this.jobProgressTracker.progressOf(jobName);
+
+        // bounds the number of id pages held in memory at any point in time
+        final Semaphore inFlightPartitions = new Semaphore(workers * 2);
+        final ExecutorService executorService = Executors.newFixedThreadPool(workers, new JobWorkerThreadFactory(jobName.toString()));
+        final List<Future<?>> futures = new ArrayList<>();
+        boolean interrupted = false;
+        try {
+            Long lastId = 0L;
+            List<Long> partition = source.nextPartition(lastId, size);
+            while (partition != null && !partition.isEmpty()) {
+                lastId = partition.get(partition.size() - 1);
+                inFlightPartitions.acquire();
+                futures.add(executorService.submit(new PartitionTask(tenant, securityContext, partition, processor, failures,
+                        processedCount, progress, inFlightPartitions)));
+                partition = source.nextPartition(lastId, size);
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted = true;
+            logger.warn("Partitioned run of " + jobName + " was interrupted", e);
+        } catch (final Exception e) {
+            logger.error("Partitioned run of " + jobName + " failed", e);
+            throw new IllegalStateException(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+        return new PartitionedRunResult(processedCount.get(), new TreeMap<>(failures), interrupted);
+    }
+
+    /**
+     * Formats the failures of the run for the job execution exception
+     * message, including the interruption of the run if it was interrupted.
+     */
+    public static String buildErrorMessage(final String itemDescription, final PartitionedRunResult result) {
+        final String message = buildErrorMessage(itemDescription, result.getFailures());
+        if (!result.isInterrupted()) { return message; }
+        return "interrupted after " + result.getProcessedCount() + " items, the remaining items were not processed. " + message;
+    }
+
+    /**
+     * Formats the per item failures the same way the serial jobs always did,
+     * one sentence per failed item, for the job execution exception message.
+     */
+    public static String buildErrorMessage(final String itemDescription, final Map<Long, Throwable> failures) {
+        final StringBuffer sb = new StringBuffer();
+        for (final Map.Entry<Long, Throwable> failure : failures.entrySet()) {
+            Throwable realCause = failure.getValue();
+            if (realCause.getCause() != null) {
+                realCause = realCause.getCause();
+            }
+            sb.append("failed to " + itemDescription + " with id " + failure.getKey() + " with message " + realCause.getMessage());
+        }
+        return sb.toString();
+    }
+
+    private final class PartitionTask implements Runnable {
+
+        private final FineractPlatformTenant tenant;
+        private final SecurityContext securityContext;
+        private final List<Long> itemIds;
+        private final ItemProcessor processor;
+        private final SortedMap<Long, Throwable> failures;
+        private final AtomicLong processedCount;
+        private final JobProgress progress;
+        private final Semaphore inFlightPartitions;
+
+        PartitionTask(final FineractPlatformTenant tenant, final SecurityContext securityContext, final List<Long> itemIds,
+                final ItemProcessor processor, final SortedMap<Long, Throwable> failures, final AtomicLong processedCount,
+                final JobProgress progress, final Semaphore inFlightPartitions) {
+            this.tenant = tenant;
+            this.securityContext = securityContext;
+            this.itemIds = itemIds;
+            this.processor = processor;
+            this.failures = failures;
+            this.processedCount = processedCount;
+            this.progress = progress;
+            this.inFlightPartitions = inFlightPartitions;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalContextUtil.setTenant(this.tenant);
+            SecurityContextHolder.setContext(this.securityContext);
+            this.progress.startPartition("ids " + this.itemIds.get(0) + " to " + this.itemIds.get(this.itemIds.size() - 1));
+            try {
+                final TransactionTemplate transactionTemplate = new TransactionTemplate(JobPartitionExecutor.this.transactionManager);
+                try {
+                    transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                        @Override
+                        protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                            for (final Long itemId : PartitionTask.this.itemIds) {
+                                PartitionTask.this.processor.process(itemId);
+                            }
+                        }
+                    });
+                    this.processedCount.addAndGet(this.itemIds.size());
+                    this.progress.itemsProcessed(this.itemIds.size());
+                } catch (final RuntimeException chunkFailure) {
+                    // the whole chunk was rolled back, replay it item by item
+                    // so that only the offending items are reported
+                    for (final Long itemId : this.itemIds) {
+                        try {
+                            transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                                @Override
+                                protected void doInTransactionWithoutResult(@SuppressWarnings("unused") final TransactionStatus status) {
+                                    PartitionTask.this.processor.process(itemId);
+                                }
+                            });
+                            this.processedCount.incrementAndGet();
+                            this.progress.itemsProcessed(1);
+                        } catch (final RuntimeException itemFailure) {
+                            this.failures.put(itemId, itemFailure);
+                            this.progress.itemFailed(itemId, itemFailure);
+                        }
+                    }
+                }
+            } finally {
+                SecurityContextHolder.clearContext();
+                ThreadLocalContextUtil.clearTenant();
+                this.inFlightPartitions.release();
+            }
+        }
+    }
+
+    static final class JobWorkerThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        JobWorkerThreadFactory(final String jobName) {
+            this.namePrefix = jobName.replace(' ', '-') + "-worker-";
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, this.namePrefix + this.threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang.StringUtils;
+import com.ls.infrastructure.jobs.data.JobProgressData;
+import com.ls.infrastructure.jobs.data.JobRunItemFailureData;
+
+/**
+ * Progress of a single run of a batch job.
+ * 
+ * The job updates it as it goes, possibly from several worker threads, while
+ * the jobs API reads it. The total is optional: jobs walking a keyset paged
+ * list of ids do not know it up front, in which case no ETA is reported.
+ * Failed items are kept for the run history up to
+ * {@link #MAX_RECORDED_FAILURES}, after which they are only counted.
+ */
+public class JobProgress {
+
+    public static final int MAX_RECORDED_FAILURES = 1000;
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1000;
+
+    private final long startTimeMillis;
+    private final AtomicLong totalItems = new AtomicLong(-1);
+    private final AtomicLong processedItems = new AtomicLong();
+    private final AtomicLong failedItems = new AtomicLong();
+    private final AtomicLong retriedItems = new AtomicLong();
+    private final List<JobRunItemFailureData> failures = new ArrayList<>();
+    private volatile String currentPartition;
+
+    public JobProgress() {
+        this.startTimeMillis = System.currentTimeMillis();
+    }
+
+    public void updateTotalItems(final long totalItems) {
+        this.totalItems.set(totalItems);
+    }
+
+    public void startPartition(final String partition) {
+        this.currentPartition = partition;
+    }
+
+    public void itemsProcessed(final long count) {
+        this.processedItems.addAndGet(count);
+    }
+
+    /**
+     * Counts an attempt to process an item that will be made again later,
+     * typically because the item was locked.
+     */
+    public void itemRetried() {
+        this.retriedItems.incrementAndGet();
+    }
+
+    public void itemFailed(final Long itemId, final Throwable failure) {
+        Throwable realCause = failure;
+        if (failure.getCause() != null) {
+            realCause = failure.getCause();
+        }
+        itemFailed(itemId, realCause, realCause.getMessage());
+    }
+
+    public void itemFailed(final Long itemId, final Throwable failure, final String errorMessage) {
+        this.failedItems.incrementAndGet();
+        synchronized (this.failures) {
+            if (this.failures.size() < MAX_RECORDED_FAILURES) {
+                this.failures.add(new JobRunItemFailureData(itemId, failure.getClass().getName(), StringUtils.abbreviate(errorMessage,
+                        MAX_ERROR_MESSAGE_LENGTH)));
+            }
+        }
+    }
+
+    /**
+     * Whether the job reported anything at all; jobs that are not
+     * instrumented leave the counts of their run history empty.
+     */
+    public boolean isReported() {
+        return this.totalItems.get() >= 0 || this.processedItems.get() > 0 || this.failedItems.get() > 0
+                || this.currentPartition != null;
+    }
+
+    public Long getTotalItems() {
+        final long total = this.totalItems.get();
+        return total < 0 ? null : total;
+    }
+
+    public long getProcessedItems() {
+        return this.processedItems.get();
+    }
+
+    public long getFailedItems() {
+        return this.failedItems.get();
+    }
+
+    public long getRetriedItems() {
+        return this.retriedItems.get();
+    }
+
+    public List<JobRunItemFailureData> getFailures() {
+        synchronized (this.failures) {
+            return new ArrayList<>(this.failures);
+        }
+    }
+
+    public JobProgressData toData() {
+        final Long total = getTotalItems();
+        final long done = this.processedItems.get() + this.failedItems.get();
+        final long elapsedMillis = System.currentTimeMillis() - this.startTimeMillis;
+        final BigDecimal itemsPerSecond = itemsPerSecond(done, elapsedMillis);
+        Long estimatedSecondsRemaining = null;
+        if (total != null && itemsPerSecond.signum() > 0) {
+            estimatedSecondsRemaining = BigDecimal.valueOf(Math.max(0, total - done)).divide(itemsPerSecond, 0, RoundingMode.UP)
+                    .longValue();
+        }
+        return new JobProgressData(true, new Date(this.startTimeMillis), total, this.processedItems.get(), this.failedItems.get(),
+                this.retriedItems.get(), itemsPerSecond, estimatedSecondsRemaining, this.currentPartition);
+    }
+
+    public static BigDecimal itemsPerSecond(final long items, final long elapsedMillis) {
+        if (elapsedMillis <= 0) { return BigDecimal.ZERO; }
+        return BigDecimal.valueOf(items * 1000).divide(BigDecimal.valueOf(elapsedMillis), 2, RoundingMode.HALF_UP);
+    }
+}
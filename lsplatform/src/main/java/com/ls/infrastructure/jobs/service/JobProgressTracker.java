@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link JobProgress} of the jobs running right now, per tenant.
+ * 
+ * {@link SchedulerJobListener} starts and finishes the progress of every run;
+ * in between the <code>@CronTarget</code> method looks it up with
+ * {@link #progressOf(JobName)} and the jobs API reads it.
+ */
+@Component
+public class JobProgressTracker {
+
+    private final ConcurrentMap<String, JobProgress> runningJobs = new ConcurrentHashMap<>();
+
+    public JobProgress start(final String tenantIdentifier, final String jobName) {
+        final JobProgress progress = new JobProgress();
+        this.runningJobs.put(key(tenantIdentifier, jobName), progress);
+        return progress;
+    }
+
+    public JobProgress finish(final String tenantIdentifier, final String jobName) {
+        final JobProgress progress = this.runningJobs.remove(key(tenantIdentifier, jobName));
+        return progress == null ? new JobProgress() : progress;
+    }
+
+    /**
+     * Returns the progress of the given job for the current tenant. When the
+     * job method is called outside of the scheduler an untracked progress is
+     * returned, so callers never need to check.
+     */
+    public JobProgress progressOf(final JobName jobName) {
+        final JobProgress progress = retrieveProgress(ThreadLocalContextUtil.getTenant().getTenantIdentifier(), jobName.toString());
+        return progress == null ? new JobProgress() : progress;
+    }
+
+    /**
+     * Returns the progress of the given job, or null if it is not running.
+     */
+    public JobProgress retrieveProgress(final String tenantIdentifier, final String jobName) {
+        return this.runningJobs.get(key(tenantIdentifier, jobName));
+    }
+
+    private static String key(final String tenantIdentifier, final String jobName) {
+        return tenantIdentifier + SchedulerServiceConstants.JOB_KEY_SEPERATOR + jobName;
+    }
+}
@@ -20,10 +20,10 @@ package com.ls.infrastructure.jobs.service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
 
@@ -38,6 +38,8 @@ import com.ls.infrastructure.jobs.exception.JobNotFoundException;
 import com.ls.infrastructure.security.service.TenantDetailsService;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
 import org.quartz.JobListener;
 import org.quartz.Scheduler;
@@ -77,8 +79,14 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
     private SchedulerJobListener schedulerJobListener;
     private SchedulerStopListener schedulerStopListener;
     private SchedulerTriggerListener globalSchedulerTriggerListener;
+    private SchedulerJobRunnerReadService schedulerJobRunnerReadService;
+    private final JobPipelineListener jobPipelineListener = new JobPipelineListener();
 
-    private final HashMap<String, Scheduler> schedulers = new HashMap<>(4);
+    /**
+     * Accessed from request threads of several tenants as well as from the
+     * Quartz threads stopping temporary schedulers.
+     */
+    private final ConcurrentHashMap<String, Scheduler> schedulers = new ConcurrentHashMap<>(4);
 
     @Autowired
     public void setApplicationContext(ApplicationContext applicationContext) {
@@ -110,6 +118,11 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
         this.globalSchedulerTriggerListener = globalTriggerListener;
     }
 
+    @Autowired
+    public void setSchedulerJobRunnerReadService(SchedulerJobRunnerReadService schedulerJobRunnerReadService) {
+        this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
+    }
+
     @PostConstruct
     public void loadAllJobs() {
         final List<FineractPlatformTenant> allTenants = this.tenantDetailsService.findAllTenants();
@@ -143,8 +156,9 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
             final Scheduler scheduler = this.schedulers.get(schedulerName);
             if (scheduler == null || !scheduler.checkExists(jobKey)) {
                 final JobDetail jobDetail = createJobDetail(scheduledJobDetail);
-                final String tempSchedulerName = "temp" + scheduledJobDetail.getId();
-                final Scheduler tempScheduler = createScheduler(tempSchedulerName, 1, schedulerJobListener, schedulerStopListener);
+                final String tempSchedulerName = "temp" + ThreadLocalContextUtil.getTenant().getId() + "_" + scheduledJobDetail.getId();
+                final Scheduler tempScheduler = createScheduler(tempSchedulerName, 1, schedulerJobListener, this.jobPipelineListener,
+                        schedulerStopListener);
                 tempScheduler.addJob(jobDetail, true);
                 jobDataMap.put(SchedulerServiceConstants.SCHEDULER_NAME, tempSchedulerName);
                 this.schedulers.put(tempSchedulerName, tempScheduler);
@@ -262,8 +276,10 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
         }
         try {
             final JobDetail jobDetail = createJobDetail(scheduledJobDetails);
-            final Trigger trigger = createTrigger(scheduledJobDetails, jobDetail);
             final Scheduler scheduler = getScheduler(scheduledJobDetails);
+            // a job with prerequisites keeps its cron trigger as a fallback,
+            // a fire is skipped unless the pipeline missed the run
+            final Trigger trigger = createTrigger(scheduledJobDetails, jobDetail);
             scheduler.scheduleJob(jobDetail, trigger);
             scheduledJobDetails.updateJobKey(getJobKeyAsString(jobDetail.getKey()));
             scheduledJobDetails.updateNextRunTime(trigger.getNextFireTime());
@@ -288,7 +304,7 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
         }
     }
 
-    private Scheduler getScheduler(final ScheduledJobDetail scheduledJobDetail) throws Exception {
+    private synchronized Scheduler getScheduler(final ScheduledJobDetail scheduledJobDetail) throws Exception {
         final String schedulername = getSchedulerName(scheduledJobDetail);
         Scheduler scheduler = this.schedulers.get(schedulername);
         if (scheduler == null) {
@@ -296,7 +312,7 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
             if (scheduledJobDetail.getSchedulerGroup() > 0) {
                 noOfThreads = SchedulerServiceConstants.GROUP_THREAD_COUNT;
             }
-            scheduler = createScheduler(schedulername, noOfThreads, schedulerJobListener);
+            scheduler = createScheduler(schedulername, noOfThreads, schedulerJobListener, this.jobPipelineListener);
             this.schedulers.put(schedulername, scheduler);
         }
         return scheduler;
@@ -418,4 +434,46 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
         final JobKey JobKey = new JobKey(keyParams[0], keyParams[1]);
         return JobKey;
     }
+    /**
+     * Starts the jobs depending on a job once it completes successfully and
+     * all their other prerequisites have completed as well. Independent
+     * dependents are triggered together and so run in parallel.
+     */
+    private final class JobPipelineListener implements JobListener {
+
+        @Override
+        public String getName() {
+            return "Job pipeline Listener";
+        }
+
+        @Override
+        public void jobToBeExecuted(@SuppressWarnings("unused") final JobExecutionContext context) {
+
+        }
+
+        @Override
+        public void jobExecutionVetoed(@SuppressWarnings("unused") final JobExecutionContext context) {
+
+        }
+
+        @Override
+        public void jobWasExecuted(final JobExecutionContext context, final JobExecutionException jobException) {
+            if (jobException != null) { return; }
+            final ScheduledJobDetail completedJob = schedularWritePlatformService.findByJobKey(getJobKeyAsString(context.getJobDetail()
+                    .getKey()));
+            if (completedJob == null) { return; }
+            final List<Long> dependentJobIds = schedulerJobRunnerReadService.retrieveDependentJobIdsReadyToRun(completedJob.getId());
+            for (final Long dependentJobId : dependentJobIds) {
+                final ScheduledJobDetail dependentJob = schedularWritePlatformService.findByJobId(dependentJobId);
+                logger.info(ThreadLocalContextUtil.getTenant().getName() + ": " + completedJob.getJobName() + " completed, starting "
+                        + dependentJob.getJobName());
+                try {
+                    executeJob(dependentJob, SchedulerServiceConstants.TRIGGER_TYPE_PIPELINE);
+                } catch (final PlatformInternalServerException e) {
+                    logger.error("Could not start job " + dependentJob.getJobName() + " of the pipeline", e);
+                }
+            }
+        }
+    }
+
 }
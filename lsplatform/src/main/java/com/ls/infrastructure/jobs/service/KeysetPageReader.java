@@ -0,0 +1,180 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Iterates over the rows of a query that may return more rows than should be
+ * held in memory, reading them one page at a time.
+ * 
+ * Pages are read with keyset pagination: every page after the first one
+ * continues strictly after the key of the last row read, instead of using an
+ * offset. Later pages therefore cost the same as the first one, and rows
+ * updated by the caller while it iterates do not shift the pages. Each page
+ * is fetched with the page size as JDBC fetch size, and no cursor stays open
+ * between pages, so the caller is free to use the database while iterating.
+ * 
+ * The query must select the key columns under the given aliases and must
+ * have a <code>where</code> clause; the keyset condition, the
+ * <code>order by</code> and the <code>limit</code> are appended to it. The
+ * keys together must identify a row uniquely.
+ */
+public class KeysetPageReader<T> implements Iterable<T> {
+
+    /**
+     * A column of the key, in the order rows are to be read.
+     */
+    public static final class Key {
+
+        private final String expression;
+        private final String alias;
+        private final boolean descending;
+
+        private Key(final String expression, final String alias, final boolean descending) {
+            this.expression = expression;
+            this.alias = alias;
+            this.descending = descending;
+        }
+
+        public static Key ascending(final String expression, final String alias) {
+            return new Key(expression, alias, false);
+        }
+
+        public static Key descending(final String expression, final String alias) {
+            return new Key(expression, alias, true);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+    private final Object[] parameters;
+    private final RowMapper<T> rowMapper;
+    private final int pageSize;
+    private final Key[] keys;
+
+    public KeysetPageReader(final DataSource dataSource, final String sql, final Object[] parameters, final RowMapper<T> rowMapper,
+            final int pageSize, final Key... keys) {
+        if (keys.length == 0) { throw new IllegalArgumentException("At least one key column is required"); }
+        this.pageSize = Math.max(1, pageSize);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(this.pageSize);
+        this.sql = sql;
+        this.parameters = parameters == null ? new Object[0] : parameters;
+        this.rowMapper = rowMapper;
+        this.keys = keys;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new PageIterator();
+    }
+
+    private List<KeyedRow<T>> readPage(final Object[] lastKey) {
+        final StringBuilder sqlBuilder = new StringBuilder(this.sql.length() + 200);
+        sqlBuilder.append(this.sql);
+        final List<Object> pageParameters = new ArrayList<>(Arrays.asList(this.parameters));
+        if (lastKey != null) {
+            sqlBuilder.append(" and (");
+            for (int i = 0; i < this.keys.length; i++) {
+                if (i > 0) {
+                    sqlBuilder.append(" or ");
+                }
+                sqlBuilder.append('(');
+                for (int j = 0; j < i; j++) {
+                    sqlBuilder.append(this.keys[j].expression).append(" = ? and ");
+                    pageParameters.add(lastKey[j]);
+                }
+                sqlBuilder.append(this.keys[i].expression).append(this.keys[i].descending ? " < ?" : " > ?").append(')');
+                pageParameters.add(lastKey[i]);
+            }
+            sqlBuilder.append(')');
+        }
+        sqlBuilder.append(" order by ");
+        for (int i = 0; i < this.keys.length; i++) {
+            if (i > 0) {
+                sqlBuilder.append(", ");
+            }
+            sqlBuilder.append(this.keys[i].expression).append(this.keys[i].descending ? " desc" : " asc");
+        }
+        sqlBuilder.append(" limit ").append(this.pageSize);
+
+        return this.jdbcTemplate.query(sqlBuilder.toString(), new RowMapper<KeyedRow<T>>() {
+
+            @Override
+            public KeyedRow<T> mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+                final Object[] key = new Object[KeysetPageReader.this.keys.length];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = rs.getObject(KeysetPageReader.this.keys[i].alias);
+                }
+                return new KeyedRow<>(KeysetPageReader.this.rowMapper.mapRow(rs, rowNum), key);
+            }
+        }, pageParameters.toArray());
+    }
+
+    private static final class KeyedRow<T> {
+
+        private final T row;
+        private final Object[] key;
+
+        KeyedRow(final T row, final Object[] key) {
+            this.row = row;
+            this.key = key;
+        }
+    }
+
+    private final class PageIterator implements Iterator<T> {
+
+        private List<KeyedRow<T>> page;
+        private int position;
+
+        @Override
+        public boolean hasNext() {
+            if (this.page == null) {
+                this.page = readPage(null);
+            } else if (this.position == this.page.size() && this.page.size() == KeysetPageReader.this.pageSize) {
+                this.page = readPage(this.page.get(this.page.size() - 1).key);
+                this.position = 0;
+            }
+            return this.position < this.page.size();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) { throw new NoSuchElementException(); }
+            return this.page.get(this.position++).row;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.ItemProcessor;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.PartitionedRunResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a batch job item by item on a bounded pool of worker threads, for
+ * jobs whose items open their own transaction.
+ * 
+ * An item failing on a lock (lock wait timeout, deadlock or optimistic lock
+ * failure) is not retried in place: it is put back on a delay queue with an
+ * exponential backoff and the worker moves on to the next item. It fails for
+ * good once the tenant's <code>maxRetriesOnDeadlock</code> is used up. Items
+ * processed, retried and failed are reported to the {@link JobProgress} of
+ * the job.
+ */
+@Component
+public class RetryingJobExecutor {
+
+    private final static Logger logger = LoggerFactory.getLogger(RetryingJobExecutor.class);
+
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+
+    private final JobProgressTracker jobProgressTracker;
+    private final Random random = new Random();
+
+    @Autowired
+    public RetryingJobExecutor(final JobProgressTracker jobProgressTracker) {
+        this.jobProgressTracker = jobProgressTracker;
+    }
+
+    public PartitionedRunResult execute(final JobName jobName, final Collection<Long> itemIds, final ItemProcessor processor,
+            final int workerCount) {
+        final int workers = Math.max(1, workerCount);
+        final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final SecurityContext securityContext = SecurityContextHolder.getContext();
+        final int maxRetries = tenant.getConnection().getMaxRetriesOnDeadlock();
+        final long maxBackoffMillis = TimeUnit.SECONDS.toMillis(1 + tenant.getConnection().getMaxIntervalBetweenRetries());
+        final JobProgress progress = this.jobProgressTracker.progressOf(jobName);
+        progress.updateTotalItems(itemIds.size());
+
+        final SortedMap<Long, Throwable> failures = Collections.synchronizedSortedMap(new TreeMap<Long, Throwable>());
+        final AtomicLong processedCount = new AtomicLong();
+        final AtomicLong retryCount = new AtomicLong();
+        final CountDownLatch completedItems = new CountDownLatch(itemIds.size());
+        // bounds the number of items queued or waiting for a retry
+        final Semaphore inFlightItems = new Semaphore(workers * 4);
+        final ScheduledThreadPoolExecutor executorService = new ScheduledThreadPoolExecutor(workers,
+                new JobPartitionExecutor.JobWorkerThreadFactory(jobName.toString()));
+        final long startTimeMillis = System.currentTimeMillis();
+        boolean interrupted = false;
+        try {
+            for (final Long itemId : itemIds) {
+                inFlightItems.acquire();
+                executorService.execute(new ItemTask(executorService, tenant, securityContext, itemId, processor, maxRetries,
+                        maxBackoffMillis, progress, failures, processedCount, retryCount, completedItems, inFlightItems));
+            }
+            completedItems.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted = true;
+            logger.warn("Run of " + jobName + " was interrupted", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+        final long elapsedMillis = System.currentTimeMillis() - startTimeMillis;
+        logger.info(tenant.getName() + ": " + jobName + " processed " + processedCount.get() + " of " + itemIds.size() + " items in "
+                + elapsedMillis + " ms (" + JobProgress.itemsPerSecond(processedCount.get(), elapsedMillis) + " items/s) with "
+                + retryCount.get() + " retries and " + failures.size() + " failures");
+        return new PartitionedRunResult(processedCount.get(), new TreeMap<>(failures), interrupted);
+    }
+
+    private long backoffMillis(final int attempt, final long maxBackoffMillis) {
+        final long backoff = INITIAL_BACKOFF_MILLIS << Math.min(attempt - 1, 16);
+        // jitter so that items that collided once do not collide again
+        return Math.min(backoff, maxBackoffMillis) + this.random.nextInt((int) INITIAL_BACKOFF_MILLIS);
+    }
+
+    private final class ItemTask implements Runnable {
+
+        private final ScheduledExecutorService executorService;
+        private final FineractPlatformTenant tenant;
+        private final SecurityContext securityContext;
+        private final Long itemId;
+        private final ItemProcessor processor;
+        private final int maxRetries;
+        private final long maxBackoffMillis;
+        private final JobProgress progress;
+        private final SortedMap<Long, Throwable> failures;
+        private final AtomicLong processedCount;
+        private final AtomicLong retryCount;
+        private final CountDownLatch completedItems;
+        private final Semaphore inFlightItems;
+        private int attempts;
+
+        ItemTask(final ScheduledExecutorService executorService, final FineractPlatformTenant tenant,
+                final SecurityContext securityContext, final Long itemId, final ItemProcessor processor, final int maxRetries,
+                final long maxBackoffMillis, final JobProgress progress, final SortedMap<Long, Throwable> failures,
+                final AtomicLong processedCount, final AtomicLong retryCount, final CountDownLatch completedItems,
+                final Semaphore inFlightItems) {
+            this.executorService = executorService;
+            this.tenant = tenant;
+            this.securityContext = securityContext;
+            this.itemId = itemId;
+            this.processor = processor;
+            this.maxRetries = maxRetries;
+            this.maxBackoffMillis = maxBackoffMillis;
+            this.progress = progress;
+            this.failures = failures;
+            this.processedCount = processedCount;
+            this.retryCount = retryCount;
+            this.completedItems = completedItems;
+            this.inFlightItems = inFlightItems;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalContextUtil.setTenant(this.tenant);
+            SecurityContextHolder.setContext(this.securityContext);
+            boolean completed = true;
+            try {
+                this.attempts++;
+                this.processor.process(this.itemId);
+                this.processedCount.incrementAndGet();
+                this.progress.itemsProcessed(1);
+            } catch (final ConcurrencyFailureException lockFailure) {
+                if (this.attempts <= this.maxRetries && !this.executorService.isShutdown()) {
+                    completed = false;
+                    this.retryCount.incrementAndGet();
+                    this.progress.itemRetried();
+                    this.executorService.schedule(this, backoffMillis(this.attempts, this.maxBackoffMillis), TimeUnit.MILLISECONDS);
+                } else {
+                    logger.warn(this.tenant.getName() + ": item " + this.itemId + " still locked after " + this.attempts + " attempts");
+                    fail(lockFailure);
+                }
+            } catch (final RuntimeException e) {
+                fail(e);
+            } finally {
+                SecurityContextHolder.clearContext();
+                ThreadLocalContextUtil.clearTenant();
+                if (completed) {
+                    this.inFlightItems.release();
+                    this.completedItems.countDown();
+                }
+            }
+        }
+
+        private void fail(final RuntimeException failure) {
+            this.failures.put(this.itemId, failure);
+            this.progress.itemFailed(this.itemId, failure);
+        }
+    }
+}
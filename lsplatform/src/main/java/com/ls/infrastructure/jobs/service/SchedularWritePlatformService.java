@@ -22,6 +22,7 @@ import java.util.List;
 
 import com.ls.infrastructure.core.api.JsonCommand;
 import com.ls.infrastructure.core.data.CommandProcessingResult;
+import com.ls.infrastructure.jobs.data.JobRunItemFailureData;
 import com.ls.infrastructure.jobs.domain.ScheduledJobDetail;
 import com.ls.infrastructure.jobs.domain.ScheduledJobRunHistory;
 import com.ls.infrastructure.jobs.domain.SchedulerDetail;
@@ -36,6 +37,12 @@ public interface SchedularWritePlatformService {
 
     public void saveOrUpdate(ScheduledJobDetail scheduledJobDetails, ScheduledJobRunHistory scheduledJobRunHistory);
 
+    /**
+     * Saves the run history along with the items the run failed to process.
+     */
+    public void saveOrUpdate(ScheduledJobDetail scheduledJobDetails, ScheduledJobRunHistory scheduledJobRunHistory,
+            List<JobRunItemFailureData> failures);
+
     public Long fetchMaxVersionBy(String triggerKey);
 
     public ScheduledJobDetail findByJobId(Long jobId);
@@ -18,6 +18,9 @@
  */
 package com.ls.infrastructure.jobs.service;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -25,7 +28,10 @@ import java.util.Map;
 import com.ls.infrastructure.core.api.JsonCommand;
 import com.ls.infrastructure.core.data.CommandProcessingResult;
 import com.ls.infrastructure.core.data.CommandProcessingResultBuilder;
+import com.ls.infrastructure.core.service.DateUtils;
+import com.ls.infrastructure.core.service.RoutingDataSource;
 import com.ls.infrastructure.jobs.data.JobDetailDataValidator;
+import com.ls.infrastructure.jobs.data.JobRunItemFailureData;
 import com.ls.infrastructure.jobs.domain.ScheduledJobDetail;
 import com.ls.infrastructure.jobs.domain.ScheduledJobDetailRepository;
 import com.ls.infrastructure.jobs.domain.ScheduledJobRunHistory;
@@ -34,12 +40,17 @@ import com.ls.infrastructure.jobs.domain.SchedulerDetail;
 import com.ls.infrastructure.jobs.domain.SchedulerDetailRepository;
 import com.ls.infrastructure.jobs.exception.JobNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class SchedularWritePlatformServiceJpaRepositoryImpl implements SchedularWritePlatformService {
 
+    private static final String INSERT_RUN_FAILURE_SQL = "insert into job_run_failure (job_run_history_id, item_id, exception_type, "
+            + "error_message) values (?, ?, ?, ?)";
+
     private final ScheduledJobDetailRepository scheduledJobDetailsRepository;
 
     private final ScheduledJobRunHistoryRepository scheduledJobRunHistoryRepository;
@@ -48,14 +59,17 @@ public class SchedularWritePlatformServiceJpaRepositoryImpl implements Schedular
 
     private final JobDetailDataValidator dataValidator;
 
+    private final JdbcTemplate jdbcTemplate;
+
     @Autowired
     public SchedularWritePlatformServiceJpaRepositoryImpl(final ScheduledJobDetailRepository scheduledJobDetailsRepository,
             final ScheduledJobRunHistoryRepository scheduledJobRunHistoryRepository, final JobDetailDataValidator dataValidator,
-            final SchedulerDetailRepository schedulerDetailRepository) {
+            final SchedulerDetailRepository schedulerDetailRepository, final RoutingDataSource dataSource) {
         this.scheduledJobDetailsRepository = scheduledJobDetailsRepository;
         this.scheduledJobRunHistoryRepository = scheduledJobRunHistoryRepository;
         this.schedulerDetailRepository = schedulerDetailRepository;
         this.dataValidator = dataValidator;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
     }
 
     @Override
@@ -81,6 +95,36 @@ public class SchedularWritePlatformServiceJpaRepositoryImpl implements Schedular
         this.scheduledJobRunHistoryRepository.save(scheduledJobRunHistory);
     }
 
+    @Transactional
+    @Override
+    public void saveOrUpdate(final ScheduledJobDetail scheduledJobDetails, final ScheduledJobRunHistory scheduledJobRunHistory,
+            final List<JobRunItemFailureData> failures) {
+        this.scheduledJobDetailsRepository.save(scheduledJobDetails);
+        final ScheduledJobRunHistory savedRunHistory = this.scheduledJobRunHistoryRepository.saveAndFlush(scheduledJobRunHistory);
+        if (failures.isEmpty()) { return; }
+        final Long runHistoryId = savedRunHistory.getId();
+        this.jdbcTemplate.batchUpdate(INSERT_RUN_FAILURE_SQL, new BatchPreparedStatementSetter() {
+
+            @Override
+            public void setValues(final PreparedStatement ps, final int i) throws SQLException {
+                final JobRunItemFailureData failure = failures.get(i);
+                ps.setLong(1, runHistoryId);
+                if (failure.getItemId() == null) {
+                    ps.setNull(2, Types.BIGINT);
+                } else {
+                    ps.setLong(2, failure.getItemId());
+                }
+                ps.setString(3, failure.getExceptionType());
+                ps.setString(4, failure.getErrorMessage());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return failures.size();
+            }
+        });
+    }
+
     @Override
     public Long fetchMaxVersionBy(final String jobKey) {
         Long version = 0L;
@@ -139,6 +183,12 @@ public class SchedularWritePlatformServiceJpaRepositoryImpl implements Schedular
                 || (triggerType.equals(SchedulerServiceConstants.TRIGGER_TYPE_CRON) && (scheduledJobDetail.getNextRunTime().after(new Date())))) {
             isStopExecution = true;
         }
+        // the pipeline starts a job with prerequisites, its own cron trigger
+        // only catches up on a run the pipeline did not start
+        if (!isStopExecution && triggerType.equals(SchedulerServiceConstants.TRIGGER_TYPE_CRON)
+                && !scheduledJobDetail.getPrerequisites().isEmpty() && !isScheduledRunOfDependentJobDue(scheduledJobDetail.getId())) {
+            isStopExecution = true;
+        }
         final SchedulerDetail schedulerDetail = retriveSchedulerDetail();
         if (triggerType.equals(SchedulerServiceConstants.TRIGGER_TYPE_CRON) && schedulerDetail.isSuspended()) {
             scheduledJobDetail.updateTriggerMisfired(true);
@@ -150,4 +200,27 @@ public class SchedularWritePlatformServiceJpaRepositoryImpl implements Schedular
         return isStopExecution;
     }
 
+    /**
+     * A scheduled run of a job with prerequisites is due once its active
+     * prerequisites have all completed successfully since its own last run,
+     * none of them is running and the pipeline has not started the job today
+     * already.
+     */
+    private boolean isScheduledRunOfDependentJobDue(final Long jobId) {
+        final StringBuilder sqlBuilder = new StringBuilder(800);
+        sqlBuilder.append("select count(*) from job dependent where dependent.id = ? ");
+        sqlBuilder.append(" and not exists (select 1 from job_run_history pipelineRun where pipelineRun.job_id = dependent.id ");
+        sqlBuilder.append(" and pipelineRun.trigger_type = ? and pipelineRun.start_time >= ?) ");
+        sqlBuilder.append(" and not exists (select 1 from job_prerequisite jp ");
+        sqlBuilder.append(" join job prerequisite on prerequisite.id = jp.prerequisite_job_id ");
+        sqlBuilder.append(" where jp.job_id = dependent.id and prerequisite.is_active = 1 ");
+        sqlBuilder.append(" and (prerequisite.currently_running = 1 or not exists ");
+        sqlBuilder.append(" (select 1 from job_run_history runHistory where runHistory.job_id = prerequisite.id ");
+        sqlBuilder.append(" and runHistory.`status` = ? and (dependent.previous_run_start_time is null ");
+        sqlBuilder.append(" or runHistory.start_time > dependent.previous_run_start_time))))");
+        final Integer dueCount = this.jdbcTemplate.queryForObject(sqlBuilder.toString(), Integer.class, jobId,
+                SchedulerServiceConstants.TRIGGER_TYPE_PIPELINE, DateUtils.getDateOfTenant(), SchedulerServiceConstants.STATUS_SUCCESS);
+        return dueCount != null && dueCount > 0;
+    }
+
 }
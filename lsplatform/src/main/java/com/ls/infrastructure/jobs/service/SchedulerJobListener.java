@@ -55,12 +55,22 @@ public class SchedulerJobListener implements JobListener {
     private final AppUserRepositoryWrapper userRepository ;
     
     private final GrantedAuthoritiesMapper authoritiesMapper = new NullAuthoritiesMapper();
+
+    private final TenantJobExecutionGate jobExecutionGate;
+
+    private final SchedulerJobRunnerReadService schedulerJobRunnerReadService;
+
+    private final JobProgressTracker jobProgressTracker;
     
     @Autowired
     public SchedulerJobListener(final SchedularWritePlatformService schedularService,
-            final AppUserRepositoryWrapper userRepository) {
+            final AppUserRepositoryWrapper userRepository, final TenantJobExecutionGate jobExecutionGate,
+            final SchedulerJobRunnerReadService schedulerJobRunnerReadService, final JobProgressTracker jobProgressTracker) {
         this.schedularService = schedularService;
         this.userRepository = userRepository ;
+        this.jobExecutionGate = jobExecutionGate;
+        this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
+        this.jobProgressTracker = jobProgressTracker;
     }
 
     @Override
@@ -69,7 +79,11 @@ public class SchedulerJobListener implements JobListener {
     }
 
     @Override
-    public void jobToBeExecuted(@SuppressWarnings("unused") final JobExecutionContext context) {
+    public void jobToBeExecuted(final JobExecutionContext context) {
+        // the execution slot was taken by SchedulerTriggerListener
+        final String tenantIdentifier = context.getMergedJobDataMap().getString(SchedulerServiceConstants.TENANT_IDENTIFIER);
+        final ScheduledJobDetail scheduledJobDetails = this.schedularService.findByJobKey(jobKey(context));
+        this.jobProgressTracker.start(tenantIdentifier, scheduledJobDetails.getJobName());
         AppUser user = this.userRepository.fetchSystemUser();
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(user, user.getPassword(),
                 authoritiesMapper.mapAuthorities(user.getAuthorities()));
@@ -83,10 +97,12 @@ public class SchedulerJobListener implements JobListener {
 
     @Override
     public void jobWasExecuted(final JobExecutionContext context, final JobExecutionException jobException) {
+        this.jobExecutionGate.release((TenantJobExecutionGate.Ticket) context.get(SchedulerServiceConstants.EXECUTION_TICKET));
         final Trigger trigger = context.getTrigger();
-        final JobKey key = context.getJobDetail().getKey();
-        final String jobKey = key.getName() + SchedulerServiceConstants.JOB_KEY_SEPERATOR + key.getGroup();
+        final String jobKey = jobKey(context);
         final ScheduledJobDetail scheduledJobDetails = this.schedularService.findByJobKey(jobKey);
+        final JobProgress progress = this.jobProgressTracker.finish(
+                context.getMergedJobDataMap().getString(SchedulerServiceConstants.TENANT_IDENTIFIER), scheduledJobDetails.getJobName());
         final Long version = this.schedularService.fetchMaxVersionBy(jobKey) + 1;
         String status = SchedulerServiceConstants.STATUS_SUCCESS;
         String errorMessage = null;
@@ -119,12 +135,35 @@ public class SchedulerJobListener implements JobListener {
         scheduledJobDetails.updatePreviousRunStartTime(context.getFireTime());
         scheduledJobDetails.updateCurrentlyRunningStatus(false);
 
+        // time spent running along the longest chain of prerequisites ending
+        // with this run, waiting between the stages not included
+        final Date endTime = new Date();
+        final long criticalPathMillis = endTime.getTime() - context.getFireTime().getTime()
+                + this.schedulerJobRunnerReadService.retrievePrerequisitesCriticalPathMillis(scheduledJobDetails.getId());
+
+        Long totalItems = null;
+        Long processedItems = null;
+        Long failedItems = null;
+        Long retriedItems = null;
+        if (progress.isReported()) {
+            totalItems = progress.getTotalItems();
+            processedItems = progress.getProcessedItems();
+            failedItems = progress.getFailedItems();
+            retriedItems = progress.getRetriedItems();
+        }
+
         final ScheduledJobRunHistory runHistory = new ScheduledJobRunHistory(scheduledJobDetails, version, context.getFireTime(),
-                new Date(), status, errorMessage, triggerType, errorLog);
+                endTime, status, errorMessage, triggerType, errorLog, criticalPathMillis, totalItems, processedItems, failedItems,
+                retriedItems);
         // scheduledJobDetails.addRunHistory(runHistory);
 
-        this.schedularService.saveOrUpdate(scheduledJobDetails, runHistory);
+        this.schedularService.saveOrUpdate(scheduledJobDetails, runHistory, progress.getFailures());
+
+    }
 
+    private static String jobKey(final JobExecutionContext context) {
+        final JobKey key = context.getJobDetail().getKey();
+        return key.getName() + SchedulerServiceConstants.JOB_KEY_SEPERATOR + key.getGroup();
     }
 
     private Throwable getCauseFromException(final Throwable exception) {
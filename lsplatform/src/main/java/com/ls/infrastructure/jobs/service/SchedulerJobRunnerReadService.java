@@ -19,11 +19,14 @@
 package com.ls.infrastructure.jobs.service;
 
 import java.util.List;
+import java.util.Map;
 
 import com.ls.infrastructure.core.service.Page;
 import com.ls.infrastructure.core.service.SearchParameters;
 import com.ls.infrastructure.jobs.data.JobDetailData;
 import com.ls.infrastructure.jobs.data.JobDetailHistoryData;
+import com.ls.infrastructure.jobs.data.JobProgressData;
+import com.ls.infrastructure.jobs.data.JobRunItemFailureData;
 
 public interface SchedulerJobRunnerReadService {
 
@@ -33,6 +36,33 @@ public interface SchedulerJobRunnerReadService {
 
     public Page<JobDetailHistoryData> retrieveJobHistory(Long jobId, SearchParameters searchParameters);
 
+    /**
+     * Returns the progress of the job if it is running right now, otherwise
+     * the counts recorded with its last run.
+     */
+    public JobProgressData retrieveJobProgress(Long jobId);
+
+    public List<JobRunItemFailureData> retrieveJobRunFailures(Long jobId, Long version);
+
     public boolean isUpdatesAllowed();
 
+    public Map<String, String> retrieveJobParameters(JobName jobName);
+
+    public int retrieveIntegerJobParameter(JobName jobName, String parameterName, int defaultValue);
+
+    /**
+     * Returns the active jobs depending on the given job whose active
+     * prerequisites have all completed successfully since their own last run
+     * and none of which is running right now. Inactive prerequisites are
+     * skipped.
+     */
+    public List<Long> retrieveDependentJobIdsReadyToRun(Long prerequisiteJobId);
+
+    /**
+     * Returns the longest critical path, in milliseconds, among the latest
+     * successful runs of the prerequisites of the given job, or zero for a
+     * job without prerequisites.
+     */
+    public long retrievePrerequisitesCriticalPathMillis(Long jobId);
+
 }
@@ -18,17 +18,24 @@
  */
 package com.ls.infrastructure.jobs.service;
 
+import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.ls.infrastructure.core.domain.JdbcSupport;
 import com.ls.infrastructure.core.service.Page;
 import com.ls.infrastructure.core.service.PaginationHelper;
 import com.ls.infrastructure.core.service.RoutingDataSource;
 import com.ls.infrastructure.core.service.SearchParameters;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
 import com.ls.infrastructure.jobs.data.JobDetailData;
 import com.ls.infrastructure.jobs.data.JobDetailHistoryData;
+import com.ls.infrastructure.jobs.data.JobProgressData;
+import com.ls.infrastructure.jobs.data.JobRunItemFailureData;
 import com.ls.infrastructure.jobs.exception.JobNotFoundException;
 import com.ls.infrastructure.jobs.exception.OperationNotAllowedException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,11 +49,14 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final JobProgressTracker jobProgressTracker;
+
     private final PaginationHelper<JobDetailHistoryData> paginationHelper = new PaginationHelper<>();
 
     @Autowired
-    public SchedulerJobRunnerReadServiceImpl(final RoutingDataSource dataSource) {
+    public SchedulerJobRunnerReadServiceImpl(final RoutingDataSource dataSource, final JobProgressTracker jobProgressTracker) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jobProgressTracker = jobProgressTracker;
     }
 
     @Override
@@ -97,6 +107,29 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
                 jobHistoryMapper);
     }
 
+    @Override
+    public JobProgressData retrieveJobProgress(final Long jobId) {
+        final List<String> jobNames = this.jdbcTemplate.queryForList("select job.name from job job where job.id = ?", String.class, jobId);
+        if (jobNames.isEmpty()) { throw new JobNotFoundException(String.valueOf(jobId)); }
+        final JobProgress progress = this.jobProgressTracker.retrieveProgress(ThreadLocalContextUtil.getTenant().getTenantIdentifier(),
+                jobNames.get(0));
+        if (progress != null) { return progress.toData(); }
+
+        final LastRunProgressMapper lastRunProgressMapper = new LastRunProgressMapper();
+        final List<JobProgressData> lastRunProgress = this.jdbcTemplate.query(lastRunProgressMapper.schema(), lastRunProgressMapper,
+                jobId, jobId);
+        if (lastRunProgress.isEmpty()) { return new JobProgressData(false, null, null, null, null, null, null, null, null); }
+        return lastRunProgress.get(0);
+    }
+
+    @Override
+    public List<JobRunItemFailureData> retrieveJobRunFailures(final Long jobId, final Long version) {
+        if (!isJobExist(jobId)) { throw new JobNotFoundException(String.valueOf(jobId)); }
+        final JobRunItemFailureMapper failureMapper = new JobRunItemFailureMapper();
+        final String sql = "select " + failureMapper.schema() + " where runHistory.job_id = ? and runHistory.version = ? order by failure.id";
+        return this.jdbcTemplate.query(sql, failureMapper, jobId, version);
+    }
+
     @Override
     public boolean isUpdatesAllowed() {
         final String sql = "select job.display_name from job job where job.currently_running=true and job.updates_allowed=false";
@@ -109,6 +142,60 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
         return true;
     }
 
+    @Override
+    public Map<String, String> retrieveJobParameters(final JobName jobName) {
+        final String sql = "select p.parameter_name as parameterName, p.parameter_value as parameterValue from job_parameters p"
+                + " join job job on job.id = p.job_id where job.name = ?";
+        final List<Map<String, Object>> rows = this.jdbcTemplate.queryForList(sql, jobName.toString());
+        final Map<String, String> parameters = new HashMap<>(rows.size());
+        for (final Map<String, Object> row : rows) {
+            parameters.put((String) row.get("parameterName"), (String) row.get("parameterValue"));
+        }
+        return parameters;
+    }
+
+    @Override
+    public int retrieveIntegerJobParameter(final JobName jobName, final String parameterName, final int defaultValue) {
+        final String value = retrieveJobParameters(jobName).get(parameterName);
+        if (value == null) { return defaultValue; }
+        try {
+            final int parsedValue = Integer.parseInt(value.trim());
+            return parsedValue > 0 ? parsedValue : defaultValue;
+        } catch (final NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public List<Long> retrieveDependentJobIdsReadyToRun(final Long prerequisiteJobId) {
+        final StringBuilder sqlBuilder = new StringBuilder(800);
+        sqlBuilder.append("select dependent.id from job_prerequisite jp join job dependent on dependent.id = jp.job_id ");
+        sqlBuilder.append(" where jp.prerequisite_job_id = ? and dependent.is_active = 1 and dependent.currently_running = 0 ");
+        sqlBuilder.append(" and not exists (select 1 from job_prerequisite other ");
+        sqlBuilder.append(" join job prerequisite on prerequisite.id = other.prerequisite_job_id ");
+        sqlBuilder.append(" where other.job_id = dependent.id and prerequisite.is_active = 1 ");
+        sqlBuilder.append(" and (prerequisite.currently_running = 1 or not exists ");
+        sqlBuilder.append(" (select 1 from job_run_history runHistory where runHistory.job_id = prerequisite.id ");
+        sqlBuilder.append(" and runHistory.`status` = ? and (dependent.previous_run_start_time is null ");
+        sqlBuilder.append(" or runHistory.start_time > dependent.previous_run_start_time)))) ");
+        sqlBuilder.append(" order by dependent.task_priority, dependent.id");
+        return this.jdbcTemplate.queryForList(sqlBuilder.toString(), Long.class, prerequisiteJobId,
+                SchedulerServiceConstants.STATUS_SUCCESS);
+    }
+
+    @Override
+    public long retrievePrerequisitesCriticalPathMillis(final Long jobId) {
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select max(runHistory.critical_path_millis) from job_prerequisite jp ");
+        sqlBuilder.append(" join job_run_history runHistory on runHistory.job_id = jp.prerequisite_job_id ");
+        sqlBuilder.append(" and runHistory.version = (select max(latest.version) from job_run_history latest ");
+        sqlBuilder.append(" where latest.job_id = jp.prerequisite_job_id and latest.`status` = ?) ");
+        sqlBuilder.append(" where jp.job_id = ?");
+        final Long criticalPathMillis = this.jdbcTemplate.queryForObject(sqlBuilder.toString(), Long.class,
+                SchedulerServiceConstants.STATUS_SUCCESS, jobId);
+        return criticalPathMillis == null ? 0 : criticalPathMillis;
+    }
+
     private boolean isJobExist(final Long jobId) {
         boolean isJobPresent = false;
         final String sql = "select count(*) from job job where job.id=" + jobId;
@@ -124,7 +211,8 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
 
         private final StringBuilder sqlBuilder = new StringBuilder("select")
                 .append(" job.id,job.display_name as displayName,job.next_run_time as nextRunTime,job.initializing_errorlog as initializingError,job.cron_expression as cronExpression,job.is_active as active,job.currently_running as currentlyRunning,")
-                .append(" runHistory.version,runHistory.start_time as lastRunStartTime,runHistory.end_time as lastRunEndTime,runHistory.`status`,runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog ")
+                .append(" runHistory.version,runHistory.start_time as lastRunStartTime,runHistory.end_time as lastRunEndTime,runHistory.`status`,runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog,runHistory.critical_path_millis as criticalPathMillis,")
+                .append("runHistory.total_items as totalItems,runHistory.processed_items as processedItems,runHistory.failed_items as failedItems,runHistory.retried_items as retriedItems ")
                 .append(" from job job  left join job_run_history runHistory ON job.id=runHistory.job_id and job.previous_run_start_time=runHistory.start_time ");
 
         public String schema() {
@@ -148,11 +236,16 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
             final String jobRunErrorMessage = rs.getString("jobRunErrorMessage");
             final String triggerType = rs.getString("triggerType");
             final String jobRunErrorLog = rs.getString("jobRunErrorLog");
+            final Long criticalPathMillis = JdbcSupport.getLong(rs, "criticalPathMillis");
+            final Long totalItems = JdbcSupport.getLong(rs, "totalItems");
+            final Long processedItems = JdbcSupport.getLong(rs, "processedItems");
+            final Long failedItems = JdbcSupport.getLong(rs, "failedItems");
+            final Long retriedItems = JdbcSupport.getLong(rs, "retriedItems");
 
             JobDetailHistoryData lastRunHistory = null;
             if (version > 0) {
                 lastRunHistory = new JobDetailHistoryData(version, jobRunStartTime, jobRunEndTime, status, jobRunErrorMessage, triggerType,
-                        jobRunErrorLog);
+                        jobRunErrorLog, criticalPathMillis, totalItems, processedItems, failedItems, retriedItems);
             }
             final JobDetailData jobDetail = new JobDetailData(id, displayName, nextRunTime, initializingError, cronExpression, active,
                     currentlyRunning, lastRunHistory);
@@ -164,7 +257,8 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
     private static final class JobHistoryMapper implements RowMapper<JobDetailHistoryData> {
 
         private final StringBuilder sqlBuilder = new StringBuilder(200)
-                .append(" runHistory.version,runHistory.start_time as runStartTime,runHistory.end_time as runEndTime,runHistory.`status`,runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog ")
+                .append(" runHistory.version,runHistory.start_time as runStartTime,runHistory.end_time as runEndTime,runHistory.`status`,runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog,runHistory.critical_path_millis as criticalPathMillis,")
+                .append("runHistory.total_items as totalItems,runHistory.processed_items as processedItems,runHistory.failed_items as failedItems,runHistory.retried_items as retriedItems ")
                 .append(" from job job join job_run_history runHistory ON job.id=runHistory.job_id");
 
         public String schema() {
@@ -180,11 +274,61 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
             final String jobRunErrorMessage = rs.getString("jobRunErrorMessage");
             final String triggerType = rs.getString("triggerType");
             final String jobRunErrorLog = rs.getString("jobRunErrorLog");
+            final Long criticalPathMillis = JdbcSupport.getLong(rs, "criticalPathMillis");
+            final Long totalItems = JdbcSupport.getLong(rs, "totalItems");
+            final Long processedItems = JdbcSupport.getLong(rs, "processedItems");
+            final Long failedItems = JdbcSupport.getLong(rs, "failedItems");
+            final Long retriedItems = JdbcSupport.getLong(rs, "retriedItems");
             final JobDetailHistoryData jobDetailHistory = new JobDetailHistoryData(version, jobRunStartTime, jobRunEndTime, status,
-                    jobRunErrorMessage, triggerType, jobRunErrorLog);
+                    jobRunErrorMessage, triggerType, jobRunErrorLog, criticalPathMillis, totalItems, processedItems, failedItems,
+                    retriedItems);
             return jobDetailHistory;
         }
 
     }
 
+    private static final class LastRunProgressMapper implements RowMapper<JobProgressData> {
+
+        public String schema() {
+            return "select runHistory.start_time as startTime, runHistory.end_time as endTime, runHistory.total_items as totalItems,"
+                    + " runHistory.processed_items as processedItems, runHistory.failed_items as failedItems,"
+                    + " runHistory.retried_items as retriedItems from job_run_history runHistory"
+                    + " where runHistory.job_id = ? and runHistory.version = (select max(latest.version) from job_run_history latest"
+                    + " where latest.job_id = ?)";
+        }
+
+        @Override
+        public JobProgressData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Date startTime = rs.getTimestamp("startTime");
+            final Date endTime = rs.getTimestamp("endTime");
+            final Long totalItems = JdbcSupport.getLong(rs, "totalItems");
+            final Long processedItems = JdbcSupport.getLong(rs, "processedItems");
+            final Long failedItems = JdbcSupport.getLong(rs, "failedItems");
+            final Long retriedItems = JdbcSupport.getLong(rs, "retriedItems");
+            BigDecimal itemsPerSecond = null;
+            if (processedItems != null && startTime != null && endTime != null) {
+                final long items = processedItems + (failedItems == null ? 0 : failedItems);
+                itemsPerSecond = JobProgress.itemsPerSecond(items, endTime.getTime() - startTime.getTime());
+            }
+            return new JobProgressData(false, startTime, totalItems, processedItems, failedItems, retriedItems, itemsPerSecond, null,
+                    null);
+        }
+    }
+
+    private static final class JobRunItemFailureMapper implements RowMapper<JobRunItemFailureData> {
+
+        public String schema() {
+            return " failure.item_id as itemId, failure.exception_type as exceptionType, failure.error_message as errorMessage"
+                    + " from job_run_failure failure join job_run_history runHistory on runHistory.id = failure.job_run_history_id";
+        }
+
+        @Override
+        public JobRunItemFailureData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Long itemId = JdbcSupport.getLong(rs, "itemId");
+            final String exceptionType = rs.getString("exceptionType");
+            final String errorMessage = rs.getString("errorMessage");
+            return new JobRunItemFailureData(itemId, exceptionType, errorMessage);
+        }
+    }
+
 }
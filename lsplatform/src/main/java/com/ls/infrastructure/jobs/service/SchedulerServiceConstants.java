@@ -23,6 +23,7 @@ public interface SchedulerServiceConstants {
     public static final String JOB_KEY_SEPERATOR = " _ ";
     public static final String TRIGGER_TYPE_CRON = "cron";
     public static final String TRIGGER_TYPE_APPLICATION = "application";
+    public static final String TRIGGER_TYPE_PIPELINE = "pipeline";
     public static final String TRIGGER_TYPE_REFERENCE = "TRIGGER_TYPE_REFERENCE";
     public static final String SCHEDULER_EXCEPTION = "SchedulerException";
     public static final String JOB_EXECUTION_EXCEPTION = "JobExecutionException";
@@ -37,5 +38,22 @@ public interface SchedulerServiceConstants {
     public static final int DEFAULT_THREAD_COUNT = 7;
     public static final int GROUP_THREAD_COUNT = 1;
     public static final String SCHEDULER_NAME = "schedulerName";
+    public static final String JOB_PARAMETER_WORKER_COUNT = "workerCount";
+    public static final String JOB_PARAMETER_CHUNK_SIZE = "chunkSize";
+    // switches the overdue penalty and periodic accrual jobs between their
+    // chunked write path (default) and processing loan by loan
+    public static final String JOB_PARAMETER_BULK_MODE = "bulkMode";
+    // chooses how the loan loss provisioning job builds its entries, loan
+    // by loan (default) or set based with one entry per office, product,
+    // currency and category
+    public static final String JOB_PARAMETER_PROVISIONING_MODE = "provisioningMode";
+    public static final String PROVISIONING_MODE_AGGREGATED = "aggregated";
+    public static final String PROVISIONING_MODE_PER_LOAN = "perLoan";
+    public static final int DEFAULT_JOB_WORKER_COUNT = 4;
+    public static final int DEFAULT_JOB_CHUNK_SIZE = 100;
+    public static final int DEFAULT_JOB_READ_PAGE_SIZE = 500;
+    public static final int DEFAULT_MAX_CONCURRENT_JOBS = 32;
+    public static final int DEFAULT_DEFERRED_RUN_DELAY_SECONDS = 30;
+    public static final String EXECUTION_TICKET = "jobExecutionTicket";
 
 }
\ No newline at end of file
@@ -18,15 +18,23 @@
  */
 package com.ls.infrastructure.jobs.service;
 
+import java.util.Date;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import com.ls.infrastructure.core.domain.FineractPlatformTenant;
 import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
 import com.ls.infrastructure.security.service.TenantDetailsService;
+import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
 import org.quartz.TriggerListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +45,8 @@ import org.springframework.stereotype.Component;
 public class SchedulerTriggerListener implements TriggerListener {
 
     private final static Logger logger = LoggerFactory.getLogger(SchedulerTriggerListener.class);
+
+    private static final String DEFERRED_RUN_SUFFIX = "_deferredRun";
     
     private final String name = "Global trigger Listner";
 
@@ -44,10 +54,14 @@ public class SchedulerTriggerListener implements TriggerListener {
 
     private final TenantDetailsService tenantDetailsService;
 
+    private final TenantJobExecutionGate jobExecutionGate;
+
     @Autowired
-    public SchedulerTriggerListener(final SchedularWritePlatformService schedularService, final TenantDetailsService tenantDetailsService) {
+    public SchedulerTriggerListener(final SchedularWritePlatformService schedularService, final TenantDetailsService tenantDetailsService,
+            final TenantJobExecutionGate jobExecutionGate) {
         this.schedularService = schedularService;
         this.tenantDetailsService = tenantDetailsService;
+        this.jobExecutionGate = jobExecutionGate;
 
     }
 
@@ -74,6 +88,12 @@ public class SchedulerTriggerListener implements TriggerListener {
         if (context.getMergedJobDataMap().containsKey(SchedulerServiceConstants.TRIGGER_TYPE_REFERENCE)) {
             triggerType = context.getMergedJobDataMap().getString(SchedulerServiceConstants.TRIGGER_TYPE_REFERENCE);
         }
+        // never wait for an execution slot on a Quartz thread, run again later
+        final TenantJobExecutionGate.Ticket ticket = this.jobExecutionGate.tryAcquire(tenantIdentifier, key.getName());
+        if (ticket == null) {
+            deferRun(trigger, context, tenantIdentifier);
+            return true;
+        }
         Integer maxNumberOfRetries = ThreadLocalContextUtil.getTenant().getConnection().getMaxRetriesOnDeadlock();
         Integer maxIntervalBetweenRetries = ThreadLocalContextUtil.getTenant().getConnection().getMaxIntervalBetweenRetries();
         Integer numberOfRetries = 0;
@@ -90,13 +110,54 @@ public class SchedulerTriggerListener implements TriggerListener {
                     Thread.sleep(1000 + (randomNum * 1000));
                     numberOfRetries = numberOfRetries + 1;
                 } catch (InterruptedException e) {
-
+                    logger.warn(tenantIdentifier + ": interrupted while updating the running status of " + jobKey + ", job vetoed");
+                    Thread.currentThread().interrupt();
+                    this.jobExecutionGate.release(ticket);
+                    return true;
                 }
             }
         }
+        if (proceedJob) {
+            this.jobExecutionGate.release(ticket);
+        } else {
+            context.put(SchedulerServiceConstants.EXECUTION_TICKET, ticket);
+        }
         return proceedJob;
     }
 
+    /**
+     * Schedules one more run of the job once the delay of the gate has passed.
+     * A job has at most one deferred run pending: its trigger key is derived
+     * from the job key, so vetoed fires while a deferred run is pending do not
+     * add further runs. When the deferred run itself is vetoed, its trigger
+     * is moved to the new start time.
+     */
+    private void deferRun(final Trigger trigger, final JobExecutionContext context, final String tenantIdentifier) {
+        final JobKey jobKey = trigger.getJobKey();
+        final TriggerKey deferredRunKey = new TriggerKey(jobKey.getName() + DEFERRED_RUN_SUFFIX, jobKey.getGroup());
+        final Date startTime = new Date(System.currentTimeMillis()
+                + TimeUnit.SECONDS.toMillis(this.jobExecutionGate.getDeferredRunDelaySeconds()));
+        final Trigger deferredRun = TriggerBuilder.newTrigger().withIdentity(deferredRunKey).forJob(jobKey)
+                .usingJobData(new JobDataMap(trigger.getJobDataMap())).withPriority(trigger.getPriority()).startAt(startTime).build();
+        try {
+            final Scheduler scheduler = context.getScheduler();
+            if (deferredRunKey.equals(trigger.getKey())) {
+                // the store keeps a fired trigger that got a new fire time
+                scheduler.rescheduleJob(deferredRunKey, deferredRun);
+            } else if (scheduler.checkExists(deferredRunKey)) {
+                logger.info(tenantIdentifier + ": no execution slot free for " + jobKey.getName() + ", a deferred run is pending");
+                return;
+            } else {
+                scheduler.scheduleJob(deferredRun);
+            }
+            logger.info(tenantIdentifier + ": no execution slot free for " + jobKey.getName() + ", run again at " + startTime);
+        } catch (final ObjectAlreadyExistsException e) {
+            logger.info(tenantIdentifier + ": no execution slot free for " + jobKey.getName() + ", a deferred run is pending");
+        } catch (final SchedulerException e) {
+            logger.error(tenantIdentifier + ": could not defer the run of " + jobKey.getName(), e);
+        }
+    }
+
     @Override
     public void triggerMisfired(@SuppressWarnings("unused") final Trigger trigger) {
 
@@ -0,0 +1,265 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.ls.infrastructure.jobs.api.SchedulerJobApiConstants;
+import com.ls.infrastructure.jobs.data.SchedulerDetailData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control for batch jobs across tenants.
+ *
+ * Every job of every tenant asks for a slot before it starts and gives it
+ * back when it finishes. At most <code>maxConcurrentJobs</code> jobs run at
+ * the same time in total and at most <code>maxConcurrentJobsPerTenant</code>
+ * for a single tenant.
+ *
+ * Asking for a slot never blocks: a job which does not get one is vetoed and
+ * run again after <code>deferredRunDelaySeconds</code>. Tenants with deferred
+ * jobs take turns, free slots are kept for the tenants which were deferred
+ * first, so a tenant with many jobs cannot starve the others.
+ *
+ * The limits can be overridden with the properties named in
+ * {@link SchedulerJobApiConstants}.
+ */
+@Component
+public class TenantJobExecutionGate {
+
+    private final static Logger logger = LoggerFactory.getLogger(TenantJobExecutionGate.class);
+
+    /**
+     * A job holding an execution slot.
+     */
+    public static final class Ticket {
+
+        private final String tenantIdentifier;
+        private final String jobName;
+        private boolean admitted;
+
+        Ticket(final String tenantIdentifier, final String jobName) {
+            this.tenantIdentifier = tenantIdentifier;
+            this.jobName = jobName;
+            this.admitted = true;
+        }
+    }
+
+    /**
+     * A job which was refused a slot and is going to ask again.
+     */
+    private static final class DeferredJob {
+
+        private final long deferredSince;
+        private long lastDeferredAt;
+
+        DeferredJob(final long deferredSince) {
+            this.deferredSince = deferredSince;
+            this.lastDeferredAt = deferredSince;
+        }
+    }
+
+    private final int maxConcurrentJobs;
+    private final int maxConcurrentJobsPerTenant;
+    private final int deferredRunDelaySeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Map<String, DeferredJob>> deferredJobsByTenant = new HashMap<>();
+    private final Deque<String> tenantsInTurn = new ArrayDeque<>();
+    private final Map<String, Integer> runningJobsByTenant = new HashMap<>();
+    private int runningJobs;
+    private long admittedJobs;
+    private long totalWaitTimeMillis;
+    private long maxWaitTimeMillis;
+
+    @Autowired
+    public TenantJobExecutionGate(
+            @Value("${" + SchedulerJobApiConstants.MAX_CONCURRENT_JOBS_PROPERTY + ":"
+                    + SchedulerServiceConstants.DEFAULT_MAX_CONCURRENT_JOBS + "}") final int maxConcurrentJobs,
+            @Value("${" + SchedulerJobApiConstants.MAX_CONCURRENT_JOBS_PER_TENANT_PROPERTY + ":"
+                    + SchedulerServiceConstants.DEFAULT_THREAD_COUNT + "}") final int maxConcurrentJobsPerTenant,
+            @Value("${" + SchedulerJobApiConstants.DEFERRED_RUN_DELAY_SECONDS_PROPERTY + ":"
+                    + SchedulerServiceConstants.DEFAULT_DEFERRED_RUN_DELAY_SECONDS + "}") final int deferredRunDelaySeconds) {
+        this.maxConcurrentJobs = Math.max(1, maxConcurrentJobs);
+        this.maxConcurrentJobsPerTenant = Math.max(1, Math.min(maxConcurrentJobsPerTenant, this.maxConcurrentJobs));
+        this.deferredRunDelaySeconds = Math.max(1, deferredRunDelaySeconds);
+    }
+
+    /**
+     * Takes an execution slot for the job if one is free for its tenant,
+     * otherwise records the job as deferred and returns <code>null</code>.
+     */
+    public Ticket tryAcquire(final String tenantIdentifier, final String jobName) {
+        this.lock.lock();
+        try {
+            final long now = System.currentTimeMillis();
+            removeAbandonedDeferredJobs(now);
+            if (mayStart(tenantIdentifier)) { return admit(tenantIdentifier, jobName, now); }
+            defer(tenantIdentifier, jobName, now);
+            return null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public void release(final Ticket ticket) {
+        if (ticket == null) { return; }
+        this.lock.lock();
+        try {
+            if (!ticket.admitted) { return; }
+            ticket.admitted = false;
+            this.runningJobs--;
+            final int runningForTenant = runningJobsForTenant(ticket.tenantIdentifier) - 1;
+            if (runningForTenant > 0) {
+                this.runningJobsByTenant.put(ticket.tenantIdentifier, runningForTenant);
+            } else {
+                this.runningJobsByTenant.remove(ticket.tenantIdentifier);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int getDeferredRunDelaySeconds() {
+        return this.deferredRunDelaySeconds;
+    }
+
+    public SchedulerDetailData retrieveSchedulerDetail(final String tenantIdentifier, final boolean active) {
+        this.lock.lock();
+        try {
+            final long now = System.currentTimeMillis();
+            removeAbandonedDeferredJobs(now);
+            int queuedJobs = 0;
+            long longestCurrentWaitMillis = 0;
+            for (final Map<String, DeferredJob> deferredJobs : this.deferredJobsByTenant.values()) {
+                queuedJobs += deferredJobs.size();
+                for (final DeferredJob deferredJob : deferredJobs.values()) {
+                    longestCurrentWaitMillis = Math.max(longestCurrentWaitMillis, now - deferredJob.deferredSince);
+                }
+            }
+            final Map<String, DeferredJob> tenantDeferredJobs = this.deferredJobsByTenant.get(tenantIdentifier);
+            final int tenantQueuedJobs = tenantDeferredJobs == null ? 0 : tenantDeferredJobs.size();
+            final long averageWaitTimeMillis = this.admittedJobs == 0 ? 0 : this.totalWaitTimeMillis / this.admittedJobs;
+            return new SchedulerDetailData(active, queuedJobs, tenantQueuedJobs, this.runningJobs, runningJobsForTenant(tenantIdentifier),
+                    this.maxConcurrentJobs, this.maxConcurrentJobsPerTenant, averageWaitTimeMillis, this.maxWaitTimeMillis,
+                    longestCurrentWaitMillis);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * A tenant may start a job when it is below its own limit and a slot is
+     * left after keeping one for each tenant deferred before it that is
+     * below its limit. Must be called with the lock held.
+     */
+    private boolean mayStart(final String tenantIdentifier) {
+        if (runningJobsForTenant(tenantIdentifier) >= this.maxConcurrentJobsPerTenant) { return false; }
+        final int freeSlots = this.maxConcurrentJobs - this.runningJobs;
+        int slotsKeptForOthers = 0;
+        for (final String tenantInTurn : this.tenantsInTurn) {
+            if (tenantInTurn.equals(tenantIdentifier)) {
+                break;
+            }
+            if (runningJobsForTenant(tenantInTurn) < this.maxConcurrentJobsPerTenant) {
+                slotsKeptForOthers++;
+            }
+        }
+        return freeSlots > slotsKeptForOthers;
+    }
+
+    private Ticket admit(final String tenantIdentifier, final String jobName, final long now) {
+        this.runningJobs++;
+        this.runningJobsByTenant.put(tenantIdentifier, runningJobsForTenant(tenantIdentifier) + 1);
+        this.admittedJobs++;
+        final Map<String, DeferredJob> deferredJobs = this.deferredJobsByTenant.get(tenantIdentifier);
+        final DeferredJob deferredJob = deferredJobs == null ? null : deferredJobs.remove(jobName);
+        if (deferredJobs != null) {
+            // the tenant had its turn, the next one goes first
+            this.tenantsInTurn.remove(tenantIdentifier);
+            if (deferredJobs.isEmpty()) {
+                this.deferredJobsByTenant.remove(tenantIdentifier);
+            } else {
+                this.tenantsInTurn.addLast(tenantIdentifier);
+            }
+        }
+        if (deferredJob != null) {
+            final long waitTimeMillis = now - deferredJob.deferredSince;
+            this.totalWaitTimeMillis += waitTimeMillis;
+            this.maxWaitTimeMillis = Math.max(this.maxWaitTimeMillis, waitTimeMillis);
+            logger.info(tenantIdentifier + ": " + jobName + " started after waiting " + TimeUnit.MILLISECONDS.toSeconds(waitTimeMillis)
+                    + " seconds for an execution slot");
+        }
+        return new Ticket(tenantIdentifier, jobName);
+    }
+
+    private void defer(final String tenantIdentifier, final String jobName, final long now) {
+        Map<String, DeferredJob> deferredJobs = this.deferredJobsByTenant.get(tenantIdentifier);
+        if (deferredJobs == null) {
+            deferredJobs = new LinkedHashMap<>();
+            this.deferredJobsByTenant.put(tenantIdentifier, deferredJobs);
+            this.tenantsInTurn.addLast(tenantIdentifier);
+        }
+        final DeferredJob deferredJob = deferredJobs.get(jobName);
+        if (deferredJob == null) {
+            deferredJobs.put(jobName, new DeferredJob(now));
+        } else {
+            deferredJob.lastDeferredAt = now;
+        }
+    }
+
+    /**
+     * Forgets deferred jobs which did not ask again, e.g. because they were
+     * deactivated or their scheduler was stopped, so that they do not keep
+     * slots from other tenants. Must be called with the lock held.
+     */
+    private void removeAbandonedDeferredJobs(final long now) {
+        final long abandonedBefore = now - TimeUnit.SECONDS.toMillis(3L * this.deferredRunDelaySeconds);
+        final Iterator<Map.Entry<String, Map<String, DeferredJob>>> tenants = this.deferredJobsByTenant.entrySet().iterator();
+        while (tenants.hasNext()) {
+            final Map.Entry<String, Map<String, DeferredJob>> tenant = tenants.next();
+            final Iterator<DeferredJob> deferredJobs = tenant.getValue().values().iterator();
+            while (deferredJobs.hasNext()) {
+                if (deferredJobs.next().lastDeferredAt < abandonedBefore) {
+                    deferredJobs.remove();
+                }
+            }
+            if (tenant.getValue().isEmpty()) {
+                tenants.remove();
+                this.tenantsInTurn.remove(tenant.getKey());
+            }
+        }
+    }
+
+    private int runningJobsForTenant(final String tenantIdentifier) {
+        final Integer runningForTenant = this.runningJobsByTenant.get(tenantIdentifier);
+        return runningForTenant == null ? 0 : runningForTenant;
+    }
+}
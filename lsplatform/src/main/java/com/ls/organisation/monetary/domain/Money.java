@@ -80,18 +80,28 @@ public class Money implements Comparable<Money> {
         this.currencyDigitsAfterDecimal = digitsAfterDecimal;
         this.inMultiplesOf = inMultiplesOf;
 
-        final BigDecimal amountZeroed = defaultToZeroIfNull(amount);
-        final BigDecimal amountStripped = amountZeroed.stripTrailingZeros();
-        BigDecimal amountScaled = amountStripped;
+        // trailing zeros are not stripped first: they do not change the value
+        // and the amount ends up with the scale of the currency either way,
+        // so skipping that saves a BigDecimal on every calculation
+        BigDecimal amountScaled = defaultToZeroIfNull(amount);
 
         // round monetary amounts into multiplesof say 20/50.
-        if (inMultiplesOf != null && this.currencyDigitsAfterDecimal == 0 && inMultiplesOf > 0 && amountScaled.doubleValue() > 0) {
+        if (roundsToMultiplesOf(digitsAfterDecimal, inMultiplesOf) && amountScaled.doubleValue() > 0) {
             final double existingVal = amountScaled.doubleValue();
             amountScaled = BigDecimal.valueOf(roundToMultiplesOf(existingVal, inMultiplesOf));
         }
         this.amount = amountScaled.setScale(this.currencyDigitsAfterDecimal, MoneyHelper.getRoundingMode());
     }
 
+    /**
+     * Whether amounts in the currency are rounded to multiples of
+     * <code>inMultiplesOf</code>, which makes the rounding of a sum depend on
+     * the order its parts were added in.
+     */
+    static boolean roundsToMultiplesOf(final int digitsAfterDecimal, final Integer inMultiplesOf) {
+        return inMultiplesOf != null && digitsAfterDecimal == 0 && inMultiplesOf > 0;
+    }
+
     public static double roundToMultiplesOf(final double existingVal, final Integer inMultiplesOf) {
         double amountScaled = existingVal;
         final double ceilingOfValue = ceiling(existingVal, inMultiplesOf);
@@ -150,7 +160,7 @@ public class Money implements Comparable<Money> {
             final Money money = checkCurrencyEqual(moneyProvider);
             total = total.add(money.amount);
         }
-        return Money.of(monetaryCurrency(), total);
+        return withAmount(total);
     }
 
     public Money plus(final Money moneyToAdd) {
@@ -161,13 +171,13 @@ public class Money implements Comparable<Money> {
     public Money plus(final BigDecimal amountToAdd) {
         if (amountToAdd == null || amountToAdd.compareTo(BigDecimal.ZERO) == 0) { return this; }
         final BigDecimal newAmount = this.amount.add(amountToAdd);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money plus(final double amountToAdd) {
         if (amountToAdd == 0) { return this; }
         final BigDecimal newAmount = this.amount.add(BigDecimal.valueOf(amountToAdd));
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money minus(final Money moneyToSubtract) {
@@ -178,7 +188,15 @@ public class Money implements Comparable<Money> {
     public Money minus(final BigDecimal amountToSubtract) {
         if (amountToSubtract == null || amountToSubtract.compareTo(BigDecimal.ZERO) == 0) { return this; }
         final BigDecimal newAmount = this.amount.subtract(amountToSubtract);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
+    }
+
+    /**
+     * Same as Money.of(getCurrency(), newAmount) without first creating a
+     * MonetaryCurrency.
+     */
+    private Money withAmount(final BigDecimal newAmount) {
+        return new Money(this.currencyCode, this.currencyDigitsAfterDecimal, newAmount, this.inMultiplesOf);
     }
 
     private Money checkCurrencyEqual(final Money money) {
@@ -193,44 +211,44 @@ public class Money implements Comparable<Money> {
     public Money dividedBy(final BigDecimal valueToDivideBy, final RoundingMode roundingMode) {
         if (valueToDivideBy.compareTo(BigDecimal.ONE) == 0) { return this; }
         final BigDecimal newAmount = this.amount.divide(valueToDivideBy, roundingMode);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money dividedBy(final double valueToDivideBy, final RoundingMode roundingMode) {
         if (valueToDivideBy == 1) { return this; }
         final BigDecimal newAmount = this.amount.divide(BigDecimal.valueOf(valueToDivideBy), roundingMode);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money dividedBy(final long valueToDivideBy, final RoundingMode roundingMode) {
         if (valueToDivideBy == 1) { return this; }
         final BigDecimal newAmount = this.amount.divide(BigDecimal.valueOf(valueToDivideBy), roundingMode);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multipliedBy(final BigDecimal valueToMultiplyBy) {
         if (valueToMultiplyBy.compareTo(BigDecimal.ONE) == 0) { return this; }
         final BigDecimal newAmount = this.amount.multiply(valueToMultiplyBy);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multipliedBy(final double valueToMultiplyBy) {
         if (valueToMultiplyBy == 1) { return this; }
         final BigDecimal newAmount = this.amount.multiply(BigDecimal.valueOf(valueToMultiplyBy));
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multipliedBy(final long valueToMultiplyBy) {
         if (valueToMultiplyBy == 1) { return this; }
         final BigDecimal newAmount = this.amount.multiply(BigDecimal.valueOf(valueToMultiplyBy));
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multiplyRetainScale(final BigDecimal valueToMultiplyBy, final RoundingMode roundingMode) {
         if (valueToMultiplyBy.compareTo(BigDecimal.ONE) == 0) { return this; }
         BigDecimal newAmount = this.amount.multiply(valueToMultiplyBy);
         newAmount = newAmount.setScale(this.currencyDigitsAfterDecimal, roundingMode);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multiplyRetainScale(final double valueToMultiplyBy, final RoundingMode roundingMode) {
@@ -239,7 +257,7 @@ public class Money implements Comparable<Money> {
 
     public Money percentageOf(BigDecimal percentage, final RoundingMode roundingMode) {
         final BigDecimal newAmount = (this.amount.multiply(percentage)).divide(BigDecimal.valueOf(100), roundingMode);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
     @Override
     public int compareTo(final Money other) {
@@ -250,7 +268,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isZero() {
-        return isEqualTo(Money.zero(getCurrency()));
+        return this.amount.signum() == 0;
     }
 
     public boolean isEqualTo(final Money other) {
@@ -262,7 +280,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isGreaterThanOrEqualTo(final Money other) {
-        return isGreaterThan(other) || isEqualTo(other);
+        return compareTo(other) >= 0;
     }
 
     public boolean isGreaterThan(final Money other) {
@@ -270,7 +288,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isGreaterThanZero() {
-        return isGreaterThan(Money.zero(getCurrency()));
+        return this.amount.signum() > 0;
     }
 
     public boolean isLessThan(final Money other) {
@@ -278,7 +296,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isLessThanZero() {
-        return isLessThan(Money.zero(getCurrency()));
+        return this.amount.signum() < 0;
     }
 
     public String getCurrencyCode() {
@@ -316,7 +334,7 @@ public class Money implements Comparable<Money> {
 
     public Money negated() {
         if (isZero()) { return this; }
-        return Money.of(monetaryCurrency(), this.amount.negate());
+        return withAmount(this.amount.negate());
     }
 
     public Money abs() {
@@ -332,6 +350,6 @@ public class Money implements Comparable<Money> {
     }
 
     public Money zero() {
-        return Money.zero(getCurrency());
+        return withAmount(BigDecimal.ZERO);
     }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.organisation.monetary.domain;
+
+import java.math.BigDecimal;
+
+/**
+ * Mutable running total of amounts in one currency, for loops which would
+ * otherwise create a new {@link Money} for every amount they add up.
+ *
+ * The amounts of Money are already rounded to the currency, so their sum
+ * needs no rounding and {@link #toMoney()} returns exactly what adding them
+ * up with {@link Money#plus(Money)} would. The one exception are currencies
+ * rounded to multiples of say 20/50, where rounding the sum depends on the
+ * order it is built in; for those every addition is rounded like Money does.
+ */
+public final class MoneyAccumulator {
+
+    private final MonetaryCurrency currency;
+    private final boolean roundEveryAddition;
+    private BigDecimal total;
+
+    public MoneyAccumulator(final MonetaryCurrency currency) {
+        this.currency = currency;
+        this.roundEveryAddition = Money.roundsToMultiplesOf(currency.getDigitsAfterDecimal(), currency.getCurrencyInMultiplesOf());
+        this.total = BigDecimal.ZERO;
+    }
+
+    public MoneyAccumulator plus(final Money money) {
+        if (!this.currency.getCode().equals(money.getCurrencyCode())) { throw new UnsupportedOperationException(
+                "currencies are different."); }
+        return add(money.getAmount());
+    }
+
+    public MoneyAccumulator minus(final Money money) {
+        if (!this.currency.getCode().equals(money.getCurrencyCode())) { throw new UnsupportedOperationException(
+                "currencies are different."); }
+        return add(money.getAmount().negate());
+    }
+
+    private MoneyAccumulator add(final BigDecimal amount) {
+        if (amount.signum() == 0) { return this; }
+        this.total = this.total.add(amount);
+        if (this.roundEveryAddition) {
+            this.total = Money.of(this.currency, this.total).getAmount();
+        }
+        return this;
+    }
+
+    public boolean isZero() {
+        return this.total.signum() == 0;
+    }
+
+    public boolean isGreaterThanZero() {
+        return this.total.signum() > 0;
+    }
+
+    public Money toMoney() {
+        return Money.of(this.currency, this.total);
+    }
+}
@@ -0,0 +1,267 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.organisation.office.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import com.ls.infrastructure.cache.service.TenantCacheVersions;
+import com.ls.infrastructure.cache.service.TenantVersionedCache;
+import com.ls.infrastructure.cache.service.TenantVersionedCache.Loader;
+import com.ls.infrastructure.core.domain.JdbcSupport;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the office tree of every tenant in memory, numbered as nested sets,
+ * so that read services can scope data to an office and its children with a
+ * list of office ids instead of joining <code>m_office</code> on a
+ * <code>hierarchy like</code> prefix.
+ *
+ * Offices are numbered in the order of a depth first walk of the tree, which
+ * puts an office and all of its children next to each other. The tree is
+ * loaded once per tenant and version of its offices, kept in
+ * {@link TenantCacheVersions} and moved on by {@link #invalidate()} when the
+ * offices change, the same way as the GL closure registry.
+ */
+@Component
+public class OfficeHierarchyIndex {
+
+    public static final String CACHE_NAME = "officeHierarchy";
+
+    /**
+     * Offices above which the offices within an office are selected with a
+     * sub query on their hierarchy instead of being listed one by one.
+     */
+    static final int MAX_LISTED_OFFICE_IDS = 200;
+
+    private static final Pattern HIERARCHY_PATTERN = Pattern.compile("[.0-9]+");
+
+    /**
+     * The office tree of a tenant for one version of its offices. Office ids
+     * are kept in primitive arrays: <code>officeIds</code> sorted for lookups
+     * and <code>officeIdsInTreeOrder</code> in the order they are numbered.
+     */
+    private static final class OfficeTree {
+
+        private final long[] officeIds;
+        private final int[] leftNumbers;
+        private final int[] rightNumbers;
+        private final long[] officeIdsInTreeOrder;
+        private final String[] hierarchies;
+        private final ConcurrentMap<Long, String> sqlOfficeIdListsByOffice = new ConcurrentHashMap<>();
+
+        OfficeTree(final long[] officeIds, final int[] leftNumbers, final int[] rightNumbers, final long[] officeIdsInTreeOrder,
+                final String[] hierarchies) {
+            this.officeIds = officeIds;
+            this.leftNumbers = leftNumbers;
+            this.rightNumbers = rightNumbers;
+            this.officeIdsInTreeOrder = officeIdsInTreeOrder;
+            this.hierarchies = hierarchies;
+        }
+
+        int indexOf(final Long officeId) {
+            if (officeId == null) { return -1; }
+            final int index = Arrays.binarySearch(this.officeIds, officeId);
+            return index < 0 ? -1 : index;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TenantVersionedCache<OfficeTree> officeTrees;
+
+    @Autowired
+    public OfficeHierarchyIndex(final RoutingDataSource dataSource, final TenantCacheVersions cacheVersions) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.officeTrees = new TenantVersionedCache<>(CACHE_NAME, cacheVersions, new Loader<OfficeTree>() {
+
+            @Override
+            public OfficeTree load(@SuppressWarnings("unused") final long version) {
+                return loadOfficeTree();
+            }
+        });
+    }
+
+    /**
+     * Returns the ids of the office and all of the offices below it, the
+     * offices a user of the office is allowed to see.
+     */
+    public long[] retrieveOfficeIdsWithin(final Long officeId) {
+        return officeIdsWithin(retrieveOfficeTree(), officeId);
+    }
+
+    private static long[] officeIdsWithin(final OfficeTree officeTree, final Long officeId) {
+        final int index = officeTree.indexOf(officeId);
+        if (index < 0) { return officeId == null ? new long[0] : new long[] { officeId }; }
+        return Arrays.copyOfRange(officeTree.officeIdsInTreeOrder, officeTree.leftNumbers[index], officeTree.rightNumbers[index]);
+    }
+
+    /**
+     * Returns the ids of the office and all of the offices below it for use
+     * in an <code>in (...)</code> predicate: a comma separated list of up to
+     * {@link #MAX_LISTED_OFFICE_IDS} ids, or a sub query selecting the offices
+     * by hierarchy when there are more, so that the statement stays the same
+     * size however large the office tree grows.
+     */
+    public String retrieveSqlOfficeIdListWithin(final Long officeId) {
+        if (officeId == null) { return "null"; }
+        final OfficeTree officeTree = retrieveOfficeTree();
+        String sqlOfficeIdList = officeTree.sqlOfficeIdListsByOffice.get(officeId);
+        if (sqlOfficeIdList == null) {
+            final long[] officeIds = officeIdsWithin(officeTree, officeId);
+            if (officeIds.length == 0) { return "null"; }
+            final int index = officeTree.indexOf(officeId);
+            if (officeIds.length > MAX_LISTED_OFFICE_IDS && index >= 0 && officeTree.hierarchies[index] != null
+                    && HIERARCHY_PATTERN.matcher(officeTree.hierarchies[index]).matches()) {
+                sqlOfficeIdList = "select o.id from m_office o where o.hierarchy like '" + officeTree.hierarchies[index] + "%'";
+                officeTree.sqlOfficeIdListsByOffice.putIfAbsent(officeId, sqlOfficeIdList);
+                return sqlOfficeIdList;
+            }
+            final StringBuilder sqlBuilder = new StringBuilder(officeIds.length * 4);
+            for (final long id : officeIds) {
+                if (sqlBuilder.length() > 0) {
+                    sqlBuilder.append(',');
+                }
+                sqlBuilder.append(id);
+            }
+            sqlOfficeIdList = sqlBuilder.toString();
+            officeTree.sqlOfficeIdListsByOffice.putIfAbsent(officeId, sqlOfficeIdList);
+        }
+        return sqlOfficeIdList;
+    }
+
+    /**
+     * Returns true if the office is the given ancestor office or one of the
+     * offices below it.
+     */
+    public boolean isWithin(final Long officeId, final Long ancestorOfficeId) {
+        final OfficeTree officeTree = retrieveOfficeTree();
+        final int index = officeTree.indexOf(officeId);
+        final int ancestorIndex = officeTree.indexOf(ancestorOfficeId);
+        if (index < 0 || ancestorIndex < 0) { return false; }
+        final int leftNumber = officeTree.leftNumbers[index];
+        return officeTree.leftNumbers[ancestorIndex] <= leftNumber && leftNumber < officeTree.rightNumbers[ancestorIndex];
+    }
+
+    /**
+     * Moves the office tree of the current tenant on to a new version, as part
+     * of the transaction changing the offices.
+     */
+    public void invalidate() {
+        this.officeTrees.invalidate();
+    }
+
+    private OfficeTree retrieveOfficeTree() {
+        return this.officeTrees.get();
+    }
+
+    private OfficeTree loadOfficeTree() {
+        final List<Long> rootOfficeIds = new ArrayList<>();
+        final Map<Long, List<Long>> childOfficeIdsByParent = new HashMap<>();
+        final Map<Long, String> hierarchiesByOffice = new HashMap<>();
+        this.jdbcTemplate.query("select o.id, o.parent_id, o.hierarchy from m_office o order by o.id", new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final Long officeId = rs.getLong("id");
+                final Long parentId = JdbcSupport.getLong(rs, "parent_id");
+                hierarchiesByOffice.put(officeId, rs.getString("hierarchy"));
+                if (parentId == null) {
+                    rootOfficeIds.add(officeId);
+                } else {
+                    List<Long> childOfficeIds = childOfficeIdsByParent.get(parentId);
+                    if (childOfficeIds == null) {
+                        childOfficeIds = new ArrayList<>();
+                        childOfficeIdsByParent.put(parentId, childOfficeIds);
+                    }
+                    childOfficeIds.add(officeId);
+                }
+            }
+        });
+
+        final List<Long> officeIdsInTreeOrder = new ArrayList<>();
+        final Map<Long, Integer> leftNumbersByOffice = new HashMap<>();
+        final Map<Long, Integer> rightNumbersByOffice = new HashMap<>();
+        for (final Long rootOfficeId : rootOfficeIds) {
+            number(rootOfficeId, childOfficeIdsByParent, officeIdsInTreeOrder, leftNumbersByOffice, rightNumbersByOffice);
+        }
+
+        final long[] officeIds = new long[officeIdsInTreeOrder.size()];
+        final long[] treeOrder = new long[officeIdsInTreeOrder.size()];
+        for (int i = 0; i < treeOrder.length; i++) {
+            treeOrder[i] = officeIdsInTreeOrder.get(i);
+            officeIds[i] = treeOrder[i];
+        }
+        Arrays.sort(officeIds);
+        final int[] leftNumbers = new int[officeIds.length];
+        final int[] rightNumbers = new int[officeIds.length];
+        final String[] hierarchies = new String[officeIds.length];
+        for (int i = 0; i < officeIds.length; i++) {
+            leftNumbers[i] = leftNumbersByOffice.get(officeIds[i]);
+            rightNumbers[i] = rightNumbersByOffice.get(officeIds[i]);
+            hierarchies[i] = hierarchiesByOffice.get(officeIds[i]);
+        }
+        return new OfficeTree(officeIds, leftNumbers, rightNumbers, treeOrder, hierarchies);
+    }
+
+    /**
+     * Numbers the office and the offices below it, depth first and without
+     * recursion. The left number of an office is its position in the walk and
+     * its right number the position just after its last child.
+     */
+    private static void number(final Long rootOfficeId, final Map<Long, List<Long>> childOfficeIdsByParent,
+            final List<Long> officeIdsInTreeOrder, final Map<Long, Integer> leftNumbersByOffice,
+            final Map<Long, Integer> rightNumbersByOffice) {
+        final ArrayDeque<Long> officesToVisit = new ArrayDeque<>();
+        final ArrayDeque<Long> officesToClose = new ArrayDeque<>();
+        officesToVisit.push(rootOfficeId);
+        while (!officesToVisit.isEmpty()) {
+            final Long officeId = officesToVisit.pop();
+            // a negative id marks the point where every office below the
+            // office on top of officesToClose has been numbered
+            if (officeId < 0) {
+                final Long closedOfficeId = officesToClose.pop();
+                rightNumbersByOffice.put(closedOfficeId, officeIdsInTreeOrder.size());
+                continue;
+            }
+            leftNumbersByOffice.put(officeId, officeIdsInTreeOrder.size());
+            officeIdsInTreeOrder.add(officeId);
+            officesToClose.push(officeId);
+            officesToVisit.push(-1L);
+            final List<Long> childOfficeIds = childOfficeIdsByParent.get(officeId);
+            if (childOfficeIds != null) {
+                for (int i = childOfficeIds.size() - 1; i >= 0; i--) {
+                    officesToVisit.push(childOfficeIds.get(i));
+                }
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.ls.organisation.workingdays.api.WorkingDaysApiConstants;
 import com.ls.organisation.workingdays.data.WorkingDayValidator;
 import com.ls.organisation.workingdays.domain.WorkingDays;
 import com.ls.organisation.workingdays.domain.WorkingDaysRepositoryWrapper;
+import com.ls.portfolio.calendar.service.RepaymentMeetingDateCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -64,6 +65,7 @@ public class WorkingDaysWritePlatformServiceJpaRepositoryImpl implements Working
 
             Map<String, Object> changes = workingDays.update(command);
             this.daysRepositoryWrapper.saveAndFlush(workingDays);
+            RepaymentMeetingDateCache.clear();
             return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(workingDays.getId()).with(changes)
                     .build();
         } catch (final ValidationException e) {
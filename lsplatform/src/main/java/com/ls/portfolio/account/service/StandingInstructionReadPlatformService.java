@@ -18,8 +18,6 @@
  */
 package com.ls.portfolio.account.service;
 
-import java.util.Collection;
-
 import com.ls.infrastructure.core.service.Page;
 import com.ls.portfolio.account.data.StandingInstructionDTO;
 import com.ls.portfolio.account.data.StandingInstructionData;
@@ -34,7 +32,11 @@ public interface StandingInstructionReadPlatformService {
 
     StandingInstructionData retrieveOne(Long instructionId);
 
-    Collection<StandingInstructionData> retrieveAll(Integer status);
+    /**
+     * Returns the instructions with the given status that are due to run
+     * today, highest priority first, read <code>pageSize</code> at a time.
+     */
+    Iterable<StandingInstructionData> retrieveAll(Integer status, int pageSize);
 
     StandingInstructionDuesData retriveLoanDuesData(Long loanId);
 
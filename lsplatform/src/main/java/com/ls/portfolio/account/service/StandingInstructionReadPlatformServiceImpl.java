@@ -40,6 +40,8 @@ import com.ls.infrastructure.core.service.Page;
 import com.ls.infrastructure.core.service.PaginationHelper;
 import com.ls.infrastructure.core.service.RoutingDataSource;
 import com.ls.infrastructure.core.service.SearchParameters;
+import com.ls.infrastructure.jobs.service.KeysetPageReader;
+import com.ls.infrastructure.jobs.service.KeysetPageReader.Key;
 import com.ls.organisation.office.data.OfficeData;
 import com.ls.organisation.office.service.OfficeReadPlatformService;
 import com.ls.portfolio.account.PortfolioAccountType;
@@ -329,15 +331,15 @@ public class StandingInstructionReadPlatformServiceImpl implements StandingInstr
     }
 
     @Override
-    public Collection<StandingInstructionData> retrieveAll(final Integer status) {
+    public Iterable<StandingInstructionData> retrieveAll(final Integer status, final int pageSize) {
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select ");
         sqlBuilder.append(this.standingInstructionMapper.schema());
         sqlBuilder
                 .append(" where atsi.status=? and CURRENT_DATE() >= atsi.valid_from and (atsi.valid_till IS NULL or CURRENT_DATE() < atsi.valid_till) ")
-                .append(" and  (atsi.last_run_date <> CURRENT_DATE() or atsi.last_run_date IS NULL)")
-                .append(" ORDER BY atsi.priority DESC");
-        return this.jdbcTemplate.query(sqlBuilder.toString(), this.standingInstructionMapper, status);
+                .append(" and  (atsi.last_run_date <> CURRENT_DATE() or atsi.last_run_date IS NULL)");
+        return new KeysetPageReader<>(this.jdbcTemplate.getDataSource(), sqlBuilder.toString(), new Object[] { status },
+                this.standingInstructionMapper, pageSize, Key.descending("atsi.priority", "priority"), Key.ascending("atsi.id", "id"));
     }
 
     @Override
@@ -24,7 +24,6 @@ import static com.ls.portfolio.account.AccountDetailConstants.toAccountTypeParam
 import static com.ls.portfolio.account.api.StandingInstructionApiConstants.statusParamName;
 
 import java.math.BigDecimal;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -38,6 +37,7 @@ import com.ls.infrastructure.core.service.RoutingDataSource;
 import com.ls.infrastructure.jobs.annotation.CronTarget;
 import com.ls.infrastructure.jobs.exception.JobExecutionException;
 import com.ls.infrastructure.jobs.service.JobName;
+import com.ls.infrastructure.jobs.service.SchedulerServiceConstants;
 import com.ls.portfolio.account.PortfolioAccountType;
 import com.ls.portfolio.account.api.StandingInstructionApiConstants;
 import com.ls.portfolio.account.data.AccountTransferDTO;
@@ -192,8 +192,8 @@ public class StandingInstructionWritePlatformServiceImpl implements StandingInst
     @Override
     @CronTarget(jobName = JobName.EXECUTE_STANDING_INSTRUCTIONS)
     public void executeStandingInstructions() throws JobExecutionException {
-        Collection<StandingInstructionData> instructionDatas = this.standingInstructionReadPlatformService
-                .retrieveAll(StandingInstructionStatus.ACTIVE.getValue());
+        Iterable<StandingInstructionData> instructionDatas = this.standingInstructionReadPlatformService.retrieveAll(
+                StandingInstructionStatus.ACTIVE.getValue(), SchedulerServiceConstants.DEFAULT_JOB_READ_PAGE_SIZE);
         final StringBuilder sb = new StringBuilder();
         for (StandingInstructionData data : instructionDatas) {
             boolean isDueForTransfer = false;
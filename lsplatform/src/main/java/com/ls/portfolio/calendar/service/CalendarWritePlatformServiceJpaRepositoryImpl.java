@@ -299,6 +299,7 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
             history.add(calendarHistory);
             calendarForUpdate.updateCalendarHistory(history);
             this.calendarRepository.saveAndFlush(calendarForUpdate);
+            RepaymentMeetingDateCache.clear();
 
             if (this.configurationDomainService.isRescheduleFutureRepaymentsEnabled() && calendarForUpdate.isRepeating()) {
                 // fetch all loan calendar instances associated with modifying
@@ -328,6 +329,7 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
         if (calendarForDelete == null) { throw new CalendarNotFoundException(calendarId); }
 
         this.calendarRepository.delete(calendarForDelete);
+        RepaymentMeetingDateCache.clear();
         return new CommandProcessingResultBuilder() //
                 .withCommandId(null) //
                 .withEntityId(calendarId) //
@@ -0,0 +1,142 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.calendar.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.ls.organisation.workingdays.domain.WorkingDays;
+import org.apache.commons.lang.ObjectUtils;
+import org.joda.time.LocalDate;
+
+/**
+ * Remembers the repayment meeting dates worked out by
+ * {@link CalendarUtils#getNewRepaymentMeetingDate}.
+ * 
+ * Working out a meeting date parses the recurrence rule and walks the
+ * recurrence from its seed date, and every loan of a center repeats the same
+ * walk over the same meeting calendar. A meeting date only depends on the
+ * recurrence, its seed date, the date to start from, the repayment interval
+ * and frequency, the working days and the skip on first day of month rule,
+ * so the dates are kept by all of these. A changed calendar or change to the
+ * working days therefore never finds the dates of the old one; {@link #clear()}
+ * only frees their memory.
+ * 
+ * The cache is shared by all tenants, as the same inputs always give the same
+ * date, and is emptied once it holds {@link #MAX_ENTRIES} dates.
+ */
+public final class RepaymentMeetingDateCache {
+
+    static final int MAX_ENTRIES = 100000;
+
+    private static final ConcurrentMap<MeetingDateKey, LocalDate> meetingDates = new ConcurrentHashMap<>();
+
+    private RepaymentMeetingDateCache() {}
+
+    /**
+     * Same as {@link CalendarUtils#getNewRepaymentMeetingDate}.
+     */
+    public static LocalDate getNewRepaymentMeetingDate(final String recurringRule, final LocalDate seedDate,
+            final LocalDate oldRepaymentDate, final Integer loanRepaymentInterval, final String frequency, final WorkingDays workingDays,
+            final boolean isSkipRepaymentOnFirstDayOfMonth, final Integer numberOfDays) {
+        final MeetingDateKey key = new MeetingDateKey(recurringRule, seedDate, oldRepaymentDate, loanRepaymentInterval, frequency,
+                workingDays, isSkipRepaymentOnFirstDayOfMonth, numberOfDays);
+        LocalDate meetingDate = meetingDates.get(key);
+        if (meetingDate == null) {
+            meetingDate = CalendarUtils.getNewRepaymentMeetingDate(recurringRule, seedDate, oldRepaymentDate, loanRepaymentInterval,
+                    frequency, workingDays, isSkipRepaymentOnFirstDayOfMonth, numberOfDays);
+            if (meetingDate != null) {
+                if (meetingDates.size() >= MAX_ENTRIES) {
+                    meetingDates.clear();
+                }
+                meetingDates.put(key, meetingDate);
+            }
+        }
+        return meetingDate;
+    }
+
+    /**
+     * Called when a meeting calendar or the working days change.
+     */
+    public static void clear() {
+        meetingDates.clear();
+    }
+
+    static int size() {
+        return meetingDates.size();
+    }
+
+    private static final class MeetingDateKey {
+
+        private final String recurringRule;
+        private final LocalDate seedDate;
+        private final LocalDate oldRepaymentDate;
+        private final Integer loanRepaymentInterval;
+        private final String frequency;
+        private final String workingDaysRecurrence;
+        private final Integer repaymentReschedulingType;
+        private final boolean isSkipRepaymentOnFirstDayOfMonth;
+        private final Integer numberOfDays;
+        private final int hashCode;
+
+        MeetingDateKey(final String recurringRule, final LocalDate seedDate, final LocalDate oldRepaymentDate,
+                final Integer loanRepaymentInterval, final String frequency, final WorkingDays workingDays,
+                final boolean isSkipRepaymentOnFirstDayOfMonth, final Integer numberOfDays) {
+            this.recurringRule = recurringRule;
+            this.seedDate = seedDate;
+            this.oldRepaymentDate = oldRepaymentDate;
+            this.loanRepaymentInterval = loanRepaymentInterval;
+            this.frequency = frequency;
+            this.workingDaysRecurrence = workingDays == null ? null : workingDays.getRecurrence();
+            this.repaymentReschedulingType = workingDays == null ? null : workingDays.getRepaymentReschedulingType();
+            this.isSkipRepaymentOnFirstDayOfMonth = isSkipRepaymentOnFirstDayOfMonth;
+            // the number of days only matters when skipping the first day
+            this.numberOfDays = isSkipRepaymentOnFirstDayOfMonth ? numberOfDays : null;
+            int hash = ObjectUtils.hashCode(recurringRule);
+            hash = 31 * hash + ObjectUtils.hashCode(seedDate);
+            hash = 31 * hash + ObjectUtils.hashCode(oldRepaymentDate);
+            hash = 31 * hash + ObjectUtils.hashCode(loanRepaymentInterval);
+            hash = 31 * hash + ObjectUtils.hashCode(frequency);
+            hash = 31 * hash + ObjectUtils.hashCode(this.workingDaysRecurrence);
+            hash = 31 * hash + ObjectUtils.hashCode(this.repaymentReschedulingType);
+            hash = 31 * hash + (isSkipRepaymentOnFirstDayOfMonth ? 1 : 0);
+            this.hashCode = 31 * hash + ObjectUtils.hashCode(this.numberOfDays);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) { return true; }
+            if (!(obj instanceof MeetingDateKey)) { return false; }
+            final MeetingDateKey other = (MeetingDateKey) obj;
+            return this.hashCode == other.hashCode && this.isSkipRepaymentOnFirstDayOfMonth == other.isSkipRepaymentOnFirstDayOfMonth
+                    && ObjectUtils.equals(this.recurringRule, other.recurringRule) && ObjectUtils.equals(this.seedDate, other.seedDate)
+                    && ObjectUtils.equals(this.oldRepaymentDate, other.oldRepaymentDate)
+                    && ObjectUtils.equals(this.loanRepaymentInterval, other.loanRepaymentInterval)
+                    && ObjectUtils.equals(this.frequency, other.frequency)
+                    && ObjectUtils.equals(this.workingDaysRecurrence, other.workingDaysRecurrence)
+                    && ObjectUtils.equals(this.repaymentReschedulingType, other.repaymentReschedulingType)
+                    && ObjectUtils.equals(this.numberOfDays, other.numberOfDays);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
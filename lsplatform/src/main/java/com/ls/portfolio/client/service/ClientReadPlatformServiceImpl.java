@@ -42,6 +42,7 @@ import com.ls.infrastructure.dataqueries.data.StatusEnum;
 import com.ls.infrastructure.dataqueries.service.EntityDatatableChecksReadService;
 import com.ls.infrastructure.security.service.PlatformSecurityContext;
 import com.ls.organisation.office.data.OfficeData;
+import com.ls.organisation.office.service.OfficeHierarchyIndex;
 import com.ls.organisation.office.service.OfficeReadPlatformService;
 import com.ls.organisation.staff.data.StaffData;
 import com.ls.organisation.staff.service.StaffReadPlatformService;
@@ -86,6 +87,7 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
     private final AddressReadPlatformService addressReadPlatformService;
     private final ConfigurationReadPlatformService configurationReadPlatformService;
     private final EntityDatatableChecksReadService entityDatatableChecksReadService;
+    private final OfficeHierarchyIndex officeHierarchyIndex;
 
     @Autowired
     public ClientReadPlatformServiceImpl(final PlatformSecurityContext context, final RoutingDataSource dataSource,
@@ -94,7 +96,7 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
             final SavingsProductReadPlatformService savingsProductReadPlatformService,
             final AddressReadPlatformService addressReadPlatformService,
             final ConfigurationReadPlatformService configurationReadPlatformService,
-            final EntityDatatableChecksReadService entityDatatableChecksReadService) {
+            final EntityDatatableChecksReadService entityDatatableChecksReadService, final OfficeHierarchyIndex officeHierarchyIndex) {
         this.context = context;
         this.officeReadPlatformService = officeReadPlatformService;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
@@ -104,6 +106,7 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
         this.addressReadPlatformService=addressReadPlatformService;
         this.configurationReadPlatformService=configurationReadPlatformService;
         this.entityDatatableChecksReadService = entityDatatableChecksReadService;
+        this.officeHierarchyIndex = officeHierarchyIndex;
     }
 
     @Override
@@ -167,9 +170,9 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
     @Override
     public Page<ClientData> retrieveAll(final SearchParameters searchParameters) {
 
-        final String userOfficeHierarchy = this.context.officeHierarchy();
-        final String underHierarchySearchString = userOfficeHierarchy + "%";
-        final String appUserID = String.valueOf(context.authenticatedUser().getId());
+        final AppUser currentUser = this.context.authenticatedUser();
+        final String officeIds = this.officeHierarchyIndex.retrieveSqlOfficeIdListWithin(currentUser.getOffice().getId());
+        final String appUserID = String.valueOf(currentUser.getId());
 
         // if (searchParameters.isScopedByOfficeHierarchy()) {
         // this.context.validateAccessRights(searchParameters.getHierarchy());
@@ -179,7 +182,8 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
         sqlBuilder.append(this.clientMapper.schema());
-        sqlBuilder.append(" where (o.hierarchy like ? or transferToOffice.hierarchy like ?) ");
+        sqlBuilder.append(" where (c.office_id in (").append(officeIds).append(") or c.transfer_to_office_id in (").append(officeIds)
+                .append(")) ");
         
         if(searchParameters.isSelfUser()){
         	sqlBuilder.append(" and c.id in (select umap.client_id from m_selfservice_user_client_mapping as umap where umap.appuser_id = ? ) ");
@@ -207,9 +211,9 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
         }
 
         final String sqlCountRows = "SELECT FOUND_ROWS()";
-        Object[] params = new Object[] {underHierarchySearchString, underHierarchySearchString };
+        Object[] params = new Object[] {};
         if(searchParameters.isSelfUser()){
-            params = new Object[] {underHierarchySearchString, underHierarchySearchString, appUserID };
+            params = new Object[] {appUserID };
         }
         return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), params, this.clientMapper);
     }
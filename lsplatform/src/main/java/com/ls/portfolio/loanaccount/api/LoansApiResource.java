@@ -20,6 +20,13 @@ package com.ls.portfolio.loanaccount.api;
 
 import static com.ls.portfolio.loanproduct.service.LoanEnumerations.interestType;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import javax.ws.rs.Consumes;
@@ -34,9 +41,14 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.commons.lang.StringUtils;
+import com.ls.batch.domain.BatchResponse;
+import com.ls.batch.exception.ErrorHandler;
+import com.ls.batch.exception.ErrorInfo;
 import com.ls.commands.domain.CommandWrapper;
 import com.ls.commands.service.CommandWrapperBuilder;
 import com.ls.commands.service.PortfolioCommandSourceWritePlatformService;
@@ -47,6 +59,7 @@ import com.ls.infrastructure.core.api.ApiRequestParameterHelper;
 import com.ls.infrastructure.core.api.JsonQuery;
 import com.ls.infrastructure.core.data.CommandProcessingResult;
 import com.ls.infrastructure.core.data.EnumOptionData;
+import com.ls.infrastructure.core.exception.InvalidJsonException;
 import com.ls.infrastructure.core.exception.UnrecognizedQueryParamException;
 import com.ls.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
 import com.ls.infrastructure.core.serialization.DefaultToApiJsonSerializer;
@@ -97,6 +110,7 @@ import com.ls.portfolio.loanaccount.guarantor.service.GuarantorReadPlatformServi
 import com.ls.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
 import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
 import com.ls.portfolio.loanaccount.loanschedule.service.LoanScheduleCalculationPlatformService;
+import com.ls.portfolio.loanaccount.loanschedule.service.LoanScheduleCalculationPlatformService.LoanScheduleCalculationListener;
 import com.ls.portfolio.loanaccount.loanschedule.service.LoanScheduleHistoryReadPlatformService;
 import com.ls.portfolio.loanaccount.service.LoanChargeReadPlatformService;
 import com.ls.portfolio.loanaccount.service.LoanReadPlatformService;
@@ -116,6 +130,8 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 
 @Path("/loans")
@@ -144,6 +160,8 @@ public class LoansApiResource {
     private final Set<String> LOAN_APPROVAL_DATA_PARAMETERS = new HashSet<>(Arrays.asList("approvalDate", "approvalAmount"));
     private final String resourceNameForPermissions = "LOAN";
 
+    private static final Gson BATCH_RESPONSE_SERIALIZER = new Gson();
+
     private final PlatformSecurityContext context;
     private final LoanReadPlatformService loanReadPlatformService;
     private final LoanProductReadPlatformService loanProductReadPlatformService;
@@ -657,6 +675,92 @@ public class LoansApiResource {
         return this.toApiJsonSerializer.serialize(result);
     }
 
+    /**
+     * Calculates the schedules of a JSON array of calculateLoanSchedule
+     * requests. The response is a JSON array with one batch response per
+     * request, whose requestId is the position of the request in the array.
+     * Schedules are generated in parallel and every response is written out
+     * as soon as its schedule is ready, so the responses are not in the order
+     * of the requests.
+     */
+    @POST
+    @Path("schedules")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public Response calculateLoanSchedules(@QueryParam("command") final String commandParam, @Context final UriInfo uriInfo,
+            final String apiRequestBodyAsJson) {
+
+        if (!is(commandParam, "calculateLoanSchedule")) { throw new UnrecognizedQueryParamException("command", commandParam); }
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
+
+        if (StringUtils.isBlank(apiRequestBodyAsJson)) { throw new InvalidJsonException(); }
+        final JsonElement parsedRequests = this.fromJsonHelper.parse(apiRequestBodyAsJson);
+        if (!parsedRequests.isJsonArray()) { throw new InvalidJsonException(); }
+        final JsonArray requests = parsedRequests.getAsJsonArray();
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+
+        final StreamingOutput result = new StreamingOutput() {
+
+            @Override
+            public void write(final OutputStream output) throws IOException {
+                final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                writer.write('[');
+                try {
+                    LoansApiResource.this.calculationPlatformService.calculateLoanSchedules(requests,
+                            new StreamingLoanScheduleCalculationListener(writer, settings));
+                } catch (final UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                writer.write(']');
+                writer.flush();
+            }
+        };
+        return Response.ok(result).build();
+    }
+
+    /**
+     * Writes every calculated schedule, or the error of its request, to the
+     * response and flushes it so the client receives it straight away.
+     */
+    private final class StreamingLoanScheduleCalculationListener implements LoanScheduleCalculationListener {
+
+        private final Writer writer;
+        private final ApiRequestJsonSerializationSettings settings;
+        private boolean firstResponse = true;
+
+        StreamingLoanScheduleCalculationListener(final Writer writer, final ApiRequestJsonSerializationSettings settings) {
+            this.writer = writer;
+            this.settings = settings;
+        }
+
+        @Override
+        public void calculated(final int requestIndex, final LoanScheduleModel loanSchedule) {
+            final String body = LoansApiResource.this.loanScheduleToApiJsonSerializer.serialize(this.settings, loanSchedule.toData(),
+                    new HashSet<String>());
+            write(new BatchResponse(Long.valueOf(requestIndex), 200, null, body));
+        }
+
+        @Override
+        public void failed(final int requestIndex, final RuntimeException exception) {
+            final ErrorInfo errorInfo = ErrorHandler.handler(exception);
+            write(new BatchResponse(Long.valueOf(requestIndex), errorInfo.getStatusCode(), null, errorInfo.getMessage()));
+        }
+
+        private void write(final BatchResponse response) {
+            try {
+                if (!this.firstResponse) {
+                    this.writer.write(',');
+                }
+                this.firstResponse = false;
+                LoansApiResource.BATCH_RESPONSE_SERIALIZER.toJson(response, this.writer);
+                this.writer.flush();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     @PUT
     @Path("{loanId}")
     @Consumes({ MediaType.APPLICATION_JSON })
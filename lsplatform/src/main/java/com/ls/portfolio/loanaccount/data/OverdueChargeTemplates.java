@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.data;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The parts of the overdue penalty calculation that do not depend on the
+ * loan, resolved once per run of the overdue penalty job: the penalty wait
+ * periods and the frequency of every penalty charge seen so far.
+ */
+public class OverdueChargeTemplates {
+
+    /**
+     * What the penalty schedule needs to know about a penalty charge.
+     */
+    public static final class ChargeTemplate {
+
+        private final Integer feeFrequency;
+        private final Integer feeInterval;
+
+        public ChargeTemplate(final Integer feeFrequency, final Integer feeInterval) {
+            this.feeFrequency = feeFrequency;
+            this.feeInterval = feeInterval;
+        }
+
+        public Integer getFeeFrequency() {
+            return this.feeFrequency;
+        }
+
+        public Integer getFeeInterval() {
+            return this.feeInterval;
+        }
+    }
+
+    private final Long penaltyWaitPeriod;
+    private final Long penaltyPostingWaitPeriod;
+    private final Map<Long, ChargeTemplate> chargeTemplates = new HashMap<>();
+
+    public OverdueChargeTemplates(final Long penaltyWaitPeriod, final Long penaltyPostingWaitPeriod) {
+        this.penaltyWaitPeriod = penaltyWaitPeriod;
+        this.penaltyPostingWaitPeriod = penaltyPostingWaitPeriod;
+    }
+
+    public Long getPenaltyWaitPeriod() {
+        return this.penaltyWaitPeriod;
+    }
+
+    public Long getPenaltyPostingWaitPeriod() {
+        return this.penaltyPostingWaitPeriod;
+    }
+
+    /**
+     * Returns the template of the given charge, or null if it has not been
+     * prepared yet.
+     */
+    public ChargeTemplate chargeTemplate(final Long chargeId) {
+        return this.chargeTemplates.get(chargeId);
+    }
+
+    public void addChargeTemplate(final Long chargeId, final ChargeTemplate chargeTemplate) {
+        this.chargeTemplates.put(chargeId, chargeTemplate);
+    }
+}
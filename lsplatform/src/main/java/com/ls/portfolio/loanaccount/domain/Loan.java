@@ -132,6 +132,9 @@ import com.ls.portfolio.loanproduct.domain.RecalculationFrequencyType;
 import com.ls.portfolio.loanproduct.service.LoanEnumerations;
 import com.ls.portfolio.paymentdetail.domain.PaymentDetail;
 import com.ls.useradministration.domain.AppUser;
+import org.apache.openjpa.persistence.FetchAttribute;
+import org.apache.openjpa.persistence.FetchGroup;
+import org.apache.openjpa.persistence.FetchGroups;
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
 import org.joda.time.LocalDateTime;
@@ -148,6 +151,18 @@ import com.google.gson.JsonPrimitive;
 @Component
 @Table(name = "m_loan", uniqueConstraints = { @UniqueConstraint(columnNames = { "account_no" }, name = "loan_account_no_UNIQUE"),
         @UniqueConstraint(columnNames = { "external_id" }, name = "loan_externalid_UNIQUE") })
+@FetchGroups({
+        @FetchGroup(name = LoanFetchPlan.SCHEDULE_GROUP, attributes = { @FetchAttribute(name = "repaymentScheduleInstallments"),
+                @FetchAttribute(name = "loanTransactions"), @FetchAttribute(name = "charges"),
+                @FetchAttribute(name = "disbursementDetails") }),
+        @FetchGroup(name = LoanFetchPlan.REPAYMENT_GROUP, fetchGroups = { LoanFetchPlan.SCHEDULE_GROUP }, attributes = {
+                @FetchAttribute(name = "loanTermVariations") }),
+        @FetchGroup(name = LoanFetchPlan.CHARGE_GROUP, fetchGroups = { LoanFetchPlan.SCHEDULE_GROUP }, attributes = {
+                @FetchAttribute(name = "trancheCharges") }),
+        @FetchGroup(name = LoanFetchPlan.DISBURSEMENT_GROUP, fetchGroups = { LoanFetchPlan.REPAYMENT_GROUP, LoanFetchPlan.CHARGE_GROUP }),
+        @FetchGroup(name = LoanFetchPlan.CALCULATION_GROUP, fetchGroups = { LoanFetchPlan.REPAYMENT_GROUP, LoanFetchPlan.CHARGE_GROUP }),
+        @FetchGroup(name = LoanFetchPlan.ALL_GROUP, fetchGroups = { LoanFetchPlan.DISBURSEMENT_GROUP }, attributes = {
+                @FetchAttribute(name = "collateral"), @FetchAttribute(name = "loanOfficerHistory") }) })
 public class Loan extends AbstractPersistableCustom<Long> {
 
     /** Disable optimistic locking till batch jobs failures can be fixed **/
@@ -3024,12 +3039,17 @@ public class Loan extends AbstractPersistableCustom<Long> {
             }
         }
         if (reprocess) {
+            // a regenerated schedule changes the installments paid off
+            // before the transaction as well, otherwise they stay as they are
+            LocalDate earliestAffectedDate = recalculateFrom;
             if (this.repaymentScheduleDetail().isInterestRecalculationEnabled()) {
                 regenerateRepaymentScheduleWithInterestRecalculation(scheduleGeneratorDTO, currentUser);
+                earliestAffectedDate = null;
             }
             final List<LoanTransaction> allNonContraTransactionsPostDisbursement = retreiveListOfTransactionsPostDisbursement();
-            changedTransactionDetail = loanRepaymentScheduleTransactionProcessor.handleTransaction(getDisbursementDate(),
-                    allNonContraTransactionsPostDisbursement, getCurrency(), getRepaymentScheduleInstallments(), charges());
+            changedTransactionDetail = loanRepaymentScheduleTransactionProcessor.reprocessTransactionsAffectedFrom(getDisbursementDate(),
+                    earliestAffectedDate, allNonContraTransactionsPostDisbursement, getCurrency(), getRepaymentScheduleInstallments(),
+                    charges());
             for (final Map.Entry<Long, LoanTransaction> mapEntry : changedTransactionDetail.getNewTransactionMappings().entrySet()) {
                 mapEntry.getValue().updateLoan(this);
             }
@@ -6417,17 +6437,6 @@ public class Loan extends AbstractPersistableCustom<Long> {
     public Collection<LoanCharge> getLoanCharges() {
         return this.charges;
     }
-    public void initializeLazyCollections() {
-        this.charges.size() ;
-        this.trancheCharges.size() ;
-        this.repaymentScheduleInstallments.size() ;
-        this.loanTransactions.size() ;
-        this.disbursementDetails.size() ;
-        this.loanTermVariations.size() ;
-        this.collateral.size() ;
-        this.loanOfficerHistory.size() ;
-    }
-    
     public void initializeLoanOfficerHistory() {
         this.loanOfficerHistory.size() ;
     }
@@ -0,0 +1,82 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.domain;
+
+/**
+ * The collections of a {@link Loan} that a use case works with, each backed
+ * by an OpenJPA fetch group declared on the entity.
+ * 
+ * A loan found with a fetch plan has these collections loaded together with
+ * it, one select per collection, instead of initialising every collection of
+ * the loan one by one. Collections outside of the plan stay lazy and are only
+ * loaded if a command does touch them within its transaction.
+ * 
+ * The groups build on each other: every plan starts from the schedule group
+ * (installments, transactions, charges and disbursement details) and adds
+ * what its use case needs on top.
+ */
+public enum LoanFetchPlan {
+
+    /**
+     * Repayments, recoveries and waivers, which replay the transactions over
+     * the schedule and may regenerate it.
+     */
+    REPAYMENT(LoanFetchPlan.REPAYMENT_GROUP), //
+
+    /**
+     * Disbursements and undoing them, which also work with tranches and their
+     * charges.
+     */
+    DISBURSEMENT(LoanFetchPlan.DISBURSEMENT_GROUP), //
+
+    /**
+     * Adding, paying, waiving and removing loan charges.
+     */
+    CHARGE(LoanFetchPlan.CHARGE_GROUP), //
+
+    /**
+     * Read only calculations such as the prepayment and foreclosure templates.
+     * These run outside of a transaction, so the plan has to hold everything
+     * they read from the detached loan.
+     */
+    CALCULATION(LoanFetchPlan.CALCULATION_GROUP), //
+
+    /**
+     * Every collection of the loan, for callers that hand the complete loan
+     * on, such as batch jobs and the finders that load it eagerly.
+     */
+    ALL(LoanFetchPlan.ALL_GROUP);
+
+    public static final String SCHEDULE_GROUP = "loan.schedule";
+    public static final String REPAYMENT_GROUP = "loan.repayment";
+    public static final String DISBURSEMENT_GROUP = "loan.disbursement";
+    public static final String CHARGE_GROUP = "loan.charge";
+    public static final String CALCULATION_GROUP = "loan.calculation";
+    public static final String ALL_GROUP = "loan.all";
+
+    private final String fetchGroup;
+
+    private LoanFetchPlan(final String fetchGroup) {
+        this.fetchGroup = fetchGroup;
+    }
+
+    public String getFetchGroup() {
+        return this.fetchGroup;
+    }
+}
@@ -546,12 +546,23 @@ public final class LoanRepaymentScheduleInstallment extends AbstractAuditableCus
 
     public void updateChargePortion(final Money feeChargesDue, final Money feeChargesWaived, final Money feeChargesWrittenOff,
             final Money penaltyChargesDue, final Money penaltyChargesWaived, final Money penaltyChargesWrittenOff) {
-        this.feeChargesCharged = defaultToNullIfZero(feeChargesDue.getAmount());
-        this.feeChargesWaived = defaultToNullIfZero(feeChargesWaived.getAmount());
-        this.feeChargesWrittenOff = defaultToNullIfZero(feeChargesWrittenOff.getAmount());
-        this.penaltyCharges = defaultToNullIfZero(penaltyChargesDue.getAmount());
-        this.penaltyChargesWaived = defaultToNullIfZero(penaltyChargesWaived.getAmount());
-        this.penaltyChargesWrittenOff = defaultToNullIfZero(penaltyChargesWrittenOff.getAmount());
+        this.feeChargesCharged = unlessUnchanged(this.feeChargesCharged, feeChargesDue);
+        this.feeChargesWaived = unlessUnchanged(this.feeChargesWaived, feeChargesWaived);
+        this.feeChargesWrittenOff = unlessUnchanged(this.feeChargesWrittenOff, feeChargesWrittenOff);
+        this.penaltyCharges = unlessUnchanged(this.penaltyCharges, penaltyChargesDue);
+        this.penaltyChargesWaived = unlessUnchanged(this.penaltyChargesWaived, penaltyChargesWaived);
+        this.penaltyChargesWrittenOff = unlessUnchanged(this.penaltyChargesWrittenOff, penaltyChargesWrittenOff);
+    }
+
+    /**
+     * Keeps the current value when the amount is the same, so that
+     * reprocessing the charges of a loan does not mark the installments it
+     * did not change as modified.
+     */
+    private BigDecimal unlessUnchanged(final BigDecimal currentValue, final Money amount) {
+        final BigDecimal newValue = defaultToNullIfZero(amount.getAmount());
+        if (currentValue != null && newValue != null && currentValue.compareTo(newValue) == 0) { return currentValue; }
+        return newValue;
     }
 
     public void updateAccrualPortion(final Money interest, final Money feeCharges, final Money penalityCharges) {
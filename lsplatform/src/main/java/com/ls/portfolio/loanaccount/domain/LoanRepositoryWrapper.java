@@ -24,7 +24,13 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
 import com.ls.portfolio.loanaccount.exception.LoanNotFoundException;
+import com.ls.portfolio.loanaccount.service.LoanSummaryChangeLogService;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Service;
@@ -40,10 +46,15 @@ import org.springframework.transaction.annotation.Transactional;
 public class LoanRepositoryWrapper {
 
     private final LoanRepository repository;
+    private final LoanSummaryChangeLogService loanSummaryChangeLogService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public LoanRepositoryWrapper(final LoanRepository repository) {
+    public LoanRepositoryWrapper(final LoanRepository repository, final LoanSummaryChangeLogService loanSummaryChangeLogService) {
         this.repository = repository;
+        this.loanSummaryChangeLogService = loanSummaryChangeLogService;
     }
 
     public Loan findOneWithNotFoundDetection(final Long id) {
@@ -52,11 +63,27 @@ public class LoanRepositoryWrapper {
 
     @Transactional(readOnly=true)
     public Loan findOneWithNotFoundDetection(final Long id, boolean loadLazyCollections) {
+        if (loadLazyCollections) { return this.findOneWithNotFoundDetection(id, LoanFetchPlan.ALL); }
         final Loan loan = this.repository.findOne(id);
         if (loan == null) { throw new LoanNotFoundException(id); }
-        if(loadLazyCollections) {
-            loan.initializeLazyCollections();
+        return loan;
+    }
+
+    /**
+     * Finds the loan with the collections of the given fetch plan loaded along
+     * with it.
+     */
+    @Transactional(readOnly = true)
+    public Loan findOneWithNotFoundDetection(final Long id, final LoanFetchPlan fetchPlan) {
+        final OpenJPAEntityManager openJPAEntityManager = OpenJPAPersistence.cast(this.entityManager);
+        final Loan loan;
+        openJPAEntityManager.pushFetchPlan().addFetchGroup(fetchPlan.getFetchGroup());
+        try {
+            loan = openJPAEntityManager.find(Loan.class, id);
+        } finally {
+            openJPAEntityManager.popFetchPlan();
         }
+        if (loan == null) { throw new LoanNotFoundException(id); }
         return loan;
     }
     
@@ -69,16 +96,26 @@ public class LoanRepositoryWrapper {
     }
 
     public Loan saveAndFlush(final Loan loan) {
-        return this.repository.saveAndFlush(loan) ;
+        final Loan savedLoan = this.repository.saveAndFlush(loan) ;
+        this.loanSummaryChangeLogService.markLoanSummaryChanged(savedLoan.getId());
+        return savedLoan;
     }
     
     @Transactional
     public Loan save(final Loan loan) {
-        return this.repository.save(loan) ;
+        final Loan savedLoan = this.repository.save(loan) ;
+        this.loanSummaryChangeLogService.markLoanSummaryChanged(savedLoan.getId());
+        return savedLoan;
     }
     
     public List<Loan> save(List<Loan> loans) {
-        return this.repository.save(loans) ;
+        final List<Loan> savedLoans = this.repository.save(loans) ;
+        final List<Long> loanIds = new ArrayList<>(savedLoans.size());
+        for (final Loan loan : savedLoans) {
+            loanIds.add(loan.getId());
+        }
+        this.loanSummaryChangeLogService.markLoanSummariesChanged(loanIds);
+        return savedLoans;
     }
     public void flush() {
         this.repository.flush(); 
@@ -168,15 +205,16 @@ public class LoanRepositoryWrapper {
     }
 
     //Looks like we need complete Data
+    @Transactional(readOnly = true)
     public List<Loan> findByIdsAndLoanStatusAndLoanType(@Param("ids") Collection<Long> ids,
             @Param("loanStatuses") Collection<Integer> loanStatuses, @Param("loanTypes") Collection<Integer> loanTypes) {
-        List<Loan> loans =this.repository.findByIdsAndLoanStatusAndLoanType(ids, loanStatuses, loanTypes) ;
-        if(loans != null && loans.size() > 0) {
-            for(Loan loan: loans) {
-                loan.initializeLazyCollections();
-            }
+        final OpenJPAEntityManager openJPAEntityManager = OpenJPAPersistence.cast(this.entityManager);
+        openJPAEntityManager.pushFetchPlan().addFetchGroup(LoanFetchPlan.ALL.getFetchGroup());
+        try {
+            return this.repository.findByIdsAndLoanStatusAndLoanType(ids, loanStatuses, loanTypes);
+        } finally {
+            openJPAEntityManager.popFetchPlan();
         }
-        return loans ;
     }
 
     //This method is not used
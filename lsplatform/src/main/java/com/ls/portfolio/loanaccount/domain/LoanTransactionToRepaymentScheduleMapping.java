@@ -111,6 +111,12 @@ public class LoanTransactionToRepaymentScheduleMapping extends AbstractPersistab
 
     public void setComponents(final BigDecimal principal, final BigDecimal interest, final BigDecimal feeCharges,
             final BigDecimal penaltyCharges) {
+        if (isSameAmount(this.principalPortion, principal) && isSameAmount(this.interestPortion, interest)
+                && isSameAmount(this.feeChargesPortion, feeCharges) && isSameAmount(this.penaltyChargesPortion, penaltyCharges)) {
+            // leave the mapping of a reprocessed transaction which did not
+            // change untouched, so that it is not written again
+            return;
+        }
         this.principalPortion = principal;
         this.interestPortion = interest;
         this.feeChargesPortion = feeCharges;
@@ -118,6 +124,11 @@ public class LoanTransactionToRepaymentScheduleMapping extends AbstractPersistab
         updateAmount();
     }
 
+    private static boolean isSameAmount(final BigDecimal currentValue, final BigDecimal newValue) {
+        if (currentValue == null || newValue == null) { return currentValue == newValue; }
+        return currentValue.compareTo(newValue) == 0;
+    }
+
     private void updateChargesComponents(final Money feeCharges, final Money penaltyCharges) {
         final MonetaryCurrency currency = feeCharges.getCurrency();
         this.feeChargesPortion = defaultToNullIfZero(getFeeChargesPortion(currency).plus(feeCharges));
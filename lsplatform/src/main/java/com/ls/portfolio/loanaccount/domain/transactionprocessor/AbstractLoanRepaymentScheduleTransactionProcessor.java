@@ -28,6 +28,7 @@ import java.util.Set;
 
 import com.ls.organisation.monetary.domain.MonetaryCurrency;
 import com.ls.organisation.monetary.domain.Money;
+import com.ls.organisation.monetary.domain.MoneyAccumulator;
 import com.ls.portfolio.loanaccount.data.LoanChargePaidDetail;
 import com.ls.portfolio.loanaccount.domain.ChangedTransactionDetail;
 import com.ls.portfolio.loanaccount.domain.LoanCharge;
@@ -66,6 +67,36 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
     public ChangedTransactionDetail handleTransaction(final LocalDate disbursementDate,
             final List<LoanTransaction> transactionsPostDisbursement, final MonetaryCurrency currency,
             final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges) {
+        final LocalDate earliestAffectedDate = null;
+        return reprocessTransactionsAffectedFrom(disbursementDate, earliestAffectedDate, transactionsPostDisbursement, currency,
+                installments, charges);
+    }
+
+    /**
+     * Re-processes the loan schedule like
+     * {@link #handleTransaction(LocalDate, List, MonetaryCurrency, List, Set)}
+     * but leaves out the installments paid off before the earliest affected
+     * date together with the transactions which paid them, as far as a
+     * {@link LoanTransactionReprocessingCheckpoint} allows.
+     */
+    @Override
+    public ChangedTransactionDetail reprocessTransactionsAffectedFrom(final LocalDate disbursementDate,
+            final LocalDate earliestAffectedDate, final List<LoanTransaction> allTransactionsPostDisbursement,
+            final MonetaryCurrency currency, final List<LoanRepaymentScheduleInstallment> allInstallments, final Set<LoanCharge> charges) {
+
+        if (earliestAffectedDate != null) {
+            Collections.sort(allInstallments, new Comparator<LoanRepaymentScheduleInstallment>() {
+
+                @Override
+                public int compare(LoanRepaymentScheduleInstallment ord1, LoanRepaymentScheduleInstallment ord2) {
+                    return ord1.getDueDate().compareTo(ord2.getDueDate());
+                }
+            });
+        }
+        final LoanTransactionReprocessingCheckpoint checkpoint = LoanTransactionReprocessingCheckpoint.find(earliestAffectedDate,
+                allTransactionsPostDisbursement, allInstallments, charges, currency);
+        final List<LoanTransaction> transactionsPostDisbursement = checkpoint.transactionsToReprocess(allTransactionsPostDisbursement);
+        final List<LoanRepaymentScheduleInstallment> installments = checkpoint.installmentsToReprocess(allInstallments);
 
         if (charges != null) {
             for (final LoanCharge loanCharge : charges) {
@@ -83,7 +114,7 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
         // re-process loan charges over repayment periods (picking up on waived
         // loan charges)
         final LoanRepaymentScheduleProcessingWrapper wrapper = new LoanRepaymentScheduleProcessingWrapper();
-        wrapper.reprocess(currency, disbursementDate, installments, charges);
+        wrapper.reprocess(currency, disbursementDate, allInstallments, charges);
 
         final ChangedTransactionDetail changedTransactionDetail = new ChangedTransactionDetail();
         final List<LoanTransaction> transactionstoBeProcessed = new ArrayList<>();
@@ -393,25 +424,25 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
             final List<LoanRepaymentScheduleInstallment> installments) {
 
         final LocalDate transactionDate = loanTransaction.getTransactionDate();
-        Money principalPortion = Money.zero(currency);
-        Money interestPortion = Money.zero(currency);
-        Money feeChargesPortion = Money.zero(currency);
-        Money penaltychargesPortion = Money.zero(currency);
+        final MoneyAccumulator principalPortion = new MoneyAccumulator(currency);
+        final MoneyAccumulator interestPortion = new MoneyAccumulator(currency);
+        final MoneyAccumulator feeChargesPortion = new MoneyAccumulator(currency);
+        final MoneyAccumulator penaltychargesPortion = new MoneyAccumulator(currency);
 
         // determine how much is written off in total and breakdown for
         // principal, interest and charges
         for (final LoanRepaymentScheduleInstallment currentInstallment : installments) {
 
             if (currentInstallment.isNotFullyPaidOff()) {
-                principalPortion = principalPortion.plus(currentInstallment.writeOffOutstandingPrincipal(transactionDate, currency));
-                interestPortion = interestPortion.plus(currentInstallment.writeOffOutstandingInterest(transactionDate, currency));
-                feeChargesPortion = feeChargesPortion.plus(currentInstallment.writeOffOutstandingFeeCharges(transactionDate, currency));
-                penaltychargesPortion = penaltychargesPortion.plus(currentInstallment.writeOffOutstandingPenaltyCharges(transactionDate,
-                        currency));
+                principalPortion.plus(currentInstallment.writeOffOutstandingPrincipal(transactionDate, currency));
+                interestPortion.plus(currentInstallment.writeOffOutstandingInterest(transactionDate, currency));
+                feeChargesPortion.plus(currentInstallment.writeOffOutstandingFeeCharges(transactionDate, currency));
+                penaltychargesPortion.plus(currentInstallment.writeOffOutstandingPenaltyCharges(transactionDate, currency));
             }
         }
 
-        loanTransaction.updateComponentsAndTotal(principalPortion, interestPortion, feeChargesPortion, penaltychargesPortion);
+        loanTransaction.updateComponentsAndTotal(principalPortion.toMoney(), interestPortion.toMoney(), feeChargesPortion.toMoney(),
+                penaltychargesPortion.toMoney());
     }
 
     // abstract interface
@@ -37,6 +37,18 @@ public interface LoanRepaymentScheduleTransactionProcessor {
     ChangedTransactionDetail handleTransaction(LocalDate disbursementDate, List<LoanTransaction> repaymentsOrWaivers,
             MonetaryCurrency currency, List<LoanRepaymentScheduleInstallment> repaymentScheduleInstallments, Set<LoanCharge> charges);
 
+    /**
+     * Same as re-processing all transactions with
+     * {@link #handleTransaction(LocalDate, List, MonetaryCurrency, List, Set)}
+     * for a change which cannot affect anything before
+     * <code>earliestAffectedDate</code>, such as a new or adjusted repayment on
+     * that date. Installments paid off before it, and the transactions which
+     * did so, are only reprocessed when that cannot be ruled out.
+     */
+    ChangedTransactionDetail reprocessTransactionsAffectedFrom(LocalDate disbursementDate, LocalDate earliestAffectedDate,
+            List<LoanTransaction> repaymentsOrWaivers, MonetaryCurrency currency,
+            List<LoanRepaymentScheduleInstallment> repaymentScheduleInstallments, Set<LoanCharge> charges);
+
     void handleWriteOff(LoanTransaction loanTransaction, MonetaryCurrency loanCurrency,
             List<LoanRepaymentScheduleInstallment> repaymentScheduleInstallments);
 
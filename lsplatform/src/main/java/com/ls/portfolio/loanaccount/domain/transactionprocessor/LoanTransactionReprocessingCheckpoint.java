@@ -0,0 +1,224 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.domain.transactionprocessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ls.organisation.monetary.domain.MonetaryCurrency;
+import com.ls.organisation.monetary.domain.MoneyAccumulator;
+import com.ls.portfolio.loanaccount.domain.LoanCharge;
+import com.ls.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import com.ls.portfolio.loanaccount.domain.LoanTransaction;
+import com.ls.portfolio.loanaccount.domain.LoanTransactionToRepaymentScheduleMapping;
+import org.joda.time.LocalDate;
+
+/**
+ * The point up to which reprocessing the transactions of a loan can be
+ * skipped because a change from a given date on cannot alter it.
+ *
+ * The checkpoint is made up of the leading installments which were paid off
+ * before that date and the leading transactions which paid nothing but those
+ * installments. Replaying such transactions puts exactly the same amounts on
+ * the same installments again, so both are left untouched and only the rest
+ * of the schedule is reset and replayed. The repayment schedule mappings of
+ * the skipped transactions must add up to what the installments show as paid;
+ * if anything else touched them, such as charges falling due within them, the
+ * checkpoint moves back to the last installment for which they do, down to
+ * none at all.
+ */
+final class LoanTransactionReprocessingCheckpoint {
+
+    private static final LoanTransactionReprocessingCheckpoint NONE = new LoanTransactionReprocessingCheckpoint(0, 0);
+
+    private final int numberOfSettledInstallments;
+    private final int numberOfSkippedTransactions;
+
+    private LoanTransactionReprocessingCheckpoint(final int numberOfSettledInstallments, final int numberOfSkippedTransactions) {
+        this.numberOfSettledInstallments = numberOfSettledInstallments;
+        this.numberOfSkippedTransactions = numberOfSkippedTransactions;
+    }
+
+    /**
+     * @param installments
+     *            the installments of the loan sorted by due date
+     * @param transactions
+     *            the transactions of the loan in the order they are processed
+     */
+    static LoanTransactionReprocessingCheckpoint find(final LocalDate earliestAffectedDate, final List<LoanTransaction> transactions,
+            final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges, final MonetaryCurrency currency) {
+        if (earliestAffectedDate == null) { return NONE; }
+        for (final LoanTransaction transaction : transactions) {
+            // these can take back or write off amounts of installments which
+            // were already paid off
+            if (transaction.isRefundForActiveLoan() || transaction.isWriteOff()) { return NONE; }
+        }
+
+        int numberOfSettledInstallments = 0;
+        while (numberOfSettledInstallments < installments.size()
+                && isSettledBefore(installments.get(numberOfSettledInstallments), earliestAffectedDate, currency)) {
+            numberOfSettledInstallments++;
+        }
+        numberOfSettledInstallments = Math.min(numberOfSettledInstallments,
+                numberOfInstallmentsWithoutChargesDue(installments, numberOfSettledInstallments, charges));
+
+        while (numberOfSettledInstallments > 0) {
+            final List<LoanRepaymentScheduleInstallment> settledInstallments = installments.subList(0, numberOfSettledInstallments);
+            final int numberOfSkippedTransactions = numberOfTransactionsPayingOnly(settledInstallments, transactions, earliestAffectedDate,
+                    currency);
+            final int numberOfMatchingInstallments = numberOfInstallmentsPaidBy(settledInstallments,
+                    transactions.subList(0, numberOfSkippedTransactions), currency);
+            if (numberOfMatchingInstallments == numberOfSettledInstallments) {
+                if (numberOfSkippedTransactions == 0) { return NONE; }
+                return new LoanTransactionReprocessingCheckpoint(numberOfSettledInstallments, numberOfSkippedTransactions);
+            }
+            numberOfSettledInstallments = numberOfMatchingInstallments;
+        }
+        return NONE;
+    }
+
+    private static boolean isSettledBefore(final LoanRepaymentScheduleInstallment installment, final LocalDate earliestAffectedDate,
+            final MonetaryCurrency currency) {
+        final LocalDate obligationsMetOnDate = installment.getObligationsMetOnDate();
+        return installment.getId() != null && installment.isObligationsMet() && obligationsMetOnDate != null
+                && obligationsMetOnDate.isBefore(earliestAffectedDate) && installment.getDueDate().isBefore(earliestAffectedDate)
+                && installment.getFeeChargesCharged(currency).isZero() && installment.getPenaltyChargesCharged(currency).isZero()
+                && installment.getPrincipalWrittenOff(currency).isZero() && installment.getInterestWrittenOff(currency).isZero();
+    }
+
+    /**
+     * Installment fees fall due in every installment and other charges in the
+     * installment their due date is in, which may have been paid off before
+     * they were added.
+     */
+    private static int numberOfInstallmentsWithoutChargesDue(final List<LoanRepaymentScheduleInstallment> installments,
+            final int numberOfInstallments, final Set<LoanCharge> charges) {
+        if (charges == null || numberOfInstallments == 0) { return numberOfInstallments; }
+        int numberOfInstallmentsWithoutCharges = numberOfInstallments;
+        for (final LoanCharge charge : charges) {
+            if (charge.isDueAtDisbursement()) {
+                continue;
+            }
+            final LocalDate dueDate = charge.getDueLocalDate();
+            if (charge.isInstalmentFee() || dueDate == null) { return 0; }
+            while (numberOfInstallmentsWithoutCharges > 0
+                    && !dueDate.isAfter(installments.get(numberOfInstallmentsWithoutCharges - 1).getDueDate())) {
+                numberOfInstallmentsWithoutCharges--;
+            }
+        }
+        return numberOfInstallmentsWithoutCharges;
+    }
+
+    /**
+     * The number of leading transactions which were made before the earliest
+     * affected date and went to none but the given installments.
+     */
+    private static int numberOfTransactionsPayingOnly(final List<LoanRepaymentScheduleInstallment> settledInstallments,
+            final List<LoanTransaction> transactions, final LocalDate earliestAffectedDate, final MonetaryCurrency currency) {
+        final Set<LoanRepaymentScheduleInstallment> settled = new HashSet<>(settledInstallments);
+        int numberOfTransactions = 0;
+        for (final LoanTransaction transaction : transactions) {
+            if (!transaction.getTransactionDate().isBefore(earliestAffectedDate)) {
+                break;
+            }
+            if (transaction.isRepayment() || transaction.isInterestWaiver() || transaction.isRecoveryRepayment()) {
+                if (transaction.getId() == null || transaction.getLoanTransactionToRepaymentScheduleMappings().isEmpty()
+                        || !transaction.getFeeChargesPortion(currency).isZero() || !transaction.getPenaltyChargesPortion(currency).isZero()
+                        || !transaction.getOverPaymentPortion(currency).isZero()) {
+                    break;
+                }
+                boolean paysOnlySettledInstallments = true;
+                for (final LoanTransactionToRepaymentScheduleMapping mapping : transaction.getLoanTransactionToRepaymentScheduleMappings()) {
+                    if (!settled.contains(mapping.getLoanRepaymentScheduleInstallment())) {
+                        paysOnlySettledInstallments = false;
+                        break;
+                    }
+                }
+                if (!paysOnlySettledInstallments) {
+                    break;
+                }
+            } else if (transaction.isChargePayment()) {
+                break;
+            }
+            // any other transaction, such as an accrual, leaves the
+            // installments as they are when it is processed
+            numberOfTransactions++;
+        }
+        return numberOfTransactions;
+    }
+
+    /**
+     * The number of leading installments whose principal and interest paid
+     * add up to exactly what the repayment schedule mappings of the
+     * transactions put on them.
+     */
+    private static int numberOfInstallmentsPaidBy(final List<LoanRepaymentScheduleInstallment> installments,
+            final List<LoanTransaction> transactions, final MonetaryCurrency currency) {
+        final Map<LoanRepaymentScheduleInstallment, MoneyAccumulator> principalByInstallment = new HashMap<>();
+        final Map<LoanRepaymentScheduleInstallment, MoneyAccumulator> interestByInstallment = new HashMap<>();
+        for (final LoanTransaction transaction : transactions) {
+            for (final LoanTransactionToRepaymentScheduleMapping mapping : transaction.getLoanTransactionToRepaymentScheduleMappings()) {
+                final LoanRepaymentScheduleInstallment installment = mapping.getLoanRepaymentScheduleInstallment();
+                accumulatorFor(principalByInstallment, installment, currency).plus(mapping.getPrincipalPortion(currency));
+                accumulatorFor(interestByInstallment, installment, currency).plus(mapping.getInterestPortion(currency));
+            }
+        }
+        int numberOfInstallments = 0;
+        for (final LoanRepaymentScheduleInstallment installment : installments) {
+            final MoneyAccumulator principal = accumulatorFor(principalByInstallment, installment, currency);
+            final MoneyAccumulator interest = accumulatorFor(interestByInstallment, installment, currency);
+            if (!principal.toMoney().isEqualTo(installment.getPrincipalCompleted(currency))
+                    || !interest.toMoney().isEqualTo(installment.getInterestPaid(currency).plus(installment.getInterestWaived(currency)))) {
+                break;
+            }
+            numberOfInstallments++;
+        }
+        return numberOfInstallments;
+    }
+
+    private static MoneyAccumulator accumulatorFor(final Map<LoanRepaymentScheduleInstallment, MoneyAccumulator> accumulators,
+            final LoanRepaymentScheduleInstallment installment, final MonetaryCurrency currency) {
+        MoneyAccumulator accumulator = accumulators.get(installment);
+        if (accumulator == null) {
+            accumulator = new MoneyAccumulator(currency);
+            accumulators.put(installment, accumulator);
+        }
+        return accumulator;
+    }
+
+    boolean isNone() {
+        return this.numberOfSkippedTransactions == 0;
+    }
+
+    List<LoanRepaymentScheduleInstallment> installmentsToReprocess(final List<LoanRepaymentScheduleInstallment> installments) {
+        if (isNone()) { return installments; }
+        return new ArrayList<>(installments.subList(this.numberOfSettledInstallments, installments.size()));
+    }
+
+    List<LoanTransaction> transactionsToReprocess(final List<LoanTransaction> transactions) {
+        if (isNone()) { return transactions; }
+        if (this.numberOfSkippedTransactions == transactions.size()) { return Collections.emptyList(); }
+        return transactions.subList(this.numberOfSkippedTransactions, transactions.size());
+    }
+}
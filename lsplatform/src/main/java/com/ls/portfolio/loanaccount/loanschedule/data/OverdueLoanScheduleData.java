@@ -74,6 +74,17 @@ public class OverdueLoanScheduleData {
     public Integer getPeriodNumber() {
         return this.periodNumber;
     }
+
+    public String installmentChargeKey() {
+        return installmentChargeKey(this.loanId, this.chargeId, this.periodNumber);
+    }
+
+    /**
+     * Identifies a penalty charge on an installment of a loan.
+     */
+    public static String installmentChargeKey(final Long loanId, final Long chargeId, final Integer periodNumber) {
+        return loanId + "_" + chargeId + "_" + periodNumber;
+    }
     
     @Override
     public String toString() {
@@ -34,6 +34,7 @@ import com.ls.infrastructure.core.service.DateUtils;
 import com.ls.organisation.monetary.domain.ApplicationCurrency;
 import com.ls.organisation.monetary.domain.MonetaryCurrency;
 import com.ls.organisation.monetary.domain.Money;
+import com.ls.organisation.monetary.domain.MoneyAccumulator;
 import com.ls.organisation.workingdays.domain.RepaymentRescheduleType;
 import com.ls.portfolio.calendar.domain.CalendarInstance;
 import com.ls.portfolio.calendar.service.CalendarUtils;
@@ -1376,12 +1377,13 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
                 
                 if(loanApplicationTerms.getInterestRecalculationCompoundingMethod().isCompoundingEnabled()) {
                 	Money uncompounded = params.getUnCompoundedAmount();
-                	Money compounded = uncompounded.zero();
+                	final MoneyAccumulator compoundedTotal = new MoneyAccumulator(currency);
                 	for (Map.Entry<LocalDate, Money> mapEntry : params.getCompoundingMap().entrySet()) {
                 		if (mapEntry.getKey().isAfter(params.getPeriodStartDate())) {
-                			compounded = compounded.plus(mapEntry.getValue());
+                			compoundedTotal.plus(mapEntry.getValue());
                 		}
                 	}
+                	Money compounded = compoundedTotal.toMoney();
                 	if (compounded.isGreaterThanZero() && startDate.isEqual(additionalPeriodsStartDate)) {
                 		params.setCompoundedInLastInstallment(uncompoundedFromLastInstallment);// uncompounded in last installment
                 		additionalPeriodsStartDate = additionalPeriodsStartDate.plusDays(1);
@@ -2607,21 +2609,22 @@ public abstract class AbstractLoanScheduleGenerator implements LoanScheduleGener
 
         loanRepaymentScheduleTransactionProcessor.handleTransaction(loanApplicationTerms.getExpectedDisbursementDate(), loanTransactions,
                 currency, loanScheduleDTO.getInstallments(), loan.charges());
-        Money feeCharges = Money.zero(currency);
-        Money penaltyCharges = Money.zero(currency);
-        Money totalPrincipal = Money.zero(currency);
-        Money totalInterest = Money.zero(currency);
+        final MoneyAccumulator feeCharges = new MoneyAccumulator(currency);
+        final MoneyAccumulator penaltyCharges = new MoneyAccumulator(currency);
+        final MoneyAccumulator totalPrincipal = new MoneyAccumulator(currency);
+        final MoneyAccumulator totalInterest = new MoneyAccumulator(currency);
         for (final LoanRepaymentScheduleInstallment currentInstallment : loanScheduleDTO.getInstallments()) {
             if (currentInstallment.isNotFullyPaidOff()) {
-                totalPrincipal = totalPrincipal.plus(currentInstallment.getPrincipalOutstanding(currency));
-                totalInterest = totalInterest.plus(currentInstallment.getInterestOutstanding(currency));
-                feeCharges = feeCharges.plus(currentInstallment.getFeeChargesOutstanding(currency));
-                penaltyCharges = penaltyCharges.plus(currentInstallment.getPenaltyChargesOutstanding(currency));
+                totalPrincipal.plus(currentInstallment.getPrincipalOutstanding(currency));
+                totalInterest.plus(currentInstallment.getInterestOutstanding(currency));
+                feeCharges.plus(currentInstallment.getFeeChargesOutstanding(currency));
+                penaltyCharges.plus(currentInstallment.getPenaltyChargesOutstanding(currency));
             }
         }
         final Set<LoanInterestRecalcualtionAdditionalDetails> compoundingDetails = null;
-        return new LoanRepaymentScheduleInstallment(null, 0, onDate, onDate, totalPrincipal.getAmount(), totalInterest.getAmount(),
-                feeCharges.getAmount(), penaltyCharges.getAmount(), false, compoundingDetails);
+        return new LoanRepaymentScheduleInstallment(null, 0, onDate, onDate, totalPrincipal.toMoney().getAmount(),
+                totalInterest.toMoney().getAmount(), feeCharges.toMoney().getAmount(), penaltyCharges.toMoney().getAmount(), false,
+                compoundingDetails);
     }
 
 
@@ -27,6 +27,7 @@ import com.ls.portfolio.calendar.data.CalendarHistoryDataWrapper;
 import com.ls.portfolio.calendar.domain.Calendar;
 import com.ls.portfolio.calendar.domain.CalendarHistory;
 import com.ls.portfolio.calendar.service.CalendarUtils;
+import com.ls.portfolio.calendar.service.RepaymentMeetingDateCache;
 import com.ls.portfolio.common.domain.DayOfWeekType;
 import com.ls.portfolio.common.domain.PeriodFrequencyType;
 import com.ls.portfolio.loanaccount.data.HolidayDetailDTO;
@@ -89,8 +90,8 @@ public class DefaultScheduledDateGenerator implements ScheduledDateGenerator {
                     reccuringString = calendarHistory.getRecurrence();
                 }
 
-                dueRepaymentPeriodDate = CalendarUtils.getNewRepaymentMeetingDate(reccuringString, seedDate, lastRepaymentDate.plusDays(1),
-                        loanApplicationTerms.getRepaymentEvery(),
+                dueRepaymentPeriodDate = RepaymentMeetingDateCache.getNewRepaymentMeetingDate(reccuringString, seedDate,
+                        lastRepaymentDate.plusDays(1), loanApplicationTerms.getRepaymentEvery(),
                         CalendarUtils.getMeetingFrequencyFromPeriodFrequencyType(loanApplicationTerms.getLoanTermPeriodFrequencyType()),
                         holidayDetailDTO.getWorkingDays(), loanApplicationTerms.isSkipRepaymentOnFirstDayofMonth(),
                         loanApplicationTerms.getNumberOfdays());
@@ -258,7 +259,7 @@ public class DefaultScheduledDateGenerator implements ScheduledDateGenerator {
                 if (loanCalendar == null) {
                     idealDisbursementDate = firstRepaymentDate.minusMonths(repaidEvery);
                 } else {
-                    idealDisbursementDate = CalendarUtils.getNewRepaymentMeetingDate(loanCalendar.getRecurrence(),
+                    idealDisbursementDate = RepaymentMeetingDateCache.getNewRepaymentMeetingDate(loanCalendar.getRecurrence(),
                             firstRepaymentDate.minusMonths(repaidEvery), firstRepaymentDate.minusMonths(repaidEvery), repaidEvery,
                             CalendarUtils.getMeetingFrequencyFromPeriodFrequencyType(repaymentPeriodFrequencyType),
                             holidayDetailDTO.getWorkingDays(), loanApplicationTerms.isSkipRepaymentOnFirstDayofMonth(),
@@ -173,18 +173,31 @@ public class LoanScheduleAssembler {
     }
 
     public LoanApplicationTerms assembleLoanTerms(final JsonElement element) {
+        return assembleLoanTerms(element, new LoanScheduleReferenceData());
+    }
+
+    public LoanApplicationTerms assembleLoanTerms(final JsonElement element, final LoanScheduleReferenceData referenceData) {
         final Long loanProductId = this.fromApiJsonHelper.extractLongNamed("productId", element);
 
-        final LoanProduct loanProduct = this.loanProductRepository.findOne(loanProductId);
-        if (loanProduct == null) { throw new LoanProductNotFoundException(loanProductId); }
+        LoanProduct loanProduct = referenceData.productsById().get(loanProductId);
+        if (loanProduct == null) {
+            loanProduct = this.loanProductRepository.findOne(loanProductId);
+            if (loanProduct == null) { throw new LoanProductNotFoundException(loanProductId); }
+            referenceData.productsById().put(loanProductId, loanProduct);
+        }
 
-        return assembleLoanApplicationTermsFrom(element, loanProduct);
+        return assembleLoanApplicationTermsFrom(element, loanProduct, referenceData);
     }
 
-    private LoanApplicationTerms assembleLoanApplicationTermsFrom(final JsonElement element, final LoanProduct loanProduct) {
+    private LoanApplicationTerms assembleLoanApplicationTermsFrom(final JsonElement element, final LoanProduct loanProduct,
+            final LoanScheduleReferenceData referenceData) {
 
         final MonetaryCurrency currency = loanProduct.getCurrency();
-        final ApplicationCurrency applicationCurrency = this.applicationCurrencyRepository.findOneWithNotFoundDetection(currency);
+        ApplicationCurrency applicationCurrency = referenceData.currenciesByProductId().get(loanProduct.getId());
+        if (applicationCurrency == null) {
+            applicationCurrency = this.applicationCurrencyRepository.findOneWithNotFoundDetection(currency);
+            referenceData.currenciesByProductId().put(loanProduct.getId(), applicationCurrency);
+        }
 
         // loan terms
         final Integer loanTermFrequency = this.fromApiJsonHelper.extractIntegerWithLocaleNamed("loanTermFrequency", element);
@@ -248,8 +261,7 @@ public class LoanScheduleAssembler {
          * meeting freq multiples
          */
         if ((loanType.isJLGAccount() || loanType.isGroupAccount()) && calendarId != null) {
-            calendar = this.calendarRepository.findOne(calendarId);
-            if (calendar == null) { throw new CalendarNotFoundException(calendarId); }
+            calendar = findCalendar(calendarId, referenceData);
             final PeriodFrequencyType meetingPeriodFrequency = CalendarUtils.getMeetingPeriodFrequencyType(calendar.getRecurrence());
             validateRepaymentFrequencyIsSameAsMeetingFrequency(meetingPeriodFrequency.getValue(), repaymentFrequencyType,
                     CalendarUtils.getInterval(calendar.getRecurrence()), repaymentEvery);
@@ -277,7 +289,7 @@ public class LoanScheduleAssembler {
         final Long groupId = this.fromApiJsonHelper.extractLongNamed("groupId", element);
         Group group = null;
         if(groupId != null){
-            group = this.groupRepository.findOneWithNotFoundDetection(groupId);
+            group = findGroup(groupId, referenceData);
         }
     
         Boolean isSkipMeetingOnFirstDay = false;
@@ -418,19 +430,10 @@ public class LoanScheduleAssembler {
         }
 
         final Long clientId = this.fromApiJsonHelper.extractLongNamed("clientId", element);
-        Client client = null;
-        Long officeId = null;
-        if (clientId != null) {
-            client = this.clientRepository.findOneWithNotFoundDetection(clientId);
-            officeId = client.getOffice().getId();
-        } else if (groupId != null) {
-            group = this.groupRepository.findOneWithNotFoundDetection(groupId);
-            officeId = group.getOffice().getId();
-        }
-        final boolean isHolidayEnabled = this.configurationDomainService.isRescheduleRepaymentsOnHolidaysEnabled();
-        final List<Holiday> holidays = this.holidayRepository.findByOfficeIdAndGreaterThanDate(officeId, expectedDisbursementDate.toDate(),
-                HolidayStatusType.ACTIVE.getValue());
-        final WorkingDays workingDays = this.workingDaysRepository.findOne();
+        final Long officeId = findOfficeId(clientId, groupId, referenceData);
+        final boolean isHolidayEnabled = isHolidayEnabled(referenceData);
+        final List<Holiday> holidays = findHolidays(officeId, expectedDisbursementDate, referenceData);
+        final WorkingDays workingDays = findWorkingDays(referenceData);
         HolidayDetailDTO detailDTO = new HolidayDetailDTO(isHolidayEnabled, holidays, workingDays);
         return LoanApplicationTerms.assembleFrom(applicationCurrency, loanTermFrequency, loanTermPeriodFrequencyType, numberOfRepayments,
                 repaymentEvery, repaymentPeriodFrequencyType, nthDay, weekDayType, amortizationMethod, interestMethod,
@@ -572,40 +575,45 @@ public class LoanScheduleAssembler {
 
     public LoanScheduleModel assembleLoanScheduleFrom(final JsonElement element) {
         // This method is getting called from calculate loan schedule.
-        final LoanApplicationTerms loanApplicationTerms = assembleLoanTerms(element);
+        return prepareLoanScheduleFrom(element, new LoanScheduleReferenceData()).generate();
+    }
+
+    /**
+     * Assembles everything needed to generate the loan schedule requested by
+     * <code>element</code>, looking up reference data through
+     * <code>referenceData</code>, without generating it yet.
+     */
+    public LoanScheduleGeneration prepareLoanScheduleFrom(final JsonElement element, final LoanScheduleReferenceData referenceData) {
+        final LoanApplicationTerms loanApplicationTerms = assembleLoanTerms(element, referenceData);
         // Get holiday details
-        final boolean isHolidayEnabled = this.configurationDomainService.isRescheduleRepaymentsOnHolidaysEnabled();
+        final boolean isHolidayEnabled = isHolidayEnabled(referenceData);
 
         final Long clientId = this.fromApiJsonHelper.extractLongNamed("clientId", element);
         final Long groupId = this.fromApiJsonHelper.extractLongNamed("groupId", element);
-
-        Client client = null;
-        Group group = null;
-        Long officeId = null;
-        if (clientId != null) {
-            client = this.clientRepository.findOneWithNotFoundDetection(clientId);
-            officeId = client.getOffice().getId();
-        } else if (groupId != null) {
-            group = this.groupRepository.findOneWithNotFoundDetection(groupId);
-            officeId = group.getOffice().getId();
-        }
+        final Long officeId = findOfficeId(clientId, groupId, referenceData);
 
         final LocalDate expectedDisbursementDate = this.fromApiJsonHelper.extractLocalDateNamed("expectedDisbursementDate", element);
-        final List<Holiday> holidays = this.holidayRepository.findByOfficeIdAndGreaterThanDate(officeId, expectedDisbursementDate.toDate(),
-                HolidayStatusType.ACTIVE.getValue());
-        final WorkingDays workingDays = this.workingDaysRepository.findOne();
+        final List<Holiday> holidays = findHolidays(officeId, expectedDisbursementDate, referenceData);
+        final WorkingDays workingDays = findWorkingDays(referenceData);
 
         validateDisbursementDateIsOnNonWorkingDay(loanApplicationTerms.getExpectedDisbursementDate(), workingDays);
         validateDisbursementDateIsOnHoliday(loanApplicationTerms.getExpectedDisbursementDate(), isHolidayEnabled, holidays);
 
         List<LoanDisbursementDetails> loanDisbursementDetails = this.loanUtilService.fetchDisbursementData(element.getAsJsonObject());
 
-        return assembleLoanScheduleFrom(loanApplicationTerms, isHolidayEnabled, holidays, workingDays, element, loanDisbursementDetails);
+        return prepareLoanScheduleFrom(loanApplicationTerms, isHolidayEnabled, holidays, workingDays, element, loanDisbursementDetails);
     }
 
     public LoanScheduleModel assembleLoanScheduleFrom(final LoanApplicationTerms loanApplicationTerms, final boolean isHolidayEnabled,
             final List<Holiday> holidays, final WorkingDays workingDays, final JsonElement element,
             List<LoanDisbursementDetails> disbursementDetails) {
+        return prepareLoanScheduleFrom(loanApplicationTerms, isHolidayEnabled, holidays, workingDays, element, disbursementDetails)
+                .generate();
+    }
+
+    private LoanScheduleGeneration prepareLoanScheduleFrom(final LoanApplicationTerms loanApplicationTerms,
+            final boolean isHolidayEnabled, final List<Holiday> holidays, final WorkingDays workingDays, final JsonElement element,
+            List<LoanDisbursementDetails> disbursementDetails) {
 
         final Set<LoanCharge> loanCharges = this.loanChargeAssembler.fromParsedJson(element, disbursementDetails);
 
@@ -616,7 +624,98 @@ public class LoanScheduleAssembler {
 
         HolidayDetailDTO detailDTO = new HolidayDetailDTO(isHolidayEnabled, holidays, workingDays);
 
-        return loanScheduleGenerator.generate(mc, loanApplicationTerms, loanCharges, detailDTO);
+        return new LoanScheduleGeneration(loanScheduleGenerator, mc, loanApplicationTerms, loanCharges, detailDTO);
+    }
+
+    /**
+     * A loan schedule which has been assembled and only remains to be
+     * generated. Generating it does not use the database, so it may run on
+     * another thread than the one which assembled it.
+     */
+    public static final class LoanScheduleGeneration {
+
+        private final LoanScheduleGenerator loanScheduleGenerator;
+        private final MathContext mc;
+        private final LoanApplicationTerms loanApplicationTerms;
+        private final Set<LoanCharge> loanCharges;
+        private final HolidayDetailDTO holidayDetailDTO;
+
+        LoanScheduleGeneration(final LoanScheduleGenerator loanScheduleGenerator, final MathContext mc,
+                final LoanApplicationTerms loanApplicationTerms, final Set<LoanCharge> loanCharges, final HolidayDetailDTO holidayDetailDTO) {
+            this.loanScheduleGenerator = loanScheduleGenerator;
+            this.mc = mc;
+            this.loanApplicationTerms = loanApplicationTerms;
+            this.loanCharges = loanCharges;
+            this.holidayDetailDTO = holidayDetailDTO;
+        }
+
+        public LoanScheduleModel generate() {
+            return this.loanScheduleGenerator.generate(this.mc, this.loanApplicationTerms, this.loanCharges, this.holidayDetailDTO);
+        }
+    }
+
+    private boolean isHolidayEnabled(final LoanScheduleReferenceData referenceData) {
+        if (referenceData.getHolidayEnabled() == null) {
+            referenceData.setHolidayEnabled(this.configurationDomainService.isRescheduleRepaymentsOnHolidaysEnabled());
+        }
+        return referenceData.getHolidayEnabled();
+    }
+
+    private WorkingDays findWorkingDays(final LoanScheduleReferenceData referenceData) {
+        if (referenceData.getWorkingDays() == null) {
+            referenceData.setWorkingDays(this.workingDaysRepository.findOne());
+        }
+        return referenceData.getWorkingDays();
+    }
+
+    Long findOfficeId(final Long clientId, final Long groupId, final LoanScheduleReferenceData referenceData) {
+        Long officeId = null;
+        if (clientId != null) {
+            officeId = referenceData.officeIdsByClientId().get(clientId);
+            if (officeId == null) {
+                final Client client = this.clientRepository.findOneWithNotFoundDetection(clientId);
+                officeId = client.getOffice().getId();
+                referenceData.officeIdsByClientId().put(clientId, officeId);
+            }
+        } else if (groupId != null) {
+            officeId = findGroup(groupId, referenceData).getOffice().getId();
+        }
+        return officeId;
+    }
+
+    Group findGroup(final Long groupId, final LoanScheduleReferenceData referenceData) {
+        Group group = referenceData.groupsById().get(groupId);
+        if (group == null) {
+            group = this.groupRepository.findOneWithNotFoundDetection(groupId);
+            referenceData.groupsById().put(groupId, group);
+        }
+        return group;
+    }
+
+    Calendar findCalendar(final Long calendarId, final LoanScheduleReferenceData referenceData) {
+        Calendar calendar = referenceData.calendarsById().get(calendarId);
+        if (calendar == null) {
+            calendar = this.calendarRepository.findOne(calendarId);
+            if (calendar == null) { throw new CalendarNotFoundException(calendarId); }
+            referenceData.calendarsById().put(calendarId, calendar);
+        }
+        return calendar;
+    }
+
+    /**
+     * The active holidays of the office from the given date on. They are
+     * loaded once per office, from the earliest date asked for so far, and
+     * narrowed down to the given date in memory.
+     */
+    List<Holiday> findHolidays(final Long officeId, final LocalDate fromDate, final LoanScheduleReferenceData referenceData) {
+        LoanScheduleReferenceData.OfficeHolidays officeHolidays = referenceData.holidaysByOfficeId().get(officeId);
+        if (officeHolidays == null || !officeHolidays.covers(fromDate)) {
+            final List<Holiday> holidays = this.holidayRepository.findByOfficeIdAndGreaterThanDate(officeId, fromDate.toDate(),
+                    HolidayStatusType.ACTIVE.getValue());
+            officeHolidays = new LoanScheduleReferenceData.OfficeHolidays(fromDate, holidays);
+            referenceData.holidaysByOfficeId().put(officeId, officeHolidays);
+        }
+        return officeHolidays.holidaysFrom(fromDate);
     }
 
     public LoanScheduleModel assembleForInterestRecalculation(final LoanApplicationTerms loanApplicationTerms, final Long officeId,
@@ -18,14 +18,35 @@
  */
 package com.ls.portfolio.loanaccount.loanschedule.service;
 
+import com.google.gson.JsonArray;
 import com.ls.infrastructure.core.api.JsonQuery;
 import com.ls.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
 import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
 
 public interface LoanScheduleCalculationPlatformService {
 
+    /**
+     * Receives the outcome of every request of a bulk schedule calculation.
+     * Both methods are called on the thread which started the calculation.
+     */
+    interface LoanScheduleCalculationListener {
+
+        void calculated(int requestIndex, LoanScheduleModel loanSchedule);
+
+        void failed(int requestIndex, RuntimeException exception);
+    }
+
     LoanScheduleModel calculateLoanSchedule(JsonQuery query, Boolean validateParams);
 
+    /**
+     * Calculates the schedules of a batch of <code>calculateLoanSchedule</code>
+     * requests. Products, currencies, offices, holidays and working days are
+     * looked up once for the whole batch and the schedules are generated in
+     * parallel, so they reach the listener in the order they complete rather
+     * than in the order of the requests.
+     */
+    void calculateLoanSchedules(JsonArray requests, LoanScheduleCalculationListener listener);
+
     void updateFutureSchedule(LoanScheduleData loanScheduleData, Long loanId);
 
     LoanScheduleData generateLoanScheduleForVariableInstallmentRequest(Long loanId, String json);
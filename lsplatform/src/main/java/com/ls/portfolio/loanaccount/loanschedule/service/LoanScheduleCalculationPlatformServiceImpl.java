@@ -21,16 +21,25 @@ package com.ls.portfolio.loanaccount.loanschedule.service;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import com.ls.infrastructure.configuration.domain.ConfigurationDomainService;
 import com.ls.infrastructure.core.api.JsonQuery;
 import com.ls.infrastructure.core.data.ApiParameterError;
 import com.ls.infrastructure.core.data.DataValidatorBuilder;
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
 import com.ls.infrastructure.core.exception.PlatformApiDataValidationException;
+import com.ls.infrastructure.core.exception.PlatformInternalServerException;
 import com.ls.infrastructure.core.serialization.FromJsonHelper;
 import com.ls.infrastructure.core.service.DateUtils;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
 import com.ls.organisation.monetary.data.CurrencyData;
 import com.ls.organisation.monetary.domain.MonetaryCurrency;
 import com.ls.organisation.monetary.domain.Money;
@@ -47,6 +56,7 @@ import com.ls.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
 import com.ls.portfolio.loanaccount.loanschedule.data.LoanSchedulePeriodData;
 import com.ls.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
 import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import com.ls.portfolio.loanaccount.loanschedule.service.LoanScheduleAssembler.LoanScheduleGeneration;
 import com.ls.portfolio.loanaccount.serialization.CalculateLoanScheduleQueryFromApiJsonHelper;
 import com.ls.portfolio.loanaccount.serialization.LoanApplicationCommandFromApiJsonHelper;
 import com.ls.portfolio.loanaccount.service.LoanAssembler;
@@ -60,6 +70,9 @@ import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
 @Service
 public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleCalculationPlatformService {
 
@@ -75,6 +88,7 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
     private final ConfigurationDomainService configurationDomainService;
     private final CurrencyReadPlatformService currencyReadPlatformService;
     private final LoanUtilService loanUtilService;
+    private final LoanScheduleGenerationExecutor loanScheduleGenerationExecutor;
 
     @Autowired
     public LoanScheduleCalculationPlatformServiceImpl(final CalculateLoanScheduleQueryFromApiJsonHelper fromApiJsonDeserializer,
@@ -84,7 +98,7 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
             final LoanAssembler loanAssembler,
             final LoanRepaymentScheduleTransactionProcessorFactory loanRepaymentScheduleTransactionProcessorFactory,
             final ConfigurationDomainService configurationDomainService, final CurrencyReadPlatformService currencyReadPlatformService,
-            final LoanUtilService loanUtilService) {
+            final LoanUtilService loanUtilService, final LoanScheduleGenerationExecutor loanScheduleGenerationExecutor) {
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
         this.loanScheduleAssembler = loanScheduleAssembler;
         this.fromJsonHelper = fromJsonHelper;
@@ -97,6 +111,7 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
         this.configurationDomainService = configurationDomainService;
         this.currencyReadPlatformService = currencyReadPlatformService;
         this.loanUtilService = loanUtilService;
+        this.loanScheduleGenerationExecutor = loanScheduleGenerationExecutor;
     }
 
     @Override
@@ -114,6 +129,103 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
             boolean isMeetingMandatoryForJLGLoans = configurationDomainService.isMeetingMandatoryForJLGLoans();
             this.loanApiJsonDeserializer.validateForCreate(query.json(), isMeetingMandatoryForJLGLoans, loanProduct);
         }
+        validateLoanScheduleQuery(query, loanProduct);
+
+        return this.loanScheduleAssembler.assembleLoanScheduleFrom(query.parsedJson());
+    }
+
+    @Override
+    public void calculateLoanSchedules(final JsonArray requests, final LoanScheduleCalculationListener listener) {
+        final LoanScheduleReferenceData referenceData = new LoanScheduleReferenceData();
+        final boolean isMeetingMandatoryForJLGLoans = this.configurationDomainService.isMeetingMandatoryForJLGLoans();
+        final FineractPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final CompletionService<GeneratedLoanSchedule> completionService = this.loanScheduleGenerationExecutor.newCompletionService();
+        final int maxSchedulesInFlight = this.loanScheduleGenerationExecutor.getMaxSchedulesInFlight();
+        final Map<Integer, Future<GeneratedLoanSchedule>> schedulesInFlight = new HashMap<>();
+        int requestIndex = 0;
+        try {
+            for (; requestIndex < requests.size(); requestIndex++) {
+                try {
+                    // assembling reads from the database and stays on this
+                    // thread, only the generation itself is handed over
+                    final LoanScheduleGeneration generation = prepareLoanScheduleGeneration(requests.get(requestIndex), referenceData,
+                            isMeetingMandatoryForJLGLoans);
+                    schedulesInFlight.put(requestIndex,
+                            completionService.submit(new LoanScheduleGenerationTask(tenant, requestIndex, generation)));
+                } catch (final RuntimeException e) {
+                    listener.failed(requestIndex, e);
+                }
+
+                Future<GeneratedLoanSchedule> completed = schedulesInFlight.size() < maxSchedulesInFlight ? completionService.poll()
+                        : completionService.take();
+                while (completed != null) {
+                    report(completed, schedulesInFlight, listener);
+                    completed = completionService.poll();
+                }
+            }
+            while (!schedulesInFlight.isEmpty()) {
+                report(completionService.take(), schedulesInFlight, listener);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final PlatformInternalServerException interrupted = new PlatformInternalServerException(
+                    "error.msg.loan.schedule.calculation.interrupted", "The calculation of the loan schedule was interrupted.");
+            for (final Integer requestIndexInFlight : schedulesInFlight.keySet()) {
+                listener.failed(requestIndexInFlight, interrupted);
+            }
+            for (int unsubmittedRequestIndex = requestIndex + 1; unsubmittedRequestIndex < requests.size(); unsubmittedRequestIndex++) {
+                listener.failed(unsubmittedRequestIndex, interrupted);
+            }
+        } finally {
+            // nothing collects these any more when the calculation was
+            // interrupted or the listener failed
+            for (final Future<GeneratedLoanSchedule> scheduleInFlight : schedulesInFlight.values()) {
+                scheduleInFlight.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Validates one request of a bulk calculation and assembles its schedule,
+     * looking reference data up through <code>referenceData</code>.
+     */
+    LoanScheduleGeneration prepareLoanScheduleGeneration(final JsonElement request, final LoanScheduleReferenceData referenceData,
+            final boolean isMeetingMandatoryForJLGLoans) {
+        final JsonQuery query = JsonQuery.from(request.toString(), request, this.fromJsonHelper);
+
+        final Long productId = this.fromJsonHelper.extractLongNamed("productId", request);
+        LoanProduct loanProduct = referenceData.productsById().get(productId);
+        if (loanProduct == null) {
+            loanProduct = this.loanProductRepository.findOne(productId);
+            if (loanProduct == null) { throw new LoanProductNotFoundException(productId); }
+            referenceData.productsById().put(productId, loanProduct);
+        }
+
+        this.loanApiJsonDeserializer.validateForCreate(query.json(), isMeetingMandatoryForJLGLoans, loanProduct);
+        validateLoanScheduleQuery(query, loanProduct);
+
+        return this.loanScheduleAssembler.prepareLoanScheduleFrom(request, referenceData);
+    }
+
+    /**
+     * Hands a generated schedule to the listener. Generation failures are
+     * caught by the {@link LoanScheduleGenerationTask}, so only errors end up
+     * in an {@link ExecutionException}.
+     */
+    private static void report(final Future<GeneratedLoanSchedule> completed,
+            final Map<Integer, Future<GeneratedLoanSchedule>> schedulesInFlight, final LoanScheduleCalculationListener listener)
+            throws InterruptedException {
+        final GeneratedLoanSchedule generatedLoanSchedule;
+        try {
+            generatedLoanSchedule = completed.get();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        schedulesInFlight.remove(generatedLoanSchedule.requestIndex);
+        generatedLoanSchedule.reportTo(listener);
+    }
+
+    private void validateLoanScheduleQuery(final JsonQuery query, final LoanProduct loanProduct) {
         this.fromApiJsonDeserializer.validate(query.json());
 
         final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
@@ -134,8 +246,57 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
             this.loanProductCommandFromApiJsonDeserializer.validateMinMaxConstraints(query.parsedJson(), baseDataValidator, loanProduct);
         }
         if (!dataValidationErrors.isEmpty()) { throw new PlatformApiDataValidationException(dataValidationErrors); }
+    }
 
-        return this.loanScheduleAssembler.assembleLoanScheduleFrom(query.parsedJson());
+    private static final class GeneratedLoanSchedule {
+
+        private final int requestIndex;
+        private final LoanScheduleModel loanSchedule;
+        private final RuntimeException failure;
+
+        GeneratedLoanSchedule(final int requestIndex, final LoanScheduleModel loanSchedule, final RuntimeException failure) {
+            this.requestIndex = requestIndex;
+            this.loanSchedule = loanSchedule;
+            this.failure = failure;
+        }
+
+        void reportTo(final LoanScheduleCalculationListener listener) {
+            if (this.failure == null) {
+                listener.calculated(this.requestIndex, this.loanSchedule);
+            } else {
+                listener.failed(this.requestIndex, this.failure);
+            }
+        }
+    }
+
+    /**
+     * Generates one schedule of a bulk calculation on a thread of the
+     * {@link LoanScheduleGenerationExecutor}, within the tenant of the
+     * request.
+     */
+    private static final class LoanScheduleGenerationTask implements Callable<GeneratedLoanSchedule> {
+
+        private final FineractPlatformTenant tenant;
+        private final int requestIndex;
+        private final LoanScheduleGeneration generation;
+
+        LoanScheduleGenerationTask(final FineractPlatformTenant tenant, final int requestIndex, final LoanScheduleGeneration generation) {
+            this.tenant = tenant;
+            this.requestIndex = requestIndex;
+            this.generation = generation;
+        }
+
+        @Override
+        public GeneratedLoanSchedule call() {
+            ThreadLocalContextUtil.setTenant(this.tenant);
+            try {
+                return new GeneratedLoanSchedule(this.requestIndex, this.generation.generate(), null);
+            } catch (final RuntimeException e) {
+                return new GeneratedLoanSchedule(this.requestIndex, null, e);
+            } finally {
+                ThreadLocalContextUtil.clearTenant();
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.loanschedule.service;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The bounded pool of threads on which bulk loan schedule calculations
+ * generate their schedules.
+ * 
+ * The pool is shared by all tenants and requests, so concurrent bulk
+ * calculations cannot use more than <code>generationThreads</code> threads
+ * between them. Every calculation also keeps at most
+ * {@link #getMaxSchedulesInFlight()} schedules queued or generated but not
+ * yet handed back, which bounds the memory a single batch can hold.
+ * 
+ * The pool size can be overridden with the
+ * <code>fineract.loanschedule.generationThreads</code> property.
+ */
+@Component
+public class LoanScheduleGenerationExecutor {
+
+    public final static String GENERATION_THREADS = "fineract.loanschedule.generationThreads";
+
+    private final int generationThreads;
+    private final ExecutorService executorService;
+
+    @Autowired
+    public LoanScheduleGenerationExecutor(@Value("${" + GENERATION_THREADS + ":4}") final int generationThreads) {
+        this.generationThreads = Math.max(1, generationThreads);
+        this.executorService = Executors.newFixedThreadPool(this.generationThreads, new GenerationThreadFactory());
+    }
+
+    public <T> CompletionService<T> newCompletionService() {
+        return new ExecutorCompletionService<>(this.executorService);
+    }
+
+    public int getMaxSchedulesInFlight() {
+        return this.generationThreads * 2;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executorService.shutdownNow();
+    }
+
+    private static final class GenerationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "loan-schedule-generation-" + this.threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.loanschedule.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ls.organisation.holiday.domain.Holiday;
+import com.ls.organisation.monetary.domain.ApplicationCurrency;
+import com.ls.organisation.workingdays.domain.WorkingDays;
+import com.ls.portfolio.calendar.domain.Calendar;
+import com.ls.portfolio.group.domain.Group;
+import com.ls.portfolio.loanproduct.domain.LoanProduct;
+import org.joda.time.LocalDate;
+
+/**
+ * Reference data looked up by the {@link LoanScheduleAssembler} while
+ * assembling loan schedules.
+ * 
+ * A single schedule calculation uses a fresh instance. A bulk calculation
+ * shares one instance over all of its requests, so that products, currencies,
+ * offices, groups, meeting calendars, holidays and working days are looked up
+ * once per batch rather than once per schedule. Instances are not thread safe and are only used by the
+ * thread assembling the schedules.
+ */
+public final class LoanScheduleReferenceData {
+
+    private Boolean holidayEnabled;
+    private WorkingDays workingDays;
+    private final Map<Long, LoanProduct> productsById = new HashMap<>();
+    private final Map<Long, ApplicationCurrency> currenciesByProductId = new HashMap<>();
+    private final Map<Long, Long> officeIdsByClientId = new HashMap<>();
+    private final Map<Long, Group> groupsById = new HashMap<>();
+    private final Map<Long, Calendar> calendarsById = new HashMap<>();
+    private final Map<Long, OfficeHolidays> holidaysByOfficeId = new HashMap<>();
+
+    /**
+     * The active holidays of an office which end on or after
+     * <code>fromDate</code>.
+     */
+    static final class OfficeHolidays {
+
+        private final LocalDate fromDate;
+        private final List<Holiday> holidays;
+
+        OfficeHolidays(final LocalDate fromDate, final List<Holiday> holidays) {
+            this.fromDate = fromDate;
+            this.holidays = holidays;
+        }
+
+        boolean covers(final LocalDate date) {
+            return !date.isBefore(this.fromDate);
+        }
+
+        /**
+         * Applies the same condition as
+         * <code>HolidayRepository.findByOfficeIdAndGreaterThanDate</code>.
+         */
+        List<Holiday> holidaysFrom(final LocalDate date) {
+            final List<Holiday> holidaysFromDate = new ArrayList<>(this.holidays.size());
+            for (final Holiday holiday : this.holidays) {
+                if (!holiday.getFromDateLocalDate().isBefore(date) || !holiday.getToDateLocalDate().isBefore(date)) {
+                    holidaysFromDate.add(holiday);
+                }
+            }
+            return holidaysFromDate;
+        }
+    }
+
+    Boolean getHolidayEnabled() {
+        return this.holidayEnabled;
+    }
+
+    void setHolidayEnabled(final Boolean holidayEnabled) {
+        this.holidayEnabled = holidayEnabled;
+    }
+
+    WorkingDays getWorkingDays() {
+        return this.workingDays;
+    }
+
+    void setWorkingDays(final WorkingDays workingDays) {
+        this.workingDays = workingDays;
+    }
+
+    Map<Long, LoanProduct> productsById() {
+        return this.productsById;
+    }
+
+    Map<Long, ApplicationCurrency> currenciesByProductId() {
+        return this.currenciesByProductId;
+    }
+
+    Map<Long, Long> officeIdsByClientId() {
+        return this.officeIdsByClientId;
+    }
+
+    Map<Long, Group> groupsById() {
+        return this.groupsById;
+    }
+
+    Map<Long, Calendar> calendarsById() {
+        return this.calendarsById;
+    }
+
+    Map<Long, OfficeHolidays> holidaysByOfficeId() {
+        return this.holidaysByOfficeId;
+    }
+}
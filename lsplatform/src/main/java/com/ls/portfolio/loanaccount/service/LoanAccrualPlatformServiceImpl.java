@@ -21,27 +21,44 @@ package com.ls.portfolio.loanaccount.service;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.ls.infrastructure.jobs.annotation.CronTarget;
 import com.ls.infrastructure.jobs.exception.JobExecutionException;
 import com.ls.infrastructure.jobs.service.JobName;
+import com.ls.infrastructure.jobs.service.JobProgress;
+import com.ls.infrastructure.jobs.service.JobProgressTracker;
+import com.ls.infrastructure.jobs.service.SchedulerJobRunnerReadService;
+import com.ls.infrastructure.jobs.service.SchedulerServiceConstants;
 import com.ls.portfolio.loanaccount.data.LoanScheduleAccrualData;
 import org.joda.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class LoanAccrualPlatformServiceImpl implements LoanAccrualPlatformService {
 
+    private final static Logger logger = LoggerFactory.getLogger(LoanAccrualPlatformServiceImpl.class);
+
+    private static final int DEFAULT_PERIODIC_ACCRUAL_CHUNK_SIZE = 500;
+
     private final LoanReadPlatformService loanReadPlatformService;
     private final LoanAccrualWritePlatformService loanAccrualWritePlatformService;
+    private final SchedulerJobRunnerReadService schedulerJobRunnerReadService;
+    private final JobProgressTracker jobProgressTracker;
 
     @Autowired
     public LoanAccrualPlatformServiceImpl(final LoanReadPlatformService loanReadPlatformService,
-            final LoanAccrualWritePlatformService loanAccrualWritePlatformService) {
+            final LoanAccrualWritePlatformService loanAccrualWritePlatformService,
+            final SchedulerJobRunnerReadService schedulerJobRunnerReadService, final JobProgressTracker jobProgressTracker) {
         this.loanReadPlatformService = loanReadPlatformService;
         this.loanAccrualWritePlatformService = loanAccrualWritePlatformService;
+        this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
+        this.jobProgressTracker = jobProgressTracker;
     }
 
     @Override
@@ -75,11 +92,57 @@ public class LoanAccrualPlatformServiceImpl implements LoanAccrualPlatformServic
         if (sb.length() > 0) { throw new JobExecutionException(sb.toString()); }
     }
 
+    /**
+     * Reads the pending accruals a chunk of loans at a time, walking the loan
+     * ids in order, and posts each chunk with JDBC batches in a single
+     * transaction. A chunk that fails while being written is rolled back and
+     * posted again loan by loan, so one bad loan only costs the speed up of
+     * its own chunk.
+     */
     @Override
     @CronTarget(jobName = JobName.ADD_PERIODIC_ACCRUAL_ENTRIES)
     public void addPeriodicAccruals() throws JobExecutionException {
-        String errors = addPeriodicAccruals(LocalDate.now());
-        if (errors.length() > 0) { throw new JobExecutionException(errors); }
+        final LocalDate tilldate = LocalDate.now();
+        final Map<String, String> jobParameters = this.schedulerJobRunnerReadService
+                .retrieveJobParameters(JobName.ADD_PERIODIC_ACCRUAL_ENTRIES);
+        final String bulkMode = jobParameters.get(SchedulerServiceConstants.JOB_PARAMETER_BULK_MODE);
+        if (bulkMode != null && !Boolean.parseBoolean(bulkMode.trim())) {
+            String errors = addPeriodicAccruals(tilldate);
+            if (errors.length() > 0) { throw new JobExecutionException(errors); }
+            return;
+        }
+        final int chunkSize = this.schedulerJobRunnerReadService.retrieveIntegerJobParameter(JobName.ADD_PERIODIC_ACCRUAL_ENTRIES,
+                SchedulerServiceConstants.JOB_PARAMETER_CHUNK_SIZE, DEFAULT_PERIODIC_ACCRUAL_CHUNK_SIZE);
+
+        final JobProgress progress = this.jobProgressTracker.progressOf(JobName.ADD_PERIODIC_ACCRUAL_ENTRIES);
+        final StringBuilder sb = new StringBuilder();
+        Long lastLoanId = null;
+        List<Long> loanIds = this.loanReadPlatformService.retrievePeriodicAccrualLoanIds(tilldate, lastLoanId, chunkSize);
+        while (!loanIds.isEmpty()) {
+            final Long fromLoanId = loanIds.get(0);
+            lastLoanId = loanIds.get(loanIds.size() - 1);
+            progress.startPartition("loans " + fromLoanId + " to " + lastLoanId);
+            final Map<Long, Collection<LoanScheduleAccrualData>> loanDataMap = groupByLoan(this.loanReadPlatformService
+                    .retrivePeriodicAccrualData(tilldate, fromLoanId, lastLoanId));
+            try {
+                final Map<Long, Exception> failures = this.loanAccrualWritePlatformService.addPeriodicAccruals(tilldate, loanDataMap);
+                progress.itemsProcessed(loanDataMap.size() - failures.size());
+                for (final Map.Entry<Long, Exception> failure : failures.entrySet()) {
+                    progress.itemFailed(failure.getKey(), failure.getValue());
+                    sb.append(failureMessage(failure.getKey(), failure.getValue()));
+                }
+            } catch (Exception e) {
+                logger.warn("Batched periodic accruals failed for loans " + fromLoanId + " to " + lastLoanId
+                        + ", posting them one by one", e);
+                sb.append(addPeriodicAccruals(tilldate, loanDataMap, progress));
+            }
+            if (loanIds.size() < chunkSize) {
+                break;
+            }
+            loanIds = this.loanReadPlatformService.retrievePeriodicAccrualLoanIds(tilldate, lastLoanId, chunkSize);
+        }
+
+        if (sb.length() > 0) { throw new JobExecutionException(sb.toString()); }
     }
 
     @Override
@@ -90,7 +153,6 @@ public class LoanAccrualPlatformServiceImpl implements LoanAccrualPlatformServic
 
     @Override
     public String addPeriodicAccruals(final LocalDate tilldate, Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
-        StringBuilder sb = new StringBuilder();
         Map<Long, Collection<LoanScheduleAccrualData>> loanDataMap = new HashMap<>();
         for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
             if (loanDataMap.containsKey(accrualData.getLoanId())) {
@@ -101,22 +163,46 @@ public class LoanAccrualPlatformServiceImpl implements LoanAccrualPlatformServic
                 loanDataMap.put(accrualData.getLoanId(), accrualDatas);
             }
         }
+        return addPeriodicAccruals(tilldate, loanDataMap, new JobProgress());
+    }
 
+    private String addPeriodicAccruals(final LocalDate tilldate, final Map<Long, Collection<LoanScheduleAccrualData>> loanDataMap,
+            final JobProgress progress) {
+        StringBuilder sb = new StringBuilder();
         for (Map.Entry<Long, Collection<LoanScheduleAccrualData>> mapEntry : loanDataMap.entrySet()) {
             try {
                 this.loanAccrualWritePlatformService.addPeriodicAccruals(tilldate, mapEntry.getKey(), mapEntry.getValue());
+                progress.itemsProcessed(1);
             } catch (Exception e) {
-                Throwable realCause = e;
-                if (e.getCause() != null) {
-                    realCause = e.getCause();
-                }
-                sb.append("failed to add accural transaction for loan " + mapEntry.getKey() + " with message " + realCause.getMessage());
+                progress.itemFailed(mapEntry.getKey(), e);
+                sb.append(failureMessage(mapEntry.getKey(), e));
             }
         }
 
         return sb.toString();
     }
 
+    private static String failureMessage(final Long loanId, final Exception e) {
+        Throwable realCause = e;
+        if (e.getCause() != null) {
+            realCause = e.getCause();
+        }
+        return "failed to add accural transaction for loan " + loanId + " with message " + realCause.getMessage();
+    }
+
+    private static Map<Long, Collection<LoanScheduleAccrualData>> groupByLoan(final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
+        final Map<Long, Collection<LoanScheduleAccrualData>> loanDataMap = new LinkedHashMap<>();
+        for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
+            Collection<LoanScheduleAccrualData> accrualDatas = loanDataMap.get(accrualData.getLoanId());
+            if (accrualDatas == null) {
+                accrualDatas = new ArrayList<>();
+                loanDataMap.put(accrualData.getLoanId(), accrualDatas);
+            }
+            accrualDatas.add(accrualData);
+        }
+        return loanDataMap;
+    }
+
     @Override
     @CronTarget(jobName = JobName.ADD_PERIODIC_ACCRUAL_ENTRIES_FOR_LOANS_WITH_INCOME_POSTED_AS_TRANSACTIONS)
     public void addPeriodicAccrualsForLoansWithIncomePostedAsTransactions() throws JobExecutionException {
@@ -19,6 +19,7 @@
 package com.ls.portfolio.loanaccount.service;
 
 import java.util.Collection;
+import java.util.Map;
 
 import com.ls.portfolio.loanaccount.data.LoanScheduleAccrualData;
 import org.joda.time.LocalDate;
@@ -29,5 +30,13 @@ public interface LoanAccrualWritePlatformService {
 
     void addPeriodicAccruals(LocalDate tilldate, Long loanId, Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) throws Exception;
 
+    /**
+     * Adds the periodic accruals of many loans in one transaction, writing
+     * them with JDBC batches. Loans whose accruals cannot be worked out are
+     * skipped and returned with the exception they failed with, so all other
+     * loans were posted; a failure while writing rolls back the whole set.
+     */
+    Map<Long, Exception> addPeriodicAccruals(LocalDate tilldate, Map<Long, Collection<LoanScheduleAccrualData>> loanScheduleAccrualDatas);
+
     void addIncomeAndAccrualTransactions(Long loanId) throws Exception;
 }
@@ -19,6 +19,11 @@
 package com.ls.portfolio.loanaccount.service;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -51,6 +56,7 @@ import com.ls.useradministration.domain.AppUserRepositoryWrapper;
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -58,6 +64,45 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlatformService {
 
+    private static final String TRANSACTION_SQL = "INSERT INTO m_loan_transaction  (loan_id,office_id,is_reversed,transaction_type_enum,transaction_date,amount,interest_portion_derived,"
+            + "fee_charges_portion_derived,penalty_charges_portion_derived, submitted_on_date) VALUES (?, ?, 0, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String CHARGES_PAID_SQL = "INSERT INTO m_loan_charge_paid_by (loan_transaction_id, loan_charge_id, amount,installment_number) VALUES (?,?,?,?)";
+    private static final String REPAYMENT_UPDATE_SQL = "UPDATE m_loan_repayment_schedule SET accrual_interest_derived=?, accrual_fee_charges_derived=?, "
+            + "accrual_penalty_charges_derived=? WHERE  id=?";
+    private static final String LOAN_UPDATE_SQL = "UPDATE m_loan  SET accrued_till=?  WHERE  id=?";
+
+    /**
+     * An accrual transaction worked out for one installment, waiting to be
+     * written.
+     */
+    static final class AccrualPosting {
+
+        private final LoanScheduleAccrualData scheduleAccrualData;
+        private final BigDecimal amount;
+        private final BigDecimal interestportion;
+        private final BigDecimal totalAccInterest;
+        private final BigDecimal feeportion;
+        private final BigDecimal totalAccFee;
+        private final BigDecimal penaltyportion;
+        private final BigDecimal totalAccPenalty;
+        private final LocalDate accruedTill;
+        private Long transactionId;
+
+        AccrualPosting(final LoanScheduleAccrualData scheduleAccrualData, final BigDecimal amount, final BigDecimal interestportion,
+                final BigDecimal totalAccInterest, final BigDecimal feeportion, final BigDecimal totalAccFee, final BigDecimal penaltyportion,
+                final BigDecimal totalAccPenalty, final LocalDate accruedTill) {
+            this.scheduleAccrualData = scheduleAccrualData;
+            this.amount = amount;
+            this.interestportion = interestportion;
+            this.totalAccInterest = totalAccInterest;
+            this.feeportion = feeportion;
+            this.totalAccFee = totalAccFee;
+            this.penaltyportion = penaltyportion;
+            this.totalAccPenalty = totalAccPenalty;
+            this.accruedTill = accruedTill;
+        }
+    }
+
     private final LoanReadPlatformService loanReadPlatformService;
     private final LoanChargeReadPlatformService loanChargeReadPlatformService;
     private final JdbcTemplate jdbcTemplate;
@@ -66,12 +111,14 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
     private final AppUserRepositoryWrapper userRepository;
     private final LoanRepositoryWrapper loanRepositoryWrapper;
     private final ApplicationCurrencyRepositoryWrapper applicationCurrencyRepository;
+    private final LoanSummaryChangeLogService loanSummaryChangeLogService;
 
     @Autowired
     public LoanAccrualWritePlatformServiceImpl(final RoutingDataSource dataSource, final LoanReadPlatformService loanReadPlatformService,
             final JournalEntryWritePlatformService journalEntryWritePlatformService,
             final LoanChargeReadPlatformService loanChargeReadPlatformService, final AppUserRepositoryWrapper userRepository,
-            final LoanRepositoryWrapper loanRepositoryWrapper, final ApplicationCurrencyRepositoryWrapper applicationCurrencyRepository) {
+            final LoanRepositoryWrapper loanRepositoryWrapper, final ApplicationCurrencyRepositoryWrapper applicationCurrencyRepository,
+            final LoanSummaryChangeLogService loanSummaryChangeLogService) {
         this.loanReadPlatformService = loanReadPlatformService;
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
@@ -80,6 +127,7 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
         this.userRepository = userRepository;
         this.loanRepositoryWrapper = loanRepositoryWrapper;
         this.applicationCurrencyRepository = applicationCurrencyRepository;
+        this.loanSummaryChangeLogService = loanSummaryChangeLogService;
     }
 
     @Override
@@ -105,6 +153,33 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
     @Transactional
     public void addPeriodicAccruals(final LocalDate tilldate, Long loanId, Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas)
             throws Exception {
+        for (final AccrualPosting posting : periodicAccrualPostings(tilldate, loanId, loanScheduleAccrualDatas)) {
+            addAccrualAccounting(posting);
+        }
+    }
+
+    @Override
+    @Transactional
+    public Map<Long, Exception> addPeriodicAccruals(final LocalDate tilldate,
+            final Map<Long, Collection<LoanScheduleAccrualData>> loanScheduleAccrualDatas) {
+        final Map<Long, Exception> failures = new LinkedHashMap<>();
+        final List<AccrualPosting> postings = new ArrayList<>();
+        for (final Map.Entry<Long, Collection<LoanScheduleAccrualData>> mapEntry : loanScheduleAccrualDatas.entrySet()) {
+            try {
+                postings.addAll(periodicAccrualPostings(tilldate, mapEntry.getKey(), mapEntry.getValue()));
+            } catch (Exception e) {
+                failures.put(mapEntry.getKey(), e);
+            }
+        }
+        if (!postings.isEmpty()) {
+            addAccrualAccounting(postings);
+        }
+        return failures;
+    }
+
+    private List<AccrualPosting> periodicAccrualPostings(final LocalDate tilldate, final Long loanId,
+            final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
+        final List<AccrualPosting> postings = new ArrayList<>();
         boolean firstTime = true;
         LocalDate accruredTill = null;
         Collection<LoanChargeData> chargeData = this.loanChargeReadPlatformService.retrieveLoanChargesForAccural(loanId);
@@ -124,18 +199,25 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
                 if (accruredTill == null || accruredTill.isBefore(tilldate)) {
                     updateCharges(chargeData, accrualData, accrualData.getFromDateAsLocaldate(), tilldate);
                     updateInterestIncome(accrualData, loanWaiverTansactionData, loanWaiverScheduleData, tilldate);
-                    addAccrualTillSpecificDate(tilldate, accrualData);
+                    addIfNotNull(postings, accrualPostingTillSpecificDate(tilldate, accrualData));
                 }
             } else {
                 updateCharges(chargeData, accrualData, accrualData.getFromDateAsLocaldate(), accrualData.getDueDateAsLocaldate());
                 updateInterestIncome(accrualData, loanWaiverTansactionData, loanWaiverScheduleData, tilldate);
-                addAccrualAccounting(accrualData);
+                addIfNotNull(postings, accrualPosting(accrualData));
                 accruredTill = accrualData.getDueDateAsLocaldate();
             }
         }
+        return postings;
     }
 
-    private void addAccrualTillSpecificDate(final LocalDate tilldate, final LoanScheduleAccrualData accrualData) throws Exception {
+    private static void addIfNotNull(final List<AccrualPosting> postings, final AccrualPosting posting) {
+        if (posting != null) {
+            postings.add(posting);
+        }
+    }
+
+    private AccrualPosting accrualPostingTillSpecificDate(final LocalDate tilldate, final LoanScheduleAccrualData accrualData) {
         LocalDate interestStartDate = accrualData.getFromDateAsLocaldate();
         if (accrualData.getInterestCalculatedFrom() != null
                 && accrualData.getFromDateAsLocaldate().isBefore(accrualData.getInterestCalculatedFrom())) {
@@ -207,14 +289,20 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
                 penaltyportion = null;
             }
         }
-        if (amount.compareTo(BigDecimal.ZERO) == 1) {
-            addAccrualAccounting(accrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee, penaltyportion,
-                    totalAccPenalty, tilldate);
-        }
+        if (amount.compareTo(BigDecimal.ZERO) == 1) { return new AccrualPosting(accrualData, amount, interestportion, totalAccInterest,
+                feeportion, totalAccFee, penaltyportion, totalAccPenalty, tilldate); }
+        return null;
     }
 
     @Transactional
     public void addAccrualAccounting(LoanScheduleAccrualData scheduleAccrualData) throws Exception {
+        final AccrualPosting posting = accrualPosting(scheduleAccrualData);
+        if (posting != null) {
+            addAccrualAccounting(posting);
+        }
+    }
+
+    private AccrualPosting accrualPosting(final LoanScheduleAccrualData scheduleAccrualData) {
 
         BigDecimal amount = BigDecimal.ZERO;
         BigDecimal interestportion = null;
@@ -258,45 +346,107 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
                 penaltyportion = null;
             }
         }
-        if (amount.compareTo(BigDecimal.ZERO) == 1) {
-            addAccrualAccounting(scheduleAccrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee, penaltyportion,
-                    totalAccPenalty, scheduleAccrualData.getDueDateAsLocaldate());
-        }
+        if (amount.compareTo(BigDecimal.ZERO) == 1) { return new AccrualPosting(scheduleAccrualData, amount, interestportion,
+                totalAccInterest, feeportion, totalAccFee, penaltyportion, totalAccPenalty, scheduleAccrualData.getDueDateAsLocaldate()); }
+        return null;
     }
 
-    private void addAccrualAccounting(LoanScheduleAccrualData scheduleAccrualData, BigDecimal amount, BigDecimal interestportion,
-            BigDecimal totalAccInterest, BigDecimal feeportion, BigDecimal totalAccFee, BigDecimal penaltyportion,
-            BigDecimal totalAccPenalty, final LocalDate accruedTill) throws Exception {
-        String transactionSql = "INSERT INTO m_loan_transaction  (loan_id,office_id,is_reversed,transaction_type_enum,transaction_date,amount,interest_portion_derived,"
-                + "fee_charges_portion_derived,penalty_charges_portion_derived, submitted_on_date) VALUES (?, ?, 0, ?, ?, ?, ?, ?, ?, ?)";
-        this.jdbcTemplate.update(transactionSql, scheduleAccrualData.getLoanId(), scheduleAccrualData.getOfficeId(),
-                LoanTransactionType.ACCRUAL.getValue(), accruedTill.toDate(), amount, interestportion, feeportion, penaltyportion,
-                DateUtils.getDateOfTenant());
+    private void addAccrualAccounting(final AccrualPosting posting) {
+        final LoanScheduleAccrualData scheduleAccrualData = posting.scheduleAccrualData;
+        this.jdbcTemplate.update(TRANSACTION_SQL, scheduleAccrualData.getLoanId(), scheduleAccrualData.getOfficeId(),
+                LoanTransactionType.ACCRUAL.getValue(), posting.accruedTill.toDate(), posting.amount, posting.interestportion,
+                posting.feeportion, posting.penaltyportion, DateUtils.getDateOfTenant());
         @SuppressWarnings("deprecation")
         final Long transactonId = this.jdbcTemplate.queryForLong("SELECT LAST_INSERT_ID()");
 
         Map<LoanChargeData, BigDecimal> applicableCharges = scheduleAccrualData.getApplicableCharges();
-        String chargespaidSql = "INSERT INTO m_loan_charge_paid_by (loan_transaction_id, loan_charge_id, amount,installment_number) VALUES (?,?,?,?)";
         for (Map.Entry<LoanChargeData, BigDecimal> entry : applicableCharges.entrySet()) {
             LoanChargeData chargeData = entry.getKey();
-            this.jdbcTemplate.update(chargespaidSql, transactonId, chargeData.getId(), entry.getValue(),
+            this.jdbcTemplate.update(CHARGES_PAID_SQL, transactonId, chargeData.getId(), entry.getValue(),
                     scheduleAccrualData.getInstallmentNumber());
         }
 
-        Map<String, Object> transactionMap = toMapData(transactonId, amount, interestportion, feeportion, penaltyportion,
-                scheduleAccrualData, accruedTill);
+        Map<String, Object> transactionMap = toMapData(transactonId, posting.amount, posting.interestportion, posting.feeportion,
+                posting.penaltyportion, scheduleAccrualData, posting.accruedTill);
 
-        String repaymetUpdatesql = "UPDATE m_loan_repayment_schedule SET accrual_interest_derived=?, accrual_fee_charges_derived=?, "
-                + "accrual_penalty_charges_derived=? WHERE  id=?";
-        this.jdbcTemplate.update(repaymetUpdatesql, totalAccInterest, totalAccFee, totalAccPenalty,
+        this.jdbcTemplate.update(REPAYMENT_UPDATE_SQL, posting.totalAccInterest, posting.totalAccFee, posting.totalAccPenalty,
                 scheduleAccrualData.getRepaymentScheduleId());
 
-        String updateLoan = "UPDATE m_loan  SET accrued_till=?  WHERE  id=?";
-        this.jdbcTemplate.update(updateLoan, accruedTill.toDate(), scheduleAccrualData.getLoanId());
+        this.jdbcTemplate.update(LOAN_UPDATE_SQL, posting.accruedTill.toDate(), scheduleAccrualData.getLoanId());
+        this.loanSummaryChangeLogService.markLoanSummaryChanged(scheduleAccrualData.getLoanId());
         final Map<String, Object> accountingBridgeData = deriveAccountingBridgeData(scheduleAccrualData, transactionMap);
         this.journalEntryWritePlatformService.createJournalEntriesForLoan(accountingBridgeData);
     }
 
+    /**
+     * Writes the same rows as {@link #addAccrualAccounting(AccrualPosting)}
+     * for many postings at once, using JDBC batches for each table.
+     */
+    private void addAccrualAccounting(final List<AccrualPosting> postings) {
+        final java.sql.Date submittedOnDate = new java.sql.Date(DateUtils.getDateOfTenant().getTime());
+        this.jdbcTemplate.execute(new ConnectionCallback<Void>() {
+
+            @Override
+            public Void doInConnection(final Connection con) throws SQLException {
+                try (PreparedStatement ps = con.prepareStatement(TRANSACTION_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                    for (final AccrualPosting posting : postings) {
+                        ps.setLong(1, posting.scheduleAccrualData.getLoanId());
+                        ps.setLong(2, posting.scheduleAccrualData.getOfficeId());
+                        ps.setInt(3, LoanTransactionType.ACCRUAL.getValue());
+                        ps.setDate(4, new java.sql.Date(posting.accruedTill.toDate().getTime()));
+                        ps.setBigDecimal(5, posting.amount);
+                        ps.setBigDecimal(6, posting.interestportion);
+                        ps.setBigDecimal(7, posting.feeportion);
+                        ps.setBigDecimal(8, posting.penaltyportion);
+                        ps.setDate(9, submittedOnDate);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    int index = 0;
+                    try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                        while (generatedKeys.next()) {
+                            postings.get(index++).transactionId = generatedKeys.getLong(1);
+                        }
+                    }
+                    if (index != postings.size()) { throw new SQLException("Expected " + postings.size()
+                            + " generated keys for accrual transactions but got " + index); }
+                }
+                return null;
+            }
+        });
+
+        final List<Object[]> chargesPaid = new ArrayList<>();
+        final List<Object[]> repaymentUpdates = new ArrayList<>(postings.size());
+        final Map<Long, java.util.Date> accruedTillByLoan = new LinkedHashMap<>();
+        final List<Map<String, Object>> accountingBridgeDatas = new ArrayList<>(postings.size());
+        for (final AccrualPosting posting : postings) {
+            final LoanScheduleAccrualData scheduleAccrualData = posting.scheduleAccrualData;
+            for (Map.Entry<LoanChargeData, BigDecimal> entry : scheduleAccrualData.getApplicableCharges().entrySet()) {
+                chargesPaid.add(new Object[] { posting.transactionId, entry.getKey().getId(), entry.getValue(),
+                        scheduleAccrualData.getInstallmentNumber() });
+            }
+            repaymentUpdates.add(new Object[] { posting.totalAccInterest, posting.totalAccFee, posting.totalAccPenalty,
+                    scheduleAccrualData.getRepaymentScheduleId() });
+            accruedTillByLoan.put(scheduleAccrualData.getLoanId(), posting.accruedTill.toDate());
+
+            Map<String, Object> transactionMap = toMapData(posting.transactionId, posting.amount, posting.interestportion,
+                    posting.feeportion, posting.penaltyportion, scheduleAccrualData, posting.accruedTill);
+            accountingBridgeDatas.add(deriveAccountingBridgeData(scheduleAccrualData, transactionMap));
+        }
+        final List<Object[]> loanUpdates = new ArrayList<>(accruedTillByLoan.size());
+        for (final Map.Entry<Long, java.util.Date> entry : accruedTillByLoan.entrySet()) {
+            loanUpdates.add(new Object[] { entry.getValue(), entry.getKey() });
+        }
+
+        if (!chargesPaid.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(CHARGES_PAID_SQL, chargesPaid);
+        }
+        this.jdbcTemplate.batchUpdate(REPAYMENT_UPDATE_SQL, repaymentUpdates);
+        this.jdbcTemplate.batchUpdate(LOAN_UPDATE_SQL, loanUpdates);
+        this.loanSummaryChangeLogService.markLoanSummariesChanged(accruedTillByLoan.keySet());
+        this.journalEntryWritePlatformService.createJournalEntriesForLoanAccruals(accountingBridgeDatas);
+    }
+
     public Map<String, Object> deriveAccountingBridgeData(final LoanScheduleAccrualData loanScheduleAccrualData,
             final Map<String, Object> transactionMap) {
 
@@ -22,6 +22,12 @@ import com.ls.portfolio.loanaccount.domain.Loan;
 
 public interface LoanArrearsAgingService {
 
+    /**
+     * Job parameter which forces the arrears ageing job to recompute every
+     * active loan instead of only the ones changed since the previous run.
+     */
+    String FULL_REBUILD_PARAMETER = "fullRebuild";
+
     void updateLoanArrearsAgeingDetails();
 
     void updateLoanArrearsAgeingDetailsWithOriginalSchedule(Loan loan);
@@ -19,20 +19,28 @@
 package com.ls.portfolio.loanaccount.service;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import javax.annotation.PostConstruct;
 
+import org.apache.commons.lang.StringUtils;
 import com.ls.infrastructure.core.domain.JdbcSupport;
 import com.ls.infrastructure.core.service.RoutingDataSource;
 import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
 import com.ls.infrastructure.jobs.annotation.CronTarget;
 import com.ls.infrastructure.jobs.service.JobName;
+import com.ls.infrastructure.jobs.service.SchedulerJobRunnerReadService;
+import com.ls.infrastructure.jobs.service.SchedulerServiceConstants;
 import com.ls.portfolio.common.BusinessEventNotificationConstants.BUSINESS_ENTITY;
 import com.ls.portfolio.common.BusinessEventNotificationConstants.BUSINESS_EVENTS;
 import com.ls.portfolio.common.service.BusinessEventListner;
@@ -52,9 +60,16 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class LoanArrearsAgingServiceImpl implements LoanArrearsAgingService, BusinessEventListner {
@@ -63,11 +78,19 @@ public class LoanArrearsAgingServiceImpl implements LoanArrearsAgingService, Bus
     private final BusinessEventNotifierService businessEventNotifierService;
     private final DateTimeFormatter formatter = DateTimeFormat.forPattern("yyyy-MM-dd");
     private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final SchedulerJobRunnerReadService schedulerJobRunnerReadService;
+    private final LoanSummaryChangeLogService loanSummaryChangeLogService;
 
     @Autowired
-    public LoanArrearsAgingServiceImpl(final RoutingDataSource dataSource, final BusinessEventNotifierService businessEventNotifierService) {
+    public LoanArrearsAgingServiceImpl(final RoutingDataSource dataSource, final BusinessEventNotifierService businessEventNotifierService,
+            final PlatformTransactionManager transactionManager, final SchedulerJobRunnerReadService schedulerJobRunnerReadService,
+            final LoanSummaryChangeLogService loanSummaryChangeLogService) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.businessEventNotifierService = businessEventNotifierService;
+        this.transactionManager = transactionManager;
+        this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
+        this.loanSummaryChangeLogService = loanSummaryChangeLogService;
     }
 
     @PostConstruct
@@ -85,13 +108,132 @@ public class LoanArrearsAgingServiceImpl implements LoanArrearsAgingService, Bus
         this.businessEventNotifierService.addBusinessEventPostListners(BUSINESS_EVENTS.LOAN_FORECLOSURE, this);
     }
 
-    @Transactional
+    /**
+     * Brings <code>m_loan_arrears_aging</code> up to date office by office.
+     * Each office is applied as a delete/insert diff of its candidate loans in
+     * one transaction, so readers keep seeing the previous rows of an office
+     * until its new rows are committed. The last completed office is
+     * checkpointed in <code>m_loan_arrears_aging_run</code>; an interrupted
+     * run is resumed from there by the next execution.
+     * 
+     * Unless a full rebuild is requested (or no run has completed yet), only
+     * loans logged in the loan change log since the previous run, and loans
+     * with an installment which is overdue and not completed, are recomputed.
+     */
     @Override
     @CronTarget(jobName = JobName.UPDATE_LOAN_ARREARS_AGEING)
     public void updateLoanArrearsAgeingDetails() {
+        final Map<String, String> jobParameters = this.schedulerJobRunnerReadService
+                .retrieveJobParameters(JobName.UPDATE_LOAN_ARREARS_AGEING);
+        final boolean fullRebuildRequested = Boolean.parseBoolean(jobParameters.get(LoanArrearsAgingService.FULL_REBUILD_PARAMETER));
+        final int batchSize = this.schedulerJobRunnerReadService.retrieveIntegerJobParameter(JobName.UPDATE_LOAN_ARREARS_AGEING,
+                SchedulerServiceConstants.JOB_PARAMETER_CHUNK_SIZE, SchedulerServiceConstants.DEFAULT_JOB_CHUNK_SIZE);
+
+        final ArrearsAgeingRun run = resumeOrStartRun(fullRebuildRequested);
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+        final List<Long> officeIds = this.jdbcTemplate.queryForList("select o.id from m_office o where o.id > ? order by o.id",
+                Long.class, run.lastOfficeId);
+        int result = 0;
+        for (final Long officeId : officeIds) {
+            result += transactionTemplate.execute(new TransactionCallback<Integer>() {
+
+                @Override
+                public Integer doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                    return updateLoanArrearsAgeingDetailsForOffice(run, officeId, batchSize);
+                }
+            });
+        }
+
+        // loans which are no longer active are never candidates, drop them
+        result += this.jdbcTemplate.update("delete mla from m_loan_arrears_aging mla join m_loan ml on ml.id = mla.loan_id"
+                + " where ml.loan_status_id <> 300");
+        this.jdbcTemplate.update("update m_loan_arrears_aging_run set completed_on = now() where id = ?", run.id);
+
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": " + (run.fullRebuild ? "Full" : "Incremental")
+                + " arrears ageing run " + run.id + " results affected by update: " + result);
+    }
+
+    private int updateLoanArrearsAgeingDetailsForOffice(final ArrearsAgeingRun run, final Long officeId, final int batchSize) {
+        // read before the office is recomputed, so that the loans are
+        // recomputed from data at least as recent as every change removed
+        final LoanChanges changes = this.loanSummaryChangeLogService.retrieveChangesOfOffice(
+                LoanSummaryChangeLogService.LOAN_ARREARS_AGEING_READER, officeId);
+        final StringBuilder candidateSqlBuilder = new StringBuilder(900);
+        candidateSqlBuilder.append("select ml.id from m_loan ml ");
+        candidateSqlBuilder.append(" left join m_client mc on mc.id = ml.client_id ");
+        candidateSqlBuilder.append(" left join m_group mg on mg.id = ml.group_id ");
+        candidateSqlBuilder.append(" where ml.loan_status_id = 300 and ifnull(mc.office_id, mg.office_id) = ? ");
+        final List<Object> candidateParams = new ArrayList<>();
+        candidateParams.add(officeId);
+        if (!run.fullRebuild) {
+            // same overdue condition as the arrears insert, so loans getting
+            // out of arrears are picked up through the change log only
+            candidateSqlBuilder.append(" and (");
+            if (!changes.isEmpty()) {
+                candidateSqlBuilder.append("ml.id in (").append(StringUtils.join(changes.getLoanIds(), ",")).append(") or ");
+            }
+            candidateSqlBuilder.append(" exists (select 1 from m_loan_repayment_schedule mr where mr.loan_id = ml.id ");
+            candidateSqlBuilder.append(" and mr.completed_derived is false ");
+            candidateSqlBuilder.append(" and mr.duedate < SUBDATE(CURDATE(),INTERVAL ifnull(ml.grace_on_arrears_ageing,0) day))) ");
+        }
+        candidateSqlBuilder.append(" order by ml.id");
+        final List<Long> loanIds = this.jdbcTemplate.queryForList(candidateSqlBuilder.toString(), Long.class, candidateParams.toArray());
+
+        int result = 0;
+        for (int fromIndex = 0; fromIndex < loanIds.size(); fromIndex += batchSize) {
+            final List<Long> batch = loanIds.subList(fromIndex, Math.min(fromIndex + batchSize, loanIds.size()));
+            final String loanIdsAsString = StringUtils.join(batch, ",");
+            final List<String> statements = new ArrayList<>();
+            statements.add("DELETE FROM m_loan_arrears_aging WHERE loan_id IN (" + loanIdsAsString + ")");
+            statements.add(arrearsInsertSql(loanIdsAsString));
+            statements.addAll(updateLoanArrearsAgeingDetailsWithOriginalSchedule(loanIdsAsString));
+            final int[] results = this.jdbcTemplate.batchUpdate(statements.toArray(new String[0]));
+            for (int i : results) {
+                result += i;
+            }
+        }
+        this.loanSummaryChangeLogService.markChangesRead(changes);
+        this.jdbcTemplate.update("update m_loan_arrears_aging_run set last_office_id = ?, loans_processed = loans_processed + ?"
+                + " where id = ?", officeId, loanIds.size(), run.id);
+        return result;
+    }
+
+    private ArrearsAgeingRun resumeOrStartRun(final boolean fullRebuildRequested) {
+        final List<ArrearsAgeingRun> unfinishedRuns = this.jdbcTemplate.query(ArrearsAgeingRunMapper.SCHEMA
+                + " where r.completed_on is null order by r.id desc limit 1", new ArrearsAgeingRunMapper());
+        if (!unfinishedRuns.isEmpty()) {
+            final ArrearsAgeingRun unfinishedRun = unfinishedRuns.get(0);
+            logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Resuming arrears ageing run " + unfinishedRun.id
+                    + " after office " + unfinishedRun.lastOfficeId);
+            return unfinishedRun;
+        }
 
-        this.jdbcTemplate.execute("truncate table m_loan_arrears_aging");
+        final List<ArrearsAgeingRun> completedRuns = this.jdbcTemplate.query(ArrearsAgeingRunMapper.SCHEMA
+                + " where r.completed_on is not null order by r.id desc limit 1", new ArrearsAgeingRunMapper());
+        final boolean fullRebuild = fullRebuildRequested || completedRuns.isEmpty();
+        final Date startedOn = this.jdbcTemplate.queryForObject("select now()", Date.class);
+        final LocalDate referenceDate = new LocalDate(startedOn);
+        final String referenceDateAsString = this.formatter.print(referenceDate);
+        // other tenants' or nodes' runs can be started at the same time, the
+        // id has to be the one generated for this insert
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        this.jdbcTemplate.update(new PreparedStatementCreator() {
+
+            @Override
+            public PreparedStatement createPreparedStatement(final Connection connection) throws SQLException {
+                final PreparedStatement statement = connection.prepareStatement("insert into m_loan_arrears_aging_run"
+                        + " (is_full_rebuild, reference_date, started_on) values (?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+                statement.setBoolean(1, fullRebuild);
+                statement.setString(2, referenceDateAsString);
+                statement.setTimestamp(3, new Timestamp(startedOn.getTime()));
+                return statement;
+            }
+        }, keyHolder);
+        final Long runId = keyHolder.getKey().longValue();
+        return new ArrearsAgeingRun(runId, fullRebuild, referenceDate, startedOn, 0L);
+    }
 
+    private String arrearsInsertSql(final String loanIdsAsString) {
         final StringBuilder updateSqlBuilder = new StringBuilder(900);
         final String principalOverdueCalculationSql = "SUM(ifnull(mr.principal_amount, 0) - ifnull(mr.principal_completed_derived, 0) - ifnull(mr.principal_writtenoff_derived, 0))";
         final String interestOverdueCalculationSql = "SUM(ifnull(mr.interest_amount, 0) - ifnull(mr.interest_writtenoff_derived, 0) - ifnull(mr.interest_waived_derived, 0) - "
@@ -115,20 +257,12 @@ public class LoanArrearsAgingServiceImpl implements LoanArrearsAgingService, Bus
         updateSqlBuilder.append(" INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
         updateSqlBuilder.append(" left join m_product_loan_recalculation_details prd on prd.product_id = ml.product_id ");
         updateSqlBuilder.append(" WHERE ml.loan_status_id = 300 "); // active
+        updateSqlBuilder.append(" and ml.id IN (").append(loanIdsAsString).append(") ");
         updateSqlBuilder.append(" and mr.completed_derived is false ");
         updateSqlBuilder.append(" and mr.duedate < SUBDATE(CURDATE(),INTERVAL  ifnull(ml.grace_on_arrears_ageing,0) day) ");
         updateSqlBuilder.append(" and (prd.arrears_based_on_original_schedule = 0 or prd.arrears_based_on_original_schedule is null) ");
         updateSqlBuilder.append(" GROUP BY ml.id");
-
-        List<String> insertStatements = updateLoanArrearsAgeingDetailsWithOriginalSchedule();
-        insertStatements.add(0, updateSqlBuilder.toString());
-        final int[] results = this.jdbcTemplate.batchUpdate(insertStatements.toArray(new String[0]));
-        int result = 0;
-        for (int i : results) {
-            result += i;
-        }
-
-        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Results affected by update: " + result);
+        return updateSqlBuilder.toString();
     }
 
     @Override
@@ -198,7 +332,7 @@ public class LoanArrearsAgingServiceImpl implements LoanArrearsAgingService, Bus
         return updateSql;
     }
 
-    private List<String> updateLoanArrearsAgeingDetailsWithOriginalSchedule() {
+    private List<String> updateLoanArrearsAgeingDetailsWithOriginalSchedule(final String candidateLoanIdsAsString) {
         List<String> insertStatement = new ArrayList<>();
 
         final StringBuilder loanIdentifier = new StringBuilder();
@@ -207,7 +341,8 @@ public class LoanArrearsAgingServiceImpl implements LoanArrearsAgingService, Bus
         loanIdentifier
                 .append("inner join m_product_loan_recalculation_details prd on prd.product_id = ml.product_id and prd.arrears_based_on_original_schedule = 1  ");
         loanIdentifier
-                .append("WHERE ml.loan_status_id = 300  and mr.completed_derived is false  and mr.duedate < SUBDATE(CURDATE(),INTERVAL  ifnull(ml.grace_on_arrears_ageing,0) day) group by ml.id");
+                .append("WHERE ml.loan_status_id = 300  and mr.completed_derived is false  and mr.duedate < SUBDATE(CURDATE(),INTERVAL  ifnull(ml.grace_on_arrears_ageing,0) day) ");
+        loanIdentifier.append("and ml.id IN (").append(candidateLoanIdsAsString).append(") group by ml.id");
         List<Long> loanIds = this.jdbcTemplate.queryForList(loanIdentifier.toString(), Long.class);
         if (!loanIds.isEmpty()) {
             String loanIdsAsString = loanIds.toString();
@@ -462,6 +597,40 @@ public class LoanArrearsAgingServiceImpl implements LoanArrearsAgingService, Bus
         }
     }
 
+    private static final class ArrearsAgeingRun {
+
+        private final Long id;
+        private final boolean fullRebuild;
+        private final LocalDate referenceDate;
+        private final Date startedOn;
+        private final Long lastOfficeId;
+
+        ArrearsAgeingRun(final Long id, final boolean fullRebuild, final LocalDate referenceDate, final Date startedOn,
+                final Long lastOfficeId) {
+            this.id = id;
+            this.fullRebuild = fullRebuild;
+            this.referenceDate = referenceDate;
+            this.startedOn = startedOn;
+            this.lastOfficeId = lastOfficeId;
+        }
+    }
+
+    private static final class ArrearsAgeingRunMapper implements RowMapper<ArrearsAgeingRun> {
+
+        static final String SCHEMA = "select r.id, r.is_full_rebuild as fullRebuild, r.reference_date as referenceDate,"
+                + " r.started_on as startedOn, r.last_office_id as lastOfficeId from m_loan_arrears_aging_run r";
+
+        @Override
+        public ArrearsAgeingRun mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Long id = rs.getLong("id");
+            final boolean fullRebuild = rs.getBoolean("fullRebuild");
+            final LocalDate referenceDate = JdbcSupport.getLocalDate(rs, "referenceDate");
+            final Date startedOn = rs.getTimestamp("startedOn");
+            final Long lastOfficeId = rs.getLong("lastOfficeId");
+            return new ArrearsAgeingRun(id, fullRebuild, referenceDate, startedOn, lastOfficeId);
+        }
+    }
+
     @SuppressWarnings("unused")
     @Override
     public void businessEventToBeExecuted(Map<BUSINESS_ENTITY, Object> businessEventEntity) {
@@ -56,6 +56,7 @@ import com.ls.portfolio.group.exception.GroupNotFoundException;
 import com.ls.portfolio.loanaccount.api.LoanApiConstants;
 import com.ls.portfolio.loanaccount.domain.DefaultLoanLifecycleStateMachine;
 import com.ls.portfolio.loanaccount.domain.Loan;
+import com.ls.portfolio.loanaccount.domain.LoanFetchPlan;
 import com.ls.portfolio.loanaccount.domain.LoanCharge;
 import com.ls.portfolio.loanaccount.domain.LoanDisbursementDetails;
 import com.ls.portfolio.loanaccount.domain.LoanLifecycleStateMachine;
@@ -145,6 +146,14 @@ public class LoanAssembler {
         return loanAccount;
     }
 
+    public Loan assembleFrom(final Long accountId, final LoanFetchPlan fetchPlan) {
+        final Loan loanAccount = this.loanRepository.findOneWithNotFoundDetection(accountId, fetchPlan);
+        loanAccount.setHelpers(defaultLoanLifecycleStateMachine(), this.loanSummaryWrapper,
+                this.loanRepaymentScheduleTransactionProcessorFactory);
+
+        return loanAccount;
+    }
+
     public void setHelpers(final Loan loanAccount) {
         loanAccount.setHelpers(defaultLoanLifecycleStateMachine(), this.loanSummaryWrapper,
                 this.loanRepaymentScheduleTransactionProcessorFactory);
@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Changes read from the loan change log: the loans they were logged for, in
+ * ascending order, and the ids of the log rows to remove once these loans
+ * have been handled.
+ */
+public final class LoanChanges {
+
+    private final List<Long> loanIds = new ArrayList<>();
+    private final List<Long> changeIds = new ArrayList<>();
+
+    void add(final Long changeId, final Long loanId) {
+        this.changeIds.add(changeId);
+        if (this.loanIds.isEmpty() || !this.loanIds.get(this.loanIds.size() - 1).equals(loanId)) {
+            this.loanIds.add(loanId);
+        }
+    }
+
+    public List<Long> getLoanIds() {
+        return Collections.unmodifiableList(this.loanIds);
+    }
+
+    public List<Long> getChangeIds() {
+        return Collections.unmodifiableList(this.changeIds);
+    }
+
+    public Long getLastLoanId() {
+        return this.loanIds.isEmpty() ? null : this.loanIds.get(this.loanIds.size() - 1);
+    }
+
+    public boolean isEmpty() {
+        return this.changeIds.isEmpty();
+    }
+}
@@ -19,12 +19,14 @@
 package com.ls.portfolio.loanaccount.service;
 
 import java.util.Collection;
+import java.util.Map;
 
 import com.ls.portfolio.charge.data.ChargeData;
 import com.ls.portfolio.loanaccount.data.LoanChargeData;
 import com.ls.portfolio.loanaccount.data.LoanChargePaidByData;
 import com.ls.portfolio.loanaccount.data.LoanInstallmentChargeData;
 import com.ls.portfolio.loanaccount.domain.LoanTransactionType;
+import com.ls.portfolio.loanaccount.loanschedule.data.OverdueLoanScheduleData;
 
 public interface LoanChargeReadPlatformService {
 
@@ -39,6 +41,13 @@ public interface LoanChargeReadPlatformService {
     Collection<LoanInstallmentChargeData> retrieveInstallmentLoanCharges(Long loanChargeId, boolean onlyPaymentPendingCharges);
 
     Collection<Integer> retrieveOverdueInstallmentChargeFrequencyNumber(Long loanId, Long chargeId, Integer periodNumber);
+
+    /**
+     * Frequency numbers of the overdue penalties already applied to the
+     * installments of the given loans, keyed by
+     * {@link OverdueLoanScheduleData#installmentChargeKey(Long, Long, Integer)}.
+     */
+    Map<String, Collection<Integer>> retrieveOverdueInstallmentChargeFrequencyNumbers(Collection<Long> loanIds);
     
     Collection<LoanChargeData> retrieveLoanChargesForAccural(Long loanId);
 
@@ -27,6 +27,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.lang.StringUtils;
 import com.ls.accounting.glaccount.data.GLAccountData;
 import com.ls.infrastructure.core.data.EnumOptionData;
 import com.ls.infrastructure.core.domain.JdbcSupport;
@@ -41,6 +42,7 @@ import com.ls.portfolio.loanaccount.data.LoanChargeData;
 import com.ls.portfolio.loanaccount.data.LoanChargePaidByData;
 import com.ls.portfolio.loanaccount.data.LoanInstallmentChargeData;
 import com.ls.portfolio.loanaccount.domain.LoanTransactionType;
+import com.ls.portfolio.loanaccount.loanschedule.data.OverdueLoanScheduleData;
 import com.ls.portfolio.tax.data.TaxGroupData;
 import org.joda.time.LocalDate;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -265,6 +267,28 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
         return this.jdbcTemplate.queryForList(sql, Integer.class, params);
     }
 
+    @Override
+    public Map<String, Collection<Integer>> retrieveOverdueInstallmentChargeFrequencyNumbers(final Collection<Long> loanIds) {
+        final Map<String, Collection<Integer>> frequencyNumbers = new HashMap<>();
+        if (loanIds.isEmpty()) { return frequencyNumbers; }
+        final String sql = "select rs.loan_id as loanId, lc.charge_id as chargeId, rs.installment as periodNumber, oic.frequency_number as frequencyNumber "
+                + "from m_loan_overdue_installment_charge oic inner join m_loan_charge lc on lc.id = oic.loan_charge_id "
+                + "inner join m_loan_repayment_schedule rs on rs.id = oic.loan_schedule_id "
+                + "where lc.is_active = 1 and rs.loan_id in (" + StringUtils.join(loanIds, ",") + ")";
+        final List<Map<String, Object>> rows = this.jdbcTemplate.queryForList(sql);
+        for (final Map<String, Object> row : rows) {
+            final String key = OverdueLoanScheduleData.installmentChargeKey(((Number) row.get("loanId")).longValue(),
+                    ((Number) row.get("chargeId")).longValue(), ((Number) row.get("periodNumber")).intValue());
+            Collection<Integer> appliedFrequencyNumbers = frequencyNumbers.get(key);
+            if (appliedFrequencyNumbers == null) {
+                appliedFrequencyNumbers = new ArrayList<>();
+                frequencyNumbers.put(key, appliedFrequencyNumbers);
+            }
+            appliedFrequencyNumbers.add(((Number) row.get("frequencyNumber")).intValue());
+        }
+        return frequencyNumbers;
+    }
+
     @Override
     public Collection<LoanChargeData> retrieveLoanChargesForAccural(final Long loanId) {
 
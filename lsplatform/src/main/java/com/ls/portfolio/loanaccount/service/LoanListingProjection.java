@@ -0,0 +1,263 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ls.infrastructure.core.service.Page;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import com.ls.infrastructure.core.service.SearchParameters;
+import com.ls.portfolio.loanaccount.domain.Loan;
+import com.ls.portfolio.loanaccount.domain.LoanRepository;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Maintains <code>m_loan_listing</code>, one row per loan of a client with the
+ * columns the loan list filters, sorts and pages on, and serves the loan list
+ * from it.
+ * 
+ * Only a few commands change these columns: submitting and modifying a loan
+ * application, and transferring a client. They mark the loans they change,
+ * and the rows of these loans are worked out again from <code>m_loan</code>
+ * and <code>m_client</code> just before the transaction commits. Deleting a
+ * loan deletes its row through the foreign key. The loan list only finds the
+ * ids of a page here; the loans themselves are still read from the loan
+ * tables.
+ */
+@Component
+public class LoanListingProjection {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "insert into m_loan_listing (loan_id, account_no, external_id, client_id, office_id, "
+            + "transfer_to_office_id) select l.id, l.account_no, l.external_id, l.client_id, c.office_id, c.transfer_to_office_id "
+            + "from m_loan l join m_client c on c.id = l.client_id";
+
+    /**
+     * The loan list columns that can be sorted on here, by the names the loan
+     * list accepts for them.
+     */
+    private static final Map<String, String> columnsByOrderBy = new HashMap<>();
+    static {
+        columnsByOrderBy.put("id", "ll.loan_id");
+        columnsByOrderBy.put("l.id", "ll.loan_id");
+        columnsByOrderBy.put("accountNo", "ll.account_no");
+        columnsByOrderBy.put("l.account_no", "ll.account_no");
+        columnsByOrderBy.put("externalId", "ll.external_id");
+        columnsByOrderBy.put("l.external_id", "ll.external_id");
+    }
+
+    /**
+     * The loans changed during a transaction, bound to it as a resource of
+     * this projection.
+     */
+    private final class PendingChanges extends TransactionSynchronizationAdapter {
+
+        private final Map<Loan, Boolean> loans = new IdentityHashMap<>();
+        private final Set<Long> loanIds = new LinkedHashSet<>();
+        private final Set<Long> clientIds = new LinkedHashSet<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(LoanListingProjection.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(LoanListingProjection.this, this);
+        }
+
+        @Override
+        public void beforeCommit(final boolean readOnly) {
+            // new loans only get their id once they are inserted
+            LoanListingProjection.this.loanRepository.flush();
+            for (final Loan loan : this.loans.keySet()) {
+                if (loan.getId() != null) {
+                    this.loanIds.add(loan.getId());
+                }
+            }
+            refreshLoans(this.loanIds);
+            refreshLoansOfClients(this.clientIds);
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LoanListingProjection.this);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoanRepository loanRepository;
+
+    @Autowired
+    public LoanListingProjection(final RoutingDataSource dataSource, final LoanRepository loanRepository) {
+        this(new JdbcTemplate(dataSource), loanRepository);
+    }
+
+    LoanListingProjection(final JdbcTemplate jdbcTemplate, final LoanRepository loanRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.loanRepository = loanRepository;
+    }
+
+    /**
+     * Marks the account number, external id or client of the loan as changed
+     * in the current transaction. Outside of a transaction its row is updated
+     * right away.
+     */
+    public void loanChanged(final Loan loan) {
+        if (loan == null) { return; }
+        final PendingChanges pendingChanges = pendingChanges();
+        if (pendingChanges == null) {
+            if (loan.getId() != null) {
+                refreshLoans(Collections.singleton(loan.getId()));
+            }
+            return;
+        }
+        pendingChanges.loans.put(loan, Boolean.TRUE);
+    }
+
+    public void loanChanged(final Long loanId) {
+        if (loanId == null) { return; }
+        final PendingChanges pendingChanges = pendingChanges();
+        if (pendingChanges == null) {
+            refreshLoans(Collections.singleton(loanId));
+            return;
+        }
+        pendingChanges.loanIds.add(loanId);
+    }
+
+    /**
+     * Marks all loans of the client as changed, for changes to the client
+     * such as its office which are copied to the rows of its loans.
+     */
+    public void loansOfClientChanged(final Long clientId) {
+        if (clientId == null) { return; }
+        final PendingChanges pendingChanges = pendingChanges();
+        if (pendingChanges == null) {
+            refreshLoansOfClients(Collections.singleton(clientId));
+            return;
+        }
+        pendingChanges.clientIds.add(clientId);
+    }
+
+    /**
+     * Whether the loan list for these search parameters can be served from
+     * the projection. Free form <code>sqlSearch</code> criteria refer to the
+     * loan tables, as do most columns to sort on.
+     */
+    public boolean canRetrieveLoanIds(final SearchParameters searchParameters) {
+        if (StringUtils.isNotBlank(searchParameters.getSqlSearch())) { return false; }
+        if (searchParameters.isOrderByRequested() && !columnsByOrderBy.containsKey(searchParameters.getOrderBy().trim())) { return false; }
+        if (searchParameters.isSortOrderProvided()) {
+            final String sortOrder = searchParameters.getSortOrder().trim();
+            return "asc".equalsIgnoreCase(sortOrder) || "desc".equalsIgnoreCase(sortOrder);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the ids of a page of the loan list for clients within or being
+     * transferred to the given offices.
+     */
+    public Page<Long> retrieveLoanIds(final String sqlOfficeIdList, final SearchParameters searchParameters) {
+        final StringBuilder sqlBuilder = new StringBuilder(200);
+        sqlBuilder.append("select SQL_CALC_FOUND_ROWS ll.loan_id from m_loan_listing ll");
+        sqlBuilder.append(" where (ll.office_id in (").append(sqlOfficeIdList)
+                .append(") or ll.transfer_to_office_id in (").append(sqlOfficeIdList).append("))");
+
+        final List<Object> params = new ArrayList<>(2);
+        if (StringUtils.isNotBlank(searchParameters.getExternalId())) {
+            sqlBuilder.append(" and ll.external_id = ?");
+            params.add(searchParameters.getExternalId());
+        }
+        if (StringUtils.isNotBlank(searchParameters.getAccountNo())) {
+            sqlBuilder.append(" and ll.account_no = ?");
+            params.add(searchParameters.getAccountNo());
+        }
+
+        if (searchParameters.isOrderByRequested()) {
+            final String column = columnsByOrderBy.get(searchParameters.getOrderBy().trim());
+            sqlBuilder.append(" order by ").append(column);
+            if (searchParameters.isSortOrderProvided()) {
+                sqlBuilder.append(' ').append(searchParameters.getSortOrder().trim());
+            }
+            if (!"ll.loan_id".equals(column)) {
+                sqlBuilder.append(", ll.loan_id");
+            }
+        }
+
+        if (searchParameters.isLimited()) {
+            sqlBuilder.append(" limit ").append(searchParameters.getLimit());
+            if (searchParameters.isOffset()) {
+                sqlBuilder.append(" offset ").append(searchParameters.getOffset());
+            }
+        }
+
+        final List<Long> loanIds = this.jdbcTemplate.queryForList(sqlBuilder.toString(), Long.class, params.toArray());
+        @SuppressWarnings("deprecation")
+        final int totalFilteredRecords = this.jdbcTemplate.queryForInt("SELECT FOUND_ROWS()");
+        return new Page<>(loanIds, totalFilteredRecords);
+    }
+
+    private PendingChanges pendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { return null; }
+        PendingChanges pendingChanges = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pendingChanges == null) {
+            pendingChanges = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pendingChanges);
+            TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+        }
+        return pendingChanges;
+    }
+
+    private void refreshLoans(final Collection<Long> loanIds) {
+        refresh("loan_id", "l.id", loanIds);
+    }
+
+    private void refreshLoansOfClients(final Collection<Long> clientIds) {
+        refresh("client_id", "l.client_id", clientIds);
+    }
+
+    /**
+     * Writes the rows again for the given ids. A loan which no longer exists
+     * just loses its row.
+     */
+    private void refresh(final String listingColumn, final String loanColumn, final Collection<Long> ids) {
+        if (ids.isEmpty()) { return; }
+        final List<Long> idList = new ArrayList<>(ids);
+        for (int fromIndex = 0; fromIndex < idList.size(); fromIndex += BATCH_SIZE) {
+            final String sqlIdList = StringUtils.join(idList.subList(fromIndex, Math.min(fromIndex + BATCH_SIZE, idList.size())), ',');
+            this.jdbcTemplate.update("delete from m_loan_listing where " + listingColumn + " in (" + sqlIdList + ")");
+            this.jdbcTemplate.update(INSERT_SQL + " where " + loanColumn + " in (" + sqlIdList + ")");
+        }
+    }
+}
@@ -21,6 +21,7 @@ package com.ls.portfolio.loanaccount.service;
 import java.math.BigDecimal;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 import com.ls.infrastructure.core.service.Page;
 import com.ls.infrastructure.core.service.SearchParameters;
@@ -89,7 +90,12 @@ public interface LoanReadPlatformService {
      * result overdue installments with this charge already applied are not
      * returned.
      */
-    Collection<OverdueLoanScheduleData> retrieveAllLoansWithOverdueInstallments(final Long penaltyWaitPeriod, final Boolean backdatePenalties);
+    /**
+     * Returns the overdue installments with penalties to apply, ordered by
+     * loan and read <code>pageSize</code> rows at a time.
+     */
+    Iterable<OverdueLoanScheduleData> retrieveAllLoansWithOverdueInstallments(final Long penaltyWaitPeriod,
+            final Boolean backdatePenalties, final int pageSize);
 
     Integer retriveLoanCounter(Long groupId, Integer loanType, Long productId);
 
@@ -109,6 +115,15 @@ public interface LoanReadPlatformService {
 
     Collection<LoanScheduleAccrualData> retrivePeriodicAccrualData(LocalDate tillDate);
 
+    /**
+     * Returns, in ascending order, at most <code>maxResults</code> ids of loans
+     * with periodic accruals pending till the given date and an id greater
+     * than <code>afterLoanId</code>.
+     */
+    List<Long> retrievePeriodicAccrualLoanIds(LocalDate tillDate, Long afterLoanId, int maxResults);
+
+    Collection<LoanScheduleAccrualData> retrivePeriodicAccrualData(LocalDate tillDate, Long fromLoanId, Long toLoanId);
+
     Collection<Long> fetchLoansForInterestRecalculation();
 
     LoanTransactionData retrieveLoanPrePaymentTemplate(Long loanId, LocalDate onDate);
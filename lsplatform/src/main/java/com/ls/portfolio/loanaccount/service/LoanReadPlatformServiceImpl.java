@@ -43,12 +43,15 @@ import com.ls.infrastructure.core.service.Page;
 import com.ls.infrastructure.core.service.PaginationHelper;
 import com.ls.infrastructure.core.service.RoutingDataSource;
 import com.ls.infrastructure.core.service.SearchParameters;
+import com.ls.infrastructure.jobs.service.KeysetPageReader;
+import com.ls.infrastructure.jobs.service.KeysetPageReader.Key;
 import com.ls.infrastructure.security.service.PlatformSecurityContext;
 import com.ls.organisation.monetary.data.CurrencyData;
 import com.ls.organisation.monetary.domain.ApplicationCurrency;
 import com.ls.organisation.monetary.domain.ApplicationCurrencyRepositoryWrapper;
 import com.ls.organisation.monetary.domain.MonetaryCurrency;
 import com.ls.organisation.monetary.domain.Money;
+import com.ls.organisation.office.service.OfficeHierarchyIndex;
 import com.ls.organisation.staff.data.StaffData;
 import com.ls.organisation.staff.service.StaffReadPlatformService;
 import com.ls.portfolio.account.data.AccountTransferData;
@@ -90,6 +93,7 @@ import com.ls.portfolio.loanaccount.data.PaidInAdvanceData;
 import com.ls.portfolio.loanaccount.data.RepaymentScheduleRelatedLoanData;
 import com.ls.portfolio.loanaccount.data.ScheduleGeneratorDTO;
 import com.ls.portfolio.loanaccount.domain.Loan;
+import com.ls.portfolio.loanaccount.domain.LoanFetchPlan;
 import com.ls.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
 import com.ls.portfolio.loanaccount.domain.LoanRepaymentScheduleTransactionProcessorFactory;
 import com.ls.portfolio.loanaccount.domain.LoanRepository;
@@ -134,6 +138,8 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     private final JdbcTemplate jdbcTemplate;
     private final PlatformSecurityContext context;
     private final LoanRepositoryWrapper loanRepositoryWrapper ;
+    private final OfficeHierarchyIndex officeHierarchyIndex;
+    private final LoanListingProjection loanListingProjection;
     private final ApplicationCurrencyRepositoryWrapper applicationCurrencyRepository;
     private final LoanProductReadPlatformService loanProductReadPlatformService;
     private final ClientReadPlatformService clientReadPlatformService;
@@ -167,9 +173,12 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
             final FloatingRatesReadPlatformService floatingRatesReadPlatformService, final LoanUtilService loanUtilService,
             final ConfigurationDomainService configurationDomainService,
             final AccountDetailsReadPlatformService accountDetailsReadPlatformService,
-            final LoanRepositoryWrapper loanRepositoryWrapper) {
+            final LoanRepositoryWrapper loanRepositoryWrapper, final OfficeHierarchyIndex officeHierarchyIndex,
+            final LoanListingProjection loanListingProjection) {
         this.context = context;
         this.loanRepositoryWrapper = loanRepositoryWrapper ;
+        this.officeHierarchyIndex = officeHierarchyIndex;
+        this.loanListingProjection = loanListingProjection;
         this.applicationCurrencyRepository = applicationCurrencyRepository;
         this.loanProductReadPlatformService = loanProductReadPlatformService;
         this.clientReadPlatformService = clientReadPlatformService;
@@ -259,8 +268,12 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     public Page<LoanAccountData> retrieveAll(final SearchParameters searchParameters) {
 
         final AppUser currentUser = this.context.authenticatedUser();
-        final String hierarchy = currentUser.getOffice().getHierarchy();
-        final String hierarchySearchString = hierarchy + "%";
+        final String officeIds = this.officeHierarchyIndex.retrieveSqlOfficeIdListWithin(currentUser.getOffice().getId());
+
+        if (this.loanListingProjection.canRetrieveLoanIds(searchParameters)) {
+            final Page<Long> loanIds = this.loanListingProjection.retrieveLoanIds(officeIds, searchParameters);
+            return new Page<>(retrieveAllByIds(loanIds.getPageItems()), loanIds.getTotalFilteredRecords());
+        }
 
         final StringBuilder sqlBuilder = new StringBuilder(200);
         sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
@@ -271,14 +284,11 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         // to support senario where loan has group_id only OR client_id will
         // probably require a UNION query
         // but that at present is an edge case
-        sqlBuilder.append(" join m_office o on o.id = c.office_id");
-        sqlBuilder.append(" left join m_office transferToOffice on transferToOffice.id = c.transfer_to_office_id ");
-        sqlBuilder.append(" where ( o.hierarchy like ? or transferToOffice.hierarchy like ?)");
+        sqlBuilder.append(" where ( c.office_id in (").append(officeIds).append(") or c.transfer_to_office_id in (").append(officeIds)
+                .append("))");
 
-        int arrayPos = 2;
+        int arrayPos = 0;
         List<Object> extraCriterias = new ArrayList<>();
-        extraCriterias.add(hierarchySearchString);
-        extraCriterias.add(hierarchySearchString);
 
         String sqlQueryCriteria = searchParameters.getSqlSearch();
         if (StringUtils.isNotBlank(sqlQueryCriteria)) {
@@ -320,6 +330,27 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
                 this.loaanLoanMapper);
     }
 
+    /**
+     * Reads the loans of a page found in the loan listing projection, in the
+     * order of their ids.
+     */
+    private List<LoanAccountData> retrieveAllByIds(final List<Long> loanIds) {
+        if (loanIds.isEmpty()) { return new ArrayList<>(); }
+        final String sql = "select " + this.loaanLoanMapper.loanSchema() + " where l.id in (" + StringUtils.join(loanIds, ',') + ")";
+        final Map<Long, LoanAccountData> loansById = new HashMap<>(loanIds.size());
+        for (final LoanAccountData loan : this.jdbcTemplate.query(sql, this.loaanLoanMapper)) {
+            loansById.put(loan.getId(), loan);
+        }
+        final List<LoanAccountData> loans = new ArrayList<>(loanIds.size());
+        for (final Long loanId : loanIds) {
+            final LoanAccountData loan = loansById.get(loanId);
+            if (loan != null) {
+                loans.add(loan);
+            }
+        }
+        return loans;
+    }
+
     @Override
     public LoanAccountData retrieveTemplateWithClientAndProductDetails(final Long clientId, final Long productId) {
 
@@ -401,7 +432,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
         this.context.authenticatedUser();
 
-        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, true);
+        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, LoanFetchPlan.CALCULATION);
         loan.setHelpers(null, null, loanRepaymentScheduleTransactionProcessorFactory);
 
         final MonetaryCurrency currency = loan.getCurrency();
@@ -433,7 +464,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         // TODO - KW -OPTIMIZE - write simple sql query to fetch back overdue
         // interest that can be waived along with the date of repayment period
         // interest is overdue.
-        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, true);
+        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, LoanFetchPlan.CALCULATION);
         final MonetaryCurrency currency = loan.getCurrency();
         final ApplicationCurrency applicationCurrency = this.applicationCurrencyRepository.findOneWithNotFoundDetection(currency);
         final CurrencyData currencyData = applicationCurrency.toData();
@@ -935,7 +966,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
                     + " ls.fee_charges_amount as feeChargesDue, ls.fee_charges_completed_derived as feeChargesPaid, ls.fee_charges_waived_derived as feeChargesWaived, ls.fee_charges_writtenoff_derived as feeChargesWrittenOff, "
                     + " ls.penalty_charges_amount as penaltyChargesDue, ls.penalty_charges_completed_derived as penaltyChargesPaid, ls.penalty_charges_waived_derived as penaltyChargesWaived, ls.penalty_charges_writtenoff_derived as penaltyChargesWrittenOff, "
                     + " ls.total_paid_in_advance_derived as totalPaidInAdvanceForPeriod, ls.total_paid_late_derived as totalPaidLateForPeriod, "
-                    + " mc.amount,mc.id as chargeId "
+                    + " mc.amount,mc.id as chargeId, ls.id as scheduleId "
                     + " from m_loan_repayment_schedule ls "
                     + " inner join m_loan ml on ml.id = ls.loan_id "
                     + " join m_product_loan_charge plc on plc.product_loan_id = ml.product_id "
@@ -1432,8 +1463,8 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     }
 
     @Override
-    public Collection<OverdueLoanScheduleData> retrieveAllLoansWithOverdueInstallments(final Long penaltyWaitPeriod,
-            final Boolean backdatePenalties) {
+    public Iterable<OverdueLoanScheduleData> retrieveAllLoansWithOverdueInstallments(final Long penaltyWaitPeriod,
+            final Boolean backdatePenalties, final int pageSize) {
         final MusoniOverdueLoanScheduleMapper rm = new MusoniOverdueLoanScheduleMapper();
 
         final StringBuilder sqlBuilder = new StringBuilder(400);
@@ -1442,12 +1473,16 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
                 .append(" and ls.recalculated_interest_component <> 1 ")
                 .append(" and mc.charge_time_enum = 9 and ml.loan_status_id = 300 ");
 
-        if (backdatePenalties) { return this.jdbcTemplate.query(sqlBuilder.toString(), rm, new Object[] { penaltyWaitPeriod }); }
-        // Only apply for duedate = yesterday (so that we don't apply
-        // penalties on the duedate itself)
-        sqlBuilder.append(" and ls.duedate >= DATE_SUB(CURDATE(),INTERVAL (? + 1) DAY)");
+        Object[] parameters = new Object[] { penaltyWaitPeriod };
+        if (!backdatePenalties) {
+            // Only apply for duedate = yesterday (so that we don't apply
+            // penalties on the duedate itself)
+            sqlBuilder.append(" and ls.duedate >= DATE_SUB(CURDATE(),INTERVAL (? + 1) DAY)");
+            parameters = new Object[] { penaltyWaitPeriod, penaltyWaitPeriod };
+        }
 
-        return this.jdbcTemplate.query(sqlBuilder.toString(), rm, new Object[] { penaltyWaitPeriod, penaltyWaitPeriod });
+        return new KeysetPageReader<>(this.jdbcTemplate.getDataSource(), sqlBuilder.toString(), parameters, rm, pageSize,
+                Key.ascending("ls.loan_id", "loanId"), Key.ascending("ls.id", "scheduleId"), Key.ascending("mc.id", "chargeId"));
 
     }
 
@@ -1564,11 +1599,49 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     public Collection<LoanScheduleAccrualData> retrivePeriodicAccrualData(final LocalDate tillDate) {
 
         LoanSchedulePeriodicAccrualMapper mapper = new LoanSchedulePeriodicAccrualMapper();
+        final Map<String, Object> paramMap = new HashMap<>(4);
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select ").append(mapper.schema()).append(periodicAccrualWhereClause(tillDate, paramMap));
+        sqlBuilder.append(" order by loan.id,ls.duedate ");
+
+        return this.namedParameterJdbcTemplate.query(sqlBuilder.toString(), paramMap, mapper);
+    }
+
+    @Override
+    public List<Long> retrievePeriodicAccrualLoanIds(final LocalDate tillDate, final Long afterLoanId, final int maxResults) {
+        final Map<String, Object> paramMap = new HashMap<>(5);
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select distinct loan.id from ").append(LoanSchedulePeriodicAccrualMapper.FROM_CLAUSE)
+                .append(periodicAccrualWhereClause(tillDate, paramMap));
+        if (afterLoanId != null) {
+            sqlBuilder.append(" and loan.id > :afterLoanId ");
+            paramMap.put("afterLoanId", afterLoanId);
+        }
+        sqlBuilder.append(" order by loan.id limit ").append(maxResults);
+
+        return this.namedParameterJdbcTemplate.queryForList(sqlBuilder.toString(), paramMap, Long.class);
+    }
+
+    @Override
+    public Collection<LoanScheduleAccrualData> retrivePeriodicAccrualData(final LocalDate tillDate, final Long fromLoanId,
+            final Long toLoanId) {
+
+        LoanSchedulePeriodicAccrualMapper mapper = new LoanSchedulePeriodicAccrualMapper();
+        final Map<String, Object> paramMap = new HashMap<>(6);
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select ").append(mapper.schema()).append(periodicAccrualWhereClause(tillDate, paramMap));
+        sqlBuilder.append(" and loan.id between :fromLoanId and :toLoanId ");
+        sqlBuilder.append(" order by loan.id,ls.duedate ");
+        paramMap.put("fromLoanId", fromLoanId);
+        paramMap.put("toLoanId", toLoanId);
+
+        return this.namedParameterJdbcTemplate.query(sqlBuilder.toString(), paramMap, mapper);
+    }
+
+    private String periodicAccrualWhereClause(final LocalDate tillDate, final Map<String, Object> paramMap) {
         Date organisationStartDate = this.configurationDomainService.retrieveOrganisationStartDate();
         final StringBuilder sqlBuilder = new StringBuilder(400);
         sqlBuilder
-                .append("select ")
-                .append(mapper.schema())
                 .append(" where  (recaldet.is_compounding_to_be_posted_as_transaction is null or recaldet.is_compounding_to_be_posted_as_transaction = 0) ")
                 .append(" and (((ls.fee_charges_amount <> if(ls.accrual_fee_charges_derived is null,0, ls.accrual_fee_charges_derived))")
                 .append(" or (ls.penalty_charges_amount <> if(ls.accrual_penalty_charges_derived is null,0,ls.accrual_penalty_charges_derived))")
@@ -1578,18 +1651,21 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         if(organisationStartDate != null){
             sqlBuilder.append(" and ls.duedate > :organisationstartdate ");
         }
-            sqlBuilder.append(" order by loan.id,ls.duedate ");
-        Map<String, Object> paramMap = new HashMap<>(4);
         paramMap.put("active", LoanStatus.ACTIVE.getValue());
         paramMap.put("type", AccountingRuleType.ACCRUAL_PERIODIC.getValue());
         paramMap.put("tilldate", formatter.print(tillDate));
         paramMap.put("organisationstartdate", formatter.print(new LocalDate(organisationStartDate)));
-
-        return this.namedParameterJdbcTemplate.query(sqlBuilder.toString(), paramMap, mapper);
+        return sqlBuilder.toString();
     }
 
     private static final class LoanSchedulePeriodicAccrualMapper implements RowMapper<LoanScheduleAccrualData> {
 
+        private static final String FROM_CLAUSE = " m_loan_repayment_schedule ls left join m_loan loan on loan.id=ls.loan_id "
+                + " left join m_product_loan mpl on mpl.id = loan.product_id"
+                + " left join m_client mc on mc.id = loan.client_id left join m_group mg on mg.id = loan.group_id"
+                + " left join m_currency curr on curr.code = loan.currency_code"
+                + " left join m_loan_recalculation_details as recaldet on loan.id = recaldet.loan_id ";
+
         public String schema() {
             final StringBuilder sqlBuilder = new StringBuilder(400);
             sqlBuilder
@@ -1605,11 +1681,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
                     .append("ls.accrual_interest_derived as accinterest,ls.accrual_fee_charges_derived as accfeecharege,ls.accrual_penalty_charges_derived as accpenalty,")
                     .append(" loan.currency_code as currencyCode,loan.currency_digits as currencyDigits,loan.currency_multiplesof as inMultiplesOf,")
                     .append("curr.display_symbol as currencyDisplaySymbol,curr.name as currencyName,curr.internationalized_name_code as currencyNameCode")
-                    .append(" from m_loan_repayment_schedule ls ").append(" left join m_loan loan on loan.id=ls.loan_id ")
-                    .append(" left join m_product_loan mpl on mpl.id = loan.product_id")
-                    .append(" left join m_client mc on mc.id = loan.client_id ").append(" left join m_group mg on mg.id = loan.group_id")
-                    .append(" left join m_currency curr on curr.code = loan.currency_code")
-                    .append(" left join m_loan_recalculation_details as recaldet on loan.id = recaldet.loan_id ");
+                    .append(" from ").append(FROM_CLAUSE);
             return sqlBuilder.toString();
         }
 
@@ -1713,7 +1785,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
     @Override
     public LoanTransactionData retrieveRecoveryPaymentTemplate(Long loanId) {
-        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, true);
+        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, LoanFetchPlan.CALCULATION);
         final LoanTransactionEnumData transactionType = LoanEnumerations.transactionType(LoanTransactionType.RECOVERY_REPAYMENT);
         final Collection<PaymentTypeData> paymentOptions = this.paymentTypeReadPlatformService.retrieveAllPaymentTypes();
         BigDecimal outstandingLoanBalance = null;
@@ -1952,7 +2024,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
 
         // TODO - KW - OPTIMIZE - write simple sql query to fetch back date of
         // possible next transaction date.
-        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, true);
+        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, LoanFetchPlan.CALCULATION);
         final MonetaryCurrency currency = loan.getCurrency();
         final ApplicationCurrency applicationCurrency = this.applicationCurrencyRepository.findOneWithNotFoundDetection(currency);
 
@@ -2036,7 +2108,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
     public LoanTransactionData retrieveLoanForeclosureTemplate(final Long loanId, final LocalDate transactionDate) {
         this.context.authenticatedUser();
 
-        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, true);
+        final Loan loan = this.loanRepositoryWrapper.findOneWithNotFoundDetection(loanId, LoanFetchPlan.CALCULATION);
         loan.validateForForeclosure(transactionDate);
         final MonetaryCurrency currency = loan.getCurrency();
         final ApplicationCurrency applicationCurrency = this.applicationCurrencyRepository.findOneWithNotFoundDetection(currency);
@@ -20,25 +20,30 @@ package com.ls.portfolio.loanaccount.service;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
 import com.ls.infrastructure.configuration.domain.ConfigurationDomainService;
 import com.ls.infrastructure.core.data.ApiParameterError;
 import com.ls.infrastructure.core.exception.AbstractPlatformDomainRuleException;
 import com.ls.infrastructure.core.exception.PlatformApiDataValidationException;
-import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
 import com.ls.infrastructure.jobs.annotation.CronTarget;
 import com.ls.infrastructure.jobs.exception.JobExecutionException;
 import com.ls.infrastructure.jobs.service.JobName;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.ItemProcessor;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.PartitionedRunResult;
+import com.ls.infrastructure.jobs.service.JobProgress;
+import com.ls.infrastructure.jobs.service.JobProgressTracker;
+import com.ls.infrastructure.jobs.service.RetryingJobExecutor;
+import com.ls.infrastructure.jobs.service.SchedulerJobRunnerReadService;
+import com.ls.infrastructure.jobs.service.SchedulerServiceConstants;
+import com.ls.portfolio.loanaccount.data.OverdueChargeTemplates;
 import com.ls.portfolio.loanaccount.loanschedule.data.OverdueLoanScheduleData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.CannotAcquireLockException;
-import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -48,13 +53,21 @@ public class LoanSchedularServiceImpl implements LoanSchedularService {
     private final ConfigurationDomainService configurationDomainService;
     private final LoanReadPlatformService loanReadPlatformService;
     private final LoanWritePlatformService loanWritePlatformService;
+    private final JobProgressTracker jobProgressTracker;
+    private final RetryingJobExecutor retryingJobExecutor;
+    private final SchedulerJobRunnerReadService schedulerJobRunnerReadService;
 
     @Autowired
     public LoanSchedularServiceImpl(final ConfigurationDomainService configurationDomainService,
-            final LoanReadPlatformService loanReadPlatformService, final LoanWritePlatformService loanWritePlatformService) {
+            final LoanReadPlatformService loanReadPlatformService, final LoanWritePlatformService loanWritePlatformService,
+            final JobProgressTracker jobProgressTracker, final RetryingJobExecutor retryingJobExecutor,
+            final SchedulerJobRunnerReadService schedulerJobRunnerReadService) {
         this.configurationDomainService = configurationDomainService;
         this.loanReadPlatformService = loanReadPlatformService;
         this.loanWritePlatformService = loanWritePlatformService;
+        this.jobProgressTracker = jobProgressTracker;
+        this.retryingJobExecutor = retryingJobExecutor;
+        this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
     }
 
     @Override
@@ -63,125 +76,127 @@ public class LoanSchedularServiceImpl implements LoanSchedularService {
 
         final Long penaltyWaitPeriodValue = this.configurationDomainService.retrievePenaltyWaitPeriod();
         final Boolean backdatePenalties = this.configurationDomainService.isBackdatePenaltiesEnabled();
-        final Collection<OverdueLoanScheduleData> overdueLoanScheduledInstallments = this.loanReadPlatformService
-                .retrieveAllLoansWithOverdueInstallments(penaltyWaitPeriodValue,backdatePenalties);
-
-        if (!overdueLoanScheduledInstallments.isEmpty()) {
-            final StringBuilder sb = new StringBuilder();
-            final Map<Long, Collection<OverdueLoanScheduleData>> overdueScheduleData = new HashMap<>();
-            for (final OverdueLoanScheduleData overdueInstallment : overdueLoanScheduledInstallments) {
-                if (overdueScheduleData.containsKey(overdueInstallment.getLoanId())) {
-                    overdueScheduleData.get(overdueInstallment.getLoanId()).add(overdueInstallment);
-                } else {
-                    Collection<OverdueLoanScheduleData> loanData = new ArrayList<>();
-                    loanData.add(overdueInstallment);
-                    overdueScheduleData.put(overdueInstallment.getLoanId(), loanData);
+        final Iterable<OverdueLoanScheduleData> overdueLoanScheduledInstallments = this.loanReadPlatformService
+                .retrieveAllLoansWithOverdueInstallments(penaltyWaitPeriodValue, backdatePenalties,
+                        SchedulerServiceConstants.DEFAULT_JOB_READ_PAGE_SIZE);
+
+        final Map<String, String> jobParameters = this.schedulerJobRunnerReadService
+                .retrieveJobParameters(JobName.APPLY_CHARGE_TO_OVERDUE_LOAN_INSTALLMENT);
+        final String bulkMode = jobParameters.get(SchedulerServiceConstants.JOB_PARAMETER_BULK_MODE);
+        OverdueChargeTemplates templates = null;
+        int chunkSize = 1;
+        if (bulkMode == null || Boolean.parseBoolean(bulkMode.trim())) {
+            templates = this.loanWritePlatformService.prepareOverdueChargeTemplates();
+            chunkSize = this.schedulerJobRunnerReadService.retrieveIntegerJobParameter(JobName.APPLY_CHARGE_TO_OVERDUE_LOAN_INSTALLMENT,
+                    SchedulerServiceConstants.JOB_PARAMETER_CHUNK_SIZE, SchedulerServiceConstants.DEFAULT_JOB_CHUNK_SIZE);
+        }
+
+        // installments come ordered by loan, so each loan is complete as soon
+        // as the next one starts and only one chunk of loans is held at a time
+        final JobProgress progress = this.jobProgressTracker.progressOf(JobName.APPLY_CHARGE_TO_OVERDUE_LOAN_INSTALLMENT);
+        final StringBuilder sb = new StringBuilder();
+        Map<Long, Collection<OverdueLoanScheduleData>> chunk = new LinkedHashMap<>();
+        Long loanId = null;
+        Collection<OverdueLoanScheduleData> loanData = null;
+        for (final OverdueLoanScheduleData overdueInstallment : overdueLoanScheduledInstallments) {
+            if (!overdueInstallment.getLoanId().equals(loanId)) {
+                if (chunk.size() >= chunkSize) {
+                    applyOverdueCharges(chunk, templates, sb, progress);
+                    chunk = new LinkedHashMap<>();
                 }
+                loanId = overdueInstallment.getLoanId();
+                loanData = new ArrayList<>();
+                chunk.put(loanId, loanData);
             }
+            loanData.add(overdueInstallment);
+        }
+        if (!chunk.isEmpty()) {
+            applyOverdueCharges(chunk, templates, sb, progress);
+        }
+        if (sb.length() > 0) { throw new JobExecutionException(sb.toString()); }
+    }
 
-            for (final Long loanId : overdueScheduleData.keySet()) {
-                try {
-                    this.loanWritePlatformService.applyOverdueChargesForLoan(loanId, overdueScheduleData.get(loanId));
-
-                } catch (final PlatformApiDataValidationException e) {
-                    final List<ApiParameterError> errors = e.getErrors();
-                    for (final ApiParameterError error : errors) {
-                        logger.error("Apply Charges due for overdue loans failed for account:" + loanId + " with message "
-                                + error.getDeveloperMessage());
-                        sb.append("Apply Charges due for overdue loans failed for account:").append(loanId).append(" with message ")
-                                .append(error.getDeveloperMessage());
-                    }
-                } catch (final AbstractPlatformDomainRuleException ex) {
-                    logger.error("Apply Charges due for overdue loans failed for account:" + loanId + " with message "
-                            + ex.getDefaultUserMessage());
-                    sb.append("Apply Charges due for overdue loans failed for account:").append(loanId).append(" with message ")
-                            .append(ex.getDefaultUserMessage());
-                } catch (Exception e) {
-                    Throwable realCause = e;
-                    if (e.getCause() != null) {
-                        realCause = e.getCause();
-                    }
-                    logger.error("Apply Charges due for overdue loans failed for account:" + loanId + " with message "
-                            + realCause.getMessage());
-                    sb.append("Apply Charges due for overdue loans failed for account:").append(loanId).append(" with message ")
-                            .append(realCause.getMessage());
-                }
+    /**
+     * Applies the penalties of a chunk of loans in one transaction. If that
+     * fails, or there are no templates because the job runs loan by loan,
+     * every loan is charged in a transaction of its own.
+     */
+    private void applyOverdueCharges(final Map<Long, Collection<OverdueLoanScheduleData>> chunk, final OverdueChargeTemplates templates,
+            final StringBuilder sb, final JobProgress progress) {
+        if (templates != null) {
+            try {
+                this.loanWritePlatformService.applyOverdueChargesForLoans(chunk, templates);
+                progress.itemsProcessed(chunk.size());
+                return;
+            } catch (final Exception e) {
+                logger.warn("Applying overdue penalties failed for a chunk of " + chunk.size() + " loans, applying them one by one", e);
             }
-            if (sb.length() > 0) { throw new JobExecutionException(sb.toString()); }
+        }
+        for (final Map.Entry<Long, Collection<OverdueLoanScheduleData>> loanEntry : chunk.entrySet()) {
+            applyOverdueChargesForLoan(loanEntry.getKey(), loanEntry.getValue(), sb, progress);
         }
     }
 
-	@Override
-	@CronTarget(jobName = JobName.RECALCULATE_INTEREST_FOR_LOAN)
-	public void recalculateInterest() throws JobExecutionException {
-		Integer maxNumberOfRetries = ThreadLocalContextUtil.getTenant()
-				.getConnection().getMaxRetriesOnDeadlock();
-		Integer maxIntervalBetweenRetries = ThreadLocalContextUtil.getTenant()
-				.getConnection().getMaxIntervalBetweenRetries();
-		Collection<Long> loanIds = this.loanReadPlatformService
-				.fetchLoansForInterestRecalculation();
-		int i = 0;
-		if (!loanIds.isEmpty()) {
-			final StringBuilder sb = new StringBuilder();
-			for (Long loanId : loanIds) {
-				logger.info("Loan ID " + loanId);
-				Integer numberOfRetries = 0;
-				while (numberOfRetries <= maxNumberOfRetries) {
-					try {
-						this.loanWritePlatformService
-								.recalculateInterest(loanId);
-						numberOfRetries = maxNumberOfRetries + 1;
-					} catch (CannotAcquireLockException
-							| ObjectOptimisticLockingFailureException exception) {
-						logger.info("Recalulate interest job has been retried  "
-								+ numberOfRetries + " time(s)");
-						/***
-						 * Fail if the transaction has been retired for
-						 * maxNumberOfRetries
-						 **/
-						if (numberOfRetries >= maxNumberOfRetries) {
-							logger.warn("Recalulate interest job has been retried for the max allowed attempts of "
-									+ numberOfRetries
-									+ " and will be rolled back");
-							sb.append("Recalulate interest job has been retried for the max allowed attempts of "
-									+ numberOfRetries
-									+ " and will be rolled back");
-							break;
-						}
-						/***
-						 * Else sleep for a random time (between 1 to 10
-						 * seconds) and continue
-						 **/
-						try {
-							Random random = new Random();
-							int randomNum = random
-									.nextInt(maxIntervalBetweenRetries + 1);
-							Thread.sleep(1000 + (randomNum * 1000));
-							numberOfRetries = numberOfRetries + 1;
-						} catch (InterruptedException e) {
-							sb.append("Interest recalculation for loans failed " + exception.getMessage()) ;
-							break;
-						}
-					} catch (Exception e) {
-						Throwable realCause = e;
-						if (e.getCause() != null) {
-							realCause = e.getCause();
-						}
-						logger.error("Interest recalculation for loans failed for account:"	+ loanId + " with message "
-								+ realCause.getMessage());
-						sb.append("Interest recalculation for loans failed for account:").append(loanId).append(" with message ")
-                        .append(realCause.getMessage());
-						numberOfRetries = maxNumberOfRetries + 1;
-					}
-					i++;
-				}
-				logger.info("Loans count " + i);
-			}
-			if (sb.length() > 0) {
-				throw new JobExecutionException(sb.toString());
-			}
-		}
-
-	}
+    private void applyOverdueChargesForLoan(final Long loanId, final Collection<OverdueLoanScheduleData> overdueInstallments,
+            final StringBuilder sb, final JobProgress progress) {
+        try {
+            this.loanWritePlatformService.applyOverdueChargesForLoan(loanId, overdueInstallments);
+            progress.itemsProcessed(1);
+
+        } catch (final PlatformApiDataValidationException e) {
+            final List<ApiParameterError> errors = e.getErrors();
+            progress.itemFailed(loanId, e, errors.isEmpty() ? e.getMessage() : errors.get(0).getDeveloperMessage());
+            for (final ApiParameterError error : errors) {
+                logger.error("Apply Charges due for overdue loans failed for account:" + loanId + " with message "
+                        + error.getDeveloperMessage());
+                sb.append("Apply Charges due for overdue loans failed for account:").append(loanId).append(" with message ")
+                        .append(error.getDeveloperMessage());
+            }
+        } catch (final AbstractPlatformDomainRuleException ex) {
+            progress.itemFailed(loanId, ex, ex.getDefaultUserMessage());
+            logger.error("Apply Charges due for overdue loans failed for account:" + loanId + " with message "
+                    + ex.getDefaultUserMessage());
+            sb.append("Apply Charges due for overdue loans failed for account:").append(loanId).append(" with message ")
+                    .append(ex.getDefaultUserMessage());
+        } catch (Exception e) {
+            progress.itemFailed(loanId, e);
+            Throwable realCause = e;
+            if (e.getCause() != null) {
+                realCause = e.getCause();
+            }
+            logger.error("Apply Charges due for overdue loans failed for account:" + loanId + " with message "
+                    + realCause.getMessage());
+            sb.append("Apply Charges due for overdue loans failed for account:").append(loanId).append(" with message ")
+                    .append(realCause.getMessage());
+        }
+    }
+
+    /**
+     * Recalculates interest on a pool of workers, one transaction per loan. A
+     * loan that is locked by another transaction is retried later with a
+     * backoff rather than holding up its worker.
+     */
+    @Override
+    @CronTarget(jobName = JobName.RECALCULATE_INTEREST_FOR_LOAN)
+    public void recalculateInterest() throws JobExecutionException {
+        final int workerCount = this.schedulerJobRunnerReadService.retrieveIntegerJobParameter(JobName.RECALCULATE_INTEREST_FOR_LOAN,
+                SchedulerServiceConstants.JOB_PARAMETER_WORKER_COUNT, SchedulerServiceConstants.DEFAULT_JOB_WORKER_COUNT);
+        final Collection<Long> loanIds = this.loanReadPlatformService.fetchLoansForInterestRecalculation();
+        if (loanIds.isEmpty()) { return; }
+
+        final ItemProcessor interestRecalculation = new ItemProcessor() {
+
+            @Override
+            public void process(final Long loanId) {
+                LoanSchedularServiceImpl.this.loanWritePlatformService.recalculateInterest(loanId);
+            }
+        };
+        final PartitionedRunResult result = this.retryingJobExecutor.execute(JobName.RECALCULATE_INTEREST_FOR_LOAN, loanIds,
+                interestRecalculation, workerCount);
+
+        if (result.hasFailures()) {
+            throw new JobExecutionException(JobPartitionExecutor.buildErrorMessage("recalculate interest for loan", result));
+        }
+    }
 
 }
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.service;
+
+import java.util.Collection;
+
+/**
+ * Keeps track of loans whose derived data needs to be recomputed by the
+ * UPDATE_LOAN_SUMMARY and UPDATE_LOAN_ARREARS_AGEING jobs.
+ * 
+ * Every change is logged once for each reader of the log, that is for each of
+ * these jobs. A reader removes exactly the changes it has read, once it has
+ * handled their loans. The log is never cleared up to a change id: a
+ * transaction can log a change with a lower id and commit it after a change
+ * with a higher id has been read.
+ */
+public interface LoanSummaryChangeLogService {
+
+    String LOAN_SUMMARY_READER = "loanSummary";
+
+    String LOAN_ARREARS_AGEING_READER = "loanArrearsAgeing";
+
+    void markLoanSummaryChanged(Long loanId);
+
+    void markLoanSummariesChanged(Collection<Long> loanIds);
+
+    /**
+     * Returns the changes logged for the reader of up to
+     * <code>maxLoans</code> loans following <code>lastLoanId</code>.
+     */
+    LoanChanges retrieveChanges(String reader, Long lastLoanId, int maxLoans);
+
+    /**
+     * Returns the changes logged for the reader of the loans of the office.
+     */
+    LoanChanges retrieveChangesOfOffice(String reader, Long officeId);
+
+    void markChangesRead(LoanChanges changes);
+
+}
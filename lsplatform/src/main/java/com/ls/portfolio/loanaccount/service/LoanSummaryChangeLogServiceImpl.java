@@ -0,0 +1,201 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import com.ls.portfolio.common.BusinessEventNotificationConstants.BUSINESS_ENTITY;
+import com.ls.portfolio.common.BusinessEventNotificationConstants.BUSINESS_EVENTS;
+import com.ls.portfolio.common.service.BusinessEventListner;
+import com.ls.portfolio.common.service.BusinessEventNotifierService;
+import com.ls.portfolio.loanaccount.domain.Loan;
+import com.ls.portfolio.loanaccount.domain.LoanCharge;
+import com.ls.portfolio.loanaccount.domain.LoanTransaction;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Service
+public class LoanSummaryChangeLogServiceImpl implements LoanSummaryChangeLogService, BusinessEventListner {
+
+    private static final int DELETE_BATCH_SIZE = 500;
+
+    private final BusinessEventNotifierService businessEventNotifierService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public LoanSummaryChangeLogServiceImpl(final RoutingDataSource dataSource,
+            final BusinessEventNotifierService businessEventNotifierService) {
+        this(new JdbcTemplate(dataSource), businessEventNotifierService);
+    }
+
+    LoanSummaryChangeLogServiceImpl(final JdbcTemplate jdbcTemplate, final BusinessEventNotifierService businessEventNotifierService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.businessEventNotifierService = businessEventNotifierService;
+    }
+
+    @PostConstruct
+    public void registerForNotification() {
+        final BUSINESS_EVENTS[] summaryChangingEvents = { BUSINESS_EVENTS.LOAN_DISBURSAL, BUSINESS_EVENTS.LOAN_UNDO_DISBURSAL,
+                BUSINESS_EVENTS.LOAN_UNDO_LASTDISBURSAL, BUSINESS_EVENTS.LOAN_MAKE_REPAYMENT, BUSINESS_EVENTS.LOAN_ADJUST_TRANSACTION,
+                BUSINESS_EVENTS.LOAN_UNDO_TRANSACTION, BUSINESS_EVENTS.LOAN_REFUND, BUSINESS_EVENTS.LOAN_WAIVE_INTEREST,
+                BUSINESS_EVENTS.LOAN_WRITTEN_OFF, BUSINESS_EVENTS.LOAN_UNDO_WRITTEN_OFF, BUSINESS_EVENTS.LOAN_ADD_CHARGE,
+                BUSINESS_EVENTS.LOAN_UPDATE_CHARGE, BUSINESS_EVENTS.LOAN_WAIVE_CHARGE, BUSINESS_EVENTS.LOAN_DELETE_CHARGE,
+                BUSINESS_EVENTS.LOAN_CHARGE_PAYMENT, BUSINESS_EVENTS.LOAN_APPLY_OVERDUE_CHARGE, BUSINESS_EVENTS.LOAN_INTEREST_RECALCULATION,
+                BUSINESS_EVENTS.LOAN_CLOSE, BUSINESS_EVENTS.LOAN_CLOSE_AS_RESCHEDULE, BUSINESS_EVENTS.LOAN_FORECLOSURE };
+        for (final BUSINESS_EVENTS event : summaryChangingEvents) {
+            this.businessEventNotifierService.addBusinessEventPostListners(event, this);
+        }
+    }
+
+    @Override
+    public void markLoanSummaryChanged(final Long loanId) {
+        if (loanId == null) { return; }
+        markLoanSummariesChanged(Collections.singleton(loanId));
+    }
+
+    /**
+     * Logs a change for each of the loans and each reader of the log, once
+     * per transaction.
+     */
+    @Override
+    public void markLoanSummariesChanged(final Collection<Long> loanIds) {
+        final List<Object[]> changes = new ArrayList<>(loanIds.size());
+        final Set<Long> loansMarkedInTransaction = loansMarkedInTransaction();
+        for (final Long loanId : loanIds) {
+            if (loanId != null && (loansMarkedInTransaction == null || loansMarkedInTransaction.add(loanId))) {
+                changes.add(new Object[] { loanId });
+            }
+        }
+        if (changes.isEmpty()) { return; }
+        this.jdbcTemplate.batchUpdate("insert into m_loan_summary_change_log (reader, loan_id)"
+                + " select r.reader, ? from m_loan_summary_change_log_reader r", changes);
+    }
+
+    @Override
+    public LoanChanges retrieveChanges(final String reader, final Long lastLoanId, final int maxLoans) {
+        final String sql = "select cl.id, cl.loan_id from m_loan_summary_change_log cl join (select distinct c.loan_id"
+                + " from m_loan_summary_change_log c where c.reader = ? and c.loan_id > ? order by c.loan_id limit ?) page"
+                + " on page.loan_id = cl.loan_id where cl.reader = ? order by cl.loan_id, cl.id";
+        return this.jdbcTemplate.query(sql, new LoanChangesExtractor(), reader, lastLoanId, maxLoans, reader);
+    }
+
+    @Override
+    public LoanChanges retrieveChangesOfOffice(final String reader, final Long officeId) {
+        final String sql = "select cl.id, cl.loan_id from m_loan_summary_change_log cl join m_loan ml on ml.id = cl.loan_id"
+                + " left join m_client mc on mc.id = ml.client_id left join m_group mg on mg.id = ml.group_id"
+                + " where cl.reader = ? and ifnull(mc.office_id, mg.office_id) = ? order by cl.loan_id, cl.id";
+        return this.jdbcTemplate.query(sql, new LoanChangesExtractor(), reader, officeId);
+    }
+
+    /**
+     * Removes the changes that were read, and only those. Changes logged for
+     * the same loans since are left for the next run of the reader.
+     */
+    @Override
+    public void markChangesRead(final LoanChanges changes) {
+        final List<Long> changeIds = changes.getChangeIds();
+        for (int fromIndex = 0; fromIndex < changeIds.size(); fromIndex += DELETE_BATCH_SIZE) {
+            final List<Long> batch = changeIds.subList(fromIndex, Math.min(fromIndex + DELETE_BATCH_SIZE, changeIds.size()));
+            this.jdbcTemplate.update("delete from m_loan_summary_change_log where id in (" + StringUtils.join(batch, ',') + ")");
+        }
+    }
+
+    private static final class LoanChangesExtractor implements ResultSetExtractor<LoanChanges> {
+
+        @Override
+        public LoanChanges extractData(final ResultSet rs) throws SQLException {
+            final LoanChanges changes = new LoanChanges();
+            while (rs.next()) {
+                changes.add(rs.getLong("id"), rs.getLong("loan_id"));
+            }
+            return changes;
+        }
+    }
+
+    private Set<Long> loansMarkedInTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) { return null; }
+        @SuppressWarnings("unchecked")
+        Set<Long> loanIds = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (loanIds == null) {
+            final Set<Long> markedLoanIds = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, markedLoanIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(LoanSummaryChangeLogServiceImpl.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(LoanSummaryChangeLogServiceImpl.this, markedLoanIds);
+                }
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(LoanSummaryChangeLogServiceImpl.this);
+                }
+            });
+            loanIds = markedLoanIds;
+        }
+        return loanIds;
+    }
+
+    @Override
+    public void businessEventToBeExecuted(@SuppressWarnings("unused") final Map<BUSINESS_ENTITY, Object> businessEventEntity) {
+        // nothing to do before the event
+    }
+
+    @Override
+    public void businessEventWasExecuted(final Map<BUSINESS_ENTITY, Object> businessEventEntity) {
+        Loan loan = null;
+        final Object loanEntity = businessEventEntity.get(BUSINESS_ENTITY.LOAN);
+        final Object loanTransactionEntity = businessEventEntity.get(BUSINESS_ENTITY.LOAN_TRANSACTION);
+        final Object loanAdjustTransactionEntity = businessEventEntity.get(BUSINESS_ENTITY.LOAN_ADJUSTED_TRANSACTION);
+        final Object loanChargeEntity = businessEventEntity.get(BUSINESS_ENTITY.LOAN_CHARGE);
+        if (loanEntity != null) {
+            loan = (Loan) loanEntity;
+        } else if (loanTransactionEntity != null) {
+            loan = ((LoanTransaction) loanTransactionEntity).getLoan();
+        } else if (loanAdjustTransactionEntity != null) {
+            loan = ((LoanTransaction) loanAdjustTransactionEntity).getLoan();
+        } else if (loanChargeEntity != null) {
+            loan = ((LoanCharge) loanChargeEntity).getLoan();
+        }
+        if (loan != null) {
+            markLoanSummaryChanged(loan.getId());
+        }
+    }
+}
@@ -30,6 +30,7 @@ import com.ls.portfolio.calendar.domain.Calendar;
 import com.ls.portfolio.calendar.domain.CalendarInstance;
 import com.ls.portfolio.collectionsheet.command.CollectionSheetBulkDisbursalCommand;
 import com.ls.portfolio.collectionsheet.command.CollectionSheetBulkRepaymentCommand;
+import com.ls.portfolio.loanaccount.data.OverdueChargeTemplates;
 import com.ls.portfolio.loanaccount.domain.Loan;
 import com.ls.portfolio.loanaccount.domain.LoanTransaction;
 import com.ls.portfolio.loanaccount.loanschedule.data.OverdueLoanScheduleData;
@@ -103,6 +104,11 @@ public interface LoanWritePlatformService {
 
     void applyOverdueChargesForLoan(Long loanId, Collection<OverdueLoanScheduleData> overdueLoanScheduleDatas);
 
+    OverdueChargeTemplates prepareOverdueChargeTemplates();
+
+    void applyOverdueChargesForLoans(Map<Long, Collection<OverdueLoanScheduleData>> overdueInstallmentsByLoan,
+            OverdueChargeTemplates templates);
+
     void recalculateInterest(long loanId);
 
     CommandProcessingResult undoLastLoanDisbursal(Long loanId, JsonCommand command);
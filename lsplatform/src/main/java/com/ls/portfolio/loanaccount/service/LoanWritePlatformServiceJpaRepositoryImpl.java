@@ -87,6 +87,7 @@ import com.ls.portfolio.group.exception.GroupNotActiveException;
 import com.ls.portfolio.loanaccount.api.LoanApiConstants;
 import com.ls.portfolio.loanaccount.command.LoanUpdateCommand;
 import com.ls.portfolio.loanaccount.data.*;
+import com.ls.portfolio.loanaccount.data.OverdueChargeTemplates.ChargeTemplate;
 import com.ls.portfolio.loanaccount.domain.*;
 import com.ls.portfolio.loanaccount.exception.*;
 import com.ls.portfolio.loanaccount.guarantor.service.GuarantorDomainService;
@@ -254,7 +255,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateDisbursement(command.json(), isAccountTransfer);
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.DISBURSEMENT);
         
         final LocalDate actualDisbursementDate = command.localDateValueOfParameterNamed("actualDisbursementDate");
         // validate ActualDisbursement Date Against Expected Disbursement Date
@@ -552,7 +553,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         for (int i = 0; i < disbursalCommand.length; i++) {
             final SingleDisbursalCommand singleLoanDisbursalCommand = disbursalCommand[i];
 
-            final Loan loan = this.loanAssembler.assembleFrom(singleLoanDisbursalCommand.getLoanId());
+            final Loan loan = this.loanAssembler.assembleFrom(singleLoanDisbursalCommand.getLoanId(), LoanFetchPlan.DISBURSEMENT);
             final LocalDate actualDisbursementDate = command.localDateValueOfParameterNamed("actualDisbursementDate");
             
             // validate ActualDisbursement Date Against Expected Disbursement Date
@@ -665,7 +666,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         final AppUser currentUser = getAppUserIfPresent();
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.DISBURSEMENT);
         checkClientOrGroupActive(loan);
         this.businessEventNotifierService.notifyBusinessEventToBeExecuted(BUSINESS_EVENTS.LOAN_UNDO_DISBURSAL,
                 constructEntityMap(BUSINESS_ENTITY.LOAN, loan));
@@ -734,7 +735,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         if (StringUtils.isNotBlank(noteText)) {
             changes.put("note", noteText);
         }
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.REPAYMENT);
         final PaymentDetail paymentDetail = this.paymentDetailWritePlatformService.createAndPersistPaymentDetail(command, changes);
         final Boolean isHolidayValidationDone = false;
         final HolidayDetailDTO holidayDetailDto = null;
@@ -785,7 +786,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         }
         for (final SingleRepaymentCommand singleLoanRepaymentCommand : repaymentCommand) {
             if (singleLoanRepaymentCommand != null) {
-                final Loan loan = this.loanAssembler.assembleFrom(singleLoanRepaymentCommand.getLoanId());
+                final Loan loan = this.loanAssembler.assembleFrom(singleLoanRepaymentCommand.getLoanId(), LoanFetchPlan.REPAYMENT);
                 final PaymentDetail paymentDetail = singleLoanRepaymentCommand.getPaymentDetail();
                 if (paymentDetail != null && paymentDetail.getId() == null) {
                     this.paymentDetailWritePlatformService.persistPaymentDetail(paymentDetail);
@@ -810,7 +811,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateTransaction(command.json());
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.REPAYMENT);
         if(loan.status().isClosed() && loan.getLoanSubStatus() !=null && loan.getLoanSubStatus().equals(LoanSubStatus.FORECLOSED.getValue())) {
             final String defaultUserMessage = "The loan cannot reopend as it is foreclosed.";
             throw new LoanForeclosureException("loan.cannot.be.reopened.as.it.is.foreclosured", defaultUserMessage,
@@ -962,7 +963,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         final LocalDate transactionDate = command.localDateValueOfParameterNamed("transactionDate");
         final BigDecimal transactionAmount = command.bigDecimalValueOfParameterNamed("transactionAmount");
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.REPAYMENT);
         checkClientOrGroupActive(loan);
 
         final List<Long> existingTransactionIds = new ArrayList<>();
@@ -1251,7 +1252,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateAddLoanCharge(command.json());
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.CHARGE);
         checkClientOrGroupActive(loan);
 
         List<LoanDisbursementDetails> loanDisburseDetails = loan.getDisbursementDetails();
@@ -1444,7 +1445,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         this.loanEventApiJsonValidator.validateUpdateOfLoanCharge(command.json());
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.CHARGE);
         checkClientOrGroupActive(loan);
         final LoanCharge loanCharge = retrieveLoanChargeBy(loanId, loanChargeId);
 
@@ -1478,7 +1479,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         AppUser currentUser = getAppUserIfPresent();
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.CHARGE);
         checkClientOrGroupActive(loan);
         this.loanEventApiJsonValidator.validateInstallmentChargeTransaction(command.json());
         final LoanCharge loanCharge = retrieveLoanChargeBy(loanId, loanChargeId);
@@ -1560,7 +1561,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
     @Override
     public CommandProcessingResult deleteLoanCharge(final Long loanId, final Long loanChargeId, final JsonCommand command) {
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.CHARGE);
         checkClientOrGroupActive(loan);
         final LoanCharge loanCharge = retrieveLoanChargeBy(loanId, loanChargeId);
 
@@ -1594,7 +1595,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         if (isChargeIdIncludedInJson) {
             loanChargeId = command.longValueOfParameterNamed("chargeId");
         }
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.CHARGE);
         checkClientOrGroupActive(loan);
         final LoanCharge loanCharge = retrieveLoanChargeBy(loanId, loanChargeId);
 
@@ -2301,9 +2302,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         LocalDate lastChargeDate = null;
         for (final OverdueLoanScheduleData overdueInstallment : overdueLoanScheduleDatas) {
 
-            final JsonElement parsedCommand = this.fromApiJsonHelper.parse(overdueInstallment.toString());
-            final JsonCommand command = JsonCommand.from(overdueInstallment.toString(), parsedCommand, this.fromApiJsonHelper, null, null,
-                    null, null, null, loanId, null, null, null, null);
+            final JsonCommand command = overdueChargeCommand(loanId, overdueInstallment);
             LoanOverdueDTO overdueDTO = applyChargeToOverdueLoanInstallment(loanId, overdueInstallment.getChargeId(),
                     overdueInstallment.getPeriodNumber(), command, loan, existingTransactionIds, existingReversedTransactionIds);
             loan = overdueDTO.getLoan();
@@ -2316,45 +2315,143 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
             }
         }
         if (loan != null) {
-            boolean reprocessRequired = true;
-            LocalDate recalculatedTill = loan.fetchInterestRecalculateFromDate();
-            if (recalculateFrom.isAfter(recalculatedTill)) {
-                recalculateFrom = recalculatedTill;
-            }
+            updateLoanWithOverdueCharges(loan, runInterestRecalculation, recalculateFrom, lastChargeDate, existingTransactionIds,
+                    existingReversedTransactionIds);
+        }
+    }
 
-            if (loan.repaymentScheduleDetail().isInterestRecalculationEnabled()) {
-                if (runInterestRecalculation && loan.isFeeCompoundingEnabledForInterestRecalculation()) {
-                    runScheduleRecalculation(loan, recalculateFrom);
-                    reprocessRequired = false;
+    @Override
+    public OverdueChargeTemplates prepareOverdueChargeTemplates() {
+        return new OverdueChargeTemplates(this.configurationDomainService.retrievePenaltyWaitPeriod(),
+                this.configurationDomainService.retrieveGraceOnPenaltyPostingPeriod());
+    }
+
+    /**
+     * Works out the penalties due on the installments of a chunk of loans
+     * from the installment data, the charge templates and a single query for
+     * the penalties already applied. Only loans with a new penalty are
+     * loaded, charged and have their transactions reprocessed, all in one
+     * transaction.
+     */
+    @Override
+    @Transactional
+    public void applyOverdueChargesForLoans(final Map<Long, Collection<OverdueLoanScheduleData>> overdueInstallmentsByLoan,
+            final OverdueChargeTemplates templates) {
+        final Map<String, Collection<Integer>> appliedFrequencyNumbers = this.loanChargeReadPlatformService
+                .retrieveOverdueInstallmentChargeFrequencyNumbers(overdueInstallmentsByLoan.keySet());
+        final Map<Long, Charge> chargeDefinitions = new HashMap<>();
+        for (final Map.Entry<Long, Collection<OverdueLoanScheduleData>> loanEntry : overdueInstallmentsByLoan.entrySet()) {
+            final Long loanId = loanEntry.getKey();
+            Loan loan = null;
+            final List<Long> existingTransactionIds = new ArrayList<>();
+            final List<Long> existingReversedTransactionIds = new ArrayList<>();
+            boolean runInterestRecalculation = false;
+            LocalDate recalculateFrom = DateUtils.getLocalDateOfTenant();
+            LocalDate lastChargeDate = null;
+            for (final OverdueLoanScheduleData overdueInstallment : loanEntry.getValue()) {
+                final ChargeTemplate chargeTemplate = chargeTemplate(templates, chargeDefinitions, overdueInstallment.getChargeId());
+                final LocalDate dueDate = DateTimeFormat.forPattern(overdueInstallment.getDateFormat()).parseLocalDate(
+                        overdueInstallment.getDueDate());
+                Collection<Integer> frequencyNumbers = appliedFrequencyNumbers.get(overdueInstallment.installmentChargeKey());
+                if (frequencyNumbers == null) {
+                    frequencyNumbers = Collections.emptyList();
+                }
+                final Map<Integer, LocalDate> scheduleDates = overdueChargeScheduleDates(dueDate, chargeTemplate.getFeeFrequency(),
+                        chargeTemplate.getFeeInterval(), templates.getPenaltyWaitPeriod(), templates.getPenaltyPostingWaitPeriod(),
+                        frequencyNumbers);
+                if (scheduleDates.isEmpty()) {
+                    continue;
                 }
-                updateOriginalSchedule(loan);
-            }
 
-            if (reprocessRequired) {
-                addInstallmentIfPenaltyAppliedAfterLastDueDate(loan, lastChargeDate);
-                ChangedTransactionDetail changedTransactionDetail = loan.reprocessTransactions();
-                if (changedTransactionDetail != null) {
-                    for (final Map.Entry<Long, LoanTransaction> mapEntry : changedTransactionDetail.getNewTransactionMappings().entrySet()) {
-                        this.loanTransactionRepository.save(mapEntry.getValue());
-                        // update loan with references to the newly created
-                        // transactions
-                        loan.addLoanTransaction(mapEntry.getValue());
-                        this.accountTransfersWritePlatformService.updateLoanTransaction(mapEntry.getKey(), mapEntry.getValue());
-                    }
+                final Charge chargeDefinition = chargeDefinition(chargeDefinitions, overdueInstallment.getChargeId());
+                final LoanOverdueDTO overdueDTO = applyChargeToOverdueLoanInstallment(loanId, chargeDefinition,
+                        overdueInstallment.getPeriodNumber(), overdueChargeCommand(loanId, overdueInstallment), loan,
+                        existingTransactionIds, existingReversedTransactionIds, dueDate, scheduleDates);
+                loan = overdueDTO.getLoan();
+                runInterestRecalculation = runInterestRecalculation || overdueDTO.isRunInterestRecalculation();
+                if (recalculateFrom.isAfter(overdueDTO.getRecalculateFrom())) {
+                    recalculateFrom = overdueDTO.getRecalculateFrom();
                 }
-                saveLoanWithDataIntegrityViolationChecks(loan);
+                if (lastChargeDate == null || overdueDTO.getLastChargeAppliedDate().isAfter(lastChargeDate)) {
+                    lastChargeDate = overdueDTO.getLastChargeAppliedDate();
+                }
+            }
+            if (loan != null) {
+                updateLoanWithOverdueCharges(loan, runInterestRecalculation, recalculateFrom, lastChargeDate, existingTransactionIds,
+                        existingReversedTransactionIds);
             }
+        }
+    }
 
-            postJournalEntries(loan, existingTransactionIds, existingReversedTransactionIds);
+    private ChargeTemplate chargeTemplate(final OverdueChargeTemplates templates, final Map<Long, Charge> chargeDefinitions,
+            final Long chargeId) {
+        ChargeTemplate chargeTemplate = templates.chargeTemplate(chargeId);
+        if (chargeTemplate == null) {
+            final Charge chargeDefinition = chargeDefinition(chargeDefinitions, chargeId);
+            chargeTemplate = new ChargeTemplate(chargeDefinition.feeFrequency(), chargeDefinition.feeInterval());
+            templates.addChargeTemplate(chargeId, chargeTemplate);
+        }
+        return chargeTemplate;
+    }
+
+    /**
+     * Loads a penalty charge once per chunk of loans, the same charge usually
+     * being due on most of the installments of the chunk.
+     */
+    private Charge chargeDefinition(final Map<Long, Charge> chargeDefinitions, final Long chargeId) {
+        Charge chargeDefinition = chargeDefinitions.get(chargeId);
+        if (chargeDefinition == null) {
+            chargeDefinition = this.chargeRepository.findOneWithNotFoundDetection(chargeId);
+            chargeDefinitions.put(chargeId, chargeDefinition);
+        }
+        return chargeDefinition;
+    }
 
-            if (loan.repaymentScheduleDetail().isInterestRecalculationEnabled() && runInterestRecalculation
-                    && loan.isFeeCompoundingEnabledForInterestRecalculation()) {
-                this.loanAccountDomainService.recalculateAccruals(loan);
+    private JsonCommand overdueChargeCommand(final Long loanId, final OverdueLoanScheduleData overdueInstallment) {
+        final JsonElement parsedCommand = this.fromApiJsonHelper.parse(overdueInstallment.toString());
+        return JsonCommand.from(overdueInstallment.toString(), parsedCommand, this.fromApiJsonHelper, null, null, null, null, null,
+                loanId, null, null, null, null);
+    }
+
+    private void updateLoanWithOverdueCharges(final Loan loan, final boolean runInterestRecalculation, LocalDate recalculateFrom,
+            final LocalDate lastChargeDate, final List<Long> existingTransactionIds, final List<Long> existingReversedTransactionIds) {
+        boolean reprocessRequired = true;
+        LocalDate recalculatedTill = loan.fetchInterestRecalculateFromDate();
+        if (recalculateFrom.isAfter(recalculatedTill)) {
+            recalculateFrom = recalculatedTill;
+        }
+
+        if (loan.repaymentScheduleDetail().isInterestRecalculationEnabled()) {
+            if (runInterestRecalculation && loan.isFeeCompoundingEnabledForInterestRecalculation()) {
+                runScheduleRecalculation(loan, recalculateFrom);
+                reprocessRequired = false;
             }
-            this.businessEventNotifierService.notifyBusinessEventWasExecuted(BUSINESS_EVENTS.LOAN_APPLY_OVERDUE_CHARGE,
-                    constructEntityMap(BUSINESS_ENTITY.LOAN, loan));
+            updateOriginalSchedule(loan);
+        }
 
+        if (reprocessRequired) {
+            addInstallmentIfPenaltyAppliedAfterLastDueDate(loan, lastChargeDate);
+            ChangedTransactionDetail changedTransactionDetail = loan.reprocessTransactions();
+            if (changedTransactionDetail != null) {
+                for (final Map.Entry<Long, LoanTransaction> mapEntry : changedTransactionDetail.getNewTransactionMappings().entrySet()) {
+                    this.loanTransactionRepository.save(mapEntry.getValue());
+                    // update loan with references to the newly created
+                    // transactions
+                    loan.addLoanTransaction(mapEntry.getValue());
+                    this.accountTransfersWritePlatformService.updateLoanTransaction(mapEntry.getKey(), mapEntry.getValue());
+                }
+            }
+            saveLoanWithDataIntegrityViolationChecks(loan);
         }
+
+        postJournalEntries(loan, existingTransactionIds, existingReversedTransactionIds);
+
+        if (loan.repaymentScheduleDetail().isInterestRecalculationEnabled() && runInterestRecalculation
+                && loan.isFeeCompoundingEnabledForInterestRecalculation()) {
+            this.loanAccountDomainService.recalculateAccruals(loan);
+        }
+        this.businessEventNotifierService.notifyBusinessEventWasExecuted(BUSINESS_EVENTS.LOAN_APPLY_OVERDUE_CHARGE,
+                constructEntityMap(BUSINESS_ENTITY.LOAN, loan));
     }
 
     private void addInstallmentIfPenaltyAppliedAfterLastDueDate(Loan loan, LocalDate lastChargeDate) {
@@ -2383,18 +2480,29 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
     public LoanOverdueDTO applyChargeToOverdueLoanInstallment(final Long loanId, final Long loanChargeId, final Integer periodNumber,
             final JsonCommand command, Loan loan, final List<Long> existingTransactionIds, final List<Long> existingReversedTransactionIds) {
-        boolean runInterestRecalculation = false;
         final Charge chargeDefinition = this.chargeRepository.findOneWithNotFoundDetection(loanChargeId);
 
         Collection<Integer> frequencyNumbers = loanChargeReadPlatformService.retrieveOverdueInstallmentChargeFrequencyNumber(loanId,
                 chargeDefinition.getId(), periodNumber);
 
-        Integer feeFrequency = chargeDefinition.feeFrequency();
-        final ScheduledDateGenerator scheduledDateGenerator = new DefaultScheduledDateGenerator();
-        Map<Integer, LocalDate> scheduleDates = new HashMap<>();
         final Long penaltyWaitPeriodValue = this.configurationDomainService.retrievePenaltyWaitPeriod();
         final Long penaltyPostingWaitPeriodValue = this.configurationDomainService.retrieveGraceOnPenaltyPostingPeriod();
         final LocalDate dueDate = command.localDateValueOfParameterNamed("dueDate");
+        final Map<Integer, LocalDate> scheduleDates = overdueChargeScheduleDates(dueDate, chargeDefinition.feeFrequency(),
+                chargeDefinition.feeInterval(), penaltyWaitPeriodValue, penaltyPostingWaitPeriodValue, frequencyNumbers);
+        return applyChargeToOverdueLoanInstallment(loanId, chargeDefinition, periodNumber, command, loan, existingTransactionIds,
+                existingReversedTransactionIds, dueDate, scheduleDates);
+    }
+
+    /**
+     * Returns the dates of the penalties due on an installment, by frequency
+     * number, leaving out the ones already applied.
+     */
+    private Map<Integer, LocalDate> overdueChargeScheduleDates(final LocalDate dueDate, final Integer feeFrequency,
+            final Integer feeInterval, final Long penaltyWaitPeriodValue, final Long penaltyPostingWaitPeriodValue,
+            final Collection<Integer> frequencyNumbers) {
+        final ScheduledDateGenerator scheduledDateGenerator = new DefaultScheduledDateGenerator();
+        Map<Integer, LocalDate> scheduleDates = new HashMap<>();
         Long diff = penaltyWaitPeriodValue + 1 - penaltyPostingWaitPeriodValue;
         if (diff < 0) {
             diff = 0L;
@@ -2407,7 +2515,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
             while (DateUtils.getLocalDateOfTenant().isAfter(startDate)) {
                 scheduleDates.put(frequencyNunber++, startDate.minusDays(diff.intValue()));
                 LocalDate scheduleDate = scheduledDateGenerator.getRepaymentPeriodDate(PeriodFrequencyType.fromInt(feeFrequency),
-                        chargeDefinition.feeInterval(), startDate, null, null);
+                        feeInterval, startDate, null, null);
 
                 startDate = scheduleDate;
             }
@@ -2416,12 +2524,18 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         for (Integer frequency : frequencyNumbers) {
             scheduleDates.remove(frequency);
         }
+        return scheduleDates;
+    }
 
+    LoanOverdueDTO applyChargeToOverdueLoanInstallment(final Long loanId, final Charge chargeDefinition, final Integer periodNumber,
+            final JsonCommand command, Loan loan, final List<Long> existingTransactionIds, final List<Long> existingReversedTransactionIds,
+            final LocalDate dueDate, final Map<Integer, LocalDate> scheduleDates) {
+        boolean runInterestRecalculation = false;
         LoanRepaymentScheduleInstallment installment = null;
         LocalDate lastChargeAppliedDate = dueDate;
         if (!scheduleDates.isEmpty()) {
             if (loan == null) {
-                loan = this.loanAssembler.assembleFrom(loanId);
+                loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.CHARGE);
                 checkClientOrGroupActive(loan);
                 existingTransactionIds.addAll(loan.findExistingTransactionIds());
                 existingReversedTransactionIds.addAll(loan.findExistingReversedTransactionIds());
@@ -2631,7 +2745,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
     public CommandProcessingResult updateDisbursementDateAndAmountForTranche(final Long loanId, final Long disbursementId,
             final JsonCommand command) {
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.DISBURSEMENT);
         checkClientOrGroupActive(loan);
         LoanDisbursementDetails loanDisbursementDetails = loan.fetchLoanDisbursementsById(disbursementId);
         this.loanEventApiJsonValidator.validateUpdateDisbursementDateAndAmount(command.json(), loanDisbursementDetails);
@@ -2856,7 +2970,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
     public CommandProcessingResult undoLastLoanDisbursal(Long loanId, JsonCommand command) {
         final AppUser currentUser = getAppUserIfPresent();
 
-        final Loan loan = this.loanAssembler.assembleFrom(loanId);
+        final Loan loan = this.loanAssembler.assembleFrom(loanId, LoanFetchPlan.DISBURSEMENT);
         final LocalDate recalculateFromDate = loan.getLastRepaymentDate();
         validateIsMultiDisbursalLoanAndDisbursedMoreThanOneTranche(loan);
         checkClientOrGroupActive(loan);
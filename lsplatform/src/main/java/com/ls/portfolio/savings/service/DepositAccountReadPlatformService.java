@@ -51,7 +51,7 @@ public interface DepositAccountReadPlatformService {
 
     SavingsAccountTransactionData retrieveRecurringAccountDepositTransactionTemplate(final Long accountId);
 
-    Collection<AccountTransferDTO> retrieveDataForInterestTransfer();
+    Iterable<AccountTransferDTO> retrieveDataForInterestTransfer(int pageSize);
 
     Collection<Map<String, Object>> retriveDataForRDScheduleCreation();
 }
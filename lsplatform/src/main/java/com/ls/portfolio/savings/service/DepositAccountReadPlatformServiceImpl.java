@@ -33,6 +33,8 @@ import com.ls.infrastructure.core.service.DateUtils;
 import com.ls.infrastructure.core.service.Page;
 import com.ls.infrastructure.core.service.PaginationHelper;
 import com.ls.infrastructure.core.service.RoutingDataSource;
+import com.ls.infrastructure.jobs.service.KeysetPageReader;
+import com.ls.infrastructure.jobs.service.KeysetPageReader.Key;
 import com.ls.infrastructure.security.service.PlatformSecurityContext;
 import com.ls.organisation.monetary.data.CurrencyData;
 import com.ls.organisation.staff.data.StaffData;
@@ -489,7 +491,7 @@ public class DepositAccountReadPlatformServiceImpl implements DepositAccountRead
     }
 
     @Override
-    public Collection<AccountTransferDTO> retrieveDataForInterestTransfer() {
+    public Iterable<AccountTransferDTO> retrieveDataForInterestTransfer(final int pageSize) {
         final StringBuilder sqlBuilder = new StringBuilder(300);
         AccountTransferMapper mapper = new AccountTransferMapper();
         sqlBuilder.append("SELECT ");
@@ -500,8 +502,9 @@ public class DepositAccountReadPlatformServiceImpl implements DepositAccountRead
         sqlBuilder
                 .append("and st.transaction_type_enum = ? and sa.status_enum = ? and st.is_reversed=0 and st.transaction_date > IFNULL(sa.lockedin_until_date_derived,sa.activatedon_date)");
 
-        return this.jdbcTemplate.query(sqlBuilder.toString(), mapper, new Object[] { SavingsAccountTransactionType.WITHDRAWAL.getValue(),
-                SavingsAccountTransactionType.INTEREST_POSTING.getValue(), SavingsAccountStatusType.ACTIVE.getValue() });
+        return new KeysetPageReader<>(this.jdbcTemplate.getDataSource(), sqlBuilder.toString(), new Object[] {
+                SavingsAccountTransactionType.WITHDRAWAL.getValue(), SavingsAccountTransactionType.INTEREST_POSTING.getValue(),
+                SavingsAccountStatusType.ACTIVE.getValue() }, mapper, pageSize, Key.ascending("st.id", "transactionId"));
     }
 
     @Override
@@ -1450,7 +1453,8 @@ public class DepositAccountReadPlatformServiceImpl implements DepositAccountRead
         public AccountTransferMapper() {
             final StringBuilder sqlBuilder = new StringBuilder(400);
             sqlBuilder
-                    .append("sa.id as fromAcc ,aa.linked_savings_account_id as toAcc,st.amount as amount, st.transaction_date as transactionDate ")
+                    .append("sa.id as fromAcc ,aa.linked_savings_account_id as toAcc,st.amount as amount, st.transaction_date as transactionDate, ")
+                    .append("st.id as transactionId ")
                     .append(" from m_deposit_account_term_and_preclosure da ")
                     .append(" inner join m_savings_account sa on da.savings_account_id = sa.id")
                     .append(" inner join m_savings_account_transaction st on st.savings_account_id = sa.id")
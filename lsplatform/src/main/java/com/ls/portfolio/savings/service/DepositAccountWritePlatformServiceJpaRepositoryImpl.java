@@ -27,7 +27,6 @@ import static com.ls.portfolio.savings.SavingsApiConstants.dueAsOfDateParamName;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -49,6 +48,7 @@ import com.ls.infrastructure.core.service.DateUtils;
 import com.ls.infrastructure.jobs.annotation.CronTarget;
 import com.ls.infrastructure.jobs.exception.JobExecutionException;
 import com.ls.infrastructure.jobs.service.JobName;
+import com.ls.infrastructure.jobs.service.SchedulerServiceConstants;
 import com.ls.infrastructure.security.service.PlatformSecurityContext;
 import com.ls.organisation.holiday.domain.HolidayRepositoryWrapper;
 import com.ls.organisation.monetary.domain.ApplicationCurrency;
@@ -552,7 +552,8 @@ public class DepositAccountWritePlatformServiceJpaRepositoryImpl implements Depo
     @Override
     @CronTarget(jobName = JobName.TRANSFER_INTEREST_TO_SAVINGS)
     public void transferInterestToSavings() throws JobExecutionException {
-        Collection<AccountTransferDTO> accountTrasferData = this.depositAccountReadPlatformService.retrieveDataForInterestTransfer();
+        Iterable<AccountTransferDTO> accountTrasferData = this.depositAccountReadPlatformService
+                .retrieveDataForInterestTransfer(SchedulerServiceConstants.DEFAULT_JOB_READ_PAGE_SIZE);
         StringBuilder sb = new StringBuilder(200);
         for (AccountTransferDTO accountTransferDTO : accountTrasferData) {
             try {
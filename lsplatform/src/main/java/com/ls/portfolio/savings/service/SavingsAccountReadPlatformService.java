@@ -55,6 +55,10 @@ public interface SavingsAccountReadPlatformService {
     
     List<Long> retrieveSavingsIdsPendingInactive(LocalDate tenantLocalDate);
 
+    List<Long> retrieveSavingsIdsByStatus(Integer status, Long lastSavingsId, int maxResults);
+
+    long countSavingsByStatus(Integer status);
+
     List<Long> retrieveSavingsIdsPendingDormant(LocalDate tenantLocalDate);
 
     List<Long> retrieveSavingsIdsPendingEscheat(LocalDate tenantLocalDate);
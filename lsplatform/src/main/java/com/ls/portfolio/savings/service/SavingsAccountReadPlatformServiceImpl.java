@@ -1127,6 +1127,18 @@ public class SavingsAccountReadPlatformServiceImpl implements SavingsAccountRead
 		return ret;
 	}
 
+    @Override
+    public List<Long> retrieveSavingsIdsByStatus(final Integer status, final Long lastSavingsId, final int maxResults) {
+        final String sql = "select sa.id from m_savings_account sa where sa.status_enum = ? and sa.id > ? order by sa.id limit ?";
+        return this.jdbcTemplate.queryForList(sql, Long.class, new Object[] { status, lastSavingsId, maxResults });
+    }
+
+    @Override
+    public long countSavingsByStatus(final Integer status) {
+        final String sql = "select count(sa.id) from m_savings_account sa where sa.status_enum = ?";
+        return this.jdbcTemplate.queryForObject(sql, Long.class, status);
+    }
+
 	@Override
 	public List<Long> retrieveSavingsIdsPendingDormant(
 			LocalDate tenantLocalDate) {
@@ -24,6 +24,13 @@ import com.ls.infrastructure.core.service.DateUtils;
 import com.ls.infrastructure.jobs.annotation.CronTarget;
 import com.ls.infrastructure.jobs.exception.JobExecutionException;
 import com.ls.infrastructure.jobs.service.JobName;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.ItemProcessor;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.PartitionSource;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.PartitionedRunResult;
+import com.ls.infrastructure.jobs.service.JobProgressTracker;
+import com.ls.infrastructure.jobs.service.SchedulerJobRunnerReadService;
+import com.ls.infrastructure.jobs.service.SchedulerServiceConstants;
 import com.ls.portfolio.savings.domain.SavingsAccount;
 import com.ls.portfolio.savings.domain.SavingsAccountAssembler;
 import com.ls.portfolio.savings.domain.SavingsAccountRepositoryWrapper;
@@ -39,41 +46,63 @@ public class SavingsSchedularServiceImpl implements SavingsSchedularService {
     private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
     private final SavingsAccountRepositoryWrapper savingAccountRepositoryWrapper;
     private final SavingsAccountReadPlatformService savingAccountReadPlatformService;
+    private final JobPartitionExecutor jobPartitionExecutor;
+    private final SchedulerJobRunnerReadService schedulerJobRunnerReadService;
+    private final JobProgressTracker jobProgressTracker;
 
     @Autowired
     public SavingsSchedularServiceImpl(final SavingsAccountAssembler savingAccountAssembler,
             final SavingsAccountWritePlatformService savingsAccountWritePlatformService,
             final SavingsAccountRepositoryWrapper savingAccountRepositoryWrapper,
-            final SavingsAccountReadPlatformService savingAccountReadPlatformService) {
+            final SavingsAccountReadPlatformService savingAccountReadPlatformService, final JobPartitionExecutor jobPartitionExecutor,
+            final SchedulerJobRunnerReadService schedulerJobRunnerReadService, final JobProgressTracker jobProgressTracker) {
         this.savingAccountAssembler = savingAccountAssembler;
         this.savingsAccountWritePlatformService = savingsAccountWritePlatformService;
         this.savingAccountRepositoryWrapper = savingAccountRepositoryWrapper;
         this.savingAccountReadPlatformService = savingAccountReadPlatformService;
+        this.jobPartitionExecutor = jobPartitionExecutor;
+        this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
+        this.jobProgressTracker = jobProgressTracker;
     }
 
     @CronTarget(jobName = JobName.POST_INTEREST_FOR_SAVINGS)
     @Override
     public void postInterestForAccounts() throws JobExecutionException {
-        final List<SavingsAccount> savingsAccounts = this.savingAccountRepositoryWrapper.findSavingAccountByStatus(SavingsAccountStatusType.ACTIVE
-                .getValue());
-        StringBuffer sb = new StringBuffer();
-        for (final SavingsAccount savingsAccount : savingsAccounts) {
-            try {
-                this.savingAccountAssembler.assignSavingAccountHelpers(savingsAccount);
+        final int workerCount = this.schedulerJobRunnerReadService.retrieveIntegerJobParameter(JobName.POST_INTEREST_FOR_SAVINGS,
+                SchedulerServiceConstants.JOB_PARAMETER_WORKER_COUNT, SchedulerServiceConstants.DEFAULT_JOB_WORKER_COUNT);
+        final int chunkSize = this.schedulerJobRunnerReadService.retrieveIntegerJobParameter(JobName.POST_INTEREST_FOR_SAVINGS,
+                SchedulerServiceConstants.JOB_PARAMETER_CHUNK_SIZE, SchedulerServiceConstants.DEFAULT_JOB_CHUNK_SIZE);
+        this.jobProgressTracker.progressOf(JobName.POST_INTEREST_FOR_SAVINGS).updateTotalItems(
+                this.savingAccountReadPlatformService.countSavingsByStatus(SavingsAccountStatusType.ACTIVE.getValue()));
+
+        final PartitionSource activeAccounts = new PartitionSource() {
+
+            @Override
+            public List<Long> nextPartition(final Long lastId, final int partitionSize) {
+                return SavingsSchedularServiceImpl.this.savingAccountReadPlatformService.retrieveSavingsIdsByStatus(
+                        SavingsAccountStatusType.ACTIVE.getValue(), lastId, partitionSize);
+            }
+        };
+        final ItemProcessor interestPosting = new ItemProcessor() {
+
+            @Override
+            public void process(final Long savingsId) {
+                final SavingsAccount savingsAccount = SavingsSchedularServiceImpl.this.savingAccountRepositoryWrapper
+                        .findOneWithNotFoundDetection(savingsId);
+                SavingsSchedularServiceImpl.this.savingAccountAssembler.assignSavingAccountHelpers(savingsAccount);
                 boolean postInterestAsOn = false;
                 LocalDate transactionDate = null;
-                this.savingsAccountWritePlatformService.postInterest(savingsAccount, postInterestAsOn, transactionDate);
-            } catch (Exception e) {
-                Throwable realCause = e;
-                if (e.getCause() != null) {
-                    realCause = e.getCause();
-                }
-                sb.append("failed to post interest for Savings with id " + savingsAccount.getId() + " with message "
-                        + realCause.getMessage());
+                SavingsSchedularServiceImpl.this.savingsAccountWritePlatformService.postInterest(savingsAccount, postInterestAsOn,
+                        transactionDate);
             }
+        };
+
+        final PartitionedRunResult result = this.jobPartitionExecutor.execute(JobName.POST_INTEREST_FOR_SAVINGS,
+                activeAccounts, interestPosting, workerCount, chunkSize);
+
+        if (result.hasFailures()) {
+            throw new JobExecutionException(JobPartitionExecutor.buildErrorMessage("post interest for Savings", result));
         }
-        
-        if (sb.length() > 0) { throw new JobExecutionException(sb.toString()); }
     }
 
     @CronTarget(jobName = JobName.UPDATE_SAVINGS_DORMANT_ACCOUNTS)
@@ -49,6 +49,7 @@ import com.ls.portfolio.group.exception.ClientNotInGroupException;
 import com.ls.portfolio.group.exception.GroupNotActiveException;
 import com.ls.portfolio.loanaccount.domain.Loan;
 import com.ls.portfolio.loanaccount.domain.LoanRepositoryWrapper;
+import com.ls.portfolio.loanaccount.service.LoanListingProjection;
 import com.ls.portfolio.loanaccount.service.LoanWritePlatformService;
 import com.ls.portfolio.note.service.NoteWritePlatformService;
 import com.ls.portfolio.savings.domain.SavingsAccount;
@@ -78,6 +79,7 @@ public class TransferWritePlatformServiceJpaRepositoryImpl implements TransferWr
     private final LoanWritePlatformService loanWritePlatformService;
     private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
     private final LoanRepositoryWrapper loanRepositoryWrapper;
+    private final LoanListingProjection loanListingProjection;
     private final SavingsAccountRepositoryWrapper savingsAccountRepositoryWrapper;
     private final TransfersDataValidator transfersDataValidator;
     private final NoteWritePlatformService noteWritePlatformService;
@@ -90,7 +92,8 @@ public class TransferWritePlatformServiceJpaRepositoryImpl implements TransferWr
             final LoanRepositoryWrapper loanRepositoryWrapper, final TransfersDataValidator transfersDataValidator,
             final NoteWritePlatformService noteWritePlatformService, final StaffRepositoryWrapper staffRepositoryWrapper,
             final SavingsAccountRepositoryWrapper savingsAccountRepositoryWrapper,
-            final SavingsAccountWritePlatformService savingsAccountWritePlatformService) {
+            final SavingsAccountWritePlatformService savingsAccountWritePlatformService,
+            final LoanListingProjection loanListingProjection) {
         this.clientRepositoryWrapper = clientRepositoryWrapper;
         this.officeRepository = officeRepository;
         this.calendarInstanceRepository = calendarInstanceRepository;
@@ -102,6 +105,7 @@ public class TransferWritePlatformServiceJpaRepositoryImpl implements TransferWr
         this.staffRepositoryWrapper = staffRepositoryWrapper;
         this.savingsAccountRepositoryWrapper = savingsAccountRepositoryWrapper;
         this.savingsAccountWritePlatformService = savingsAccountWritePlatformService;
+        this.loanListingProjection = loanListingProjection;
     }
 
     @Override
@@ -465,6 +469,9 @@ public class TransferWritePlatformServiceJpaRepositoryImpl implements TransferWr
                 client.updateTransferToOffice(null);
         }
 
+        // the loan list keeps the client's offices on every loan, closed ones too
+        this.loanListingProjection.loansOfClientChanged(client.getId());
+
         this.noteWritePlatformService.createAndPersistClientNote(client, jsonCommand);
     }
 
@@ -33,6 +33,10 @@ import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
 import com.ls.infrastructure.jobs.annotation.CronTarget;
 import com.ls.infrastructure.jobs.exception.JobExecutionException;
 import com.ls.infrastructure.jobs.service.JobName;
+import com.ls.infrastructure.jobs.service.SchedulerJobRunnerReadService;
+import com.ls.infrastructure.jobs.service.SchedulerServiceConstants;
+import com.ls.portfolio.loanaccount.service.LoanChanges;
+import com.ls.portfolio.loanaccount.service.LoanSummaryChangeLogService;
 import com.ls.portfolio.savings.DepositAccountType;
 import com.ls.portfolio.savings.DepositAccountUtils;
 import com.ls.portfolio.savings.data.DepositAccountData;
@@ -67,6 +71,8 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
     private final DepositAccountWritePlatformService depositAccountWritePlatformService;
     private final ShareAccountDividendReadPlatformService shareAccountDividendReadPlatformService;
     private final ShareAccountSchedularService shareAccountSchedularService;
+    private final LoanSummaryChangeLogService loanSummaryChangeLogService;
+    private final SchedulerJobRunnerReadService schedulerJobRunnerReadService;
 
     @Autowired
     public ScheduledJobRunnerServiceImpl(final RoutingDataSourceServiceFactory dataSourceServiceFactory,
@@ -75,7 +81,9 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
             final DepositAccountReadPlatformService depositAccountReadPlatformService,
             final DepositAccountWritePlatformService depositAccountWritePlatformService,
             final ShareAccountDividendReadPlatformService shareAccountDividendReadPlatformService,
-            final ShareAccountSchedularService shareAccountSchedularService) {
+            final ShareAccountSchedularService shareAccountSchedularService,
+            final LoanSummaryChangeLogService loanSummaryChangeLogService,
+            final SchedulerJobRunnerReadService schedulerJobRunnerReadService) {
         this.dataSourceServiceFactory = dataSourceServiceFactory;
         this.savingsAccountWritePlatformService = savingsAccountWritePlatformService;
         this.savingsAccountChargeReadPlatformService = savingsAccountChargeReadPlatformService;
@@ -83,15 +91,39 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         this.depositAccountWritePlatformService = depositAccountWritePlatformService;
         this.shareAccountDividendReadPlatformService = shareAccountDividendReadPlatformService;
         this.shareAccountSchedularService = shareAccountSchedularService;
+        this.loanSummaryChangeLogService = loanSummaryChangeLogService;
+        this.schedulerJobRunnerReadService = schedulerJobRunnerReadService;
     }
 
-    @Transactional
     @Override
     @CronTarget(jobName = JobName.UPDATE_LOAN_SUMMARY)
     public void updateLoanSummaryDetails() {
 
         final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
+        final int batchSize = this.schedulerJobRunnerReadService.retrieveIntegerJobParameter(JobName.UPDATE_LOAN_SUMMARY,
+                SchedulerServiceConstants.JOB_PARAMETER_CHUNK_SIZE, SchedulerServiceConstants.DEFAULT_JOB_CHUNK_SIZE);
+
+        final long startTime = System.currentTimeMillis();
+        int loansProcessed = 0;
+        int result = 0;
+        // changes logged for loans already recomputed are left for the next run
+        LoanChanges changes = this.loanSummaryChangeLogService.retrieveChanges(LoanSummaryChangeLogService.LOAN_SUMMARY_READER, 0L,
+                batchSize);
+        while (!changes.isEmpty()) {
+            final List<Long> loanIds = changes.getLoanIds();
+            result += jdbcTemplate.update(loanSummaryUpdateSql(loanIds.size()), loanIds.toArray());
+            this.loanSummaryChangeLogService.markChangesRead(changes);
+            loansProcessed += loanIds.size();
+            changes = this.loanSummaryChangeLogService.retrieveChanges(LoanSummaryChangeLogService.LOAN_SUMMARY_READER,
+                    changes.getLastLoanId(), batchSize);
+        }
+
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Loan summaries recomputed for " + loansProcessed
+                + " changed loans, results affected by update: " + result + ", elapsed time: " + (System.currentTimeMillis() - startTime)
+                + " ms");
+    }
 
+    private String loanSummaryUpdateSql(final int loanCount) {
         final StringBuilder updateSqlBuilder = new StringBuilder(900);
         updateSqlBuilder.append("update m_loan ");
         updateSqlBuilder.append("join (");
@@ -116,6 +148,11 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder.append(" FROM m_loan ml ");
         updateSqlBuilder.append("INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
         updateSqlBuilder.append("WHERE ml.disbursedon_date is not null ");
+        updateSqlBuilder.append("and ml.id in (");
+        for (int i = 0; i < loanCount; i++) {
+            updateSqlBuilder.append(i == 0 ? "?" : ",?");
+        }
+        updateSqlBuilder.append(") ");
         updateSqlBuilder.append("GROUP BY ml.id ");
         updateSqlBuilder.append(") x on x.loanId = m_loan.id ");
 
@@ -163,9 +200,7 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder
                 .append(" (x.penalty_charges_charged_derived - (x.penalty_charges_repaid_derived + x.penalty_charges_waived_derived + x.penalty_charges_writtenoff_derived))");
 
-        final int result = jdbcTemplate.update(updateSqlBuilder.toString());
-
-        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Results affected by update: " + result);
+        return updateSqlBuilder.toString();
     }
 
     @Transactional
@@ -0,0 +1,34 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements. See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership. The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License. You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied. See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+CREATE TABLE `job_parameters` (
+	`id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+	`job_id` BIGINT(20) NOT NULL,
+	`parameter_name` VARCHAR(100) NOT NULL,
+	`parameter_value` VARCHAR(100) NOT NULL,
+	PRIMARY KEY (`id`),
+	UNIQUE INDEX `UQ_job_parameters_job_id_name` (`job_id`, `parameter_name`),
+	CONSTRAINT `FK_job_parameters_job_id` FOREIGN KEY (`job_id`) REFERENCES `job` (`id`)
+);
+
+INSERT INTO `job_parameters` (`job_id`, `parameter_name`, `parameter_value`)
+SELECT j.id, 'workerCount', '4' FROM `job` j WHERE j.name = 'Post Interest For Savings';
+
+INSERT INTO `job_parameters` (`job_id`, `parameter_name`, `parameter_value`)
+SELECT j.id, 'chunkSize', '100' FROM `job` j WHERE j.name = 'Post Interest For Savings';
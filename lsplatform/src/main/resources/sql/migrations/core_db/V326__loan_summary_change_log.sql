@@ -0,0 +1,44 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements. See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership. The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License. You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied. See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+-- the jobs reading the loan change log, every change is logged once for each
+CREATE TABLE `m_loan_summary_change_log_reader` (
+	`reader` VARCHAR(50) NOT NULL,
+	PRIMARY KEY (`reader`)
+);
+
+INSERT INTO `m_loan_summary_change_log_reader` (`reader`) VALUES ('loanSummary');
+
+-- a reader removes the rows it has read, by id
+CREATE TABLE `m_loan_summary_change_log` (
+	`id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+	`reader` VARCHAR(50) NOT NULL,
+	`loan_id` BIGINT(20) NOT NULL,
+	PRIMARY KEY (`id`),
+	INDEX `IND_m_loan_summary_change_log_reader_loan` (`reader`, `loan_id`),
+	CONSTRAINT `FK_m_loan_summary_change_log_reader` FOREIGN KEY (`reader`) REFERENCES `m_loan_summary_change_log_reader` (`reader`),
+	CONSTRAINT `FK_m_loan_summary_change_log_loan_id` FOREIGN KEY (`loan_id`) REFERENCES `m_loan` (`id`) ON DELETE CASCADE
+);
+
+-- the first run after the upgrade recomputes every disbursed loan once
+INSERT INTO `m_loan_summary_change_log` (`reader`, `loan_id`)
+SELECT 'loanSummary', ml.id FROM `m_loan` ml WHERE ml.disbursedon_date IS NOT NULL;
+
+INSERT INTO `job_parameters` (`job_id`, `parameter_name`, `parameter_value`)
+SELECT j.id, 'chunkSize', '500' FROM `job` j WHERE j.name = 'Update loan Summary';
@@ -0,0 +1,38 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements. See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership. The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License. You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied. See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+CREATE TABLE `m_loan_arrears_aging_run` (
+	`id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+	`is_full_rebuild` TINYINT(1) NOT NULL DEFAULT '0',
+	`reference_date` DATE NOT NULL,
+	`started_on` DATETIME NOT NULL,
+	`last_office_id` BIGINT(20) NOT NULL DEFAULT '0',
+	`loans_processed` INT(11) NOT NULL DEFAULT '0',
+	`completed_on` DATETIME NULL DEFAULT NULL,
+	PRIMARY KEY (`id`)
+);
+
+-- incremental runs pick their candidates from the loan change log
+INSERT INTO `m_loan_summary_change_log_reader` (`reader`) VALUES ('loanArrearsAgeing');
+
+INSERT INTO `job_parameters` (`job_id`, `parameter_name`, `parameter_value`)
+SELECT j.id, 'chunkSize', '1000' FROM `job` j WHERE j.name = 'Update Loan Arrears Ageing';
+
+INSERT INTO `job_parameters` (`job_id`, `parameter_name`, `parameter_value`)
+SELECT j.id, 'fullRebuild', 'false' FROM `job` j WHERE j.name = 'Update Loan Arrears Ageing';
@@ -0,0 +1,38 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements. See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership. The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License. You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied. See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+CREATE TABLE `job_prerequisite` (
+	`job_id` BIGINT(20) NOT NULL,
+	`prerequisite_job_id` BIGINT(20) NOT NULL,
+	PRIMARY KEY (`job_id`, `prerequisite_job_id`),
+	INDEX `FK_job_prerequisite_prerequisite` (`prerequisite_job_id`),
+	CONSTRAINT `FK_job_prerequisite_job` FOREIGN KEY (`job_id`) REFERENCES `job` (`id`),
+	CONSTRAINT `FK_job_prerequisite_prerequisite` FOREIGN KEY (`prerequisite_job_id`) REFERENCES `job` (`id`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
+
+ALTER TABLE `job_run_history`
+	ADD COLUMN `critical_path_millis` BIGINT(20) NULL DEFAULT NULL AFTER `error_log`;
+
+INSERT INTO `job_prerequisite` (`job_id`, `prerequisite_job_id`)
+SELECT dependent.id, prerequisite.id FROM `job` dependent, `job` prerequisite
+WHERE (dependent.name = 'Add Accrual Transactions' AND prerequisite.name = 'Apply penalty to overdue loans')
+	OR (dependent.name = 'Update Loan Arrears Ageing' AND prerequisite.name = 'Update loan Summary')
+	OR (dependent.name = 'Update Accounting Running Balances' AND prerequisite.name IN ('Add Accrual Transactions', 'Post Interest For Savings'));
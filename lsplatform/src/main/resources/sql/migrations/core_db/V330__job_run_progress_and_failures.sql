@@ -0,0 +1,36 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements. See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership. The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License. You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied. See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+ALTER TABLE `job_run_history`
+	ADD COLUMN `total_items` BIGINT(20) NULL DEFAULT NULL AFTER `critical_path_millis`,
+	ADD COLUMN `processed_items` BIGINT(20) NULL DEFAULT NULL AFTER `total_items`,
+	ADD COLUMN `failed_items` BIGINT(20) NULL DEFAULT NULL AFTER `processed_items`;
+
+CREATE TABLE `job_run_failure` (
+	`id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+	`job_run_history_id` BIGINT(20) NOT NULL,
+	`item_id` BIGINT(20) NULL DEFAULT NULL,
+	`exception_type` VARCHAR(200) NULL DEFAULT NULL,
+	`error_message` VARCHAR(1000) NULL DEFAULT NULL,
+	PRIMARY KEY (`id`),
+	INDEX `FK_job_run_failure_job_run_history` (`job_run_history_id`),
+	CONSTRAINT `FK_job_run_failure_job_run_history` FOREIGN KEY (`job_run_history_id`) REFERENCES `job_run_history` (`id`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
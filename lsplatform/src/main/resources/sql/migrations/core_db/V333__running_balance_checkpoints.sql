@@ -0,0 +1,44 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements. See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership. The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License. You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied. See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+CREATE TABLE `acc_gl_running_balance_checkpoint` (
+	`account_id` BIGINT(20) NOT NULL,
+	`office_id` BIGINT(20) NOT NULL,
+	`office_running_balance` DECIMAL(19,6) NOT NULL,
+	`entry_date` DATE NOT NULL,
+	`journal_entry_id` BIGINT(20) NOT NULL,
+	PRIMARY KEY (`account_id`, `office_id`),
+	INDEX `FK_acc_gl_running_balance_checkpoint_m_office` (`office_id`),
+	CONSTRAINT `FK_acc_gl_running_balance_checkpoint_acc_gl_account` FOREIGN KEY (`account_id`) REFERENCES `acc_gl_account` (`id`),
+	CONSTRAINT `FK_acc_gl_running_balance_checkpoint_m_office` FOREIGN KEY (`office_id`) REFERENCES `m_office` (`id`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
+
+-- the entries of an account in (entry_date, id) order, overall and by office,
+-- and the accounts with entries to calculate; the first of these indexes also
+-- serves the foreign key to the GL account, which makes its own index redundant
+ALTER TABLE `acc_gl_journal_entry`
+	ADD INDEX `IDX_acc_gl_journal_entry_account_date` (`account_id`, `entry_date`, `id`),
+	ADD INDEX `IDX_acc_gl_journal_entry_account_office_date` (`account_id`, `office_id`, `entry_date`, `id`),
+	ADD INDEX `IDX_acc_gl_journal_entry_running_balance` (`is_running_balance_calculated`, `account_id`),
+	DROP INDEX `FK_acc_gl_journal_entry_acc_gl_account`;
+
+INSERT INTO `job_parameters` (`job_id`, `parameter_name`, `parameter_value`)
+SELECT j.id, 'workerCount', '4' FROM `job` j WHERE j.name = 'Update Accounting Running Balances';
@@ -0,0 +1,58 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements. See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership. The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License. You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied. See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+CREATE TABLE `acc_gl_daily_balance` (
+	`account_id` BIGINT(20) NOT NULL,
+	`office_id` BIGINT(20) NOT NULL,
+	`currency_code` VARCHAR(3) NOT NULL,
+	`balance_date` DATE NOT NULL,
+	`debit_amount` DECIMAL(19,6) NOT NULL DEFAULT '0.000000',
+	`credit_amount` DECIMAL(19,6) NOT NULL DEFAULT '0.000000',
+	`closing_balance` DECIMAL(19,6) NOT NULL DEFAULT '0.000000',
+	PRIMARY KEY (`account_id`, `office_id`, `currency_code`, `balance_date`),
+	INDEX `FK_acc_gl_daily_balance_m_office` (`office_id`),
+	CONSTRAINT `FK_acc_gl_daily_balance_acc_gl_account` FOREIGN KEY (`account_id`) REFERENCES `acc_gl_account` (`id`),
+	CONSTRAINT `FK_acc_gl_daily_balance_m_office` FOREIGN KEY (`office_id`) REFERENCES `m_office` (`id`)
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
+
+-- seeds the snapshot with the entries whose running balance is already
+-- calculated, the running balance job carries on from its checkpoint
+INSERT INTO `acc_gl_daily_balance` (`account_id`, `office_id`, `currency_code`, `balance_date`, `debit_amount`, `credit_amount`)
+SELECT je.account_id, je.office_id, je.currency_code, je.entry_date,
+	SUM(CASE WHEN je.type_enum = 2 THEN je.amount ELSE 0 END),
+	SUM(CASE WHEN je.type_enum = 1 THEN je.amount ELSE 0 END)
+FROM `acc_gl_journal_entry` je
+WHERE je.is_running_balance_calculated = 1
+GROUP BY je.account_id, je.office_id, je.currency_code, je.entry_date;
+
+-- the closing balance of a day is the running sum of the days up to it,
+-- taken in a single pass in primary key order; single table updates assign
+-- left to right, so the running sum is reset before the key of the row is
+-- remembered
+SET @running_balance := 0, @account_id := NULL, @office_id := NULL, @currency_code := NULL;
+
+UPDATE `acc_gl_daily_balance`
+SET `closing_balance` = (@running_balance := IF(`account_id` = @account_id AND `office_id` = @office_id
+		AND `currency_code` = @currency_code, @running_balance, 0) + `debit_amount` - `credit_amount`),
+	`account_id` = (@account_id := `account_id`),
+	`office_id` = (@office_id := `office_id`),
+	`currency_code` = (@currency_code := `currency_code`)
+ORDER BY `account_id`, `office_id`, `currency_code`, `balance_date`;
@@ -0,0 +1,28 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements. See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership. The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License. You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied. See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+-- keyset paging of journal entries in (entry_date, id) order, overall and
+-- by office, and lookups by transaction; paging by GL account uses
+-- IDX_acc_gl_journal_entry_account_date. The office index also serves the
+-- foreign key to the office, which makes its own index redundant
+ALTER TABLE `acc_gl_journal_entry`
+	ADD INDEX `IDX_acc_gl_journal_entry_date` (`entry_date`, `id`),
+	ADD INDEX `IDX_acc_gl_journal_entry_office_date` (`office_id`, `entry_date`, `id`),
+	ADD INDEX `IDX_acc_gl_journal_entry_transaction_id` (`transaction_id`),
+	DROP INDEX `FK_acc_gl_journal_entry_m_office`;
@@ -0,0 +1,41 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements. See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership. The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License. You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied. See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+CREATE TABLE `m_loan_listing` (
+	`loan_id` BIGINT(20) NOT NULL,
+	`account_no` VARCHAR(20) NOT NULL,
+	`external_id` VARCHAR(100) NULL DEFAULT NULL,
+	`client_id` BIGINT(20) NOT NULL,
+	`office_id` BIGINT(20) NOT NULL,
+	`transfer_to_office_id` BIGINT(20) NULL DEFAULT NULL,
+	PRIMARY KEY (`loan_id`),
+	INDEX `IND_m_loan_listing_office` (`office_id`, `loan_id`),
+	INDEX `IND_m_loan_listing_transfer_to_office` (`transfer_to_office_id`, `loan_id`),
+	INDEX `IND_m_loan_listing_account_no` (`account_no`),
+	INDEX `IND_m_loan_listing_external_id` (`external_id`),
+	INDEX `IND_m_loan_listing_client` (`client_id`),
+	CONSTRAINT `FK_m_loan_listing_m_loan` FOREIGN KEY (`loan_id`) REFERENCES `m_loan` (`id`) ON DELETE CASCADE
+)
+COLLATE='utf8_general_ci'
+ENGINE=InnoDB;
+
+INSERT INTO `m_loan_listing` (`loan_id`, `account_no`, `external_id`, `client_id`, `office_id`, `transfer_to_office_id`)
+SELECT l.id, l.account_no, l.external_id, l.client_id, c.office_id, c.transfer_to_office_id
+FROM m_loan l
+JOIN m_client c ON c.id = l.client_id;
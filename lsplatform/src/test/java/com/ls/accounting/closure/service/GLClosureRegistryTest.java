@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.closure.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ls.accounting.glaccount.domain.GLAccountRepositoryWrapper;
+import com.ls.accounting.journalentry.exception.JournalEntryInvalidException;
+import com.ls.accounting.journalentry.service.AccountingProcessorHelper;
+import com.ls.accounting.journalentry.service.JournalEntryBatchWriter;
+import com.ls.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
+import com.ls.infrastructure.cache.service.TenantCacheFixture;
+import com.ls.infrastructure.cache.service.TenantCacheVersions;
+import com.ls.organisation.office.domain.OfficeRepositoryWrapper;
+import com.ls.portfolio.account.service.AccountTransfersReadPlatformService;
+import com.ls.portfolio.loanaccount.domain.LoanTransactionRepository;
+import com.ls.portfolio.savings.domain.SavingsAccountTransactionRepository;
+
+/**
+ * Checks when the closing dates kept by the registry are loaded again, that
+ * postings into a closed period are rejected, and how the closures of an
+ * office are locked.
+ */
+public class GLClosureRegistryTest {
+
+    private static final Long OFFICE_ID = 1L;
+    private static final LocalDate CLOSING_DATE = new LocalDate(2016, 3, 31);
+
+    private TenantCacheFixture fixture;
+    private Statement closuresQuery;
+    private TenantCacheVersions cacheVersions;
+    private GLClosureRegistry registry;
+
+    @Before
+    public void setUp() throws SQLException {
+        this.fixture = new TenantCacheFixture(new TenantCacheFixture.Rows() {
+
+            @Override
+            public ResultSet create() throws SQLException {
+                return closures();
+            }
+        });
+        this.closuresQuery = this.fixture.getQuery();
+        this.cacheVersions = this.fixture.getCacheVersions();
+        this.registry = new GLClosureRegistry(this.fixture.getDataSource(), this.cacheVersions);
+    }
+
+    @After
+    public void tearDown() {
+        this.fixture.tearDown();
+    }
+
+    @Test
+    public void keepsClosingDatesWhileTheVersionIsUnchanged() throws SQLException {
+        when(this.cacheVersions.currentVersion(GLClosureRegistry.CACHE_NAME)).thenReturn(4L);
+
+        assertEquals(CLOSING_DATE.toDate(), this.registry.getLatestClosingDate(OFFICE_ID));
+        assertEquals(CLOSING_DATE.toDate(), this.registry.getLatestClosingDate(OFFICE_ID));
+        assertNull(this.registry.getLatestClosingDate(2L));
+
+        verify(this.closuresQuery, times(1)).executeQuery(anyString());
+    }
+
+    @Test
+    public void loadsClosingDatesAgainOnceTheVersionMovesOn() throws SQLException {
+        when(this.cacheVersions.currentVersion(GLClosureRegistry.CACHE_NAME)).thenReturn(4L, 5L, 5L);
+
+        this.registry.getLatestClosingDate(OFFICE_ID);
+        this.registry.getLatestClosingDate(OFFICE_ID);
+        this.registry.getLatestClosingDate(OFFICE_ID);
+
+        verify(this.closuresQuery, times(2)).executeQuery(anyString());
+    }
+
+    @Test
+    public void doesNotShareClosingDatesLoadedByTheTransactionChangingThem() throws SQLException {
+        when(this.cacheVersions.currentVersion(GLClosureRegistry.CACHE_NAME)).thenReturn(5L);
+        when(this.cacheVersions.isChangedInTransaction(GLClosureRegistry.CACHE_NAME)).thenReturn(true, false);
+
+        this.registry.getLatestClosingDate(OFFICE_ID);
+        this.registry.getLatestClosingDate(OFFICE_ID);
+        this.registry.getLatestClosingDate(OFFICE_ID);
+
+        verify(this.closuresQuery, times(2)).executeQuery(anyString());
+    }
+
+    @Test
+    public void invalidateMovesThePersistedVersionOn() {
+        this.registry.invalidate();
+
+        verify(this.cacheVersions).moveToNextVersion(GLClosureRegistry.CACHE_NAME);
+    }
+
+    @Test
+    public void rejectsPostingsIntoAClosedPeriod() {
+        final AccountingProcessorHelper helper = new AccountingProcessorHelper(mock(JournalEntryBatchWriter.class),
+                mock(ProductToGLAccountMappingResolver.class), this.registry, mock(OfficeRepositoryWrapper.class),
+                mock(LoanTransactionRepository.class), mock(SavingsAccountTransactionRepository.class),
+                mock(AccountTransfersReadPlatformService.class), mock(GLAccountRepositoryWrapper.class));
+        final Date latestClosingDate = helper.getLatestClosingDateByBranch(OFFICE_ID);
+
+        helper.checkForBranchClosures(latestClosingDate, CLOSING_DATE.plusDays(1).toDate());
+        for (final LocalDate closedDate : new LocalDate[] { CLOSING_DATE, CLOSING_DATE.minusDays(1) }) {
+            try {
+                helper.checkForBranchClosures(latestClosingDate, closedDate.toDate());
+                fail("Posted into a closed period on " + closedDate);
+            } catch (final JournalEntryInvalidException e) {
+                assertEquals("error.msg.glJournalEntry.invalid.accounting.closed", e.getGlobalisationMessageCode());
+            }
+        }
+    }
+
+    @Test
+    public void locksTheOfficeRowWithinTheTransaction() throws SQLException {
+        final PreparedStatement lock = mock(PreparedStatement.class);
+        when(this.connection.prepareStatement(anyString())).thenReturn(lock);
+        when(lock.executeQuery()).thenReturn(mock(ResultSet.class));
+
+        new TransactionTemplate(new DataSourceTransactionManager(this.fixture.getDataSource())).execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                GLClosureRegistryTest.this.registry.lockOffice(OFFICE_ID);
+            }
+        });
+
+        verify(this.connection).prepareStatement("select id from m_office where id = ? for update");
+        verify(lock).setObject(1, OFFICE_ID);
+    }
+
+    @Test
+    public void refusesToLockOutsideOfATransaction() throws SQLException {
+        try {
+            this.registry.lockOffice(OFFICE_ID);
+            fail("Locked an office outside of a transaction");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        verify(this.connection, never()).prepareStatement(anyString());
+    }
+
+    /**
+     * One closure, of office 1.
+     */
+    private static ResultSet closures() throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true, false);
+        when(rs.getLong("office_id")).thenReturn(OFFICE_ID);
+        when(rs.getDate("closing_date")).thenReturn(new java.sql.Date(CLOSING_DATE.toDate().getTime()));
+        return rs;
+    }
+}
@@ -0,0 +1,206 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.journalentry.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.ls.accounting.closure.service.GLClosureRegistry;
+import com.ls.accounting.glaccount.domain.GLAccount;
+import com.ls.accounting.glaccount.domain.GLAccountRepositoryWrapper;
+import com.ls.accounting.journalentry.data.LoanDTO;
+import com.ls.accounting.producttoaccountmapping.domain.PortfolioProductType;
+import com.ls.accounting.producttoaccountmapping.service.ProductToGLAccountMappingLookup;
+import com.ls.accounting.producttoaccountmapping.service.ProductToGLAccountMappingResolver;
+import com.ls.organisation.monetary.data.CurrencyData;
+import com.ls.organisation.office.domain.Office;
+import com.ls.organisation.office.domain.OfficeRepositoryWrapper;
+import com.ls.portfolio.account.service.AccountTransfersReadPlatformService;
+import com.ls.portfolio.loanaccount.domain.LoanTransactionRepository;
+import com.ls.portfolio.loanaccount.domain.LoanTransactionType;
+import com.ls.portfolio.loanproduct.service.LoanEnumerations;
+import com.ls.portfolio.savings.domain.SavingsAccountTransactionRepository;
+
+/**
+ * Checks that the batched periodic accrual path produces exactly the journal
+ * entries that the per loan path adds leg by leg.
+ */
+public class AccrualJournalEntriesBatchTest {
+
+    private static final Long OFFICE_ID = 3L;
+    private static final Long LOAN_PRODUCT_ID = 5L;
+    private static final Long FEE_CHARGE_ID = 7L;
+    private static final Long FEE_CHARGE_INCOME_ACCOUNT_ID = 700L;
+
+    private JournalEntryBatchWriter journalEntryWriter;
+    private AccountingProcessorHelper helper;
+    private AccrualBasedAccountingProcessorForLoan processor;
+
+    @Before
+    public void setUp() {
+        this.journalEntryWriter = mock(JournalEntryBatchWriter.class);
+        final ProductToGLAccountMappingResolver accountMappingResolver = mock(ProductToGLAccountMappingResolver.class);
+        final OfficeRepositoryWrapper officeRepositoryWrapper = mock(OfficeRepositoryWrapper.class);
+        final Office office = mock(Office.class);
+        when(office.getId()).thenReturn(OFFICE_ID);
+        when(officeRepositoryWrapper.findOneWithNotFoundDetection(OFFICE_ID)).thenReturn(office);
+
+        final ProductToGLAccountMappingLookup mappings = mock(ProductToGLAccountMappingLookup.class);
+        when(accountMappingResolver.retrieveMappings()).thenReturn(mappings);
+        when(mappings.productGLAccountId(eq(PortfolioProductType.LOAN), eq(LOAN_PRODUCT_ID), anyInt())).thenAnswer(new Answer<Long>() {
+
+            @Override
+            public Long answer(final InvocationOnMock invocation) {
+                return (Integer) invocation.getArguments()[2] * 10L;
+            }
+        });
+        when(mappings.chargeGLAccountId(eq(PortfolioProductType.LOAN), eq(LOAN_PRODUCT_ID), anyInt(), eq(FEE_CHARGE_ID))).thenReturn(
+                FEE_CHARGE_INCOME_ACCOUNT_ID);
+
+        final GLAccountRepositoryWrapper accountRepositoryWrapper = mock(GLAccountRepositoryWrapper.class);
+        final Map<Long, GLAccount> accounts = new HashMap<>();
+        when(accountRepositoryWrapper.findReference(anyLong())).thenAnswer(new Answer<GLAccount>() {
+
+            @Override
+            public GLAccount answer(final InvocationOnMock invocation) {
+                final Long accountId = (Long) invocation.getArguments()[0];
+                if (!accounts.containsKey(accountId)) {
+                    final GLAccount glAccount = mock(GLAccount.class);
+                    when(glAccount.getId()).thenReturn(accountId);
+                    accounts.put(accountId, glAccount);
+                }
+                return accounts.get(accountId);
+            }
+        });
+
+        this.helper = new AccountingProcessorHelper(this.journalEntryWriter, accountMappingResolver, mock(GLClosureRegistry.class),
+                officeRepositoryWrapper, mock(LoanTransactionRepository.class), mock(SavingsAccountTransactionRepository.class),
+                mock(AccountTransfersReadPlatformService.class), accountRepositoryWrapper);
+        this.processor = new AccrualBasedAccountingProcessorForLoan(this.helper);
+    }
+
+    @Test
+    public void batchedAccrualEntriesShouldMatchEntriesSavedPerLoan() {
+        final List<Map<String, Object>> accountingBridgeDatas = new ArrayList<>();
+        accountingBridgeDatas.add(accrualBridgeData(11L, 101L, new LocalDate(2016, 1, 31), new BigDecimal("12.50"), null, null));
+        accountingBridgeDatas.add(accrualBridgeData(11L, 102L, new LocalDate(2016, 2, 29), new BigDecimal("11.75"),
+                new BigDecimal("20.00"), new BigDecimal("5.00")));
+        accountingBridgeDatas.add(accrualBridgeData(12L, 103L, new LocalDate(2016, 2, 15), null, new BigDecimal("20.00"), null));
+
+        final List<JournalEntryBatchWriter.Entry> batchedEntries = new ArrayList<>();
+        for (final Map<String, Object> accountingBridgeData : accountingBridgeDatas) {
+            final LoanDTO loanDTO = this.helper.populateLoanDtoFromMap(accountingBridgeData, false, false, true);
+            this.processor.addJournalEntriesForAccruals(loanDTO, null, batchedEntries);
+        }
+
+        for (final Map<String, Object> accountingBridgeData : accountingBridgeDatas) {
+            this.processor.createJournalEntriesForLoan(this.helper.populateLoanDtoFromMap(accountingBridgeData, false, false, true));
+        }
+        final ArgumentCaptor<JournalEntryBatchWriter.Entry> savedEntries = ArgumentCaptor.forClass(JournalEntryBatchWriter.Entry.class);
+        verify(this.journalEntryWriter, times(batchedEntries.size())).add(savedEntries.capture());
+
+        assertEquals(10, batchedEntries.size());
+        for (int i = 0; i < batchedEntries.size(); i++) {
+            final JournalEntryBatchWriter.Entry batched = batchedEntries.get(i);
+            final JournalEntryBatchWriter.Entry saved = savedEntries.getAllValues().get(i);
+            assertEquals(saved.getOfficeId(), batched.getOfficeId());
+            assertEquals(saved.getGlAccountId(), batched.getGlAccountId());
+            assertEquals(saved.getCurrencyCode(), batched.getCurrencyCode());
+            assertEquals(saved.getTransactionId(), batched.getTransactionId());
+            assertEquals(saved.getLoanTransactionId(), batched.getLoanTransactionId());
+            assertEquals(saved.getTransactionDate(), batched.getTransactionDate());
+            assertEquals(saved.getType(), batched.getType());
+            assertEquals(0, saved.getAmount().compareTo(batched.getAmount()));
+            assertEquals(saved.getEntityId(), batched.getEntityId());
+        }
+        assertEquals(FEE_CHARGE_INCOME_ACCOUNT_ID, batchedEntries.get(5).getGlAccountId());
+    }
+
+    private static Map<String, Object> accrualBridgeData(final Long loanId, final Long transactionId, final LocalDate date,
+            final BigDecimal interest, final BigDecimal fees, final BigDecimal penalties) {
+        final CurrencyData currency = new CurrencyData("USD", "US Dollar", 2, null, "$", "currency.USD");
+        BigDecimal amount = BigDecimal.ZERO;
+        final Map<String, Object> transaction = new LinkedHashMap<>();
+        transaction.put("id", transactionId);
+        transaction.put("officeId", OFFICE_ID);
+        transaction.put("type", LoanEnumerations.transactionType(LoanTransactionType.ACCRUAL));
+        transaction.put("reversed", false);
+        transaction.put("date", date);
+        transaction.put("currency", currency);
+        transaction.put("interestPortion", interest);
+        transaction.put("feeChargesPortion", fees);
+        transaction.put("penaltyChargesPortion", penalties);
+        final List<Map<String, Object>> loanChargesPaid = new ArrayList<>();
+        if (interest != null) {
+            amount = amount.add(interest);
+        }
+        if (fees != null) {
+            amount = amount.add(fees);
+            loanChargesPaid.add(chargePaid(FEE_CHARGE_ID, false, fees));
+        }
+        if (penalties != null) {
+            amount = amount.add(penalties);
+            loanChargesPaid.add(chargePaid(8L, true, penalties));
+        }
+        transaction.put("amount", amount);
+        if (!loanChargesPaid.isEmpty()) {
+            transaction.put("loanChargesPaid", loanChargesPaid);
+        }
+        final List<Map<String, Object>> newLoanTransactions = new ArrayList<>();
+        newLoanTransactions.add(transaction);
+
+        final Map<String, Object> accountingBridgeData = new LinkedHashMap<>();
+        accountingBridgeData.put("loanId", loanId);
+        accountingBridgeData.put("loanProductId", LOAN_PRODUCT_ID);
+        accountingBridgeData.put("officeId", OFFICE_ID);
+        accountingBridgeData.put("currency", currency);
+        accountingBridgeData.put("isAccountTransfer", false);
+        accountingBridgeData.put("newLoanTransactions", newLoanTransactions);
+        return accountingBridgeData;
+    }
+
+    private static Map<String, Object> chargePaid(final Long chargeId, final boolean isPenalty, final BigDecimal amount) {
+        final Map<String, Object> chargePaid = new LinkedHashMap<>();
+        chargePaid.put("chargeId", chargeId);
+        chargePaid.put("loanChargeId", chargeId * 100);
+        chargePaid.put("isPenalty", isPenalty);
+        chargePaid.put("amount", amount);
+        return chargePaid;
+    }
+}
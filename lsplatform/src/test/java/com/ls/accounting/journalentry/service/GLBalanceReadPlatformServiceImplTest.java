@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.journalentry.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.ls.infrastructure.core.service.RoutingDataSource;
+
+/**
+ * Checks that balances are read from the daily balance snapshot and the
+ * pending journal entries in a single statement, and how movements are
+ * derived from two balances.
+ */
+public class GLBalanceReadPlatformServiceImplTest {
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private GLBalanceReadPlatformServiceImpl service;
+
+    @Before
+    public void setUp() throws SQLException {
+        this.connection = mock(Connection.class);
+        this.statement = mock(PreparedStatement.class);
+        when(this.connection.prepareStatement(anyString())).thenReturn(this.statement);
+        final RoutingDataSource dataSource = mock(RoutingDataSource.class);
+        when(dataSource.getConnection()).thenReturn(this.connection);
+        this.service = new GLBalanceReadPlatformServiceImpl(dataSource);
+    }
+
+    @Test
+    public void readsSnapshotAndPendingEntriesInOneStatement() throws SQLException {
+        final ResultSet balances = balances(new Object[][] { { 10L, "150.00" }, { 11L, "-20.00" } });
+        when(this.statement.executeQuery()).thenReturn(balances);
+
+        final Map<Long, BigDecimal> accountBalances = this.service.retrieveAccountBalances(null, null, new Date());
+
+        final ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(this.connection, times(1)).prepareStatement(sql.capture());
+        assertTrue(sql.getValue().contains("from acc_gl_daily_balance"));
+        assertTrue(sql.getValue().contains(" union all "));
+        assertTrue(sql.getValue().contains("is_running_balance_calculated = 0"));
+        assertEquals(2, accountBalances.size());
+        assertEquals(new BigDecimal("150.00"), accountBalances.get(10L));
+        assertEquals(new BigDecimal("-20.00"), accountBalances.get(11L));
+    }
+
+    @Test
+    public void filtersSnapshotAndPendingEntriesAlike() throws SQLException {
+        final ResultSet balances = balances(new Object[][] {});
+        when(this.statement.executeQuery()).thenReturn(balances);
+        final Date asOfDate = new Date();
+
+        this.service.retrieveAccountBalances(3L, "USD", asOfDate);
+
+        final Timestamp asOf = new Timestamp(asOfDate.getTime());
+        verify(this.statement).setTimestamp(1, asOf);
+        verify(this.statement).setObject(2, 3L);
+        verify(this.statement).setString(3, "USD");
+        verify(this.statement).setTimestamp(4, asOf);
+        verify(this.statement).setObject(5, 3L);
+        verify(this.statement).setString(6, "USD");
+    }
+
+    @Test
+    public void movementsAreClosingLessOpeningBalances() throws SQLException {
+        final ResultSet closingBalances = balances(new Object[][] { { 10L, "150.00" }, { 11L, "-20.00" } });
+        final ResultSet openingBalances = balances(new Object[][] { { 10L, "100.00" }, { 12L, "30.00" } });
+        when(this.statement.executeQuery()).thenReturn(closingBalances, openingBalances);
+
+        final Map<Long, BigDecimal> movements = this.service.retrieveAccountMovements(null, null, new Date(0L), new Date());
+
+        assertEquals(3, movements.size());
+        assertEquals(new BigDecimal("50.00"), movements.get(10L));
+        assertEquals(new BigDecimal("-20.00"), movements.get(11L));
+        assertEquals(new BigDecimal("-30.00"), movements.get(12L));
+    }
+
+    /**
+     * A result set of account id and balance rows.
+     */
+    private static ResultSet balances(final Object[][] rows) throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        if (rows.length == 0) {
+            when(rs.next()).thenReturn(false);
+            return rs;
+        }
+        final Boolean[] moreRows = new Boolean[rows.length];
+        final Long[] accountIds = new Long[rows.length - 1];
+        final BigDecimal[] amounts = new BigDecimal[rows.length - 1];
+        for (int i = 0; i < rows.length; i++) {
+            moreRows[i] = i < rows.length - 1;
+            if (i > 0) {
+                accountIds[i - 1] = (Long) rows[i][0];
+                amounts[i - 1] = new BigDecimal((String) rows[i][1]);
+            }
+        }
+        when(rs.next()).thenReturn(true, moreRows);
+        when(rs.getLong("accountId")).thenReturn((Long) rows[0][0], accountIds);
+        when(rs.getBigDecimal("balance")).thenReturn(new BigDecimal((String) rows[0][1]), amounts);
+        return rs;
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.journalentry.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ls.accounting.journalentry.domain.JournalEntryRepository;
+import com.ls.accounting.journalentry.domain.JournalEntryType;
+import com.ls.accounting.producttoaccountmapping.domain.PortfolioProductType;
+import com.ls.infrastructure.core.domain.AuditorAwareImpl;
+import com.ls.infrastructure.core.exception.PlatformDataIntegrityException;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import com.ls.useradministration.domain.AppUser;
+
+/**
+ * Checks when the journal entries collected during a transaction are checked
+ * and written, and what happens to them when the transaction rolls back.
+ */
+public class JournalEntryBatchWriterTest {
+
+    private Connection connection;
+    private PreparedStatement insert;
+    private JournalEntryBatchWriter writer;
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setUp() throws SQLException {
+        this.connection = mock(Connection.class);
+        this.insert = mock(PreparedStatement.class);
+        final DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.supportsBatchUpdates()).thenReturn(true);
+        when(this.connection.getMetaData()).thenReturn(metaData);
+        when(this.connection.prepareStatement(anyString())).thenReturn(this.insert);
+        when(this.insert.executeBatch()).thenReturn(new int[] { 1, 1 });
+
+        final RoutingDataSource dataSource = mock(RoutingDataSource.class);
+        when(dataSource.getConnection()).thenReturn(this.connection);
+        final AppUser user = mock(AppUser.class);
+        when(user.getId()).thenReturn(1L);
+        final AuditorAwareImpl auditorAware = mock(AuditorAwareImpl.class);
+        when(auditorAware.getCurrentAuditor()).thenReturn(user);
+
+        this.writer = new JournalEntryBatchWriter(dataSource, auditorAware, mock(JournalEntryRepository.class));
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    public void writesBalancedEntriesWhenThePostingIsFlushed() throws SQLException {
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.DEBIT, "100.00"));
+                JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.CREDIT, "100.00"));
+                JournalEntryBatchWriterTest.this.writer.flushPendingEntries();
+                try {
+                    verify(JournalEntryBatchWriterTest.this.insert, times(2)).addBatch();
+                    verify(JournalEntryBatchWriterTest.this.insert).executeBatch();
+                } catch (final SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        final InOrder inOrder = inOrder(this.insert, this.connection);
+        inOrder.verify(this.insert).executeBatch();
+        inOrder.verify(this.connection).commit();
+        verify(this.insert, times(1)).executeBatch();
+    }
+
+    @Test
+    public void writesEntriesStillPendingBeforeCommit() throws SQLException {
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.DEBIT, "100.00"));
+                JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.CREDIT, "100.00"));
+            }
+        });
+
+        final InOrder inOrder = inOrder(this.insert, this.connection);
+        inOrder.verify(this.insert).executeBatch();
+        inOrder.verify(this.connection).commit();
+    }
+
+    @Test
+    public void rejectsUnbalancedEntriesWithinThePostingCall() throws SQLException {
+        try {
+            this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                @Override
+                protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                    JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.DEBIT, "100.00"));
+                    JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.CREDIT, "99.99"));
+                    JournalEntryBatchWriterTest.this.writer.flushPendingEntries();
+                }
+            });
+            fail("Unbalanced entries were written");
+        } catch (final PlatformDataIntegrityException e) {
+            assertEquals("error.msg.journalentry.debits.credits.not.equal", e.getGlobalisationMessageCode());
+        }
+        verify(this.connection, never()).prepareStatement(anyString());
+        verify(this.connection).rollback();
+        verify(this.connection, never()).commit();
+    }
+
+    @Test
+    public void discardsPendingEntriesOnRollback() throws SQLException {
+        this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+            @Override
+            protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.DEBIT, "100.00"));
+                JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.CREDIT, "100.00"));
+                status.setRollbackOnly();
+            }
+        });
+
+        verify(this.connection, never()).prepareStatement(anyString());
+        verify(this.connection).rollback();
+        assertNull(TransactionSynchronizationManager.getResource(this.writer));
+    }
+
+    @Test
+    public void mapsIntegrityViolationsOfTheInsert() throws SQLException {
+        when(this.insert.executeBatch()).thenThrow(new SQLIntegrityConstraintViolationException("FK_acc_gl_journal_entry_account"));
+        try {
+            this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+
+                @Override
+                protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                    JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.DEBIT, "100.00"));
+                    JournalEntryBatchWriterTest.this.writer.add(entry(JournalEntryType.CREDIT, "100.00"));
+                    JournalEntryBatchWriterTest.this.writer.flushPendingEntries();
+                }
+            });
+            fail("The integrity violation was not reported");
+        } catch (final PlatformDataIntegrityException e) {
+            assertEquals("error.msg.glJournalEntry.unknown.data.integrity.issue", e.getGlobalisationMessageCode());
+        }
+        verify(this.connection).rollback();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void refusesEntriesOutsideOfATransaction() {
+        this.writer.add(entry(JournalEntryType.DEBIT, "100.00"));
+    }
+
+    private static JournalEntryBatchWriter.Entry entry(final JournalEntryType type, final String amount) {
+        return new JournalEntryBatchWriter.Entry(1L, type.isDebitType() ? 10L : 20L, "USD", "L42", 42L, new Date(), type,
+                new BigDecimal(amount), PortfolioProductType.LOAN.getValue(), 7L);
+    }
+}
@@ -0,0 +1,457 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.journalentry.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import com.ls.accounting.glaccount.domain.GLAccountType;
+import com.ls.accounting.journalentry.data.JournalEntryDataValidator;
+import com.ls.accounting.journalentry.domain.JournalEntryType;
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
+import com.ls.infrastructure.core.domain.FineractPlatformTenantConnection;
+import com.ls.infrastructure.core.serialization.FromJsonHelper;
+import com.ls.infrastructure.core.service.JdbcStubs;
+import com.ls.infrastructure.core.service.JdbcStubs.StatementHandler;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+import com.ls.infrastructure.jobs.exception.JobExecutionException;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor;
+import com.ls.infrastructure.jobs.service.JobProgressTracker;
+import com.ls.infrastructure.jobs.service.SchedulerJobRunnerReadService;
+import com.ls.organisation.office.domain.OfficeRepositoryWrapper;
+
+/**
+ * Checks the running balances and the daily balance snapshot written when a
+ * run continues from the checkpoint, when an entry is backdated before it,
+ * and for accounts with entries in more than one office.
+ */
+public class JournalEntryRunningBalanceUpdateServiceImplTest {
+
+    private static final long ACCOUNT_ID = 10L;
+    private static final long HEAD_OFFICE_ID = 1L;
+    private static final long BRANCH_OFFICE_ID = 2L;
+
+    private Ledger ledger;
+    private JournalEntryRunningBalanceUpdateServiceImpl service;
+
+    @Before
+    public void setUp() throws SQLException {
+        ThreadLocalContextUtil.setTenant(new FineractPlatformTenant(1L, "default", "Default", "Asia/Kolkata",
+                mock(FineractPlatformTenantConnection.class)));
+        final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(mock(TransactionStatus.class));
+        this.ledger = new Ledger();
+        this.service = new JournalEntryRunningBalanceUpdateServiceImpl(JdbcStubs.dataSource(JdbcStubs.connection(this.ledger)),
+                mock(OfficeRepositoryWrapper.class), mock(JournalEntryDataValidator.class), mock(FromJsonHelper.class),
+                new JobPartitionExecutor(transactionManager, new JobProgressTracker()), mock(SchedulerJobRunnerReadService.class));
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void continuesFromTheCheckpoint() throws Exception {
+        this.ledger.accountType = GLAccountType.ASSET;
+        this.ledger.post(1L, HEAD_OFFICE_ID, day(4), JournalEntryType.DEBIT, "100");
+        this.ledger.post(2L, HEAD_OFFICE_ID, day(5), JournalEntryType.CREDIT, "30");
+        this.service.updateRunningBalance();
+        assertCheckpoint(HEAD_OFFICE_ID, "70", day(5), 2L);
+
+        this.ledger.post(3L, HEAD_OFFICE_ID, day(5), JournalEntryType.DEBIT, "10");
+        this.ledger.post(4L, HEAD_OFFICE_ID, day(7), JournalEntryType.DEBIT, "5");
+        this.ledger.calculatedEntryIds.clear();
+        this.service.updateRunningBalance();
+
+        // only the new entries are calculated, on top of the checkpoint
+        assertEquals(Arrays.asList(3L, 4L), this.ledger.calculatedEntryIds);
+        assertOfficeBalance(3L, "80");
+        assertOfficeBalance(4L, "85");
+        // the new entry of the day of the checkpoint is added to its snapshot
+        assertDailyBalance(HEAD_OFFICE_ID, "USD", day(4), "100", "0", "100");
+        assertDailyBalance(HEAD_OFFICE_ID, "USD", day(5), "10", "30", "80");
+        assertDailyBalance(HEAD_OFFICE_ID, "USD", day(7), "5", "0", "85");
+        assertCheckpoint(HEAD_OFFICE_ID, "85", day(7), 4L);
+    }
+
+    @Test
+    public void calculatesAgainFromTheDayOfABackdatedEntry() throws Exception {
+        this.ledger.accountType = GLAccountType.ASSET;
+        this.ledger.post(1L, HEAD_OFFICE_ID, day(4), JournalEntryType.DEBIT, "100");
+        this.ledger.post(2L, HEAD_OFFICE_ID, day(6), JournalEntryType.CREDIT, "30");
+        this.service.updateRunningBalance();
+
+        // posted after the checkpoint, dated before it
+        this.ledger.post(3L, HEAD_OFFICE_ID, day(5), JournalEntryType.DEBIT, "50");
+        this.ledger.calculatedEntryIds.clear();
+        this.service.updateRunningBalance();
+
+        assertEquals(Arrays.asList(3L, 2L), this.ledger.calculatedEntryIds);
+        assertOfficeBalance(1L, "100");
+        assertOfficeBalance(3L, "150");
+        assertOfficeBalance(2L, "120");
+        assertDailyBalance(HEAD_OFFICE_ID, "USD", day(4), "100", "0", "100");
+        assertDailyBalance(HEAD_OFFICE_ID, "USD", day(5), "50", "0", "150");
+        assertDailyBalance(HEAD_OFFICE_ID, "USD", day(6), "0", "30", "120");
+        assertCheckpoint(HEAD_OFFICE_ID, "120", day(6), 2L);
+    }
+
+    @Test
+    public void keepsTheBalanceOfEveryOfficeOfAnAccount() throws Exception {
+        this.ledger.accountType = GLAccountType.ASSET;
+        this.ledger.post(1L, HEAD_OFFICE_ID, day(4), JournalEntryType.DEBIT, "100");
+        this.ledger.post(2L, BRANCH_OFFICE_ID, day(4), JournalEntryType.DEBIT, "40");
+        this.ledger.post(3L, HEAD_OFFICE_ID, day(5), JournalEntryType.CREDIT, "30");
+        this.ledger.post(4L, BRANCH_OFFICE_ID, day(5), JournalEntryType.DEBIT, "10");
+        this.service.updateRunningBalance();
+
+        assertOfficeBalance(1L, "100");
+        assertOfficeBalance(2L, "40");
+        assertOfficeBalance(3L, "70");
+        assertOfficeBalance(4L, "50");
+        assertOrganizationBalance(1L, "100");
+        assertOrganizationBalance(2L, "140");
+        assertOrganizationBalance(3L, "110");
+        assertOrganizationBalance(4L, "120");
+        assertCheckpoint(HEAD_OFFICE_ID, "70", day(5), 4L);
+        assertCheckpoint(BRANCH_OFFICE_ID, "50", day(5), 4L);
+
+        // the organization balance continues from the office checkpoints
+        this.ledger.post(5L, BRANCH_OFFICE_ID, day(6), JournalEntryType.DEBIT, "5");
+        this.service.updateRunningBalance();
+
+        assertOfficeBalance(5L, "55");
+        assertOrganizationBalance(5L, "125");
+        assertDailyBalance(HEAD_OFFICE_ID, "USD", day(5), "0", "30", "70");
+        assertDailyBalance(BRANCH_OFFICE_ID, "USD", day(5), "10", "0", "50");
+        assertDailyBalance(BRANCH_OFFICE_ID, "USD", day(6), "5", "0", "55");
+        assertNull(this.ledger.dailyBalance(HEAD_OFFICE_ID, "USD", day(6)));
+    }
+
+    @Test
+    public void totalsTheDebitsAndCreditsOfEveryDay() throws Exception {
+        // the snapshot is kept as debits less credits whatever the type of
+        // the account, unlike the running balances
+        this.ledger.accountType = GLAccountType.LIABILITY;
+        this.ledger.post(1L, HEAD_OFFICE_ID, day(4), JournalEntryType.DEBIT, "100");
+        this.ledger.post(2L, HEAD_OFFICE_ID, day(4), JournalEntryType.CREDIT, "25");
+        this.ledger.post(3L, HEAD_OFFICE_ID, day(4), JournalEntryType.DEBIT, "60");
+        this.ledger.post(4L, HEAD_OFFICE_ID, day(5), JournalEntryType.CREDIT, "10");
+        this.ledger.postInCurrency(5L, HEAD_OFFICE_ID, day(5), JournalEntryType.DEBIT, "7", "EUR");
+        this.service.updateRunningBalance();
+
+        assertOfficeBalance(3L, "-135");
+        assertDailyBalance(HEAD_OFFICE_ID, "USD", day(4), "160", "25", "135");
+        assertDailyBalance(HEAD_OFFICE_ID, "USD", day(5), "0", "10", "125");
+        assertDailyBalance(HEAD_OFFICE_ID, "EUR", day(5), "7", "0", "7");
+        assertEquals(3, this.ledger.dailyBalances.size());
+    }
+
+    @Test(expected = JobExecutionException.class)
+    public void failsTheJobWhenAnAccountFails() throws Exception {
+        this.ledger.accountType = GLAccountType.ASSET;
+        this.ledger.post(1L, HEAD_OFFICE_ID, day(4), JournalEntryType.DEBIT, "100");
+        this.ledger.failing = true;
+
+        this.service.updateRunningBalance();
+    }
+
+    private static LocalDate day(final int dayOfMonth) {
+        return new LocalDate(2016, 1, dayOfMonth);
+    }
+
+    private void assertOfficeBalance(final long entryId, final String expected) {
+        assertAmount(expected, this.ledger.entry(entryId).officeRunningBalance);
+    }
+
+    private void assertOrganizationBalance(final long entryId, final String expected) {
+        assertAmount(expected, this.ledger.entry(entryId).organizationRunningBalance);
+    }
+
+    private void assertDailyBalance(final long officeId, final String currencyCode, final LocalDate date, final String debitAmount,
+            final String creditAmount, final String closingBalance) {
+        final BigDecimal[] dailyBalance = this.ledger.dailyBalance(officeId, currencyCode, date);
+        assertAmount(debitAmount, dailyBalance[0]);
+        assertAmount(creditAmount, dailyBalance[1]);
+        assertAmount(closingBalance, dailyBalance[2]);
+    }
+
+    private void assertCheckpoint(final long officeId, final String balance, final LocalDate entryDate, final long journalEntryId) {
+        final Object[] checkpoint = this.ledger.checkpoints.get(officeId);
+        assertAmount(balance, (BigDecimal) checkpoint[0]);
+        assertEquals(entryDate, checkpoint[1]);
+        assertEquals(journalEntryId, checkpoint[2]);
+    }
+
+    private static void assertAmount(final String expected, final BigDecimal actual) {
+        assertEquals(expected + " expected, was " + actual, 0, new BigDecimal(expected).compareTo(actual));
+    }
+
+    private static final class Entry {
+
+        private final long id;
+        private final long officeId;
+        private final LocalDate entryDate;
+        private final JournalEntryType type;
+        private final String currencyCode;
+        private final BigDecimal amount;
+        private boolean calculated;
+        private BigDecimal officeRunningBalance;
+        private BigDecimal organizationRunningBalance;
+
+        Entry(final long id, final long officeId, final LocalDate entryDate, final JournalEntryType type, final String currencyCode,
+                final BigDecimal amount) {
+            this.id = id;
+            this.officeId = officeId;
+            this.entryDate = entryDate;
+            this.type = type;
+            this.currencyCode = currencyCode;
+            this.amount = amount;
+        }
+
+        boolean isAfter(final LocalDate date, final long entryId, final boolean inclusive) {
+            final int dateComparison = this.entryDate.compareTo(date);
+            return dateComparison > 0 || (dateComparison == 0 && (inclusive ? this.id >= entryId : this.id > entryId));
+        }
+    }
+
+    /**
+     * The journal entries, daily balances and checkpoints of one account,
+     * answering the statements of the service.
+     */
+    private static final class Ledger implements StatementHandler {
+
+        private GLAccountType accountType;
+        private boolean failing;
+        private final List<Entry> entries = new ArrayList<>();
+        private final List<Long> calculatedEntryIds = new ArrayList<>();
+        private final Map<String, BigDecimal[]> dailyBalances = new TreeMap<>();
+        private final Map<Long, Object[]> checkpoints = new HashMap<>();
+
+        void post(final long id, final long officeId, final LocalDate entryDate, final JournalEntryType type, final String amount) {
+            postInCurrency(id, officeId, entryDate, type, amount, "USD");
+        }
+
+        void postInCurrency(final long id, final long officeId, final LocalDate entryDate, final JournalEntryType type,
+                final String amount, final String currencyCode) {
+            this.entries.add(new Entry(id, officeId, entryDate, type, currencyCode, new BigDecimal(amount)));
+        }
+
+        Entry entry(final long id) {
+            for (final Entry entry : this.entries) {
+                if (entry.id == id) { return entry; }
+            }
+            throw new IllegalArgumentException("No entry " + id);
+        }
+
+        BigDecimal[] dailyBalance(final long officeId, final String currencyCode, final LocalDate date) {
+            return this.dailyBalances.get(dailyBalanceKey(officeId, currencyCode, date));
+        }
+
+        @Override
+        public synchronized ResultSet query(final String sql, final List<Object> parameters) throws SQLException {
+            final List<Object[]> rows = new ArrayList<>();
+            if (sql.startsWith("select distinct je.account_id")) {
+                if (hasEntriesToCalculate() && ACCOUNT_ID > ((Number) parameters.get(0)).longValue()) {
+                    rows.add(new Object[] { ACCOUNT_ID });
+                }
+                return JdbcStubs.resultSet(new String[] { "account_id" }, rows);
+            }
+            if (sql.startsWith("select je.entry_date as entryDate, je.id as id")) {
+                for (final Entry entry : sortedEntries()) {
+                    if (!entry.calculated) {
+                        rows.add(new Object[] { entry.entryDate, entry.id });
+                        break;
+                    }
+                }
+                return JdbcStubs.resultSet(new String[] { "entryDate", "id" }, rows);
+            }
+            if (sql.startsWith("select classification_enum")) {
+                if (this.failing) { throw new SQLException("Deadlock found when trying to get lock"); }
+                rows.add(new Object[] { this.accountType.getValue() });
+                return JdbcStubs.resultSet(new String[] { "classification_enum" }, rows);
+            }
+            if (sql.startsWith("select office_id as officeId, office_running_balance")) {
+                for (final Map.Entry<Long, Object[]> checkpoint : this.checkpoints.entrySet()) {
+                    final Object[] value = checkpoint.getValue();
+                    rows.add(new Object[] { checkpoint.getKey(), value[0], value[1], value[2] });
+                }
+                return JdbcStubs.resultSet(new String[] { "officeId", "runningBalance", "entryDate", "journalEntryId" }, rows);
+            }
+            if (sql.startsWith("select distinct je.office_id")) {
+                final List<Long> officeIds = new ArrayList<>();
+                for (final Entry entry : this.entries) {
+                    if (!officeIds.contains(entry.officeId)) {
+                        officeIds.add(entry.officeId);
+                        rows.add(new Object[] { entry.officeId });
+                    }
+                }
+                return JdbcStubs.resultSet(new String[] { "office_id" }, rows);
+            }
+            if (sql.startsWith("select je.office_running_balance")) {
+                final long officeId = ((Number) parameters.get(1)).longValue();
+                final LocalDate date = JdbcStubs.toLocalDate(parameters.get(2));
+                final long entryId = ((Number) parameters.get(4)).longValue();
+                Entry lastEntry = null;
+                for (final Entry entry : sortedEntries()) {
+                    if (entry.officeId == officeId && !entry.isAfter(date, entryId, true)) {
+                        lastEntry = entry;
+                    }
+                }
+                if (lastEntry != null) {
+                    rows.add(new Object[] { lastEntry.officeRunningBalance });
+                }
+                return JdbcStubs.resultSet(new String[] { "office_running_balance" }, rows);
+            }
+            if (sql.startsWith("select s.office_id as officeId")) {
+                final LocalDate date = JdbcStubs.toLocalDate(parameters.get(1));
+                final boolean inclusive = sql.contains("balance_date <= ?");
+                final Map<String, Object[]> latest = new TreeMap<>();
+                for (final Map.Entry<String, BigDecimal[]> dailyBalance : this.dailyBalances.entrySet()) {
+                    final String[] key = dailyBalance.getKey().split("\\|");
+                    final LocalDate balanceDate = new LocalDate(key[2]);
+                    if (inclusive ? !balanceDate.isAfter(date) : balanceDate.isBefore(date)) {
+                        // keys are in date order, so the last one wins
+                        latest.put(key[0] + "|" + key[1], new Object[] { Long.valueOf(key[0]), key[1], dailyBalance.getValue()[2] });
+                    }
+                }
+                rows.addAll(latest.values());
+                return JdbcStubs.resultSet(new String[] { "officeId", "currencyCode", "closingBalance" }, rows);
+            }
+            if (sql.startsWith("select je.id as id, je.office_id as officeId")) {
+                final LocalDate fromDate = JdbcStubs.toLocalDate(parameters.get(1));
+                final long fromId = ((Number) parameters.get(3)).longValue();
+                final boolean inclusive = sql.contains("je.id >= ?");
+                final int pageSize = Integer.parseInt(sql.substring(sql.lastIndexOf(" limit ") + 7).trim());
+                for (final Entry entry : sortedEntries()) {
+                    if (!entry.isAfter(fromDate, fromId, inclusive)) {
+                        continue;
+                    }
+                    // the keyset condition of the pages after the first one
+                    if (parameters.size() > 4
+                            && !entry.isAfter(JdbcStubs.toLocalDate(parameters.get(4)), ((Number) parameters.get(6)).longValue(), false)) {
+                        continue;
+                    }
+                    if (rows.size() < pageSize) {
+                        rows.add(new Object[] { entry.id, entry.officeId, entry.entryDate, entry.type.getValue(), entry.currencyCode,
+                                entry.amount });
+                    }
+                }
+                return JdbcStubs.resultSet(new String[] { "id", "officeId", "entryDate", "entryType", "currencyCode", "amount" }, rows);
+            }
+            throw new SQLException("Unexpected query: " + sql);
+        }
+
+        @Override
+        public synchronized int update(final String sql, final List<Object> parameters) throws SQLException {
+            if (sql.startsWith("update acc_gl_journal_entry set is_running_balance_calculated = 1")) {
+                final Entry entry = entry(((Number) parameters.get(2)).longValue());
+                entry.calculated = true;
+                entry.organizationRunningBalance = (BigDecimal) parameters.get(0);
+                entry.officeRunningBalance = (BigDecimal) parameters.get(1);
+                this.calculatedEntryIds.add(entry.id);
+                return 1;
+            }
+            if (sql.startsWith("delete from acc_gl_daily_balance")) {
+                final LocalDate fromDate = JdbcStubs.toLocalDate(parameters.get(1));
+                int deleted = 0;
+                for (final String key : new ArrayList<>(this.dailyBalances.keySet())) {
+                    if (!new LocalDate(key.split("\\|")[2]).isBefore(fromDate)) {
+                        this.dailyBalances.remove(key);
+                        deleted++;
+                    }
+                }
+                return deleted;
+            }
+            if (sql.startsWith("insert into acc_gl_daily_balance")) {
+                final String key = dailyBalanceKey(((Number) parameters.get(1)).longValue(), (String) parameters.get(2),
+                        JdbcStubs.toLocalDate(parameters.get(3)));
+                final BigDecimal[] dailyBalance = this.dailyBalances.get(key);
+                if (dailyBalance == null) {
+                    this.dailyBalances.put(key, new BigDecimal[] { (BigDecimal) parameters.get(4), (BigDecimal) parameters.get(5),
+                            (BigDecimal) parameters.get(6) });
+                    return 1;
+                }
+                dailyBalance[0] = dailyBalance[0].add((BigDecimal) parameters.get(4));
+                dailyBalance[1] = dailyBalance[1].add((BigDecimal) parameters.get(5));
+                dailyBalance[2] = (BigDecimal) parameters.get(6);
+                return 2;
+            }
+            if (sql.startsWith("delete from acc_gl_running_balance_checkpoint")) {
+                final int deleted = this.checkpoints.size();
+                this.checkpoints.clear();
+                return deleted;
+            }
+            if (sql.startsWith("insert into acc_gl_running_balance_checkpoint")) {
+                this.checkpoints.put(((Number) parameters.get(1)).longValue(), new Object[] { parameters.get(2),
+                        JdbcStubs.toLocalDate(parameters.get(3)), ((Number) parameters.get(4)).longValue() });
+                return 1;
+            }
+            throw new SQLException("Unexpected update: " + sql);
+        }
+
+        private boolean hasEntriesToCalculate() {
+            for (final Entry entry : this.entries) {
+                if (!entry.calculated) { return true; }
+            }
+            return false;
+        }
+
+        private List<Entry> sortedEntries() {
+            final List<Entry> sortedEntries = new ArrayList<>(this.entries);
+            Collections.sort(sortedEntries, new Comparator<Entry>() {
+
+                @Override
+                public int compare(final Entry first, final Entry second) {
+                    final int dateComparison = first.entryDate.compareTo(second.entryDate);
+                    return dateComparison != 0 ? dateComparison : Long.compare(first.id, second.id);
+                }
+            });
+            return sortedEntries;
+        }
+
+        private static String dailyBalanceKey(final long officeId, final String currencyCode, final LocalDate date) {
+            return officeId + "|" + currencyCode + "|" + date;
+        }
+    }
+}
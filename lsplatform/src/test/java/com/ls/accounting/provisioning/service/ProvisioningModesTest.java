@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.accounting.provisioning.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.ls.accounting.glaccount.domain.GLAccount;
+import com.ls.accounting.glaccount.domain.GLAccountRepository;
+import com.ls.accounting.provisioning.data.LoanProductProvisioningEntryData;
+import com.ls.accounting.provisioning.domain.LoanProductProvisioningEntry;
+import com.ls.accounting.provisioning.domain.ProvisioningEntry;
+import com.ls.accounting.provisioning.service.ProvisioningEntriesReadPlatformService.LoanProvisioningDataHandler;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import com.ls.organisation.monetary.domain.MonetaryCurrency;
+import com.ls.organisation.monetary.domain.Money;
+import com.ls.organisation.monetary.domain.MoneyHelper;
+import com.ls.organisation.office.domain.Office;
+import com.ls.organisation.office.domain.OfficeRepositoryWrapper;
+import com.ls.organisation.provisioning.domain.ProvisioningCategory;
+import com.ls.organisation.provisioning.domain.ProvisioningCategoryRepository;
+import com.ls.portfolio.loanproduct.domain.LoanProduct;
+import com.ls.portfolio.loanproduct.domain.LoanProductRepository;
+
+/**
+ * Checks that the aggregated provisioning mode reserves the same amounts as
+ * building the entries loan by loan.
+ */
+public class ProvisioningModesTest {
+
+    private static final Date PROVISIONING_DATE = new Date();
+    private static final Long CRITERIA_ID = 1L;
+    private static final Long LIABILITY_ACCOUNT_ID = 21L;
+    private static final Long EXPENSE_ACCOUNT_ID = 22L;
+
+    private final MonetaryCurrency usDollars = new MonetaryCurrency("USD", 2, null);
+    private final MonetaryCurrency yen = new MonetaryCurrency("JPY", 0, null);
+    private ProvisioningEntriesReadPlatformService readService;
+    private ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl writeService;
+
+    @Before
+    public void setUp() throws Exception {
+        final Field field = MoneyHelper.class.getDeclaredField("roundingMode");
+        field.setAccessible(true);
+        field.set(null, RoundingMode.HALF_EVEN);
+
+        this.readService = mock(ProvisioningEntriesReadPlatformService.class);
+        final LoanProductRepository loanProductRepository = mock(LoanProductRepository.class);
+        when(loanProductRepository.findOne(1L)).thenReturn(loanProduct(1L, this.usDollars));
+        when(loanProductRepository.findOne(2L)).thenReturn(loanProduct(2L, this.yen));
+        final OfficeRepositoryWrapper officeRepositoryWrapper = mock(OfficeRepositoryWrapper.class);
+        when(officeRepositoryWrapper.findOneWithNotFoundDetection(anyLong())).thenAnswer(new Answer<Office>() {
+
+            @Override
+            public Office answer(final InvocationOnMock invocation) {
+                final Office office = mock(Office.class);
+                when(office.getId()).thenReturn((Long) invocation.getArguments()[0]);
+                return office;
+            }
+        });
+        final ProvisioningCategoryRepository categoryRepository = mock(ProvisioningCategoryRepository.class);
+        when(categoryRepository.findOne(anyLong())).thenAnswer(new Answer<ProvisioningCategory>() {
+
+            @Override
+            public ProvisioningCategory answer(final InvocationOnMock invocation) {
+                final ProvisioningCategory category = mock(ProvisioningCategory.class);
+                when(category.getId()).thenReturn((Long) invocation.getArguments()[0]);
+                return category;
+            }
+        });
+        final GLAccountRepository glAccountRepository = mock(GLAccountRepository.class);
+        when(glAccountRepository.findOne(anyLong())).thenReturn(mock(GLAccount.class));
+
+        this.writeService = new ProvisioningEntriesWritePlatformServiceJpaRepositoryImpl(this.readService, null, loanProductRepository,
+                glAccountRepository, officeRepositoryWrapper, categoryRepository, null, null, null, null, null,
+                mock(RoutingDataSource.class), null, null, null);
+    }
+
+    @Test
+    public void roundsEveryLoanBeforeSummingUp() {
+        // 1.5% of 100.33 is 1.50495, so each loan reserves 1.50 while the
+        // summed up balance would reserve 3.01
+        final List<LoanProductProvisioningEntryData> entries = assertSameAmounts(Arrays.asList(loan(1L, 1L, 1L, 12L, "1.5", "100.33"),
+                loan(1L, 1L, 1L, 12L, "1.5", "100.33")));
+        assertEquals(0, new BigDecimal("3.00").compareTo(entries.get(0).getOutstandingBalance()));
+    }
+
+    @Test
+    public void keepsTheDaysOverdueOfTheFirstLoan() {
+        final List<LoanProductProvisioningEntryData> entries = assertSameAmounts(Arrays.asList(loan(1L, 1L, 2L, 45L, "10", "250.00"),
+                loan(1L, 1L, 2L, 31L, "10", "99.99"), loan(1L, 1L, 2L, 60L, "10", "12.34")));
+        assertEquals(1, entries.size());
+        assertEquals(Long.valueOf(45L), entries.get(0).getOverdueInDays());
+    }
+
+    @Test
+    public void keepsOfficesProductsAndCategoriesApart() {
+        final List<LoanProductProvisioningEntryData> entries = assertSameAmounts(Arrays.asList(loan(1L, 1L, 1L, 5L, "1", "1000.55"),
+                loan(1L, 1L, 2L, 40L, "25", "333.33"), loan(2L, 1L, 1L, 3L, "1", "777.77"), loan(1L, 2L, 1L, 8L, "1", "15005"),
+                loan(1L, 2L, 1L, 9L, "1", "2550"), loan(2L, 1L, 1L, 7L, "1", "0.49")));
+        assertEquals(4, entries.size());
+    }
+
+    /**
+     * Runs both modes over the same loans and checks that the amount reserved
+     * per office, product, currency and category is the same.
+     */
+    private List<LoanProductProvisioningEntryData> assertSameAmounts(final List<LoanProductProvisioningEntryData> loans) {
+        when(this.readService.retrieveLoanProductsProvisioningData(any(Date.class))).thenReturn(loans);
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final LoanProvisioningDataHandler handler = (LoanProvisioningDataHandler) invocation.getArguments()[1];
+                for (final LoanProductProvisioningEntryData loan : loans) {
+                    handler.handle(loan);
+                }
+                return null;
+            }
+        }).when(this.readService).retrieveActiveLoansProvisioningData(any(Date.class), any(LoanProvisioningDataHandler.class));
+
+        final Collection<LoanProductProvisioningEntry> perLoanEntries = this.writeService.generateLoanProvisioningEntry(
+                mock(ProvisioningEntry.class), PROVISIONING_DATE);
+        final Map<String, BigDecimal> perLoan = new HashMap<>();
+        for (final LoanProductProvisioningEntry entry : perLoanEntries) {
+            addAmount(perLoan, key(entry.getOffice().getId(), entry.getLoanProduct().getId(), entry.getCurrencyCode(),
+                    entry.getProvisioningCategory().getId()), entry.getReservedAmount());
+        }
+
+        final List<LoanProductProvisioningEntryData> aggregatedEntries = this.writeService
+                .calculateAggregatedProvisioningAmounts(PROVISIONING_DATE);
+        final Map<String, BigDecimal> aggregated = new HashMap<>();
+        for (final LoanProductProvisioningEntryData entry : aggregatedEntries) {
+            addAmount(aggregated, key(entry.getOfficeId(), entry.getProductId(), entry.getCurrencyCode(), entry.getCategoryId()),
+                    entry.getOutstandingBalance());
+        }
+
+        assertEquals(perLoan.keySet(), aggregated.keySet());
+        for (final Map.Entry<String, BigDecimal> amount : perLoan.entrySet()) {
+            assertEquals(amount.getKey(), 0, amount.getValue().compareTo(aggregated.get(amount.getKey())));
+        }
+        return aggregatedEntries;
+    }
+
+    private static void addAmount(final Map<String, BigDecimal> amounts, final String key, final BigDecimal amount) {
+        final BigDecimal total = amounts.get(key);
+        amounts.put(key, total == null ? amount : total.add(amount));
+    }
+
+    private LoanProductProvisioningEntryData loan(final Long officeId, final Long productId, final Long categoryId,
+            final Long overdueDays, final String percentage, final String outstandingBalance) {
+        final String currencyCode = productId.equals(1L) ? this.usDollars.getCode() : this.yen.getCode();
+        return new LoanProductProvisioningEntryData(null, officeId, currencyCode, productId, categoryId, overdueDays,
+                new BigDecimal(percentage), new BigDecimal(outstandingBalance), LIABILITY_ACCOUNT_ID, EXPENSE_ACCOUNT_ID, CRITERIA_ID);
+    }
+
+    private static LoanProduct loanProduct(final Long id, final MonetaryCurrency currency) {
+        final LoanProduct loanProduct = mock(LoanProduct.class);
+        when(loanProduct.getId()).thenReturn(id);
+        when(loanProduct.getPrincipalAmount()).thenReturn(Money.of(currency, BigDecimal.ONE));
+        return loanProduct;
+    }
+
+    private static String key(final Long officeId, final Long productId, final String currencyCode, final Long categoryId) {
+        return officeId + "_" + productId + "_" + currencyCode + "_" + categoryId;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.cache.service;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
+import com.ls.infrastructure.core.domain.FineractPlatformTenantConnection;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+
+/**
+ * What the tests of the caches kept in a {@link TenantVersionedCache} share:
+ * the tenant of the current thread, a data source whose connection answers
+ * every query run through a statement with the rows of the test, and mocked
+ * cache versions. Tests hold it as a field and call {@link #tearDown()} after
+ * each test.
+ */
+public class TenantCacheFixture {
+
+    /**
+     * The rows the cache loads its data from.
+     */
+    public interface Rows {
+
+        ResultSet create() throws SQLException;
+    }
+
+    private final Statement query;
+    private final RoutingDataSource dataSource;
+    private final TenantCacheVersions cacheVersions;
+
+    public TenantCacheFixture(final Rows rows) throws SQLException {
+        ThreadLocalContextUtil.setTenant(new FineractPlatformTenant(1L, "default", "Default", "Asia/Kolkata",
+                mock(FineractPlatformTenantConnection.class)));
+        final Connection connection = mock(Connection.class);
+        this.query = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(this.query);
+        when(this.query.executeQuery(anyString())).thenAnswer(new Answer<ResultSet>() {
+
+            @Override
+            public ResultSet answer(@SuppressWarnings("unused") final InvocationOnMock invocation) throws SQLException {
+                return rows.create();
+            }
+        });
+        this.dataSource = mock(RoutingDataSource.class);
+        when(this.dataSource.getConnection()).thenReturn(connection);
+        this.cacheVersions = mock(TenantCacheVersions.class);
+    }
+
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    /**
+     * The statement every query of the cache runs through, to count the
+     * times the data is loaded.
+     */
+    public Statement getQuery() {
+        return this.query;
+    }
+
+    public RoutingDataSource getDataSource() {
+        return this.dataSource;
+    }
+
+    public TenantCacheVersions getCacheVersions() {
+        return this.cacheVersions;
+    }
+}
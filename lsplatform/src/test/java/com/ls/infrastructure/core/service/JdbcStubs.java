@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.core.service;
+
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Stubs a {@link RoutingDataSource} at the JDBC level for tests of services
+ * that query through their own <code>JdbcTemplate</code>: every statement
+ * prepared on its connection is handed, together with its parameters, to a
+ * {@link StatementHandler} playing the database.
+ */
+public final class JdbcStubs {
+
+    /**
+     * Plays the database for the statements of a test.
+     */
+    public interface StatementHandler {
+
+        ResultSet query(String sql, List<Object> parameters) throws SQLException;
+
+        int update(String sql, List<Object> parameters) throws SQLException;
+    }
+
+    private JdbcStubs() {}
+
+    /**
+     * A data source handing out the given connection.
+     */
+    public static RoutingDataSource dataSource(final Connection connection) throws SQLException {
+        final RoutingDataSource dataSource = mock(RoutingDataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    /**
+     * A connection running its statements against the handler. It is a mock,
+     * so the statements prepared on it can be verified as well.
+     */
+    public static Connection connection(final StatementHandler handler) {
+        final Connection[] connection = new Connection[1];
+        connection[0] = mock(Connection.class, new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final String method = invocation.getMethod().getName();
+                if (method.equals("prepareStatement")) { return preparedStatement(connection[0],
+                        (String) invocation.getArguments()[0], handler); }
+                if (method.equals("createStatement")) { return statement(connection[0], handler); }
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        return connection[0];
+    }
+
+    /**
+     * A result set over the given rows, whose values are read by column label
+     * or by position. Dates may be given as {@link LocalDate}.
+     */
+    public static ResultSet resultSet(final String[] columns, final List<Object[]> rows) {
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class, new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final String method = invocation.getMethod().getName();
+                if (method.equals("getColumnCount")) { return columns.length; }
+                if (method.equals("getColumnLabel") || method.equals("getColumnName")) { return columns[(Integer) invocation
+                        .getArguments()[0] - 1]; }
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+        final int[] row = { -1 };
+        final boolean[] lastValueNull = { false };
+        return mock(ResultSet.class, new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final String method = invocation.getMethod().getName();
+                final Object[] arguments = invocation.getArguments();
+                if (method.equals("next")) { return ++row[0] < rows.size(); }
+                if (method.equals("wasNull")) { return lastValueNull[0]; }
+                if (method.equals("getMetaData")) { return metaData; }
+                if (method.equals("findColumn")) { return columnIndex(columns, (String) arguments[0]) + 1; }
+                if (method.startsWith("get") && arguments.length == 1) {
+                    final int index = arguments[0] instanceof String ? columnIndex(columns, (String) arguments[0])
+                            : (Integer) arguments[0] - 1;
+                    final Object value = rows.get(row[0])[index];
+                    lastValueNull[0] = value == null;
+                    return convert(value, method);
+                }
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    public static ResultSet resultSet(final String[] columns, final Object[]... rows) {
+        final List<Object[]> rowList = new ArrayList<>();
+        Collections.addAll(rowList, rows);
+        return resultSet(columns, rowList);
+    }
+
+    /**
+     * The parameter as a date, whichever of the date types it was bound as.
+     */
+    public static LocalDate toLocalDate(final Object parameter) {
+        return parameter instanceof LocalDate ? (LocalDate) parameter : new LocalDate(((Date) parameter).getTime());
+    }
+
+    private static PreparedStatement preparedStatement(final Connection connection, final String sql, final StatementHandler handler) {
+        final Map<Integer, Object> parameters = new TreeMap<>();
+        final List<List<Object>> batch = new ArrayList<>();
+        return mock(PreparedStatement.class, new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final String method = invocation.getMethod().getName();
+                final Object[] arguments = invocation.getArguments();
+                if (method.startsWith("set") && arguments.length >= 2 && arguments[0] instanceof Integer) {
+                    parameters.put((Integer) arguments[0], method.equals("setNull") ? null : arguments[1]);
+                    return null;
+                }
+                if (method.equals("clearParameters")) {
+                    parameters.clear();
+                    return null;
+                }
+                if (method.equals("executeQuery")) { return handler.query(sql, new ArrayList<>(parameters.values())); }
+                if (method.equals("executeUpdate")) { return handler.update(sql, new ArrayList<>(parameters.values())); }
+                if (method.equals("addBatch")) {
+                    batch.add(new ArrayList<>(parameters.values()));
+                    return null;
+                }
+                if (method.equals("executeBatch")) {
+                    final int[] updateCounts = new int[batch.size()];
+                    for (int i = 0; i < updateCounts.length; i++) {
+                        updateCounts[i] = handler.update(sql, batch.get(i));
+                    }
+                    batch.clear();
+                    return updateCounts;
+                }
+                if (method.equals("getConnection")) { return connection; }
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private static Statement statement(final Connection connection, final StatementHandler handler) {
+        return mock(Statement.class, new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) throws Throwable {
+                final String method = invocation.getMethod().getName();
+                final Object[] arguments = invocation.getArguments();
+                if (method.equals("executeQuery")) { return handler.query((String) arguments[0], Collections.emptyList()); }
+                if (method.equals("executeUpdate")) { return handler.update((String) arguments[0], Collections.emptyList()); }
+                if (method.equals("getConnection")) { return connection; }
+                return Mockito.RETURNS_DEFAULTS.answer(invocation);
+            }
+        });
+    }
+
+    private static int columnIndex(final String[] columns, final String label) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(label)) { return i; }
+        }
+        throw new SQLException("Unknown column " + label);
+    }
+
+    private static Object convert(final Object value, final String getter) {
+        final Object normalized = value instanceof LocalDate ? new java.sql.Date(((LocalDate) value).toDate().getTime()) : value;
+        switch (getter) {
+            case "getLong":
+                return normalized == null ? 0L : ((Number) normalized).longValue();
+            case "getInt":
+                return normalized == null ? 0 : ((Number) normalized).intValue();
+            case "getBoolean":
+                return normalized != null && (Boolean) normalized;
+            case "getBigDecimal":
+                return normalized == null || normalized instanceof BigDecimal ? normalized : new BigDecimal(normalized.toString());
+            case "getString":
+                return normalized == null ? null : normalized.toString();
+            case "getDate":
+                return normalized == null ? null : new java.sql.Date(((Date) normalized).getTime());
+            case "getTimestamp":
+                return normalized == null ? null : new Timestamp(((Date) normalized).getTime());
+            default:
+                return normalized;
+        }
+    }
+}
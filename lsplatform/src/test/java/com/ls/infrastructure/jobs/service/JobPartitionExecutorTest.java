@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
+import com.ls.infrastructure.core.domain.FineractPlatformTenantConnection;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.ItemProcessor;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.PartitionSource;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.PartitionedRunResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * Checks that a partitioned run reports failed items and fails as a whole
+ * when it is interrupted.
+ */
+public class JobPartitionExecutorTest {
+
+    private JobPartitionExecutor executor;
+
+    @Before
+    public void setUp() {
+        final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(mock(TransactionStatus.class));
+        this.executor = new JobPartitionExecutor(transactionManager, new JobProgressTracker());
+        ThreadLocalContextUtil.setTenant(new FineractPlatformTenant(1L, "default", "Default", "Asia/Kolkata",
+                mock(FineractPlatformTenantConnection.class)));
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+        // clears the interrupt flag of the interrupted run
+        Thread.interrupted();
+    }
+
+    @Test
+    public void processesAllItemsAndReportsFailedOnes() {
+        final PartitionedRunResult result = this.executor.execute(JobName.POST_INTEREST_FOR_SAVINGS, source(1L, 2L, 3L, 4L, 5L),
+                new ItemProcessor() {
+
+                    @Override
+                    public void process(final Long itemId) {
+                        if (itemId == 3L) { throw new IllegalStateException("item 3 failed"); }
+                    }
+                }, 2, 2);
+
+        assertEquals(4, result.getProcessedCount());
+        assertEquals(Collections.singleton(3L), result.getFailures().keySet());
+        assertFalse(result.isInterrupted());
+        assertTrue(result.hasFailures());
+    }
+
+    @Test
+    public void interruptedRunFailsWithoutItemFailures() {
+        Thread.currentThread().interrupt();
+
+        final PartitionedRunResult result = this.executor.execute(JobName.POST_INTEREST_FOR_SAVINGS, source(1L, 2L, 3L),
+                new ItemProcessor() {
+
+                    @Override
+                    public void process(@SuppressWarnings("unused") final Long itemId) {
+                        // nothing to do
+                    }
+                }, 1, 1);
+
+        assertTrue(Thread.currentThread().isInterrupted());
+        assertTrue(result.isInterrupted());
+        assertTrue(result.getFailures().isEmpty());
+        assertTrue(result.hasFailures());
+        assertTrue(JobPartitionExecutor.buildErrorMessage("post interest for Savings", result).startsWith("interrupted after"));
+    }
+
+    private static PartitionSource source(final Long... itemIds) {
+        final List<Long> allIds = Arrays.asList(itemIds);
+        return new PartitionSource() {
+
+            @Override
+            public List<Long> nextPartition(final Long lastId, final int partitionSize) {
+                final List<Long> partition = new ArrayList<>();
+                for (final Long itemId : allIds) {
+                    if (itemId > lastId && partition.size() < partitionSize) {
+                        partition.add(itemId);
+                    }
+                }
+                return partition;
+            }
+        };
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.ls.infrastructure.core.service.JdbcStubs;
+import com.ls.infrastructure.core.service.JdbcStubs.StatementHandler;
+import com.ls.infrastructure.jobs.service.KeysetPageReader.Key;
+import org.junit.Test;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Checks that the pages read by a {@link KeysetPageReader} together return
+ * every row once and in key order, wherever the page boundaries fall.
+ */
+public class KeysetPageReaderTest {
+
+    private static final String SQL = "select t.priority as priority, t.id as id from t where t.status = ?";
+    private static final Integer ACTIVE = 1;
+    private static final String[] COLUMNS = { "priority", "id" };
+    private static final Pattern PAGE = Pattern.compile("(?: and \\((.*)\\))? order by (.*) limit (\\d+)");
+
+    private static final RowMapper<Long> ID_MAPPER = new RowMapper<Long>() {
+
+        @Override
+        public Long mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            return rs.getLong("id");
+        }
+    };
+
+    @Test
+    public void continuesWithinDuplicateLeadingKeysAtThePageBoundary() throws SQLException {
+        final Table table = new Table(row(2L, 5L), row(1L, 3L), row(1L, 1L), row(1L, 4L), row(1L, 2L));
+
+        final List<Long> ids = readIds(table, 2, Key.ascending("t.priority", "priority"), Key.ascending("t.id", "id"));
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), ids);
+        assertEquals(3, table.getQueries().size());
+    }
+
+    @Test
+    public void readsDescendingKeysFromTheHighestValue() throws SQLException {
+        final Table table = new Table(row(1L, 1L), row(3L, 2L), row(2L, 3L), row(3L, 4L), row(1L, 5L));
+
+        final List<Long> ids = readIds(table, 2, Key.descending("t.priority", "priority"), Key.ascending("t.id", "id"));
+
+        assertEquals(Arrays.asList(2L, 4L, 3L, 1L, 5L), ids);
+        assertTrue(table.getQueries().get(0).endsWith(" order by t.priority desc, t.id asc limit 2"));
+        assertTrue(table.getQueries().get(1).contains("(t.priority < ?) or (t.priority = ? and t.id > ?)"));
+    }
+
+    @Test
+    public void stopsAfterAnExactlyFullFinalPage() throws SQLException {
+        final Table table = new Table(row(1L, 1L), row(1L, 2L), row(2L, 3L), row(2L, 4L));
+        final Iterator<Long> iterator = new KeysetPageReader<>(JdbcStubs.dataSource(JdbcStubs.connection(table)), SQL,
+                new Object[] { ACTIVE }, ID_MAPPER, 2, Key.ascending("t.priority", "priority"), Key.ascending("t.id", "id")).iterator();
+
+        final List<Long> ids = new ArrayList<>();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next());
+        }
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), ids);
+        assertFalse(iterator.hasNext());
+        // two full pages and the empty one that ends the iteration
+        assertEquals(3, table.getQueries().size());
+    }
+
+    private static List<Long> readIds(final Table table, final int pageSize, final Key... keys) throws SQLException {
+        final List<Long> ids = new ArrayList<>();
+        for (final Long id : new KeysetPageReader<>(JdbcStubs.dataSource(JdbcStubs.connection(table)), SQL, new Object[] { ACTIVE },
+                ID_MAPPER, pageSize, keys)) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static Object[] row(final Long priority, final Long id) {
+        return new Object[] { priority, id };
+    }
+
+    /**
+     * Plays a table for the page queries: it evaluates the keyset condition,
+     * the order and the limit appended by the reader against its rows.
+     */
+    private static final class Table implements StatementHandler {
+
+        private final List<Object[]> rows;
+        private final List<String> queries = new ArrayList<>();
+
+        Table(final Object[]... rows) {
+            this.rows = Arrays.asList(rows);
+        }
+
+        List<String> getQueries() {
+            return this.queries;
+        }
+
+        @Override
+        public ResultSet query(final String sql, final List<Object> parameters) {
+            this.queries.add(sql);
+            assertTrue(sql, sql.startsWith(SQL));
+            assertEquals(ACTIVE, parameters.get(0));
+            final Matcher matcher = PAGE.matcher(sql.substring(SQL.length()));
+            assertTrue(sql, matcher.matches());
+
+            final List<Object[]> page = new ArrayList<>();
+            for (final Object[] row : this.rows) {
+                if (matcher.group(1) == null || matches(row, matcher.group(1), parameters.subList(1, parameters.size()))) {
+                    page.add(row);
+                }
+            }
+            Collections.sort(page, order(matcher.group(2).split(", ")));
+            final int limit = Integer.parseInt(matcher.group(3));
+            return JdbcStubs.resultSet(COLUMNS, page.size() > limit ? page.subList(0, limit) : page);
+        }
+
+        @Override
+        public int update(final String sql, @SuppressWarnings("unused") final List<Object> parameters) {
+            throw new UnsupportedOperationException(sql);
+        }
+
+        private static boolean matches(final Object[] row, final String condition, final List<Object> parameters) {
+            int parameter = 0;
+            boolean matches = false;
+            for (final String alternative : condition.split(" or ")) {
+                boolean allHold = true;
+                for (final String comparison : alternative.substring(1, alternative.length() - 1).split(" and ")) {
+                    final String[] parts = comparison.split(" ");
+                    final int difference = compare(value(row, parts[0]), parameters.get(parameter++));
+                    allHold &= parts[1].equals("=") ? difference == 0 : parts[1].equals(">") ? difference > 0 : difference < 0;
+                }
+                matches |= allHold;
+            }
+            assertEquals(parameters.size(), parameter);
+            return matches;
+        }
+
+        private static Comparator<Object[]> order(final String[] orderBy) {
+            return new Comparator<Object[]>() {
+
+                @Override
+                public int compare(final Object[] first, final Object[] second) {
+                    for (final String column : orderBy) {
+                        final String[] parts = column.split(" ");
+                        final int difference = Table.compare(value(first, parts[0]), value(second, parts[0]));
+                        if (difference != 0) { return parts[1].equals("desc") ? -difference : difference; }
+                    }
+                    return 0;
+                }
+            };
+        }
+
+        private static Object value(final Object[] row, final String expression) {
+            return row[Arrays.asList(COLUMNS).indexOf(expression.substring("t.".length()))];
+        }
+
+        private static int compare(final Object value, final Object other) {
+            return ((Long) value).compareTo((Long) other);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
+import com.ls.infrastructure.core.domain.FineractPlatformTenantConnection;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.ItemProcessor;
+import com.ls.infrastructure.jobs.service.JobPartitionExecutor.PartitionedRunResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.ConcurrencyFailureException;
+
+/**
+ * Checks the retries of {@link RetryingJobExecutor} on lock failures, and
+ * that an interrupted run fails.
+ */
+public class RetryingJobExecutorTest {
+
+    private static final String TENANT_IDENTIFIER = "default";
+    private static final JobName JOB_NAME = JobName.RECALCULATE_INTEREST_FOR_LOAN;
+
+    private final JobProgressTracker jobProgressTracker = new JobProgressTracker();
+    private final RetryingJobExecutor executor = new RetryingJobExecutor(this.jobProgressTracker);
+    private JobProgress progress;
+
+    @Before
+    public void setUp() {
+        final FineractPlatformTenantConnection connection = mock(FineractPlatformTenantConnection.class);
+        when(connection.getMaxRetriesOnDeadlock()).thenReturn(2);
+        when(connection.getMaxIntervalBetweenRetries()).thenReturn(0);
+        ThreadLocalContextUtil.setTenant(new FineractPlatformTenant(1L, TENANT_IDENTIFIER, "Default", "Asia/Kolkata", connection));
+        this.progress = this.jobProgressTracker.start(TENANT_IDENTIFIER, JOB_NAME.toString());
+    }
+
+    @After
+    public void tearDown() {
+        this.jobProgressTracker.finish(TENANT_IDENTIFIER, JOB_NAME.toString());
+        ThreadLocalContextUtil.clearTenant();
+        // clears the interrupt flag of the interrupted run
+        Thread.interrupted();
+    }
+
+    @Test
+    public void processesAllItems() {
+        final PartitionedRunResult result = this.executor.execute(JOB_NAME, Arrays.asList(1L, 2L, 3L, 4L, 5L), new FailingProcessor(0),
+                2);
+
+        assertEquals(5, result.getProcessedCount());
+        assertFalse(result.hasFailures());
+        assertEquals(0, this.progress.getRetriedItems());
+    }
+
+    @Test
+    public void retriesItemsThatFailOnALock() {
+        final FailingProcessor processor = new FailingProcessor(2);
+
+        final PartitionedRunResult result = this.executor.execute(JOB_NAME, Arrays.asList(1L, 2L), processor, 2);
+
+        assertEquals(2, result.getProcessedCount());
+        assertFalse(result.hasFailures());
+        assertEquals(4, this.progress.getRetriedItems());
+        assertEquals(3, processor.attemptsOf(1L));
+        assertEquals(3, processor.attemptsOf(2L));
+    }
+
+    @Test
+    public void failsItemsStillLockedAfterTheLastRetry() {
+        final FailingProcessor processor = new FailingProcessor(3);
+
+        final PartitionedRunResult result = this.executor.execute(JOB_NAME, Collections.singletonList(1L), processor, 1);
+
+        assertEquals(0, result.getProcessedCount());
+        assertEquals(Collections.singleton(1L), result.getFailures().keySet());
+        assertTrue(result.getFailures().get(1L) instanceof ConcurrencyFailureException);
+        assertEquals(3, processor.attemptsOf(1L));
+        assertEquals(1, this.progress.getFailedItems());
+    }
+
+    @Test
+    public void doesNotRetryOtherFailures() {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final PartitionedRunResult result = this.executor.execute(JOB_NAME, Arrays.asList(1L, 2L), new ItemProcessor() {
+
+            @Override
+            public void process(final Long itemId) {
+                if (itemId == 2L) {
+                    attempts.incrementAndGet();
+                    throw new IllegalStateException("item 2 failed");
+                }
+            }
+        }, 1);
+
+        assertEquals(1, result.getProcessedCount());
+        assertEquals(Collections.singleton(2L), result.getFailures().keySet());
+        assertEquals(1, attempts.get());
+        assertEquals(0, this.progress.getRetriedItems());
+    }
+
+    @Test
+    public void interruptedRunFails() {
+        Thread.currentThread().interrupt();
+
+        final PartitionedRunResult result = this.executor.execute(JOB_NAME, Arrays.asList(1L, 2L, 3L), new FailingProcessor(0), 1);
+
+        assertTrue(Thread.currentThread().isInterrupted());
+        assertTrue(result.isInterrupted());
+        assertTrue(result.hasFailures());
+    }
+
+    /**
+     * Fails every item on a lock the given number of times before processing
+     * it.
+     */
+    private static final class FailingProcessor implements ItemProcessor {
+
+        private final int lockFailures;
+        private final Map<Long, AtomicInteger> attempts = new ConcurrentHashMap<>();
+
+        FailingProcessor(final int lockFailures) {
+            this.lockFailures = lockFailures;
+        }
+
+        @Override
+        public void process(final Long itemId) {
+            AtomicInteger itemAttempts = this.attempts.get(itemId);
+            if (itemAttempts == null) {
+                this.attempts.putIfAbsent(itemId, new AtomicInteger());
+                itemAttempts = this.attempts.get(itemId);
+            }
+            if (itemAttempts.incrementAndGet() <= this.lockFailures) { throw new ConcurrencyFailureException("locked"); }
+        }
+
+        int attemptsOf(final Long itemId) {
+            final AtomicInteger itemAttempts = this.attempts.get(itemId);
+            return itemAttempts == null ? 0 : itemAttempts.get();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
+import com.ls.infrastructure.core.domain.FineractPlatformTenantConnection;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+import com.ls.infrastructure.security.service.TenantDetailsService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+
+/**
+ * Checks that fires vetoed for want of an execution slot leave at most one
+ * deferred run of the job behind.
+ */
+public class SchedulerTriggerListenerTest {
+
+    private static final JobKey JOB_KEY = new JobKey("Apply penalty to overdue loans_DEFAULT", "DEFAULT");
+    private static final TriggerKey DEFERRED_RUN_KEY = new TriggerKey("Apply penalty to overdue loans_DEFAULT_deferredRun", "DEFAULT");
+
+    private Scheduler scheduler;
+    private JobExecutionContext context;
+    private SchedulerTriggerListener listener;
+
+    @Before
+    public void setUp() {
+        final TenantJobExecutionGate jobExecutionGate = new TenantJobExecutionGate(1, 1, 30);
+        // the only slot is taken, so every fire is vetoed and deferred
+        assertNotNull(jobExecutionGate.tryAcquire("default", "another job"));
+        final TenantDetailsService tenantDetailsService = mock(TenantDetailsService.class);
+        when(tenantDetailsService.loadTenantById("default")).thenReturn(
+                new FineractPlatformTenant(1L, "default", "Default", "Asia/Kolkata", mock(FineractPlatformTenantConnection.class)));
+        this.scheduler = mock(Scheduler.class);
+        this.context = mock(JobExecutionContext.class);
+        when(this.context.getScheduler()).thenReturn(this.scheduler);
+        when(this.context.getMergedJobDataMap()).thenReturn(new JobDataMap());
+        this.listener = new SchedulerTriggerListener(mock(SchedularWritePlatformService.class), tenantDetailsService, jobExecutionGate);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void schedulesOneDeferredRunPerJob() throws SchedulerException {
+        when(this.scheduler.checkExists(DEFERRED_RUN_KEY)).thenReturn(false, true);
+        final Trigger cronTrigger = trigger(new TriggerKey("cron", "DEFAULT"));
+
+        assertTrue(this.listener.vetoJobExecution(cronTrigger, this.context));
+        assertTrue(this.listener.vetoJobExecution(cronTrigger, this.context));
+
+        final ArgumentCaptor<Trigger> deferredRun = ArgumentCaptor.forClass(Trigger.class);
+        verify(this.scheduler, times(1)).scheduleJob(deferredRun.capture());
+        assertEquals(DEFERRED_RUN_KEY, deferredRun.getValue().getKey());
+        assertEquals(JOB_KEY, deferredRun.getValue().getJobKey());
+        assertEquals("default", deferredRun.getValue().getJobDataMap().getString(SchedulerServiceConstants.TENANT_IDENTIFIER));
+    }
+
+    @Test
+    public void movesTheDeferredRunWhenItIsVetoedItself() throws SchedulerException {
+        assertTrue(this.listener.vetoJobExecution(trigger(DEFERRED_RUN_KEY), this.context));
+
+        verify(this.scheduler).rescheduleJob(eq(DEFERRED_RUN_KEY), any(Trigger.class));
+        verify(this.scheduler, never()).scheduleJob(any(Trigger.class));
+    }
+
+    private static Trigger trigger(final TriggerKey key) {
+        return TriggerBuilder.newTrigger().withIdentity(key).forJob(JOB_KEY)
+                .usingJobData(SchedulerServiceConstants.TENANT_IDENTIFIER, "default").build();
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.infrastructure.jobs.service;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Checks that the gate never blocks, enforces its limits and keeps free slots
+ * for the tenants which were deferred first.
+ */
+public class TenantJobExecutionGateTest {
+
+    @Test
+    public void refusesJobsOverThePerTenantLimit() {
+        final TenantJobExecutionGate gate = new TenantJobExecutionGate(4, 2, 30);
+
+        final TenantJobExecutionGate.Ticket first = gate.tryAcquire("default", "jobA");
+        assertNotNull(first);
+        assertNotNull(gate.tryAcquire("default", "jobB"));
+        assertNull(gate.tryAcquire("default", "jobC"));
+
+        gate.release(first);
+        assertNotNull(gate.tryAcquire("default", "jobC"));
+    }
+
+    @Test
+    public void refusesJobsOverTheGlobalLimit() {
+        final TenantJobExecutionGate gate = new TenantJobExecutionGate(2, 2, 30);
+
+        assertNotNull(gate.tryAcquire("tenant1", "jobA"));
+        assertNotNull(gate.tryAcquire("tenant2", "jobA"));
+        assertNull(gate.tryAcquire("tenant3", "jobA"));
+    }
+
+    @Test
+    public void keepsAFreedSlotForTheTenantDeferredFirst() {
+        final TenantJobExecutionGate gate = new TenantJobExecutionGate(2, 2, 30);
+        final TenantJobExecutionGate.Ticket ticket = gate.tryAcquire("tenant1", "jobA");
+        assertNotNull(gate.tryAcquire("tenant1", "jobB"));
+        assertNull(gate.tryAcquire("tenant2", "jobA"));
+        assertNull(gate.tryAcquire("tenant1", "jobC"));
+
+        gate.release(ticket);
+
+        // tenant2 was deferred first, its retry gets the slot
+        assertNull(gate.tryAcquire("tenant1", "jobC"));
+        assertNotNull(gate.tryAcquire("tenant2", "jobA"));
+    }
+
+    @Test
+    public void releasingATicketTwiceFreesOneSlot() {
+        final TenantJobExecutionGate gate = new TenantJobExecutionGate(1, 1, 30);
+        final TenantJobExecutionGate.Ticket ticket = gate.tryAcquire("default", "jobA");
+
+        gate.release(ticket);
+        gate.release(ticket);
+
+        assertNotNull(gate.tryAcquire("default", "jobB"));
+        assertNull(gate.tryAcquire("default", "jobC"));
+    }
+
+    @Test
+    public void perTenantLimitIsCappedByTheGlobalLimit() {
+        final TenantJobExecutionGate gate = new TenantJobExecutionGate(1, 7, 30);
+
+        assertNotNull(gate.tryAcquire("default", "jobA"));
+        assertNull(gate.tryAcquire("default", "jobB"));
+    }
+}
@@ -39,7 +39,7 @@ public class ReadTaxonomyMappingServiceImplTest {
     @Before
     public void setUp() throws Exception {
         final RoutingDataSource dataSource = Mockito.mock(RoutingDataSource.class);
-        this.readService = new XBRLResultServiceImpl(dataSource, null, null);
+        this.readService = new XBRLResultServiceImpl(dataSource, null, null, null);
 
     }
 
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.organisation.monetary.domain;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that a {@link MoneyAccumulator} ends up with exactly the amount that
+ * adding up the same amounts with {@link Money} gives.
+ */
+public class MoneyAccumulatorTest {
+
+    private final MonetaryCurrency usDollars = new MonetaryCurrency("USD", 2, null);
+    private final MonetaryCurrency roundedToFifty = new MonetaryCurrency("XOF", 0, 50);
+
+    @Before
+    public void setUp() throws Exception {
+        final Field field = MoneyHelper.class.getDeclaredField("roundingMode");
+        field.setAccessible(true);
+        field.set(null, RoundingMode.HALF_EVEN);
+    }
+
+    @Test
+    public void sumsLikeMoneyPlus() {
+        assertSameSum(this.usDollars, Arrays.asList("1000.00", "0.01", "-250.5", "333.333", "0", "12.345"));
+    }
+
+    @Test
+    public void roundsEveryAdditionForCurrenciesInMultiples() {
+        // rounding 100 - 30 - 30 once gives 50 but adding it up with Money
+        // rounds 70 down to 50 first and then 20 down to 0
+        assertSameSum(this.roundedToFifty, Arrays.asList("100", "-30", "-30"));
+    }
+
+    @Test
+    public void keepsTheScaleOfTheCurrency() {
+        final Money sum = new MoneyAccumulator(this.usDollars).plus(Money.of(this.usDollars, new BigDecimal("10"))).toMoney();
+        assertEquals(new BigDecimal("10.00"), sum.getAmount());
+        assertEquals(new BigDecimal("0.00"), new MoneyAccumulator(this.usDollars).toMoney().getAmount());
+    }
+
+    private void assertSameSum(final MonetaryCurrency currency, final List<String> amounts) {
+        Money expected = Money.zero(currency);
+        final MoneyAccumulator accumulator = new MoneyAccumulator(currency);
+        for (final String amount : amounts) {
+            final Money money = Money.of(currency, new BigDecimal(amount));
+            expected = expected.plus(money);
+            accumulator.plus(money);
+        }
+        assertEquals(expected.getAmount(), accumulator.toMoney().getAmount());
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.organisation.office.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ls.infrastructure.cache.service.TenantCacheFixture;
+import com.ls.infrastructure.cache.service.TenantCacheVersions;
+
+/**
+ * Checks the offices the index finds within an office, how it lists them for
+ * SQL and when the office tree is loaded again.
+ */
+public class OfficeHierarchyIndexTest {
+
+    /**
+     * Head office 1 with branches 2 and 3, office 4 below branch 2 and
+     * {@link OfficeHierarchyIndex#MAX_LISTED_OFFICE_IDS} offices from 100 on
+     * below branch 3.
+     */
+    private static final List<Object[]> OFFICES = new ArrayList<>();
+
+    static {
+        OFFICES.add(new Object[] { 1L, null, "." });
+        OFFICES.add(new Object[] { 2L, 1L, ".2." });
+        OFFICES.add(new Object[] { 3L, 1L, ".3." });
+        OFFICES.add(new Object[] { 4L, 2L, ".2.4." });
+        for (long officeId = 100; officeId < 100 + OfficeHierarchyIndex.MAX_LISTED_OFFICE_IDS; officeId++) {
+            OFFICES.add(new Object[] { officeId, 3L, ".3." + officeId + "." });
+        }
+    }
+
+    private TenantCacheFixture fixture;
+    private Statement officesQuery;
+    private TenantCacheVersions cacheVersions;
+    private OfficeHierarchyIndex index;
+
+    @Before
+    public void setUp() throws SQLException {
+        this.fixture = new TenantCacheFixture(new TenantCacheFixture.Rows() {
+
+            @Override
+            public ResultSet create() throws SQLException {
+                return offices();
+            }
+        });
+        this.officesQuery = this.fixture.getQuery();
+        this.cacheVersions = this.fixture.getCacheVersions();
+        this.index = new OfficeHierarchyIndex(this.fixture.getDataSource(), this.cacheVersions);
+    }
+
+    @After
+    public void tearDown() {
+        this.fixture.tearDown();
+    }
+
+    @Test
+    public void findsTheOfficesWithinAnOffice() {
+        assertArrayEquals(new long[] { 2L, 4L }, this.index.retrieveOfficeIdsWithin(2L));
+        assertArrayEquals(new long[] { 4L }, this.index.retrieveOfficeIdsWithin(4L));
+        assertEquals(OFFICES.size(), this.index.retrieveOfficeIdsWithin(1L).length);
+
+        assertTrue(this.index.isWithin(4L, 1L));
+        assertTrue(this.index.isWithin(4L, 2L));
+        assertTrue(this.index.isWithin(2L, 2L));
+        assertFalse(this.index.isWithin(4L, 3L));
+        assertFalse(this.index.isWithin(1L, 2L));
+        assertFalse(this.index.isWithin(99L, 1L));
+    }
+
+    @Test
+    public void listsTheIdsOfSmallSubtrees() {
+        assertEquals("2,4", this.index.retrieveSqlOfficeIdListWithin(2L));
+        assertEquals("4", this.index.retrieveSqlOfficeIdListWithin(4L));
+        assertEquals("null", this.index.retrieveSqlOfficeIdListWithin(null));
+    }
+
+    @Test
+    public void selectsLargeSubtreesByHierarchy() {
+        assertEquals("select o.id from m_office o where o.hierarchy like '.3.%'", this.index.retrieveSqlOfficeIdListWithin(3L));
+        assertEquals("select o.id from m_office o where o.hierarchy like '.%'", this.index.retrieveSqlOfficeIdListWithin(1L));
+    }
+
+    @Test
+    public void keepsTheOfficeTreeWhileTheVersionIsUnchanged() throws SQLException {
+        when(this.cacheVersions.currentVersion(OfficeHierarchyIndex.CACHE_NAME)).thenReturn(7L);
+
+        this.index.retrieveOfficeIdsWithin(2L);
+        this.index.retrieveSqlOfficeIdListWithin(2L);
+        this.index.isWithin(4L, 1L);
+
+        verify(this.officesQuery, times(1)).executeQuery(anyString());
+    }
+
+    @Test
+    public void loadsTheOfficeTreeAgainOnceTheVersionMovesOn() throws SQLException {
+        when(this.cacheVersions.currentVersion(OfficeHierarchyIndex.CACHE_NAME)).thenReturn(7L, 8L, 8L);
+
+        this.index.retrieveOfficeIdsWithin(2L);
+        this.index.retrieveOfficeIdsWithin(2L);
+        this.index.retrieveOfficeIdsWithin(2L);
+
+        verify(this.officesQuery, times(2)).executeQuery(anyString());
+    }
+
+    @Test
+    public void doesNotShareTheOfficeTreeLoadedByTheTransactionChangingIt() throws SQLException {
+        when(this.cacheVersions.currentVersion(OfficeHierarchyIndex.CACHE_NAME)).thenReturn(8L);
+        when(this.cacheVersions.isChangedInTransaction(OfficeHierarchyIndex.CACHE_NAME)).thenReturn(true, false);
+
+        this.index.retrieveOfficeIdsWithin(2L);
+        this.index.retrieveOfficeIdsWithin(2L);
+        this.index.retrieveOfficeIdsWithin(2L);
+
+        verify(this.officesQuery, times(2)).executeQuery(anyString());
+    }
+
+    @Test
+    public void invalidateMovesThePersistedVersionOn() {
+        this.index.invalidate();
+
+        verify(this.cacheVersions).moveToNextVersion(OfficeHierarchyIndex.CACHE_NAME);
+    }
+
+    private static ResultSet offices() throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        final int[] row = { -1 };
+        when(rs.next()).thenAnswer(new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                return ++row[0] < OFFICES.size();
+            }
+        });
+        when(rs.getLong("id")).thenAnswer(new Answer<Long>() {
+
+            @Override
+            public Long answer(final InvocationOnMock invocation) {
+                return (Long) OFFICES.get(row[0])[0];
+            }
+        });
+        when(rs.findColumn("parent_id")).thenReturn(2);
+        when(rs.getLong(anyInt())).thenAnswer(new Answer<Long>() {
+
+            @Override
+            public Long answer(final InvocationOnMock invocation) {
+                final Long parentId = (Long) OFFICES.get(row[0])[1];
+                return parentId == null ? 0L : parentId;
+            }
+        });
+        when(rs.wasNull()).thenAnswer(new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                return OFFICES.get(row[0])[1] == null;
+            }
+        });
+        when(rs.getString("hierarchy")).thenAnswer(new Answer<String>() {
+
+            @Override
+            public String answer(final InvocationOnMock invocation) {
+                return (String) OFFICES.get(row[0])[2];
+            }
+        });
+        return rs;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.calendar.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ls.organisation.workingdays.domain.RepaymentRescheduleType;
+import com.ls.organisation.workingdays.domain.WorkingDays;
+import com.ls.portfolio.common.domain.PeriodFrequencyType;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that {@link RepaymentMeetingDateCache} gives the dates
+ * {@link CalendarUtils} works out and keeps one date per distinct input.
+ */
+public class RepaymentMeetingDateCacheTest {
+
+    private static final String EVERY_OTHER_TUESDAY = "FREQ=WEEKLY;INTERVAL=2;BYDAY=TU";
+
+    private final LocalDate seedDate = new LocalDate(2016, 1, 5);
+    private final String frequency = CalendarUtils.getMeetingFrequencyFromPeriodFrequencyType(PeriodFrequencyType.WEEKS);
+
+    @Before
+    public void clearCache() {
+        RepaymentMeetingDateCache.clear();
+    }
+
+    @Test
+    public void givesTheSameDatesAsCalendarUtils() {
+        final WorkingDays workingDays = workingDays("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR");
+        LocalDate fromDate = this.seedDate;
+        for (int i = 0; i < 30; i++) {
+            final LocalDate expected = CalendarUtils.getNewRepaymentMeetingDate(EVERY_OTHER_TUESDAY, this.seedDate, fromDate, 1,
+                    this.frequency, workingDays, false, 0);
+            assertEquals(expected, RepaymentMeetingDateCache.getNewRepaymentMeetingDate(EVERY_OTHER_TUESDAY, this.seedDate, fromDate, 1,
+                    this.frequency, workingDays, false, 0));
+            fromDate = fromDate.plusDays(5);
+        }
+        assertEquals(30, RepaymentMeetingDateCache.size());
+    }
+
+    @Test
+    public void sharesDatesBetweenLoansWithTheSameCalendar() {
+        final LocalDate fromDate = this.seedDate.plusDays(1);
+        final LocalDate first = RepaymentMeetingDateCache.getNewRepaymentMeetingDate(EVERY_OTHER_TUESDAY, this.seedDate, fromDate, 1,
+                this.frequency, workingDays("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR"), false, 0);
+        final LocalDate second = RepaymentMeetingDateCache.getNewRepaymentMeetingDate(EVERY_OTHER_TUESDAY, this.seedDate, fromDate, 1,
+                this.frequency, workingDays("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR"), false, 0);
+
+        assertEquals(first, second);
+        assertEquals(1, RepaymentMeetingDateCache.size());
+    }
+
+    @Test
+    public void keepsDatesOfOtherWorkingDaysApart() {
+        final LocalDate fromDate = this.seedDate.plusDays(1);
+        final WorkingDays weekDays = workingDays("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR");
+        final WorkingDays noTuesdays = workingDays("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,WE,TH,FR");
+
+        final LocalDate onWeekDays = RepaymentMeetingDateCache.getNewRepaymentMeetingDate(EVERY_OTHER_TUESDAY, this.seedDate, fromDate,
+                1, this.frequency, weekDays, false, 0);
+        final LocalDate withoutTuesdays = RepaymentMeetingDateCache.getNewRepaymentMeetingDate(EVERY_OTHER_TUESDAY, this.seedDate,
+                fromDate, 1, this.frequency, noTuesdays, false, 0);
+
+        assertEquals(CalendarUtils.getNewRepaymentMeetingDate(EVERY_OTHER_TUESDAY, this.seedDate, fromDate, 1, this.frequency,
+                weekDays, false, 0), onWeekDays);
+        assertEquals(CalendarUtils.getNewRepaymentMeetingDate(EVERY_OTHER_TUESDAY, this.seedDate, fromDate, 1, this.frequency,
+                noTuesdays, false, 0), withoutTuesdays);
+        assertEquals(2, RepaymentMeetingDateCache.size());
+
+        RepaymentMeetingDateCache.clear();
+        assertEquals(0, RepaymentMeetingDateCache.size());
+    }
+
+    private static WorkingDays workingDays(final String recurrence) {
+        final WorkingDays workingDays = mock(WorkingDays.class);
+        when(workingDays.getRecurrence()).thenReturn(recurrence);
+        when(workingDays.getRepaymentReschedulingType()).thenReturn(RepaymentRescheduleType.MOVE_TO_NEXT_WORKING_DAY.getValue());
+        return workingDays;
+    }
+}
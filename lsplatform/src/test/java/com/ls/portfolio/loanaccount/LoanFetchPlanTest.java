@@ -0,0 +1,203 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.OneToMany;
+
+import com.ls.portfolio.loanaccount.domain.Loan;
+import com.ls.portfolio.loanaccount.domain.LoanFetchPlan;
+import com.ls.portfolio.loanaccount.domain.LoanRepository;
+import com.ls.portfolio.loanaccount.domain.LoanRepositoryWrapper;
+import com.ls.portfolio.loanaccount.exception.LoanNotFoundException;
+import com.ls.portfolio.loanaccount.service.LoanSummaryChangeLogService;
+import org.apache.openjpa.persistence.FetchAttribute;
+import org.apache.openjpa.persistence.FetchGroup;
+import org.apache.openjpa.persistence.FetchGroups;
+import org.apache.openjpa.persistence.FetchPlan;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+/**
+ * Checks that every {@link LoanFetchPlan} has a fetch group on {@link Loan}
+ * made of its collections, and that the repository only applies the plan to
+ * the loans it finds.
+ */
+public class LoanFetchPlanTest {
+
+    @Test
+    public void everyPlanHasAFetchGroupOfLoanCollections() throws Exception {
+        final Map<String, FetchGroup> fetchGroups = fetchGroupsOfLoan();
+        // the plans plus the schedule group they share
+        assertEquals(LoanFetchPlan.values().length + 1, fetchGroups.size());
+        assertNotNull(fetchGroups.get(LoanFetchPlan.SCHEDULE_GROUP));
+
+        for (final LoanFetchPlan fetchPlan : LoanFetchPlan.values()) {
+            assertNotNull(fetchPlan.name(), fetchGroups.get(fetchPlan.getFetchGroup()));
+            final Set<String> attributes = attributesOf(fetchPlan.getFetchGroup(), fetchGroups);
+            assertFalse(fetchPlan.name(), attributes.isEmpty());
+            for (final String attribute : attributes) {
+                final Field field = Loan.class.getDeclaredField(attribute);
+                assertTrue(attribute, Collection.class.isAssignableFrom(field.getType()));
+            }
+            if (fetchPlan != LoanFetchPlan.ALL) {
+                // no use case needs these, they stay lazy
+                assertFalse(fetchPlan.name(), attributes.contains("collateral"));
+                assertFalse(fetchPlan.name(), attributes.contains("loanOfficerHistory"));
+            }
+        }
+    }
+
+    @Test
+    public void theAllPlanLoadsEveryCollectionOfTheLoan() throws Exception {
+        final Set<String> collections = new HashSet<>();
+        for (final Field field : Loan.class.getDeclaredFields()) {
+            if (field.isAnnotationPresent(OneToMany.class) && Collection.class.isAssignableFrom(field.getType())) {
+                collections.add(field.getName());
+            }
+        }
+        assertEquals(collections, attributesOf(LoanFetchPlan.ALL_GROUP, fetchGroupsOfLoan()));
+    }
+
+    @Test
+    public void loadsTheCompleteLoanThroughTheAllPlan() throws Exception {
+        final OpenJPAEntityManager entityManager = mock(OpenJPAEntityManager.class);
+        final FetchPlan fetchPlan = mock(FetchPlan.class);
+        final Loan loan = mock(Loan.class);
+        when(entityManager.pushFetchPlan()).thenReturn(fetchPlan);
+        when(entityManager.find(Loan.class, 3L)).thenReturn(loan);
+
+        final LoanRepositoryWrapper repository = repositoryUsing(entityManager, mock(LoanRepository.class));
+        assertSame(loan, repository.findOneWithNotFoundDetection(3L, true));
+
+        final InOrder inOrder = inOrder(entityManager, fetchPlan);
+        inOrder.verify(entityManager).pushFetchPlan();
+        inOrder.verify(fetchPlan).addFetchGroup(LoanFetchPlan.ALL_GROUP);
+        inOrder.verify(entityManager).find(Loan.class, 3L);
+        inOrder.verify(entityManager).popFetchPlan();
+    }
+
+    @Test
+    public void appliesTheAllPlanToTheLoansFoundByIds() throws Exception {
+        final OpenJPAEntityManager entityManager = mock(OpenJPAEntityManager.class);
+        final FetchPlan fetchPlan = mock(FetchPlan.class);
+        final LoanRepository loanRepository = mock(LoanRepository.class);
+        final Collection<Long> ids = Arrays.asList(1L, 2L);
+        final Collection<Integer> loanStatuses = Arrays.asList(300);
+        final Collection<Integer> loanTypes = Arrays.asList(1);
+        final List<Loan> loans = Arrays.asList(mock(Loan.class), mock(Loan.class));
+        when(entityManager.pushFetchPlan()).thenReturn(fetchPlan);
+        when(loanRepository.findByIdsAndLoanStatusAndLoanType(ids, loanStatuses, loanTypes)).thenReturn(loans);
+
+        final LoanRepositoryWrapper repository = repositoryUsing(entityManager, loanRepository);
+        assertSame(loans, repository.findByIdsAndLoanStatusAndLoanType(ids, loanStatuses, loanTypes));
+
+        final InOrder inOrder = inOrder(entityManager, fetchPlan, loanRepository);
+        inOrder.verify(entityManager).pushFetchPlan();
+        inOrder.verify(fetchPlan).addFetchGroup(LoanFetchPlan.ALL_GROUP);
+        inOrder.verify(loanRepository).findByIdsAndLoanStatusAndLoanType(ids, loanStatuses, loanTypes);
+        inOrder.verify(entityManager).popFetchPlan();
+    }
+
+    @Test
+    public void appliesThePlanOnlyToTheLoanItFinds() throws Exception {
+        final OpenJPAEntityManager entityManager = mock(OpenJPAEntityManager.class);
+        final FetchPlan fetchPlan = mock(FetchPlan.class);
+        final Loan loan = mock(Loan.class);
+        when(entityManager.pushFetchPlan()).thenReturn(fetchPlan);
+        when(entityManager.find(Loan.class, 1L)).thenReturn(loan);
+
+        final LoanRepositoryWrapper repository = repositoryUsing(entityManager, mock(LoanRepository.class));
+        assertSame(loan, repository.findOneWithNotFoundDetection(1L, LoanFetchPlan.REPAYMENT));
+
+        final InOrder inOrder = inOrder(entityManager, fetchPlan);
+        inOrder.verify(entityManager).pushFetchPlan();
+        inOrder.verify(fetchPlan).addFetchGroup(LoanFetchPlan.REPAYMENT_GROUP);
+        inOrder.verify(entityManager).find(Loan.class, 1L);
+        inOrder.verify(entityManager).popFetchPlan();
+    }
+
+    @Test
+    public void restoresTheFetchPlanWhenTheLoanDoesNotExist() throws Exception {
+        final OpenJPAEntityManager entityManager = mock(OpenJPAEntityManager.class);
+        when(entityManager.pushFetchPlan()).thenReturn(mock(FetchPlan.class));
+
+        final LoanRepositoryWrapper repository = repositoryUsing(entityManager, mock(LoanRepository.class));
+        try {
+            repository.findOneWithNotFoundDetection(2L, LoanFetchPlan.CALCULATION);
+            fail();
+        } catch (final LoanNotFoundException e) {
+            verify(entityManager).popFetchPlan();
+        }
+    }
+
+    private static Map<String, FetchGroup> fetchGroupsOfLoan() {
+        final Map<String, FetchGroup> fetchGroups = new HashMap<>();
+        for (final FetchGroup fetchGroup : Loan.class.getAnnotation(FetchGroups.class).value()) {
+            fetchGroups.put(fetchGroup.name(), fetchGroup);
+        }
+        return fetchGroups;
+    }
+
+    /**
+     * The attributes of the fetch group together with the ones of the groups
+     * it builds on.
+     */
+    private static Set<String> attributesOf(final String name, final Map<String, FetchGroup> fetchGroups) {
+        final FetchGroup fetchGroup = fetchGroups.get(name);
+        assertNotNull(name, fetchGroup);
+        final Set<String> attributes = new HashSet<>();
+        for (final FetchAttribute attribute : fetchGroup.attributes()) {
+            attributes.add(attribute.name());
+        }
+        for (final String included : fetchGroup.fetchGroups()) {
+            attributes.addAll(attributesOf(included, fetchGroups));
+        }
+        return attributes;
+    }
+
+    private LoanRepositoryWrapper repositoryUsing(final OpenJPAEntityManager entityManager, final LoanRepository loanRepository)
+            throws Exception {
+        final LoanRepositoryWrapper repository = new LoanRepositoryWrapper(loanRepository, mock(LoanSummaryChangeLogService.class));
+        final Field field = LoanRepositoryWrapper.class.getDeclaredField("entityManager");
+        field.setAccessible(true);
+        field.set(repository, entityManager);
+        return repository;
+    }
+}
@@ -0,0 +1,432 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.ls.accounting.journalentry.service.JournalEntryWritePlatformService;
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
+import com.ls.infrastructure.core.domain.FineractPlatformTenantConnection;
+import com.ls.infrastructure.core.service.RoutingDataSource;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+import com.ls.organisation.monetary.data.CurrencyData;
+import com.ls.organisation.monetary.domain.ApplicationCurrencyRepositoryWrapper;
+import com.ls.organisation.monetary.domain.MoneyHelper;
+import com.ls.portfolio.common.domain.PeriodFrequencyType;
+import com.ls.portfolio.loanaccount.data.LoanChargeData;
+import com.ls.portfolio.loanaccount.data.LoanScheduleAccrualData;
+import com.ls.portfolio.loanaccount.domain.LoanRepositoryWrapper;
+import com.ls.portfolio.loanaccount.service.LoanAccrualWritePlatformServiceImpl;
+import com.ls.portfolio.loanaccount.service.LoanChargeReadPlatformService;
+import com.ls.portfolio.loanaccount.service.LoanReadPlatformService;
+import com.ls.portfolio.loanaccount.service.LoanSummaryChangeLogService;
+import com.ls.useradministration.domain.AppUserRepositoryWrapper;
+
+/**
+ * Runs the bulk periodic accrual path and the per loan path on the same
+ * installments and checks that they write the same accrual transactions,
+ * charges paid, schedule accruals and accrued till dates.
+ */
+public class PeriodicAccrualBulkPostingTest {
+
+    private static final LocalDate TILL_DATE = new LocalDate(2016, 3, 15);
+    private static final CurrencyData USD = new CurrencyData("USD", "US Dollar", 2, null, "$", "currency.USD");
+
+    private static final String TRANSACTIONS = "m_loan_transaction";
+    private static final String CHARGES_PAID = "m_loan_charge_paid_by";
+    private static final String SCHEDULE_ACCRUALS = "m_loan_repayment_schedule";
+    private static final String LOANS = "m_loan ";
+
+    @Before
+    public void setUp() throws Exception {
+        final Field field = MoneyHelper.class.getDeclaredField("roundingMode");
+        field.setAccessible(true);
+        field.set(null, RoundingMode.HALF_EVEN);
+        ThreadLocalContextUtil.setTenant(new FineractPlatformTenant(1L, "default", "Default", "Asia/Kolkata",
+                mock(FineractPlatformTenantConnection.class)));
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void bulkPathWritesWhatThePerLoanPathWrites() throws Exception {
+        final RecordingDatabase perLoanDatabase = new RecordingDatabase();
+        final JournalEntryWritePlatformService perLoanJournal = mock(JournalEntryWritePlatformService.class);
+        final LoanAccrualWritePlatformServiceImpl perLoanService = service(perLoanDatabase, perLoanJournal);
+        for (final Map.Entry<Long, Collection<LoanScheduleAccrualData>> entry : accrualDatas().entrySet()) {
+            perLoanService.addPeriodicAccruals(TILL_DATE, entry.getKey(), entry.getValue());
+        }
+
+        final RecordingDatabase bulkDatabase = new RecordingDatabase();
+        final JournalEntryWritePlatformService bulkJournal = mock(JournalEntryWritePlatformService.class);
+        assertTrue(service(bulkDatabase, bulkJournal).addPeriodicAccruals(TILL_DATE, accrualDatas()).isEmpty());
+
+        // 3 postings: both installments of loan 11 and the first one of loan 12
+        assertEquals(3, perLoanDatabase.rows(TRANSACTIONS).size());
+        assertEquals(perLoanDatabase.rows(TRANSACTIONS), bulkDatabase.rows(TRANSACTIONS));
+
+        assertFalse(perLoanDatabase.rows(CHARGES_PAID).isEmpty());
+        assertEquals(perLoanDatabase.rows(CHARGES_PAID), bulkDatabase.rows(CHARGES_PAID));
+
+        assertEquals(perLoanDatabase.lastValuesById(SCHEDULE_ACCRUALS), bulkDatabase.lastValuesById(SCHEDULE_ACCRUALS));
+        assertEquals(3, bulkDatabase.lastValuesById(SCHEDULE_ACCRUALS).size());
+
+        final Map<Long, List<Object>> accruedTill = perLoanDatabase.lastValuesById(LOANS);
+        assertEquals(accruedTill, bulkDatabase.lastValuesById(LOANS));
+        assertEquals(TILL_DATE.toString(), accruedTill.get(11L).get(0));
+        assertEquals(new LocalDate(2016, 2, 29).toString(), accruedTill.get(12L).get(0));
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        final ArgumentCaptor<Map<String, Object>> perLoanEntries = (ArgumentCaptor) ArgumentCaptor.forClass(Map.class);
+        verify(perLoanJournal, times(3)).createJournalEntriesForLoan(perLoanEntries.capture());
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        final ArgumentCaptor<List<Map<String, Object>>> bulkEntries = (ArgumentCaptor) ArgumentCaptor.forClass(List.class);
+        verify(bulkJournal).createJournalEntriesForLoanAccruals(bulkEntries.capture());
+        assertEquals(journalSummary(perLoanEntries.getAllValues()), journalSummary(bulkEntries.getValue()));
+    }
+
+    private static LoanAccrualWritePlatformServiceImpl service(final RecordingDatabase database,
+            final JournalEntryWritePlatformService journalEntryWritePlatformService) throws SQLException {
+        final RoutingDataSource dataSource = mock(RoutingDataSource.class);
+        when(dataSource.getConnection()).thenAnswer(new Answer<Connection>() {
+
+            @Override
+            public Connection answer(@SuppressWarnings("unused") final InvocationOnMock invocation) {
+                return database.connection();
+            }
+        });
+        final LoanChargeReadPlatformService loanChargeReadPlatformService = mock(LoanChargeReadPlatformService.class);
+        when(loanChargeReadPlatformService.retrieveLoanChargesForAccural(anyLong())).thenAnswer(new Answer<Collection<LoanChargeData>>() {
+
+            @Override
+            public Collection<LoanChargeData> answer(final InvocationOnMock invocation) {
+                return charges((Long) invocation.getArguments()[0]);
+            }
+        });
+        return new LoanAccrualWritePlatformServiceImpl(dataSource, mock(LoanReadPlatformService.class), journalEntryWritePlatformService,
+                loanChargeReadPlatformService, mock(AppUserRepositoryWrapper.class), mock(LoanRepositoryWrapper.class),
+                mock(ApplicationCurrencyRepositoryWrapper.class), mock(LoanSummaryChangeLogService.class));
+    }
+
+    /**
+     * Loan 11 has an installment due before the till date with a fee due in
+     * it and one due after the till date, which accrues partly. Loan 12 has
+     * one installment already partly accrued.
+     */
+    private static Map<Long, Collection<LoanScheduleAccrualData>> accrualDatas() {
+        final Map<Long, Collection<LoanScheduleAccrualData>> accrualDatas = new LinkedHashMap<>();
+        final List<LoanScheduleAccrualData> loan11 = new ArrayList<>();
+        loan11.add(accrualData(11L, 1, 1101L, new LocalDate(2016, 1, 31), new LocalDate(2016, 2, 29), new BigDecimal("30.00"), null));
+        loan11.add(accrualData(11L, 2, 1102L, new LocalDate(2016, 2, 29), new LocalDate(2016, 3, 31), new BigDecimal("31.00"), null));
+        accrualDatas.put(11L, loan11);
+        final List<LoanScheduleAccrualData> loan12 = new ArrayList<>();
+        loan12.add(accrualData(12L, 1, 1201L, new LocalDate(2016, 1, 31), new LocalDate(2016, 2, 29), new BigDecimal("20.00"),
+                new BigDecimal("7.50")));
+        accrualDatas.put(12L, loan12);
+        return accrualDatas;
+    }
+
+    private static LoanScheduleAccrualData accrualData(final Long loanId, final Integer installmentNumber, final Long repaymentScheduleId,
+            final LocalDate fromDate, final LocalDate dueDate, final BigDecimal interestIncome, final BigDecimal accruedInterestIncome) {
+        return new LoanScheduleAccrualData(loanId, 3L, installmentNumber, null, PeriodFrequencyType.MONTHS, 1, dueDate, fromDate,
+                repaymentScheduleId, 5L, interestIncome, null, null, accruedInterestIncome, null, null, USD, null, null);
+    }
+
+    private static Collection<LoanChargeData> charges(final Long loanId) {
+        final List<LoanChargeData> charges = new ArrayList<>();
+        if (loanId.equals(11L)) {
+            charges.add(new LoanChargeData(71L, 7L, new LocalDate(2016, 2, 10), null, new BigDecimal("15.00"), null, null, false));
+            charges.add(new LoanChargeData(81L, 8L, new LocalDate(2016, 3, 5), null, new BigDecimal("4.00"), null, null, true));
+        }
+        return charges;
+    }
+
+    private static List<List<Object>> journalSummary(final List<Map<String, Object>> accountingBridgeDatas) {
+        final List<List<Object>> summary = new ArrayList<>();
+        for (final Map<String, Object> accountingBridgeData : accountingBridgeDatas) {
+            @SuppressWarnings("unchecked")
+            final List<Map<String, Object>> transactions = (List<Map<String, Object>>) accountingBridgeData.get("newLoanTransactions");
+            for (final Map<String, Object> transaction : transactions) {
+                final List<Object> values = new ArrayList<>();
+                values.add(accountingBridgeData.get("loanId"));
+                for (final String key : new String[] { "id", "date", "amount", "interestPortion", "feeChargesPortion",
+                        "penaltyChargesPortion", "loanChargesPaid" }) {
+                    values.add(normalize(transaction.get(key)));
+                }
+                summary.add(values);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Makes values bound through different JDBC setters comparable: dates as
+     * ISO dates, numbers by their value.
+     */
+    static Object normalize(final Object value) {
+        if (value instanceof Date) { return new LocalDate(value).toString(); }
+        if (value instanceof LocalDate) { return value.toString(); }
+        if (value instanceof BigDecimal) { return ((BigDecimal) value).stripTrailingZeros().toPlainString(); }
+        if (value instanceof Number) { return ((Number) value).longValue(); }
+        if (value instanceof Collection) {
+            final List<Object> values = new ArrayList<>();
+            for (final Object element : (Collection<?>) value) {
+                values.add(normalize(element));
+            }
+            return values;
+        }
+        if (value instanceof Map) {
+            final Map<Object, Object> values = new TreeMap<>();
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                values.put(entry.getKey(), normalize(entry.getValue()));
+            }
+            return values;
+        }
+        return value;
+    }
+
+    /**
+     * A JDBC connection which records the parameters of every statement run
+     * against each table and hands out increasing generated keys.
+     */
+    private static final class RecordingDatabase {
+
+        private final Map<String, List<List<Object>>> rowsBySql = new LinkedHashMap<>();
+        private long lastGeneratedKey = 1000L;
+
+        List<List<Object>> rows(final String table) {
+            final List<List<Object>> rows = new ArrayList<>();
+            for (final Map.Entry<String, List<List<Object>>> entry : this.rowsBySql.entrySet()) {
+                if (entry.getKey().contains(table)) {
+                    rows.addAll(entry.getValue());
+                }
+            }
+            return rows;
+        }
+
+        /**
+         * The values last written for each id, for updates which end with
+         * <code>where id = ?</code>.
+         */
+        Map<Long, List<Object>> lastValuesById(final String table) {
+            final Map<Long, List<Object>> valuesById = new TreeMap<>();
+            for (final List<Object> row : rows(table)) {
+                valuesById.put((Long) row.get(row.size() - 1), row.subList(0, row.size() - 1));
+            }
+            return valuesById;
+        }
+
+        Connection connection() {
+            return proxy(Connection.class, new InvocationHandler() {
+
+                @Override
+                public Object invoke(final Object connection, final Method method, final Object[] args) {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return statement((Connection) connection, (String) args[0]);
+                        case "createStatement":
+                            return statement((Connection) connection, null);
+                        case "getMetaData":
+                            return proxy(DatabaseMetaData.class, new InvocationHandler() {
+
+                                @Override
+                                public Object invoke(@SuppressWarnings("unused") final Object metaData, final Method metaDataMethod,
+                                        @SuppressWarnings("unused") final Object[] metaDataArgs) {
+                                    if (metaDataMethod.getReturnType() == String.class) { return "MySQL"; }
+                                    // supportsBatchUpdates() in particular
+                                    if (metaDataMethod.getReturnType() == boolean.class) { return true; }
+                                    return defaultValue(metaDataMethod.getReturnType());
+                                }
+                            });
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                }
+            });
+        }
+
+        private PreparedStatement statement(final Connection connection, final String sql) {
+            final Map<Integer, Object> parameters = new TreeMap<>();
+            final List<List<Object>> batch = new ArrayList<>();
+            final List<Object> generatedKeys = new ArrayList<>();
+            return proxy(PreparedStatement.class, new InvocationHandler() {
+
+                @Override
+                public Object invoke(@SuppressWarnings("unused") final Object statement, final Method method, final Object[] args)
+                        throws SQLException {
+                    final String name = method.getName();
+                    if (name.equals("setNull")) {
+                        parameters.put((Integer) args[0], null);
+                        return null;
+                    }
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        parameters.put((Integer) args[0], normalize(args[1]));
+                        return null;
+                    }
+                    switch (name) {
+                        case "addBatch":
+                            batch.add(new ArrayList<>(parameters.values()));
+                            parameters.clear();
+                            return null;
+                        case "executeBatch":
+                            generatedKeys.clear();
+                            final int[] counts = new int[batch.size()];
+                            for (int i = 0; i < batch.size(); i++) {
+                                record(sql, batch.get(i), generatedKeys);
+                                counts[i] = 1;
+                            }
+                            batch.clear();
+                            return counts;
+                        case "executeUpdate":
+                            generatedKeys.clear();
+                            record(sql, new ArrayList<>(parameters.values()), generatedKeys);
+                            parameters.clear();
+                            return 1;
+                        case "executeQuery":
+                            // only SELECT LAST_INSERT_ID() is queried
+                            final List<Object> lastInsertId = new ArrayList<>();
+                            lastInsertId.add(RecordingDatabase.this.lastGeneratedKey);
+                            return resultSet(lastInsertId);
+                        case "getGeneratedKeys":
+                            return resultSet(new ArrayList<>(generatedKeys));
+                        case "getConnection":
+                            return connection;
+                        case "getParameterMetaData":
+                            throw new SQLException("not supported");
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                }
+            });
+        }
+
+        private void record(final String sql, final List<Object> row, final List<Object> generatedKeys) {
+            List<List<Object>> rows = this.rowsBySql.get(sql);
+            if (rows == null) {
+                rows = new ArrayList<>();
+                this.rowsBySql.put(sql, rows);
+            }
+            rows.add(row);
+            if (sql.startsWith("INSERT INTO m_loan_transaction")) {
+                generatedKeys.add(++this.lastGeneratedKey);
+            }
+        }
+
+        private static ResultSet resultSet(final List<Object> values) {
+            return proxy(ResultSet.class, new InvocationHandler() {
+
+                private int row = -1;
+
+                @Override
+                public Object invoke(@SuppressWarnings("unused") final Object resultSet, final Method method,
+                        @SuppressWarnings("unused") final Object[] args) {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++this.row < values.size();
+                        case "getLong":
+                            return ((Number) values.get(this.row)).longValue();
+                        case "getObject":
+                            return values.get(this.row);
+                        case "getMetaData":
+                            return proxy(ResultSetMetaData.class, new InvocationHandler() {
+
+                                @Override
+                                public Object invoke(@SuppressWarnings("unused") final Object metaData, final Method metaDataMethod,
+                                        @SuppressWarnings("unused") final Object[] metaDataArgs) {
+                                    if (metaDataMethod.getName().equals("getColumnCount")) { return 1; }
+                                    return defaultValue(metaDataMethod.getReturnType());
+                                }
+                            });
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                }
+            });
+        }
+
+        private static <T> T proxy(final Class<T> type, final InvocationHandler handler) {
+            return type.cast(Proxy.newProxyInstance(RecordingDatabase.class.getClassLoader(), new Class<?>[] { type },
+                    new InvocationHandler() {
+
+                        @Override
+                        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                            switch (method.getName()) {
+                                case "equals":
+                                    return proxy == args[0];
+                                case "hashCode":
+                                    return System.identityHashCode(proxy);
+                                case "toString":
+                                    return type.getSimpleName();
+                                default:
+                                    return handler.invoke(proxy, method, args);
+                            }
+                        }
+                    }));
+        }
+
+        private static Object defaultValue(final Class<?> type) {
+            if (type == boolean.class) { return false; }
+            if (type == int.class) { return 0; }
+            if (type == long.class) { return 0L; }
+            if (type == short.class) { return (short) 0; }
+            if (type == byte.class) { return (byte) 0; }
+            if (type == double.class) { return 0d; }
+            if (type == float.class) { return 0f; }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.ls.infrastructure.core.api.ApiRequestParameterHelper;
+import com.ls.infrastructure.core.exception.InvalidJsonException;
+import com.ls.infrastructure.core.exception.UnrecognizedQueryParamException;
+import com.ls.infrastructure.core.serialization.CommandProcessingResultJsonSerializer;
+import com.ls.infrastructure.core.serialization.DefaultToApiJsonSerializer;
+import com.ls.infrastructure.core.serialization.ExcludeNothingWithPrettyPrintingOffJsonSerializerGoogleGson;
+import com.ls.infrastructure.core.serialization.ExcludeNothingWithPrettyPrintingOnJsonSerializerGoogleGson;
+import com.ls.infrastructure.core.serialization.FromJsonHelper;
+import com.ls.infrastructure.core.serialization.GoogleGsonSerializerHelper;
+import com.ls.infrastructure.security.service.PlatformSecurityContext;
+import com.ls.organisation.monetary.domain.ApplicationCurrency;
+import com.ls.organisation.monetary.domain.MonetaryCurrency;
+import com.ls.organisation.monetary.domain.Money;
+import com.ls.organisation.monetary.domain.MoneyHelper;
+import com.ls.portfolio.loanaccount.MonetaryCurrencyBuilder;
+import com.ls.portfolio.loanaccount.loanschedule.data.LoanScheduleData;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModelPeriod;
+import com.ls.portfolio.loanaccount.loanschedule.service.LoanScheduleCalculationPlatformService;
+import com.ls.portfolio.loanaccount.loanschedule.service.LoanScheduleCalculationPlatformService.LoanScheduleCalculationListener;
+import com.ls.portfolio.loanproduct.exception.LoanProductNotFoundException;
+import com.ls.useradministration.domain.AppUser;
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+
+/**
+ * Checks the JSON array the bulk schedule calculation endpoint streams back.
+ */
+public class LoanSchedulesCalculationApiResourceTest {
+
+    private LoanScheduleCalculationPlatformService calculationPlatformService;
+    private LoansApiResource loansApiResource;
+    private UriInfo uriInfo;
+
+    @Before
+    public void setUp() throws Exception {
+        final Field field = MoneyHelper.class.getDeclaredField("roundingMode");
+        field.setAccessible(true);
+        field.set(null, RoundingMode.HALF_EVEN);
+
+        final PlatformSecurityContext context = mock(PlatformSecurityContext.class);
+        when(context.authenticatedUser()).thenReturn(mock(AppUser.class));
+        this.calculationPlatformService = mock(LoanScheduleCalculationPlatformService.class);
+        final DefaultToApiJsonSerializer<LoanScheduleData> loanScheduleToApiJsonSerializer = new DefaultToApiJsonSerializer<>(
+                new ExcludeNothingWithPrettyPrintingOffJsonSerializerGoogleGson(),
+                new ExcludeNothingWithPrettyPrintingOnJsonSerializerGoogleGson(), new CommandProcessingResultJsonSerializer(),
+                new GoogleGsonSerializerHelper());
+        this.loansApiResource = new LoansApiResource(context, null, null, null, null, null, null, null, this.calculationPlatformService,
+                null, null, null, null, null, loanScheduleToApiJsonSerializer, new ApiRequestParameterHelper(), new FromJsonHelper(), null,
+                null, null, null, null, null, null, null);
+        this.uriInfo = mock(UriInfo.class);
+        when(this.uriInfo.getQueryParameters()).thenReturn(new MultivaluedMapImpl());
+    }
+
+    @Test
+    public void writesOneBatchResponsePerRequestInTheOrderTheyComplete() throws Exception {
+        final LoanScheduleModel loanSchedule = loanSchedule();
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final JsonArray requests = (JsonArray) invocation.getArguments()[0];
+                assertEquals(2, requests.size());
+                final LoanScheduleCalculationListener listener = (LoanScheduleCalculationListener) invocation.getArguments()[1];
+                listener.calculated(1, loanSchedule);
+                listener.failed(0, new LoanProductNotFoundException(9L));
+                return null;
+            }
+        }).when(this.calculationPlatformService).calculateLoanSchedules(any(JsonArray.class), any(LoanScheduleCalculationListener.class));
+
+        final JsonArray responses = calculate("[{\"productId\":9},{\"productId\":1}]");
+
+        assertEquals(2, responses.size());
+        final JsonObject calculated = responses.get(0).getAsJsonObject();
+        assertEquals(1, calculated.get("requestId").getAsLong());
+        assertEquals(200, calculated.get("statusCode").getAsInt());
+        final JsonObject schedule = new JsonParser().parse(calculated.get("body").getAsString()).getAsJsonObject();
+        assertEquals(30, schedule.get("loanTermInDays").getAsInt());
+        final JsonObject failed = responses.get(1).getAsJsonObject();
+        assertEquals(0, failed.get("requestId").getAsLong());
+        assertEquals(404, failed.get("statusCode").getAsInt());
+    }
+
+    @Test
+    public void writesAnEmptyArrayForNoRequests() throws Exception {
+        assertEquals(0, calculate("[]").size());
+    }
+
+    @Test(expected = InvalidJsonException.class)
+    public void rejectsABodyWhichIsNotAnArray() throws Exception {
+        calculate("{\"productId\":1}");
+    }
+
+    @Test(expected = UnrecognizedQueryParamException.class)
+    public void rejectsOtherCommands() {
+        this.loansApiResource.calculateLoanSchedules("approve", this.uriInfo, "[]");
+    }
+
+    private JsonArray calculate(final String body) throws IOException {
+        final StreamingOutput output = (StreamingOutput) this.loansApiResource.calculateLoanSchedules("calculateLoanSchedule",
+                this.uriInfo, body).getEntity();
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        output.write(stream);
+        final JsonElement responses = new JsonParser().parse(new String(stream.toByteArray(), StandardCharsets.UTF_8));
+        return responses.getAsJsonArray();
+    }
+
+    private static LoanScheduleModel loanSchedule() {
+        final MonetaryCurrency usDollars = new MonetaryCurrencyBuilder().withCode("USD").withDigitsAfterDecimal(2).build();
+        final BigDecimal principal = new BigDecimal("1000.00");
+        return LoanScheduleModel.from(Collections.<LoanScheduleModelPeriod> emptyList(), mock(ApplicationCurrency.class), 30,
+                Money.of(usDollars, principal), principal, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                principal, principal);
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.domain.transactionprocessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ls.infrastructure.core.domain.AbstractPersistableCustom;
+import com.ls.organisation.monetary.domain.MonetaryCurrency;
+import com.ls.organisation.monetary.domain.MoneyHelper;
+import com.ls.portfolio.charge.domain.Charge;
+import com.ls.portfolio.charge.domain.ChargeCalculationType;
+import com.ls.portfolio.charge.domain.ChargePaymentMode;
+import com.ls.portfolio.charge.domain.ChargeTimeType;
+import com.ls.portfolio.loanaccount.LoanScheduleTestDataHelper;
+import com.ls.portfolio.loanaccount.MonetaryCurrencyBuilder;
+import com.ls.portfolio.loanaccount.MoneyBuilder;
+import com.ls.portfolio.loanaccount.domain.LoanCharge;
+import com.ls.portfolio.loanaccount.domain.LoanChargePaidBy;
+import com.ls.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import com.ls.portfolio.loanaccount.domain.LoanTransaction;
+import com.ls.portfolio.loanaccount.domain.LoanTransactionType;
+import com.ls.portfolio.loanaccount.domain.transactionprocessor.impl.FineractStyleLoanRepaymentScheduleTransactionProcessor;
+import com.ls.portfolio.loanaccount.domain.transactionprocessor.impl.PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+
+/**
+ * Checks that reprocessing the transactions of a loan from the date of a
+ * change on ends up where reprocessing all of them does, with the default and
+ * another transaction processor, and that the installments and transactions
+ * before the checkpoint are left out.
+ */
+public class LoanTransactionReprocessingTest {
+
+    /**
+     * Put on the amount paid late of every installment before reprocessing
+     * from a checkpoint; only the installments left out keep it.
+     */
+    private static final BigDecimal NOT_REPROCESSED = new BigDecimal("-1.00");
+
+    private final LocalDate disbursementDate = new LocalDate(2012, 6, 2);
+    private final LocalDate july2nd = new LocalDate(2012, 7, 2);
+    private final MonetaryCurrency usDollars = new MonetaryCurrencyBuilder().withCode("USD").withDigitsAfterDecimal(2).build();
+    private final List<LoanRepaymentScheduleTransactionProcessor> processors = Arrays.asList(
+            new FineractStyleLoanRepaymentScheduleTransactionProcessor(),
+            new PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor());
+
+    /**
+     * The installments, charges and transactions of a loan, built afresh for
+     * every run because processing them updates them.
+     */
+    private final class Scenario {
+
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>(
+                LoanScheduleTestDataHelper.createSimpleLoanSchedule(LoanTransactionReprocessingTest.this.july2nd,
+                        LoanTransactionReprocessingTest.this.usDollars));
+        final Set<LoanCharge> charges = new HashSet<>();
+        List<LoanTransaction> transactions;
+    }
+
+    /**
+     * Processes and saves the transactions a loan had before a change and
+     * then makes the change.
+     */
+    private interface Change {
+
+        void makeOn(Scenario scenario, LoanRepaymentScheduleTransactionProcessor processor) throws Exception;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        final Field field = MoneyHelper.class.getDeclaredField("roundingMode");
+        field.setAccessible(true);
+        field.set(null, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * The first two installments were paid off on their due dates by the
+     * first two repayments, a repayment is added after them and before the
+     * last one.
+     */
+    @Test
+    public void backdatedRepaymentSkipsTheSettledInstallments() throws Exception {
+        final LocalDate repaymentDate = this.july2nd.plusMonths(1).plusDays(18);
+        for (final LoanRepaymentScheduleTransactionProcessor processor : this.processors) {
+            assertReprocessingFromCheckpoint(processor, repaymentDate, 2, 2, new Change() {
+
+                @Override
+                public void makeOn(final Scenario scenario, final LoanRepaymentScheduleTransactionProcessor processor)
+                        throws Exception {
+                    scenario.transactions = save(processor, scenario, repayment(LoanTransactionReprocessingTest.this.july2nd, "1200.00"),
+                            repayment(LoanTransactionReprocessingTest.this.july2nd.plusMonths(1), "1200.00"),
+                            repayment(LoanTransactionReprocessingTest.this.july2nd.plusMonths(2), "600.00"));
+                    scenario.transactions.add(2, repayment(repaymentDate, "300.00"));
+                }
+            });
+        }
+    }
+
+    /**
+     * The second repayment is adjusted, which leaves it out of the
+     * transactions to process and adds its replacement on the same date.
+     */
+    @Test
+    public void adjustedRepaymentSkipsTheInstallmentsSettledBeforeIt() throws Exception {
+        final LocalDate adjustedDate = this.july2nd.plusMonths(1);
+        for (final LoanRepaymentScheduleTransactionProcessor processor : this.processors) {
+            assertReprocessingFromCheckpoint(processor, adjustedDate, 1, 1, new Change() {
+
+                @Override
+                public void makeOn(final Scenario scenario, final LoanRepaymentScheduleTransactionProcessor processor)
+                        throws Exception {
+                    scenario.transactions = save(processor, scenario, repayment(LoanTransactionReprocessingTest.this.july2nd, "1200.00"),
+                            repayment(adjustedDate, "1200.00"),
+                            repayment(LoanTransactionReprocessingTest.this.july2nd.plusMonths(2), "1200.00"));
+                    scenario.transactions.set(1, repayment(adjustedDate, "1000.00"));
+                }
+            });
+        }
+    }
+
+    /**
+     * A fee falling due in the last installment is paid by a charge payment
+     * after the first two installments were paid off; the charge payment is
+     * reprocessed with the installment it paid.
+     */
+    @Test
+    public void chargePaymentAfterTheCheckpointIsReprocessed() throws Exception {
+        final LocalDate repaymentDate = this.july2nd.plusMonths(1).plusDays(18);
+        for (final LoanRepaymentScheduleTransactionProcessor processor : this.processors) {
+            assertReprocessingFromCheckpoint(processor, repaymentDate, 2, 2, new Change() {
+
+                @Override
+                public void makeOn(final Scenario scenario, final LoanRepaymentScheduleTransactionProcessor processor)
+                        throws Exception {
+                    final LoanCharge fee = fee(LoanTransactionReprocessingTest.this.july2nd.plusMonths(1).plusDays(23), "50.00");
+                    scenario.charges.add(fee);
+                    scenario.transactions = save(processor, scenario, repayment(LoanTransactionReprocessingTest.this.july2nd, "1200.00"),
+                            repayment(LoanTransactionReprocessingTest.this.july2nd.plusMonths(1), "1200.00"),
+                            chargePayment(LoanTransactionReprocessingTest.this.july2nd.plusMonths(1).plusDays(26), "50.00", fee),
+                            repayment(LoanTransactionReprocessingTest.this.july2nd.plusMonths(2), "600.00"));
+                    scenario.transactions.add(2, repayment(repaymentDate, "300.00"));
+                }
+            });
+        }
+    }
+
+    /**
+     * A fee falling due in the second installment was paid by a charge
+     * payment before the installment was paid off, so only the first
+     * installment and its repayment can be left out.
+     */
+    @Test
+    public void chargePaymentBeforeTheChangeMovesTheCheckpointBack() throws Exception {
+        final LocalDate repaymentDate = this.july2nd.plusMonths(1).plusDays(18);
+        for (final LoanRepaymentScheduleTransactionProcessor processor : this.processors) {
+            assertReprocessingFromCheckpoint(processor, repaymentDate, 1, 1, new Change() {
+
+                @Override
+                public void makeOn(final Scenario scenario, final LoanRepaymentScheduleTransactionProcessor processor)
+                        throws Exception {
+                    final LoanCharge fee = fee(LoanTransactionReprocessingTest.this.july2nd.plusDays(18), "50.00");
+                    scenario.charges.add(fee);
+                    scenario.transactions = save(processor, scenario, repayment(LoanTransactionReprocessingTest.this.july2nd, "1200.00"),
+                            chargePayment(LoanTransactionReprocessingTest.this.july2nd.plusDays(23), "50.00", fee),
+                            repayment(LoanTransactionReprocessingTest.this.july2nd.plusMonths(1), "1200.00"),
+                            repayment(LoanTransactionReprocessingTest.this.july2nd.plusMonths(2), "600.00"));
+                    scenario.transactions.add(3, repayment(repaymentDate, "300.00"));
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds the scenario twice, reprocesses all transactions of one and those
+     * after the checkpoint of the other, and compares the outcome.
+     */
+    private void assertReprocessingFromCheckpoint(final LoanRepaymentScheduleTransactionProcessor processor,
+            final LocalDate earliestAffectedDate, final int expectedSettledInstallments, final int expectedSkippedTransactions,
+            final Change change) throws Exception {
+        final Scenario fullyReprocessed = new Scenario();
+        change.makeOn(fullyReprocessed, processor);
+        processor.handleTransaction(this.disbursementDate, fullyReprocessed.transactions, this.usDollars, fullyReprocessed.installments,
+                fullyReprocessed.charges);
+
+        final Scenario scenario = new Scenario();
+        change.makeOn(scenario, processor);
+        final LoanTransactionReprocessingCheckpoint checkpoint = LoanTransactionReprocessingCheckpoint.find(earliestAffectedDate,
+                scenario.transactions, scenario.installments, scenario.charges, this.usDollars);
+        assertFalse(checkpoint.isNone());
+        final List<LoanRepaymentScheduleInstallment> installmentsToReprocess = checkpoint.installmentsToReprocess(scenario.installments);
+        assertEquals(scenario.installments.size() - expectedSettledInstallments, installmentsToReprocess.size());
+        assertSame(scenario.installments.get(expectedSettledInstallments), installmentsToReprocess.get(0));
+        final List<LoanTransaction> transactionsToReprocess = checkpoint.transactionsToReprocess(scenario.transactions);
+        assertEquals(scenario.transactions.size() - expectedSkippedTransactions, transactionsToReprocess.size());
+        assertSame(scenario.transactions.get(expectedSkippedTransactions), transactionsToReprocess.get(0));
+
+        for (final LoanRepaymentScheduleInstallment installment : scenario.installments) {
+            setField(LoanRepaymentScheduleInstallment.class, installment, "totalPaidLate", NOT_REPROCESSED);
+        }
+        processor.reprocessTransactionsAffectedFrom(this.disbursementDate, earliestAffectedDate, scenario.transactions, this.usDollars,
+                scenario.installments, scenario.charges);
+
+        for (int i = 0; i < scenario.installments.size(); i++) {
+            final LoanRepaymentScheduleInstallment installment = scenario.installments.get(i);
+            assertEquals("installment " + (i + 1) + " reprocessed", i >= expectedSettledInstallments,
+                    installment.getTotalPaidLate() == null || NOT_REPROCESSED.compareTo(installment.getTotalPaidLate()) != 0);
+            assertSameDerivedFields(fullyReprocessed.installments.get(i), installment);
+        }
+        for (int i = 0; i < scenario.transactions.size(); i++) {
+            assertSamePortions(fullyReprocessed.transactions.get(i), scenario.transactions.get(i));
+        }
+        if (!scenario.charges.isEmpty()) {
+            assertEquals(fullyReprocessed.charges.iterator().next().getAmountPaid(this.usDollars).getAmount(),
+                    scenario.charges.iterator().next().getAmountPaid(this.usDollars).getAmount());
+        }
+    }
+
+    /**
+     * Gives the charges of the scenario ids, processes the transactions over
+     * its installments and charges and gives the installments and
+     * transactions ids, as saving the loan would.
+     */
+    private List<LoanTransaction> save(final LoanRepaymentScheduleTransactionProcessor processor, final Scenario scenario,
+            final LoanTransaction... transactions) throws Exception {
+        long id = 1;
+        for (final LoanCharge charge : scenario.charges) {
+            setId(charge, id++);
+        }
+        final List<LoanTransaction> savedTransactions = new ArrayList<>(Arrays.asList(transactions));
+        processor.handleTransaction(this.disbursementDate, savedTransactions, this.usDollars, scenario.installments, scenario.charges);
+
+        for (final LoanRepaymentScheduleInstallment installment : scenario.installments) {
+            setId(installment, id++);
+        }
+        for (final LoanTransaction transaction : savedTransactions) {
+            setId(transaction, id++);
+        }
+        return savedTransactions;
+    }
+
+    private LoanTransaction repayment(final LocalDate transactionDate, final String amount) {
+        return LoanTransaction.repayment(null, new MoneyBuilder().with(this.usDollars).with(amount).build(), null, transactionDate, null,
+                new LocalDateTime(), null);
+    }
+
+    private LoanTransaction chargePayment(final LocalDate transactionDate, final String amount, final LoanCharge charge) {
+        final LoanTransaction chargePayment = LoanTransaction.loanPayment(null, null,
+                new MoneyBuilder().with(this.usDollars).with(amount).build(), null, transactionDate, null,
+                LoanTransactionType.CHARGE_PAYMENT, new LocalDateTime(), null);
+        chargePayment.getLoanChargesPaid().add(new LoanChargePaidBy(chargePayment, charge, new BigDecimal(amount), null));
+        return chargePayment;
+    }
+
+    private static LoanCharge fee(final LocalDate dueDate, final String amount) {
+        final Charge chargeDefinition = mock(Charge.class);
+        when(chargeDefinition.getChargeTimeType()).thenReturn(ChargeTimeType.SPECIFIED_DUE_DATE.getValue());
+        when(chargeDefinition.getChargeCalculation()).thenReturn(ChargeCalculationType.FLAT.getValue());
+        when(chargeDefinition.getChargePaymentMode()).thenReturn(ChargePaymentMode.REGULAR.getValue());
+        return LoanCharge.createNewWithoutLoan(chargeDefinition, null, new BigDecimal(amount), null, null, dueDate, null, null);
+    }
+
+    private static void setId(final AbstractPersistableCustom<Long> entity, final Long id) throws Exception {
+        setField(AbstractPersistableCustom.class, entity, "id", id);
+    }
+
+    private static void setField(final Class<?> type, final Object entity, final String name, final Object value) throws Exception {
+        final Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(entity, value);
+    }
+
+    private void assertSameDerivedFields(final LoanRepaymentScheduleInstallment expected, final LoanRepaymentScheduleInstallment actual) {
+        assertEquals(expected.getPrincipalCompleted(this.usDollars).getAmount(), actual.getPrincipalCompleted(this.usDollars).getAmount());
+        assertEquals(expected.getInterestPaid(this.usDollars).getAmount(), actual.getInterestPaid(this.usDollars).getAmount());
+        assertEquals(expected.getFeeChargesPaid(this.usDollars).getAmount(), actual.getFeeChargesPaid(this.usDollars).getAmount());
+        assertEquals(expected.isObligationsMet(), actual.isObligationsMet());
+        assertEquals(expected.getObligationsMetOnDate(), actual.getObligationsMetOnDate());
+    }
+
+    private void assertSamePortions(final LoanTransaction expected, final LoanTransaction actual) {
+        assertEquals(expected.isReversed(), actual.isReversed());
+        assertEquals(expected.getPrincipalPortion(this.usDollars).getAmount(), actual.getPrincipalPortion(this.usDollars).getAmount());
+        assertEquals(expected.getInterestPortion(this.usDollars).getAmount(), actual.getInterestPortion(this.usDollars).getAmount());
+        assertEquals(expected.getFeeChargesPortion(this.usDollars).getAmount(), actual.getFeeChargesPortion(this.usDollars).getAmount());
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.loanschedule.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.ls.infrastructure.configuration.domain.ConfigurationDomainService;
+import com.ls.infrastructure.core.exception.PlatformInternalServerException;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleGenerator;
+import com.ls.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import com.ls.portfolio.loanaccount.loanschedule.service.LoanScheduleAssembler.LoanScheduleGeneration;
+import com.ls.portfolio.loanaccount.loanschedule.service.LoanScheduleCalculationPlatformService.LoanScheduleCalculationListener;
+import com.ls.portfolio.loanproduct.exception.LoanProductNotFoundException;
+
+/**
+ * Checks that a bulk schedule calculation reports every request exactly once,
+ * including when it is interrupted, and cancels the schedules still being
+ * generated when it stops early.
+ */
+public class BulkLoanScheduleCalculationTest {
+
+    private LoanScheduleGenerationExecutor loanScheduleGenerationExecutor;
+    private ConfigurationDomainService configurationDomainService;
+
+    @Before
+    public void setUp() {
+        this.loanScheduleGenerationExecutor = new LoanScheduleGenerationExecutor(1);
+        this.configurationDomainService = mock(ConfigurationDomainService.class);
+    }
+
+    @After
+    public void tearDown() {
+        this.loanScheduleGenerationExecutor.shutdown();
+        Thread.interrupted();
+    }
+
+    /**
+     * Records what the calculation reports, by request index.
+     */
+    private static final class RecordingListener implements LoanScheduleCalculationListener {
+
+        final Map<Integer, LoanScheduleModel> calculated = new TreeMap<>();
+        final Map<Integer, RuntimeException> failed = new TreeMap<>();
+
+        @Override
+        public void calculated(final int requestIndex, final LoanScheduleModel loanSchedule) {
+            if (this.calculated.containsKey(requestIndex) || this.failed.containsKey(requestIndex)) {
+                fail("request " + requestIndex + " reported twice");
+            }
+            this.calculated.put(requestIndex, loanSchedule);
+        }
+
+        @Override
+        public void failed(final int requestIndex, final RuntimeException exception) {
+            if (this.calculated.containsKey(requestIndex) || this.failed.containsKey(requestIndex)) {
+                fail("request " + requestIndex + " reported twice");
+            }
+            this.failed.put(requestIndex, exception);
+        }
+    }
+
+    /**
+     * Prepares a generation with the given generator for every request whose
+     * product is 1 and fails the others the way a missing product does.
+     */
+    private LoanScheduleCalculationPlatformServiceImpl calculationService(final LoanScheduleGenerator loanScheduleGenerator) {
+        return new LoanScheduleCalculationPlatformServiceImpl(null, null, null, null, null, null, null, null, null,
+                this.configurationDomainService, null, null, this.loanScheduleGenerationExecutor) {
+
+            @Override
+            LoanScheduleGeneration prepareLoanScheduleGeneration(final JsonElement request, final LoanScheduleReferenceData referenceData,
+                    final boolean isMeetingMandatoryForJLGLoans) {
+                final long productId = request.getAsJsonObject().get("productId").getAsLong();
+                if (productId != 1L) { throw new LoanProductNotFoundException(productId); }
+                return new LoanScheduleGeneration(loanScheduleGenerator, null, null, null, null);
+            }
+        };
+    }
+
+    @Test
+    public void everyRequestIsReportedOnce() {
+        final LoanScheduleGenerator loanScheduleGenerator = mock(LoanScheduleGenerator.class);
+        final RecordingListener listener = new RecordingListener();
+
+        calculationService(loanScheduleGenerator).calculateLoanSchedules(requests(1L, 2L, 1L, 1L, 1L), listener);
+
+        assertEquals("[0, 2, 3, 4]", listener.calculated.keySet().toString());
+        assertEquals("[1]", listener.failed.keySet().toString());
+        assertTrue(listener.failed.get(1) instanceof LoanProductNotFoundException);
+    }
+
+    @Test
+    public void generationFailureIsReportedForItsRequest() {
+        final LoanScheduleGenerator loanScheduleGenerator = mock(LoanScheduleGenerator.class);
+        final IllegalArgumentException generationFailure = new IllegalArgumentException();
+        when(loanScheduleGenerator.generate(null, null, null, null)).thenThrow(generationFailure);
+        final RecordingListener listener = new RecordingListener();
+
+        calculationService(loanScheduleGenerator).calculateLoanSchedules(requests(1L), listener);
+
+        assertTrue(listener.calculated.isEmpty());
+        assertSame(generationFailure, listener.failed.get(0));
+    }
+
+    @Test
+    public void interruptedCalculationFailsTheRequestsNotReportedYet() throws Exception {
+        final CountDownLatch generationInterrupted = new CountDownLatch(1);
+        final LoanScheduleGenerator loanScheduleGenerator = mock(LoanScheduleGenerator.class);
+        when(loanScheduleGenerator.generate(null, null, null, null)).thenAnswer(new Answer<LoanScheduleModel>() {
+
+            @Override
+            public LoanScheduleModel answer(@SuppressWarnings("unused") final InvocationOnMock invocation) {
+                try {
+                    new CountDownLatch(1).await();
+                } catch (final InterruptedException e) {
+                    generationInterrupted.countDown();
+                }
+                return null;
+            }
+        });
+        final RecordingListener listener = new RecordingListener();
+
+        // with one generation thread two schedules may be in flight, so the
+        // calculation waits after the second request and notices the interrupt
+        Thread.currentThread().interrupt();
+        calculationService(loanScheduleGenerator).calculateLoanSchedules(requests(1L, 1L, 1L, 1L), listener);
+
+        assertTrue(Thread.interrupted());
+        assertTrue(listener.calculated.isEmpty());
+        assertEquals("[0, 1, 2, 3]", listener.failed.keySet().toString());
+        for (final RuntimeException failure : listener.failed.values()) {
+            assertTrue(failure instanceof PlatformInternalServerException);
+        }
+        assertTrue(generationInterrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    private static JsonArray requests(final Long... productIds) {
+        final JsonArray requests = new JsonArray();
+        for (final Long productId : productIds) {
+            final JsonObject request = new JsonObject();
+            request.addProperty("productId", productId);
+            requests.add(request);
+        }
+        return requests;
+    }
+}
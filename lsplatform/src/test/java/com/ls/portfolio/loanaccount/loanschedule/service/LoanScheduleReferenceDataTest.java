@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.loanschedule.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ls.organisation.holiday.domain.Holiday;
+import com.ls.organisation.holiday.domain.HolidayRepository;
+import com.ls.organisation.office.domain.Office;
+import com.ls.portfolio.calendar.domain.Calendar;
+import com.ls.portfolio.calendar.domain.CalendarRepository;
+import com.ls.portfolio.calendar.exception.CalendarNotFoundException;
+import com.ls.portfolio.group.domain.Group;
+import com.ls.portfolio.group.domain.GroupRepositoryWrapper;
+
+/**
+ * Checks that the {@link LoanScheduleAssembler} looks reference data up once
+ * per {@link LoanScheduleReferenceData} and that the holidays loaded once per
+ * office are narrowed down to the dates asked for.
+ */
+public class LoanScheduleReferenceDataTest {
+
+    private final LocalDate july2nd = new LocalDate(2012, 7, 2);
+
+    private CalendarRepository calendarRepository;
+    private HolidayRepository holidayRepository;
+    private GroupRepositoryWrapper groupRepository;
+    private LoanScheduleAssembler loanScheduleAssembler;
+
+    @Before
+    public void setUp() {
+        this.calendarRepository = mock(CalendarRepository.class);
+        this.holidayRepository = mock(HolidayRepository.class);
+        this.groupRepository = mock(GroupRepositoryWrapper.class);
+        this.loanScheduleAssembler = new LoanScheduleAssembler(null, null, null, null, null, null, this.calendarRepository,
+                this.holidayRepository, null, null, this.groupRepository, null, null, null, null, null, null);
+    }
+
+    @Test
+    public void groupIsLookedUpOncePerReferenceData() throws Exception {
+        final Group group = groupOfOffice(7L);
+        when(this.groupRepository.findOneWithNotFoundDetection(3L)).thenReturn(group);
+        final LoanScheduleReferenceData referenceData = new LoanScheduleReferenceData();
+
+        assertSame(group, this.loanScheduleAssembler.findGroup(3L, referenceData));
+        assertEquals(Long.valueOf(7L), this.loanScheduleAssembler.findOfficeId(null, 3L, referenceData));
+        assertEquals(Long.valueOf(7L), this.loanScheduleAssembler.findOfficeId(null, 3L, referenceData));
+
+        verify(this.groupRepository, times(1)).findOneWithNotFoundDetection(3L);
+    }
+
+    @Test
+    public void calendarIsLookedUpOncePerReferenceData() {
+        final Calendar calendar = mock(Calendar.class);
+        when(this.calendarRepository.findOne(5L)).thenReturn(calendar);
+        final LoanScheduleReferenceData referenceData = new LoanScheduleReferenceData();
+
+        assertSame(calendar, this.loanScheduleAssembler.findCalendar(5L, referenceData));
+        assertSame(calendar, this.loanScheduleAssembler.findCalendar(5L, referenceData));
+        assertSame(calendar, this.loanScheduleAssembler.findCalendar(5L, new LoanScheduleReferenceData()));
+
+        verify(this.calendarRepository, times(2)).findOne(5L);
+    }
+
+    @Test(expected = CalendarNotFoundException.class)
+    public void missingCalendarIsNotCached() {
+        final LoanScheduleReferenceData referenceData = new LoanScheduleReferenceData();
+        try {
+            this.loanScheduleAssembler.findCalendar(5L, referenceData);
+        } finally {
+            assertTrue(referenceData.calendarsById().isEmpty());
+        }
+    }
+
+    @Test
+    public void holidaysAreReloadedOnlyForAnEarlierDate() {
+        final Holiday holiday = holiday(this.july2nd.plusDays(10), this.july2nd.plusDays(12));
+        when(this.holidayRepository.findByOfficeIdAndGreaterThanDate(eq(7L), any(Date.class), anyInt())).thenReturn(
+                Collections.singletonList(holiday));
+        final LoanScheduleReferenceData referenceData = new LoanScheduleReferenceData();
+
+        assertEquals(Collections.singletonList(holiday), this.loanScheduleAssembler.findHolidays(7L, this.july2nd, referenceData));
+        assertEquals(Collections.singletonList(holiday),
+                this.loanScheduleAssembler.findHolidays(7L, this.july2nd.plusDays(11), referenceData));
+        assertTrue(this.loanScheduleAssembler.findHolidays(7L, this.july2nd.plusDays(13), referenceData).isEmpty());
+        verify(this.holidayRepository, times(1)).findByOfficeIdAndGreaterThanDate(eq(7L), any(Date.class), anyInt());
+
+        this.loanScheduleAssembler.findHolidays(7L, this.july2nd.minusDays(1), referenceData);
+        verify(this.holidayRepository, times(2)).findByOfficeIdAndGreaterThanDate(eq(7L), any(Date.class), anyInt());
+    }
+
+    @Test
+    public void officeHolidaysCoverTheirFromDateAndLater() {
+        final LoanScheduleReferenceData.OfficeHolidays officeHolidays = new LoanScheduleReferenceData.OfficeHolidays(this.july2nd,
+                Collections.<Holiday> emptyList());
+
+        assertFalse(officeHolidays.covers(this.july2nd.minusDays(1)));
+        assertTrue(officeHolidays.covers(this.july2nd));
+        assertTrue(officeHolidays.covers(this.july2nd.plusDays(1)));
+    }
+
+    @Test
+    public void holidaysFromKeepsTheHolidaysEndingOnOrAfterTheDate() {
+        final Holiday endedBefore = holiday(this.july2nd.minusDays(5), this.july2nd.minusDays(1));
+        final Holiday endsOnDate = holiday(this.july2nd.minusDays(3), this.july2nd);
+        final Holiday spansDate = holiday(this.july2nd.minusDays(1), this.july2nd.plusDays(1));
+        final Holiday startsAfter = holiday(this.july2nd.plusDays(4), this.july2nd.plusDays(6));
+        final LoanScheduleReferenceData.OfficeHolidays officeHolidays = new LoanScheduleReferenceData.OfficeHolidays(
+                this.july2nd.minusDays(10), Arrays.asList(endedBefore, endsOnDate, spansDate, startsAfter));
+
+        final List<Holiday> holidays = officeHolidays.holidaysFrom(this.july2nd);
+
+        assertEquals(Arrays.asList(endsOnDate, spansDate, startsAfter), holidays);
+    }
+
+    private static Holiday holiday(final LocalDate fromDate, final LocalDate toDate) {
+        final Holiday holiday = mock(Holiday.class);
+        when(holiday.getFromDateLocalDate()).thenReturn(fromDate);
+        when(holiday.getToDateLocalDate()).thenReturn(toDate);
+        return holiday;
+    }
+
+    private static Group groupOfOffice(final Long officeId) throws Exception {
+        final Office office = mock(Office.class);
+        when(office.getId()).thenReturn(officeId);
+        final Constructor<Group> constructor = Group.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        final Group group = constructor.newInstance();
+        final Field field = Group.class.getDeclaredField("office");
+        field.setAccessible(true);
+        field.set(group, office);
+        return group;
+    }
+}
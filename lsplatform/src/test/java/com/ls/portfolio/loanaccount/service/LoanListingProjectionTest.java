@@ -0,0 +1,243 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ls.infrastructure.core.service.Page;
+import com.ls.infrastructure.core.service.SearchParameters;
+import com.ls.portfolio.loanaccount.domain.Loan;
+import com.ls.portfolio.loanaccount.domain.LoanRepository;
+
+/**
+ * Checks the loan list queries {@link LoanListingProjection} builds on
+ * <code>m_loan_listing</code>, and that the rows of the loans it is told
+ * about are written again once their changes are saved.
+ */
+public class LoanListingProjectionTest {
+
+    private static final String OFFICE_IDS = "1,2";
+    private static final String FROM_OFFICES = "select SQL_CALC_FOUND_ROWS ll.loan_id from m_loan_listing ll"
+            + " where (ll.office_id in (1,2) or ll.transfer_to_office_id in (1,2))";
+
+    private RecordingJdbcTemplate jdbcTemplate;
+    private LoanRepository loanRepository;
+    private LoanListingProjection projection;
+
+    @Before
+    public void setUp() {
+        this.jdbcTemplate = new RecordingJdbcTemplate();
+        this.loanRepository = mock(LoanRepository.class);
+        this.projection = new LoanListingProjection(this.jdbcTemplate, this.loanRepository);
+    }
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.unbindResourceIfPossible(this.projection);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void onlyServesTheListWhenItHoldsTheColumnsToSortOn() {
+        assertTrue(this.projection.canRetrieveLoanIds(loans(null, null, null, null)));
+        assertTrue(this.projection.canRetrieveLoanIds(loans("accountNo", "DESC", null, null)));
+        assertTrue(this.projection.canRetrieveLoanIds(loans(" l.external_id ", " asc ", null, null)));
+        assertTrue(this.projection.canRetrieveLoanIds(loans("id", null, null, null)));
+
+        assertFalse(this.projection.canRetrieveLoanIds(SearchParameters.forLoans("l.loan_status_id = 300", null, null, null, null, null,
+                null)));
+        assertFalse(this.projection.canRetrieveLoanIds(loans("l.principal_amount", null, null, null)));
+        assertFalse(this.projection.canRetrieveLoanIds(loans("id", "descending", null, null)));
+        assertFalse(this.projection.canRetrieveLoanIds(loans("id", "asc, (select 1)", null, null)));
+    }
+
+    @Test
+    public void pagesTheLoansOfTheOfficesByDefault() {
+        this.jdbcTemplate.loanIds = Arrays.asList(5L, 3L);
+        this.jdbcTemplate.foundRows = 12;
+
+        final Page<Long> page = this.projection.retrieveLoanIds(OFFICE_IDS, loans(null, null, null, null));
+
+        assertEquals(FROM_OFFICES + " limit 200", this.jdbcTemplate.query);
+        assertEquals(0, this.jdbcTemplate.args.length);
+        assertEquals(Arrays.asList(5L, 3L), page.getPageItems());
+        assertEquals(12, page.getTotalFilteredRecords());
+    }
+
+    @Test
+    public void ordersOnTheProjectionColumnsWithTheLoanIdAsTieBreaker() {
+        this.projection.retrieveLoanIds(OFFICE_IDS, loans("accountNo", "desc", 20, 10));
+        assertEquals(FROM_OFFICES + " order by ll.account_no desc, ll.loan_id limit 10 offset 20", this.jdbcTemplate.query);
+
+        this.projection.retrieveLoanIds(OFFICE_IDS, loans("l.external_id", null, null, 0));
+        assertEquals(FROM_OFFICES + " order by ll.external_id, ll.loan_id", this.jdbcTemplate.query);
+
+        this.projection.retrieveLoanIds(OFFICE_IDS, loans("l.id", "ASC", 5, 50));
+        assertEquals(FROM_OFFICES + " order by ll.loan_id ASC limit 50 offset 5", this.jdbcTemplate.query);
+    }
+
+    @Test
+    public void bindsTheExternalIdAndAccountNumber() {
+        this.projection.retrieveLoanIds(OFFICE_IDS, SearchParameters.forLoans(null, "ext-1", null, null, null, null, "000000007"));
+
+        assertEquals(FROM_OFFICES + " and ll.external_id = ? and ll.account_no = ? limit 200", this.jdbcTemplate.query);
+        assertEquals(Arrays.<Object> asList("ext-1", "000000007"), Arrays.asList(this.jdbcTemplate.args));
+    }
+
+    @Test
+    public void writesTheRowsOfTheMarkedLoansOnceBeforeCommit() {
+        beginTransaction();
+        final Loan loan = loan(1L);
+        this.projection.loanChanged(loan);
+        this.projection.loanChanged(2L);
+        this.projection.loanChanged(loan);
+        this.projection.loanChanged(3L);
+        this.projection.loanChanged(2L);
+        assertTrue(this.jdbcTemplate.updates.isEmpty());
+
+        commit();
+        verify(this.loanRepository).flush();
+        assertRowsWritten("delete from m_loan_listing where loan_id in (2,3,1)", " where l.id in (2,3,1)");
+    }
+
+    @Test
+    public void writesOnlyTheColumnsTheListFiltersAndSortsOn() {
+        this.projection.loanChanged(4L);
+
+        assertEquals("insert into m_loan_listing (loan_id, account_no, external_id, client_id, office_id, transfer_to_office_id) "
+                + "select l.id, l.account_no, l.external_id, l.client_id, c.office_id, c.transfer_to_office_id "
+                + "from m_loan l join m_client c on c.id = l.client_id where l.id in (4)", this.jdbcTemplate.updates.get(1));
+    }
+
+    @Test
+    public void writesTheRowOfANewLoanOnceItIsInserted() {
+        beginTransaction();
+        final Loan loan = mock(Loan.class);
+        this.projection.loanChanged(loan);
+
+        commit();
+        final InOrder inOrder = inOrder(this.loanRepository, loan);
+        inOrder.verify(this.loanRepository).flush();
+        inOrder.verify(loan).getId();
+    }
+
+    @Test
+    public void writesTheRowsOfAllLoansOfATransferredClient() {
+        beginTransaction();
+        this.projection.loansOfClientChanged(7L);
+        assertTrue(this.jdbcTemplate.updates.isEmpty());
+
+        commit();
+        assertRowsWritten("delete from m_loan_listing where client_id in (7)", " where l.client_id in (7)");
+    }
+
+    @Test
+    public void writesTheRowRightAwayOutsideOfATransaction() {
+        this.projection.loanChanged(9L);
+
+        assertRowsWritten("delete from m_loan_listing where loan_id in (9)", " where l.id in (9)");
+    }
+
+    private void assertRowsWritten(final String delete, final String insertCriteria) {
+        assertEquals(2, this.jdbcTemplate.updates.size());
+        assertEquals(delete, this.jdbcTemplate.updates.get(0));
+        assertTrue(this.jdbcTemplate.updates.get(1), this.jdbcTemplate.updates.get(1).startsWith("insert into m_loan_listing "));
+        assertTrue(this.jdbcTemplate.updates.get(1), this.jdbcTemplate.updates.get(1).endsWith(insertCriteria));
+    }
+
+    private static SearchParameters loans(final String orderBy, final String sortOrder, final Integer offset, final Integer limit) {
+        return SearchParameters.forLoans(null, null, offset, limit, orderBy, sortOrder, null);
+    }
+
+    private static Loan loan(final Long id) {
+        final Loan loan = mock(Loan.class);
+        when(loan.getId()).thenReturn(id);
+        return loan;
+    }
+
+    private static void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    private static void commit() {
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.beforeCommit(false);
+        }
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+    /**
+     * Keeps the statements instead of running them.
+     */
+    private static final class RecordingJdbcTemplate extends JdbcTemplate {
+
+        private final List<String> updates = new ArrayList<>();
+        private List<Long> loanIds = Collections.emptyList();
+        private int foundRows;
+        private String query;
+        private Object[] args;
+
+        @Override
+        public int update(final String sql) {
+            this.updates.add(sql);
+            return 1;
+        }
+
+        @Override
+        public <T> List<T> queryForList(final String sql, final Class<T> elementType, final Object... queryArgs) {
+            this.query = sql;
+            this.args = queryArgs;
+            final List<T> result = new ArrayList<>(this.loanIds.size());
+            for (final Long loanId : this.loanIds) {
+                result.add(elementType.cast(loanId));
+            }
+            return result;
+        }
+
+        @Override
+        @Deprecated
+        public int queryForInt(final String sql) {
+            assertEquals("SELECT FOUND_ROWS()", sql);
+            return this.foundRows;
+        }
+    }
+}
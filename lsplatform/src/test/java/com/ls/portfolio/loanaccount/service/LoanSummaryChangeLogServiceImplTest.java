@@ -0,0 +1,235 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import com.ls.portfolio.common.service.BusinessEventNotifierService;
+
+/**
+ * Runs the readers of the loan change log against changes whose transactions
+ * commit in another order than their ids were handed out in.
+ */
+public class LoanSummaryChangeLogServiceImplTest {
+
+    private static final String SUMMARY = LoanSummaryChangeLogService.LOAN_SUMMARY_READER;
+    private static final String ARREARS = LoanSummaryChangeLogService.LOAN_ARREARS_AGEING_READER;
+
+    private ChangeLogTable changeLog;
+    private LoanSummaryChangeLogService service;
+
+    @Before
+    public void setUp() {
+        this.changeLog = new ChangeLogTable();
+        this.service = new LoanSummaryChangeLogServiceImpl(this.changeLog, mock(BusinessEventNotifierService.class));
+    }
+
+    @Test
+    public void aChangeCommittedAfterAHigherOneWasReadIsStillRead() {
+        this.changeLog.transaction = "first";
+        this.service.markLoanSummaryChanged(1L);
+        this.changeLog.transaction = "second";
+        this.service.markLoanSummaryChanged(2L);
+        this.changeLog.commit("second");
+
+        LoanChanges changes = this.service.retrieveChanges(SUMMARY, 0L, 10);
+        assertEquals(Arrays.asList(2L), changes.getLoanIds());
+        this.service.markChangesRead(changes);
+
+        this.changeLog.commit("first");
+        changes = this.service.retrieveChanges(SUMMARY, 0L, 10);
+        assertEquals(Arrays.asList(1L), changes.getLoanIds());
+        this.service.markChangesRead(changes);
+        assertTrue(this.service.retrieveChanges(SUMMARY, 0L, 10).isEmpty());
+    }
+
+    @Test
+    public void aLateChangeOfALoanAlreadyReadIsLeftForTheNextRun() {
+        this.changeLog.transaction = "first";
+        this.service.markLoanSummaryChanged(1L);
+        this.changeLog.transaction = "second";
+        this.service.markLoanSummaryChanged(1L);
+        this.changeLog.commit("second");
+
+        final LoanChanges changes = this.service.retrieveChanges(SUMMARY, 0L, 10);
+        this.changeLog.commit("first");
+        this.service.markChangesRead(changes);
+
+        assertEquals(Arrays.asList(1L), this.service.retrieveChanges(SUMMARY, 0L, 10).getLoanIds());
+    }
+
+    @Test
+    public void eachReaderReadsAndRemovesItsOwnChanges() {
+        this.changeLog.transaction = "first";
+        this.service.markLoanSummariesChanged(Arrays.asList(1L, 2L));
+        this.changeLog.commit("first");
+
+        this.service.markChangesRead(this.service.retrieveChanges(SUMMARY, 0L, 10));
+        assertTrue(this.service.retrieveChanges(SUMMARY, 0L, 10).isEmpty());
+
+        this.changeLog.officeIdsByLoan.put(1L, 5L);
+        this.changeLog.officeIdsByLoan.put(2L, 6L);
+        final LoanChanges changes = this.service.retrieveChangesOfOffice(ARREARS, 5L);
+        assertEquals(Arrays.asList(1L), changes.getLoanIds());
+        this.service.markChangesRead(changes);
+        assertEquals(Arrays.asList(2L), this.service.retrieveChanges(ARREARS, 0L, 10).getLoanIds());
+    }
+
+    @Test
+    public void pagesOnLoansWithAllTheirChanges() {
+        this.changeLog.transaction = "first";
+        this.service.markLoanSummariesChanged(Arrays.asList(3L, 1L, 2L));
+        this.changeLog.transaction = "second";
+        this.service.markLoanSummariesChanged(Arrays.asList(1L));
+        this.changeLog.commit("first");
+        this.changeLog.commit("second");
+
+        final LoanChanges firstPage = this.service.retrieveChanges(SUMMARY, 0L, 2);
+        assertEquals(Arrays.asList(1L, 2L), firstPage.getLoanIds());
+        assertEquals(3, firstPage.getChangeIds().size());
+        final LoanChanges secondPage = this.service.retrieveChanges(SUMMARY, firstPage.getLastLoanId(), 2);
+        assertEquals(Arrays.asList(3L), secondPage.getLoanIds());
+        assertTrue(this.service.retrieveChanges(SUMMARY, secondPage.getLastLoanId(), 2).isEmpty());
+    }
+
+    /**
+     * Keeps <code>m_loan_summary_change_log</code> in memory. Rows get their
+     * id when they are inserted but are only seen by readers once the
+     * transaction which inserted them commits, as with InnoDB.
+     */
+    private static final class ChangeLogTable extends JdbcTemplate {
+
+        private static final List<String> READERS = Arrays.asList(SUMMARY, ARREARS);
+
+        private final TreeMap<Long, Object[]> rows = new TreeMap<>();
+        private final Map<Long, String> uncommitted = new HashMap<>();
+        private final Map<Long, Long> officeIdsByLoan = new HashMap<>();
+        private long lastId;
+        private String transaction;
+
+        void commit(final String committed) {
+            this.uncommitted.values().removeAll(Collections.singleton(committed));
+        }
+
+        @Override
+        public int[] batchUpdate(final String sql, final List<Object[]> batchArgs) {
+            assertTrue(sql, sql.startsWith("insert into m_loan_summary_change_log (reader, loan_id) select r.reader, ?"));
+            for (final Object[] args : batchArgs) {
+                for (final String reader : READERS) {
+                    this.rows.put(++this.lastId, new Object[] { reader, args[0] });
+                    this.uncommitted.put(this.lastId, this.transaction);
+                }
+            }
+            return new int[batchArgs.size()];
+        }
+
+        @Override
+        public int update(final String sql) {
+            final String prefix = "delete from m_loan_summary_change_log where id in (";
+            assertTrue(sql, sql.startsWith(prefix));
+            int deleted = 0;
+            for (final String id : sql.substring(prefix.length(), sql.length() - 1).split(",")) {
+                deleted += this.rows.remove(Long.valueOf(id)) == null ? 0 : 1;
+            }
+            return deleted;
+        }
+
+        @Override
+        public <T> T query(final String sql, final ResultSetExtractor<T> extractor, final Object... args) {
+            final String reader = (String) args[0];
+            final TreeSet<Long> loanIds = new TreeSet<>();
+            if (sql.contains("ifnull(mc.office_id, mg.office_id) = ?")) {
+                for (final Long loanId : visibleLoanIds(reader, 0L)) {
+                    if (args[1].equals(this.officeIdsByLoan.get(loanId))) {
+                        loanIds.add(loanId);
+                    }
+                }
+            } else {
+                for (final Long loanId : visibleLoanIds(reader, (Long) args[1])) {
+                    if (loanIds.size() < (Integer) args[2]) {
+                        loanIds.add(loanId);
+                    }
+                }
+            }
+            final List<long[]> result = new ArrayList<>();
+            for (final Long loanId : loanIds) {
+                for (final Map.Entry<Long, Object[]> row : this.rows.entrySet()) {
+                    if (isVisible(row, reader) && loanId.equals(row.getValue()[1])) {
+                        result.add(new long[] { row.getKey(), loanId });
+                    }
+                }
+            }
+            try {
+                return extractor.extractData(resultSetOf(result));
+            } catch (final SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private TreeSet<Long> visibleLoanIds(final String reader, final Long lastLoanId) {
+            final TreeSet<Long> loanIds = new TreeSet<>();
+            for (final Map.Entry<Long, Object[]> row : this.rows.entrySet()) {
+                if (isVisible(row, reader) && (Long) row.getValue()[1] > lastLoanId) {
+                    loanIds.add((Long) row.getValue()[1]);
+                }
+            }
+            return loanIds;
+        }
+
+        private boolean isVisible(final Map.Entry<Long, Object[]> row, final String reader) {
+            return !this.uncommitted.containsKey(row.getKey()) && reader.equals(row.getValue()[0]);
+        }
+
+        private static ResultSet resultSetOf(final List<long[]> result) {
+            return mock(ResultSet.class, new Answer<Object>() {
+
+                private int row = -1;
+
+                @Override
+                public Object answer(final InvocationOnMock invocation) {
+                    if ("next".equals(invocation.getMethod().getName())) { return ++this.row < result.size(); }
+                    if ("getLong".equals(invocation.getMethod().getName())) {
+                        return "id".equals(invocation.getArguments()[0]) ? result.get(this.row)[0] : result.get(this.row)[1];
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+}
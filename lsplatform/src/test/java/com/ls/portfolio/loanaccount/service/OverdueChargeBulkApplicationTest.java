@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.ls.portfolio.loanaccount.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.ls.infrastructure.configuration.domain.ConfigurationDomainService;
+import com.ls.infrastructure.core.api.JsonCommand;
+import com.ls.infrastructure.core.domain.FineractPlatformTenant;
+import com.ls.infrastructure.core.domain.FineractPlatformTenantConnection;
+import com.ls.infrastructure.core.serialization.FromJsonHelper;
+import com.ls.infrastructure.core.service.DateUtils;
+import com.ls.infrastructure.core.service.ThreadLocalContextUtil;
+import com.ls.portfolio.charge.domain.Charge;
+import com.ls.portfolio.charge.domain.ChargeRepositoryWrapper;
+import com.ls.portfolio.common.domain.PeriodFrequencyType;
+import com.ls.portfolio.loanaccount.data.OverdueChargeTemplates;
+import com.ls.portfolio.loanaccount.domain.Loan;
+import com.ls.portfolio.loanaccount.loanschedule.data.OverdueLoanScheduleData;
+import com.ls.portfolio.loanproduct.data.LoanOverdueDTO;
+
+/**
+ * Runs the overdue penalty job's bulk path and its per loan path on the same
+ * overdue installments and checks that they apply the same penalties, on
+ * the same dates, to the same installments.
+ */
+public class OverdueChargeBulkApplicationTest {
+
+    private static final String DATE_FORMAT = "dd MMMM yyyy";
+    private static final Long PENALTY_WAIT_PERIOD = 2L;
+    private static final Long PENALTY_POSTING_WAIT_PERIOD = 1L;
+    private static final Long FLAT_PENALTY_ID = 1L;
+    private static final Long WEEKLY_PENALTY_ID = 2L;
+
+    private LocalDate today;
+    private ChargeRepositoryWrapper chargeRepository;
+    private LoanChargeReadPlatformService loanChargeReadPlatformService;
+    private List<String> appliedPenalties;
+
+    @Before
+    public void setUp() {
+        ThreadLocalContextUtil.setTenant(new FineractPlatformTenant(1L, "default", "Default", "Asia/Kolkata",
+                mock(FineractPlatformTenantConnection.class)));
+        this.today = DateUtils.getLocalDateOfTenant();
+        this.appliedPenalties = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void bulkPathAppliesTheSamePenaltiesAsThePerLoanPath() {
+        final Map<Long, Collection<OverdueLoanScheduleData>> overdueInstallmentsByLoan = overdueInstallments();
+
+        final LoanWritePlatformServiceJpaRepositoryImpl perLoanService = service();
+        for (final Map.Entry<Long, Collection<OverdueLoanScheduleData>> entry : overdueInstallmentsByLoan.entrySet()) {
+            perLoanService.applyOverdueChargesForLoan(entry.getKey(), entry.getValue());
+        }
+        final List<String> perLoanPenalties = new ArrayList<>(this.appliedPenalties);
+        Collections.sort(perLoanPenalties);
+
+        this.appliedPenalties.clear();
+        final LoanWritePlatformServiceJpaRepositoryImpl bulkService = service();
+        bulkService.applyOverdueChargesForLoans(overdueInstallmentsByLoan, bulkService.prepareOverdueChargeTemplates());
+        final List<String> bulkPenalties = new ArrayList<>(this.appliedPenalties);
+        Collections.sort(bulkPenalties);
+
+        assertFalse(bulkPenalties.isEmpty());
+        assertEquals(perLoanPenalties, bulkPenalties);
+    }
+
+    @Test
+    public void bulkPathLoadsEachPenaltyChargeOnce() {
+        final LoanWritePlatformServiceJpaRepositoryImpl bulkService = service();
+        bulkService.applyOverdueChargesForLoans(overdueInstallments(), bulkService.prepareOverdueChargeTemplates());
+
+        verify(this.chargeRepository, times(1)).findOneWithNotFoundDetection(FLAT_PENALTY_ID);
+        verify(this.chargeRepository, times(1)).findOneWithNotFoundDetection(WEEKLY_PENALTY_ID);
+    }
+
+    /**
+     * Two loans with a flat and a weekly penalty on their overdue
+     * installments, some of them already charged.
+     */
+    private Map<Long, Collection<OverdueLoanScheduleData>> overdueInstallments() {
+        final Map<Long, Collection<OverdueLoanScheduleData>> overdueInstallmentsByLoan = new LinkedHashMap<>();
+        overdueInstallmentsByLoan.put(10L, Arrays.asList(overdueInstallment(10L, FLAT_PENALTY_ID, 40, 1),
+                overdueInstallment(10L, WEEKLY_PENALTY_ID, 40, 1), overdueInstallment(10L, WEEKLY_PENALTY_ID, 10, 2)));
+        overdueInstallmentsByLoan.put(20L, Arrays.asList(overdueInstallment(20L, FLAT_PENALTY_ID, 25, 3),
+                overdueInstallment(20L, WEEKLY_PENALTY_ID, 25, 3), overdueInstallment(20L, FLAT_PENALTY_ID, 1, 4)));
+        return overdueInstallmentsByLoan;
+    }
+
+    private OverdueLoanScheduleData overdueInstallment(final Long loanId, final Long chargeId, final int daysOverdue,
+            final Integer periodNumber) {
+        final String dueDate = this.today.minusDays(daysOverdue).toString(DATE_FORMAT);
+        return new OverdueLoanScheduleData(loanId, chargeId, dueDate, BigDecimal.TEN, DATE_FORMAT, "en", BigDecimal.valueOf(100),
+                BigDecimal.ONE, periodNumber);
+    }
+
+    /**
+     * Frequency numbers of the penalties already on the installments: the
+     * flat penalty of loan 10 and the first two weekly penalties of loan 20.
+     */
+    private Map<String, Collection<Integer>> appliedFrequencyNumbers() {
+        final Map<String, Collection<Integer>> frequencyNumbers = new HashMap<>();
+        frequencyNumbers.put(OverdueLoanScheduleData.installmentChargeKey(10L, FLAT_PENALTY_ID, 1), Arrays.asList(1));
+        frequencyNumbers.put(OverdueLoanScheduleData.installmentChargeKey(20L, WEEKLY_PENALTY_ID, 3), Arrays.asList(1, 2));
+        return frequencyNumbers;
+    }
+
+    private LoanWritePlatformServiceJpaRepositoryImpl service() {
+        this.chargeRepository = mock(ChargeRepositoryWrapper.class);
+        final Charge flatPenalty = penalty(FLAT_PENALTY_ID, null, null);
+        final Charge weeklyPenalty = penalty(WEEKLY_PENALTY_ID, PeriodFrequencyType.WEEKS.getValue(), 1);
+        when(this.chargeRepository.findOneWithNotFoundDetection(FLAT_PENALTY_ID)).thenReturn(flatPenalty);
+        when(this.chargeRepository.findOneWithNotFoundDetection(WEEKLY_PENALTY_ID)).thenReturn(weeklyPenalty);
+
+        final Map<String, Collection<Integer>> frequencyNumbers = appliedFrequencyNumbers();
+        this.loanChargeReadPlatformService = mock(LoanChargeReadPlatformService.class);
+        when(this.loanChargeReadPlatformService.retrieveOverdueInstallmentChargeFrequencyNumbers(any(Collection.class))).thenReturn(
+                frequencyNumbers);
+        when(this.loanChargeReadPlatformService.retrieveOverdueInstallmentChargeFrequencyNumber(anyLong(), anyLong(), anyInt()))
+                .thenAnswer(new Answer<Collection<Integer>>() {
+
+                    @Override
+                    public Collection<Integer> answer(final InvocationOnMock invocation) {
+                        final Object[] arguments = invocation.getArguments();
+                        final Collection<Integer> applied = frequencyNumbers.get(OverdueLoanScheduleData.installmentChargeKey(
+                                (Long) arguments[0], (Long) arguments[1], (Integer) arguments[2]));
+                        return applied == null ? Collections.<Integer> emptyList() : applied;
+                    }
+                });
+
+        final ConfigurationDomainService configurationDomainService = mock(ConfigurationDomainService.class);
+        when(configurationDomainService.retrievePenaltyWaitPeriod()).thenReturn(PENALTY_WAIT_PERIOD);
+        when(configurationDomainService.retrieveGraceOnPenaltyPostingPeriod()).thenReturn(PENALTY_POSTING_WAIT_PERIOD);
+
+        final LoanWritePlatformServiceJpaRepositoryImpl service = spy(new LoanWritePlatformServiceJpaRepositoryImpl(null, null, null,
+                null, null, null, null, this.chargeRepository, null, null, null, null, null, null, configurationDomainService, null,
+                null, null, null, null, this.loanChargeReadPlatformService, null, new FromJsonHelper(), null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null));
+        doAnswer(new Answer<LoanOverdueDTO>() {
+
+            @Override
+            public LoanOverdueDTO answer(final InvocationOnMock invocation) {
+                final Object[] arguments = invocation.getArguments();
+                final Charge chargeDefinition = (Charge) arguments[1];
+                final JsonCommand command = (JsonCommand) arguments[3];
+                final LocalDate dueDate = (LocalDate) arguments[7];
+                @SuppressWarnings("unchecked")
+                final Map<Integer, LocalDate> scheduleDates = (Map<Integer, LocalDate>) arguments[8];
+                for (final Map.Entry<Integer, LocalDate> entry : new TreeMap<>(scheduleDates).entrySet()) {
+                    OverdueChargeBulkApplicationTest.this.appliedPenalties.add("loan " + arguments[0] + " charge "
+                            + chargeDefinition.getId() + " installment " + arguments[2] + " due " + dueDate + " amount "
+                            + command.bigDecimalValueOfParameterNamed("amount") + " penalty " + entry.getKey() + " on "
+                            + entry.getValue());
+                }
+                return new LoanOverdueDTO(null, false, dueDate, dueDate);
+            }
+        }).when(service).applyChargeToOverdueLoanInstallment(anyLong(), any(Charge.class), anyInt(), any(JsonCommand.class),
+                any(Loan.class), anyList(), anyList(), any(LocalDate.class), anyMap());
+        return service;
+    }
+
+    private Charge penalty(final Long id, final Integer feeFrequency, final Integer feeInterval) {
+        final Charge penalty = mock(Charge.class);
+        when(penalty.getId()).thenReturn(id);
+        when(penalty.feeFrequency()).thenReturn(feeFrequency);
+        when(penalty.feeInterval()).thenReturn(feeInterval);
+        return penalty;
+    }
+}